@@ -0,0 +1,381 @@
+package org.unc.lac.javapetriconcurrencymonitor.monitor;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Delivers {@link TransitionFiredEvent} objects to subscribers from dedicated dispatcher threads.
+ * The publisher only appends the event to a preallocated ring buffer, so the time it takes is independent of the subscribers.
+ *
+ * The ring buffer has a single producer, which is the thread holding the monitor, and one consumer per dispatcher thread.
+ * Every dispatcher reads every event but only delivers the ones of its transitions,
+ * so the events of a transition are always delivered in firing order by the same thread.
+ * The first dispatcher also delivers every event to the channel listening to all transitions,
+ * including the merged events the other dispatchers hand over to it.
+ *
+ * When the buffer is full the {@link OverflowPolicy} decides what to do with a new event.
+ *
+ * @see PetriMonitor#enableAsyncEventDispatch(int, int, OverflowPolicy)
+ */
+public class AsyncEventDispatcher {
+
+	/**
+	 * What to do with a new event when the buffer is full
+	 */
+	public enum OverflowPolicy {
+		/** The publisher waits until the slowest dispatcher frees a slot */
+		BLOCK,
+		/** The oldest event is overwritten. Dispatchers that didn't read it skip it and count it as dropped */
+		DROP_OLDEST,
+		/**
+		 * The event is merged with the pending events of the same transition, adding their counts,
+		 * and published as a single event as soon as there is room
+		 */
+		COALESCE
+	}
+
+	private final AtomicReferenceArray<TransitionFiredEvent> buffer;
+	private final int mask;
+	private final OverflowPolicy overflowPolicy;
+
+	/** Amount of events being written. Only ahead of {@link #published} while the producer writes a slot */
+	private final AtomicLong claimed = new AtomicLong(0);
+	/** Amount of events published */
+	private final AtomicLong published = new AtomicLong(0);
+	/** Amount of events read by each dispatcher */
+	private final AtomicLong[] consumed;
+	/** Amount of events each dispatcher missed because they were overwritten */
+	private final AtomicLong[] dropped;
+
+	/** Events merged while the buffer was full, indexed by transition. Only used with {@link OverflowPolicy#COALESCE} */
+	private final AtomicReferenceArray<TransitionFiredEvent> coalesced;
+	/** Amount of transitions with a merged event not published yet */
+	private final AtomicInteger coalescedTransitions = new AtomicInteger(0);
+	/** Merged events delivered by the other dispatchers, for the first one to deliver to the channel listening to all transitions */
+	private final Queue<HandedOverEvent> handedOver = new ConcurrentLinkedQueue<>();
+
+	private final Thread[] dispatchers;
+	/** True for the dispatchers parked waiting for events */
+	private final AtomicBoolean[] dispatcherWaiting;
+	private volatile boolean running = true;
+
+	private final Consumer<TransitionFiredEvent> transitionChannel;
+	private final Consumer<TransitionFiredEvent> allTransitionsChannel;
+
+	/**
+	 * Creates the dispatcher and starts its threads.
+	 * @param capacity the amount of events the buffer can hold. It's rounded up to a power of two
+	 * @param dispatcherThreads the amount of dispatcher threads
+	 * @param _overflowPolicy what to do with a new event when the buffer is full
+	 * @param transitionsAmount the amount of transitions whose events are dispatched
+	 * @param _transitionChannel delivers an event to the subscribers of its transition
+	 * @param _allTransitionsChannel delivers an event to the subscribers of all transitions
+	 * @throws IllegalArgumentException if capacity or dispatcherThreads are not positive or any other argument is null
+	 */
+	public AsyncEventDispatcher(int capacity, int dispatcherThreads, OverflowPolicy _overflowPolicy, int transitionsAmount,
+			Consumer<TransitionFiredEvent> _transitionChannel, Consumer<TransitionFiredEvent> _allTransitionsChannel) throws IllegalArgumentException {
+		if(capacity < 1 || dispatcherThreads < 1){
+			throw new IllegalArgumentException("Capacity and dispatcher threads must be positive");
+		}
+		if(_overflowPolicy == null || _transitionChannel == null || _allTransitionsChannel == null){
+			throw new IllegalArgumentException("Null arguments not allowed");
+		}
+		int size = Integer.highestOneBit(capacity);
+		if(size < capacity){
+			size <<= 1;
+		}
+		buffer = new AtomicReferenceArray<>(size);
+		mask = size - 1;
+		overflowPolicy = _overflowPolicy;
+		coalesced = new AtomicReferenceArray<>(transitionsAmount);
+		transitionChannel = _transitionChannel;
+		allTransitionsChannel = _allTransitionsChannel;
+
+		consumed = new AtomicLong[dispatcherThreads];
+		dropped = new AtomicLong[dispatcherThreads];
+		dispatcherWaiting = new AtomicBoolean[dispatcherThreads];
+		dispatchers = new Thread[dispatcherThreads];
+		for(int i = 0; i < dispatcherThreads; i++){
+			consumed[i] = new AtomicLong(0);
+			dropped[i] = new AtomicLong(0);
+			dispatcherWaiting[i] = new AtomicBoolean(false);
+			final int dispatcherIndex = i;
+			dispatchers[i] = new Thread(() -> dispatch(dispatcherIndex), "petri-event-dispatcher-" + i);
+			dispatchers[i].setDaemon(true);
+		}
+		for(Thread dispatcher : dispatchers){
+			dispatcher.start();
+		}
+	}
+
+	/**
+	 * Appends an event to the buffer. Only one thread may publish at a time.
+	 * @param event the event to publish
+	 */
+	public void publish(TransitionFiredEvent event) {
+		final int capacity = mask + 1;
+		if(overflowPolicy == OverflowPolicy.COALESCE){
+			// older merged events go first to keep the firing order
+			if(coalescedTransitions.get() != 0 && !flushCoalesced()
+					|| published.get() - slowestConsumed() >= capacity){
+				coalesce(event);
+				return;
+			}
+		}
+		else if(overflowPolicy == OverflowPolicy.BLOCK){
+			while(published.get() - slowestConsumed() >= capacity){
+				// the dispatchers will free a slot soon
+				LockSupport.parkNanos(this, 1000);
+			}
+		}
+		append(event);
+	}
+
+	/**
+	 * Writes the event in the next slot, overwriting the oldest one if needed
+	 * @param event the event to write
+	 */
+	private void append(TransitionFiredEvent event) {
+		final long sequence = published.get();
+		// claim the slot before writing so dispatchers reading an old event there can notice the overwrite
+		claimed.set(sequence + 1);
+		buffer.set((int) (sequence & mask), event);
+		published.set(sequence + 1);
+		for(int i = 0; i < dispatchers.length; i++){
+			if(dispatcherWaiting[i].get() && dispatcherWaiting[i].compareAndSet(true, false)){
+				LockSupport.unpark(dispatchers[i]);
+			}
+		}
+	}
+
+	/**
+	 * Merges the event with the pending one of the same transition
+	 * @param event the event that couldn't be published
+	 */
+	private void coalesce(TransitionFiredEvent event) {
+		TransitionFiredEvent previous = coalesced.getAndAccumulate(event.getIndex(), event, AsyncEventDispatcher::merge);
+		if(previous == null){
+			coalescedTransitions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Publishes the merged events while there is room in the buffer. Only called by the producer
+	 * @return true if every merged event was published
+	 */
+	private boolean flushCoalesced() {
+		final int capacity = mask + 1;
+		for(int i = 0; i < coalesced.length() && coalescedTransitions.get() != 0; i++){
+			if(coalesced.get(i) == null){
+				continue;
+			}
+			if(published.get() - slowestConsumed() >= capacity){
+				return false;
+			}
+			TransitionFiredEvent pending = coalesced.getAndSet(i, null);
+			if(pending != null){
+				coalescedTransitions.decrementAndGet();
+				append(pending);
+			}
+		}
+		return coalescedTransitions.get() == 0;
+	}
+
+	/**
+	 * @return the merge of both events, carrying the latest event's info and the sum of their counts
+	 */
+	private static TransitionFiredEvent merge(TransitionFiredEvent older, TransitionFiredEvent newer) {
+		if(older == null){
+			return newer;
+		}
+		return new TransitionFiredEvent(newer.getTransition(), older.getCount() + newer.getCount(),
+				newer.getTimestamp(), newer.getSequenceNumber());
+	}
+
+	private long slowestConsumed() {
+		long slowest = Long.MAX_VALUE;
+		for(AtomicLong dispatcherConsumed : consumed){
+			slowest = Math.min(slowest, dispatcherConsumed.get());
+		}
+		return slowest;
+	}
+
+	/**
+	 * The dispatcher threads' loop
+	 * @param dispatcherIndex the index of the running dispatcher
+	 */
+	private void dispatch(int dispatcherIndex) {
+		final int capacity = mask + 1;
+		final AtomicLong dispatcherConsumed = consumed[dispatcherIndex];
+		long sequence = 0;
+		while(true){
+			if(dispatcherIndex == 0 && !handedOver.isEmpty()){
+				deliverHandedOver(sequence);
+			}
+			if(sequence == published.get()){
+				if(overflowPolicy == OverflowPolicy.COALESCE && coalescedTransitions.get() != 0){
+					// the buffer is drained, deliver the merged events of this dispatcher's transitions
+					deliverCoalesced(dispatcherIndex);
+				}
+				if(!running && sequence == published.get() && (dispatcherIndex != 0 || isCoalescedDelivered())){
+					return;
+				}
+				waitForEvents(dispatcherIndex, sequence);
+				continue;
+			}
+			TransitionFiredEvent event = buffer.get((int) (sequence & mask));
+			long oldestAvailable = claimed.get() - capacity;
+			if(sequence < oldestAvailable){
+				// the producer overwrote the events this dispatcher didn't read
+				dropped[dispatcherIndex].addAndGet(oldestAvailable - sequence);
+				sequence = oldestAvailable;
+				dispatcherConsumed.set(sequence);
+				continue;
+			}
+			deliver(dispatcherIndex, event);
+			sequence++;
+			dispatcherConsumed.set(sequence);
+		}
+	}
+
+	private void deliverCoalesced(int dispatcherIndex) {
+		for(int i = dispatcherIndex; i < coalesced.length(); i += dispatchers.length){
+			TransitionFiredEvent pending = coalesced.getAndSet(i, null);
+			if(pending != null){
+				if(dispatcherIndex != 0){
+					// handed over before it stops counting as pending, so no newer event is published ahead of it
+					handedOver.add(new HandedOverEvent(pending, published.get()));
+					if(dispatcherWaiting[0].get() && dispatcherWaiting[0].compareAndSet(true, false)){
+						LockSupport.unpark(dispatchers[0]);
+					}
+				}
+				coalescedTransitions.decrementAndGet();
+				deliver(dispatcherIndex, pending);
+			}
+		}
+	}
+
+	/**
+	 * Delivers to the channel listening to all transitions the merged events handed over by the other dispatchers
+	 * that go before the given event. Only called by the first dispatcher
+	 * @param sequence the sequence of the next event the first dispatcher delivers
+	 */
+	private void deliverHandedOver(long sequence) {
+		HandedOverEvent next;
+		while((next = handedOver.peek()) != null && next.publishedBefore <= sequence){
+			handedOver.poll();
+			try{
+				allTransitionsChannel.accept(next.event);
+			} catch (RuntimeException e){
+				// a failing subscriber must not stop the delivery to the others
+			}
+		}
+	}
+
+	/**
+	 * @return true if every merged event was delivered to the channel listening to all transitions
+	 */
+	private boolean isCoalescedDelivered() {
+		// the merged events are handed over before they stop counting as pending
+		return coalescedTransitions.get() == 0 && handedOver.isEmpty();
+	}
+
+	private void deliver(int dispatcherIndex, TransitionFiredEvent event) {
+		try{
+			if(event.getIndex() % dispatchers.length == dispatcherIndex){
+				transitionChannel.accept(event);
+			}
+			if(dispatcherIndex == 0){
+				allTransitionsChannel.accept(event);
+			}
+		} catch (RuntimeException e){
+			// a failing subscriber must not stop the delivery to the others
+		}
+	}
+
+	/**
+	 * A merged event delivered by another dispatcher, to be delivered to the channel listening to all transitions
+	 * after the events published before it
+	 */
+	private static final class HandedOverEvent {
+		final TransitionFiredEvent event;
+		final long publishedBefore;
+
+		HandedOverEvent(TransitionFiredEvent _event, long _publishedBefore) {
+			event = _event;
+			publishedBefore = _publishedBefore;
+		}
+	}
+
+	private void waitForEvents(int dispatcherIndex, long sequence) {
+		dispatcherWaiting[dispatcherIndex].set(true);
+		// check again after flagging to avoid missing an event published meanwhile
+		if(sequence == published.get() && running){
+			LockSupport.parkNanos(this, 1000000L);
+		}
+		dispatcherWaiting[dispatcherIndex].set(false);
+	}
+
+	/**
+	 * The amount of events not delivered yet to the subscribers of the given transition.
+	 * Every subscriber of a transition is delivered by the same thread right after the others,
+	 * so this is also each subscriber's lag.
+	 * @param transitionIndex the transition to check
+	 * @return the amount of published events the transition's dispatcher hasn't processed yet
+	 */
+	public long getLag(int transitionIndex) {
+		return published.get() - consumed[transitionIndex % dispatchers.length].get();
+	}
+
+	/**
+	 * @return the amount of published events not delivered yet to the subscribers of all transitions
+	 */
+	public long getAllTransitionsLag() {
+		return published.get() - consumed[0].get();
+	}
+
+	/**
+	 * @return the amount of events lost by the slowest dispatcher with {@link OverflowPolicy#DROP_OLDEST}
+	 */
+	public long getDroppedEvents() {
+		long ret = 0;
+		for(AtomicLong dispatcherDropped : dropped){
+			ret = Math.max(ret, dispatcherDropped.get());
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the policy used when the buffer is full
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
+	}
+
+	/**
+	 * Stops the dispatcher threads after they deliver every event already published.
+	 * No event may be published after calling this method.
+	 * @param waitForDispatchers if true, wait for the dispatchers to finish
+	 * @throws InterruptedException if interrupted while waiting for the dispatchers
+	 */
+	public void shutdown(boolean waitForDispatchers) throws InterruptedException {
+		running = false;
+		for(Thread dispatcher : dispatchers){
+			LockSupport.unpark(dispatcher);
+		}
+		if(waitForDispatchers){
+			for(Thread dispatcher : dispatchers){
+				// a subscriber may stop the dispatch from a dispatcher thread
+				if(dispatcher != Thread.currentThread()){
+					dispatcher.join();
+				}
+			}
+		}
+	}
+}
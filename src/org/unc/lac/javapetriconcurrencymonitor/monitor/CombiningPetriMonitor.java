@@ -0,0 +1,185 @@
+package org.unc.lac.javapetriconcurrencymonitor.monitor;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import org.unc.lac.javapetriconcurrencymonitor.errors.IllegalTransitionFiringError;
+import org.unc.lac.javapetriconcurrencymonitor.exceptions.NotInitializedPetriNetException;
+import org.unc.lac.javapetriconcurrencymonitor.exceptions.PetriNetException;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.TransitionsPolicy;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
+
+/**
+ * A {@link PetriMonitor} that fires transitions by flat combining.
+ * Instead of taking the monitor for each firing, a firing thread publishes a request and tries to take the monitor.
+ * The thread that takes it, the combiner, serves every published request in one pass before leaving,
+ * while the other threads wait for their requests without handing the monitor to each other.
+ * A request whose transition can't be fired is left in the transition's queue,
+ * in arrival order with the rest of its waiters, and is fired on its caller's behalf by a later firing.
+ *
+ * Timed transitions need a thread waiting for their time span, so they're fired as in {@link PetriMonitor}.
+ * So are the firings with a priority, or more than once at a time.
+ */
+public class CombiningPetriMonitor extends PetriMonitor {
+
+    /**
+     * The most requests a combiner serves before leaving, so a thread isn't kept firing for the others indefinitely
+     */
+    private static final int MAX_COMBINED_REQUESTS = 64;
+
+    /**
+     * The requests published and not served yet, in arrival order.
+     * A single queue shared by all threads instead of a slot per thread, so no state is kept for each of many short-lived threads
+     */
+    private final ConcurrentLinkedQueue<CombinedFire> publishedFires = new ConcurrentLinkedQueue<>();
+
+    public CombiningPetriMonitor(final PetriNet _petri, TransitionsPolicy _policy) {
+        super(_petri, _policy);
+    }
+
+    /**
+     * @see PetriMonitor#PetriMonitor(PetriNet, TransitionsPolicy, int)
+     */
+    public CombiningPetriMonitor(final PetriNet _petri, TransitionsPolicy _policy, int _priorityLevels) {
+        super(_petri, _policy, _priorityLevels);
+    }
+
+    /**
+     * Same as {@link PetriMonitor#fireTransition(Transition, boolean)}, but the firing is made by whichever thread
+     * is combining the published requests when this one is served, which may be the calling thread.
+     * The calling thread returns once the transition was fired, or right after trying if it's not a perennial fire.
+     *
+     * @param transitionToFire The transition to fire
+     * @param notPerennialFire False indicates a perennial fire
+     * @throws IllegalArgumentException        If the transition is null
+     * @throws IllegalTransitionFiringError    when an request to fire an automatic transition arrives
+     * @throws NotInitializedPetriNetException when firing a transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     */
+    @Override
+    public void fireTransition(final Transition transitionToFire, boolean notPerennialFire) throws IllegalTransitionFiringError, PetriNetException {
+        if (transitionToFire != null && transitionToFire.isTimed()) {
+            super.fireTransition(transitionToFire, notPerennialFire);
+            return;
+        }
+        checkRequestedFire(transitionToFire);
+
+        CombinedFire request = new CombinedFire(transitionToFire, notPerennialFire, Thread.currentThread());
+        publishedFires.add(request);
+        boolean interrupted = false;
+        while (!request.isDone()) {
+            // once taken by a combiner, the request is fired on the caller's behalf, so there's nothing left to combine for it
+            if (!request.taken && tryEnterMonitor()) {
+                combine();
+            } else {
+                // the thread leaving the monitor wakes up the first publisher to combine
+                // and a completed request wakes up its publisher
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    // as with a thread sleeping in the monitor, an interruption doesn't stop the fire
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        awaitServedRequest(request);
+    }
+
+    /**
+     * Serves the published requests in arrival order, up to {@link #MAX_COMBINED_REQUESTS}.
+     * Must be called holding the monitor, which is released or handed to a woken up thread before returning.
+     * A failing request is completed with its error, which is thrown to its caller, and the rest are still served.
+     */
+    private void combine() {
+        boolean releaseLock = true;
+        try {
+            CombinedFire request;
+            for (int served = 0; releaseLock && served < MAX_COMBINED_REQUESTS && (request = publishedFires.poll()) != null; served++) {
+                request.taken = true;
+                try {
+                    releaseLock = serveRequest(request, request.transition, request.notPerennialFire);
+                } catch (PetriNetException | IllegalTransitionFiringError | RuntimeException e) {
+                    request.completeExceptionally(e);
+                }
+            }
+        } finally {
+            if (releaseLock) {
+                releaseMonitor();
+            }
+            completeAsyncFiresDone();
+        }
+    }
+
+    /**
+     * Rethrows the error the request failed with, if any
+     *
+     * @param request a completed request
+     * @throws IllegalTransitionFiringError If an illegal firing occurred in the petri net
+     * @throws PetriNetException            If an error regarding petri nets occurred
+     */
+    private void awaitServedRequest(final CombinedFire request) throws IllegalTransitionFiringError, PetriNetException {
+        try {
+            request.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof PetriNetException) {
+                throw (PetriNetException) cause;
+            }
+            if (cause instanceof IllegalTransitionFiringError) {
+                throw (IllegalTransitionFiringError) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Wakes up the first publisher waiting for a request to be served, so it takes the monitor and combines
+     */
+    @Override
+    void monitorReleased() {
+        CombinedFire first = publishedFires.peek();
+        if (first != null) {
+            LockSupport.unpark(first.publisher);
+        }
+    }
+
+    /**
+     * A published request, which wakes up its publisher once completed
+     */
+    private static final class CombinedFire extends FireRequest {
+
+        private final Transition transition;
+        private final boolean notPerennialFire;
+        private final Thread publisher;
+        /** True once a combiner took the request, either to fire it or to leave it in its transition's queue */
+        private volatile boolean taken = false;
+
+        CombinedFire(Transition _transition, boolean _notPerennialFire, Thread _publisher) {
+            super(_transition.getIndex());
+            transition = _transition;
+            notPerennialFire = _notPerennialFire;
+            publisher = _publisher;
+        }
+
+        @Override
+        public boolean complete(Void value) {
+            boolean completed = super.complete(value);
+            LockSupport.unpark(publisher);
+            return completed;
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            boolean completed = super.completeExceptionally(ex);
+            LockSupport.unpark(publisher);
+            return completed;
+        }
+    }
+}
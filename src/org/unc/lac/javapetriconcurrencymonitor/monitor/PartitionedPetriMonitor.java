@@ -0,0 +1,372 @@
+package org.unc.lac.javapetriconcurrencymonitor.monitor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.unc.lac.javapetriconcurrencymonitor.errors.IllegalTransitionFiringError;
+import org.unc.lac.javapetriconcurrencymonitor.exceptions.NotInitializedPetriNetException;
+import org.unc.lac.javapetriconcurrencymonitor.exceptions.PetriNetException;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.TransitionsPolicy;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNetComponents;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
+import org.unc.lac.javapetriconcurrencymonitor.utils.SpinPolicy;
+
+import rx.Observer;
+import rx.Subscription;
+import rx.observers.SerializedObserver;
+import rx.subscriptions.CompositeSubscription;
+
+/**
+ * A monitor for nets made of several independent parts.
+ * The net is split into its {@link PetriNetComponents components}, the parts connected through places or shared guards,
+ * and each one gets its own {@link PetriMonitor}, with its own mutex and queues, and its own lock stripe in the net.
+ * Firings and guard changes are routed to the partition of the transition or guard, so the partitions work in parallel
+ * and throughput grows with the amount of independent components. A net with a single component behaves as with a single {@link PetriMonitor}.
+ *
+ * All the partitions share the given policy, which is called from several of them at once and must be thread safe.
+ * Firings of several transitions at once are allowed only when all of them belong to the same partition.
+ */
+public class PartitionedPetriMonitor {
+
+    private final PetriNet petri;
+    private final PetriNetComponents components;
+    /**
+     * The monitor of each partition, indexed by component
+     */
+    private final PetriMonitor[] partitions;
+
+    public PartitionedPetriMonitor(final PetriNet _petri, TransitionsPolicy _policy) throws IllegalArgumentException, IllegalStateException {
+        this(_petri, _policy, PetriMonitor.DEFAULT_PRIORITY_LEVELS);
+    }
+
+    /**
+     * Splits the net into its components and creates a monitor for each one.
+     * Each component gets its own lock stripe, see {@link PetriNet#setLockStripes(int[])}, so the net must not be initialized yet.
+     *
+     * @param _petri          the petri net to orchestrate, not initialized yet
+     * @param _policy         the transitions policy, shared by all the partitions
+     * @param _priorityLevels the amount of priority levels, see {@link PetriMonitor#PetriMonitor(PetriNet, TransitionsPolicy, int)}
+     * @throws IllegalArgumentException if any argument is null or _priorityLevels is not positive
+     * @throws IllegalStateException    if the petri net was already initialized
+     */
+    public PartitionedPetriMonitor(final PetriNet _petri, TransitionsPolicy _policy, int _priorityLevels)
+            throws IllegalArgumentException, IllegalStateException {
+        if (_petri == null || _policy == null || _priorityLevels < 1) {
+            throw new IllegalArgumentException(this.getClass().getName() + " constructor. Invalid arguments");
+        }
+        petri = _petri;
+        components = petri.getComponents();
+        petri.setLockStripes(components.getPlaceStripes());
+
+        // a net without transitions still gets a monitor, so guards can be set
+        partitions = new PetriMonitor[Math.max(1, components.getComponentsAmount())];
+        for (int component = 0; component < partitions.length; component++) {
+            boolean[] ownedTransitions = new boolean[petri.getTransitions().length];
+            if (component < components.getComponentsAmount()) {
+                for (int transitionIndex : components.getTransitions(component)) {
+                    ownedTransitions[transitionIndex] = true;
+                }
+            }
+            partitions[component] = new PetriMonitor(petri, _policy, _priorityLevels, ownedTransitions);
+        }
+    }
+
+    /**
+     * @return the amount of partitions, one for each component of the net
+     */
+    public int getPartitionsAmount() {
+        return partitions.length;
+    }
+
+    /**
+     * @return the components the net was split into
+     */
+    public PetriNetComponents getComponents() {
+        return components;
+    }
+
+    /**
+     * @param transition a transition of the net, or null
+     * @return the monitor of the transition's partition, or the first one for a null transition so it reports the error
+     */
+    private PetriMonitor partitionOf(final Transition transition) {
+        return transition == null ? partitions[0] : partitions[components.getComponent(transition)];
+    }
+
+    /**
+     * @param transitions the transitions to fire as a unit
+     * @return the monitor of the partition all of them belong to
+     * @throws IllegalArgumentException if the transitions belong to different partitions
+     */
+    private PetriMonitor partitionOf(final Transition[] transitions) throws IllegalArgumentException {
+        PetriMonitor partition = null;
+        for (Transition transition : transitions) {
+            // a null transition is reported by the partition
+            if (transition == null) {
+                continue;
+            }
+            if (partition == null) {
+                partition = partitionOf(transition);
+            } else if (partitionOf(transition) != partition) {
+                throw new IllegalArgumentException("Transitions from different partitions can't be fired as a unit");
+            }
+        }
+        return partition == null ? partitions[0] : partition;
+    }
+
+    /**
+     * @see PetriMonitor#fireTransition(Transition)
+     */
+    public void fireTransition(final Transition transitionToFire) throws IllegalTransitionFiringError, PetriNetException {
+        partitionOf(transitionToFire).fireTransition(transitionToFire);
+    }
+
+    /**
+     * @see PetriMonitor#fireTransition(Transition, boolean)
+     */
+    public void fireTransition(final Transition transitionToFire, boolean notPerennialFire) throws IllegalTransitionFiringError, PetriNetException {
+        partitionOf(transitionToFire).fireTransition(transitionToFire, notPerennialFire);
+    }
+
+    /**
+     * @see PetriMonitor#fireTransition(String)
+     */
+    public void fireTransition(final String transitionName) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        fireTransition(transitionName, false);
+    }
+
+    /**
+     * @see PetriMonitor#fireTransition(String, boolean)
+     */
+    public void fireTransition(final String transitionName, boolean notPerennialFire) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        fireTransition(petri.getTransition(transitionName), notPerennialFire);
+    }
+
+    /**
+     * @see PetriMonitor#fireTransition(int)
+     */
+    public void fireTransition(final int transitionIndex) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        fireTransition(transitionIndex, false);
+    }
+
+    /**
+     * @see PetriMonitor#fireTransition(int, boolean)
+     */
+    public void fireTransition(final int transitionIndex, boolean notPerennialFire) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        Transition[] transitions = petri.getTransitions();
+        if (transitionIndex < 0 || transitionIndex >= transitions.length) {
+            throw new IllegalArgumentException("Index " + transitionIndex + " doesn't match any transition's index in this petri net");
+        }
+        fireTransition(transitions[transitionIndex], notPerennialFire);
+    }
+
+    /**
+     * @see PetriMonitor#fireTransitionWithPriority(Transition, int, boolean)
+     */
+    public void fireTransitionWithPriority(final Transition transitionToFire, int priority, boolean notPerennialFire)
+            throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        partitionOf(transitionToFire).fireTransitionWithPriority(transitionToFire, priority, notPerennialFire);
+    }
+
+    /**
+     * @see PetriMonitor#fireTransition(Transition, int, boolean)
+     */
+    public int fireTransition(final Transition transitionToFire, int times, boolean notPerennialFire)
+            throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        return partitionOf(transitionToFire).fireTransition(transitionToFire, times, notPerennialFire);
+    }
+
+    /**
+     * @see PetriMonitor#fireTransitionAsync(Transition)
+     */
+    public CompletableFuture<Void> fireTransitionAsync(final Transition transitionToFire)
+            throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        return partitionOf(transitionToFire).fireTransitionAsync(transitionToFire);
+    }
+
+    /**
+     * @see PetriMonitor#fireTransition(Transition, long, TimeUnit)
+     */
+    public boolean fireTransition(final Transition transitionToFire, long timeout, TimeUnit unit)
+            throws InterruptedException, IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        return partitionOf(transitionToFire).fireTransition(transitionToFire, timeout, unit);
+    }
+
+    /**
+     * @see PetriMonitor#fireTransitionInterruptibly(Transition)
+     */
+    public void fireTransitionInterruptibly(final Transition transitionToFire)
+            throws InterruptedException, IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        partitionOf(transitionToFire).fireTransitionInterruptibly(transitionToFire);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the transitions belong to different partitions
+     * @see PetriMonitor#fireSequence(Transition...)
+     */
+    public boolean fireSequence(final Transition... sequence) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        if (sequence == null) {
+            throw new IllegalArgumentException("Null sequence not allowed");
+        }
+        return partitionOf(sequence).fireSequence(sequence);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the transitions belong to different partitions
+     * @see PetriMonitor#fireAtomically(Set)
+     */
+    public boolean fireAtomically(final Set<Transition> transitionsToFire) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        if (transitionsToFire == null) {
+            throw new IllegalArgumentException("Null set not allowed");
+        }
+        return partitionOf(transitionsToFire.toArray(new Transition[transitionsToFire.size()])).fireAtomically(transitionsToFire);
+    }
+
+    /**
+     * Sets a guard's value through the partition of the transitions associated to it
+     *
+     * @see PetriMonitor#setGuard(String, boolean)
+     */
+    public boolean setGuard(String guardName, boolean newValue) throws IndexOutOfBoundsException, NullPointerException, PetriNetException {
+        int component = components.getGuardComponent(guardName);
+        // a guard no transition is associated to can be set by any partition
+        return partitions[Math.max(0, component)].setGuard(guardName, newValue);
+    }
+
+    /**
+     * Sets several guards' values, each through the partition of the transitions associated to it.
+     * The guards of each partition are set at once, while different partitions are set one after another.
+     * Since a guard only affects the transitions of its partition, no firing can tell the difference.
+     *
+     * @see PetriMonitor#setGuards(Map)
+     */
+    public void setGuards(Map<String, Boolean> newValues) throws IndexOutOfBoundsException, NullPointerException, PetriNetException {
+        if (newValues == null) {
+            throw new NullPointerException("Null guards map not allowed");
+        }
+        Map<Integer, Map<String, Boolean>> valuesByPartition = new HashMap<>();
+        for (Map.Entry<String, Boolean> guard : newValues.entrySet()) {
+            if (guard.getKey() == null || guard.getKey().isEmpty()) {
+                throw new NullPointerException("Empty guard name not allowed");
+            }
+            if (guard.getValue() == null) {
+                throw new NullPointerException("Null value not allowed for guard " + guard.getKey());
+            }
+            // check every guard exists before changing any
+            petri.readGuard(guard.getKey());
+            valuesByPartition.computeIfAbsent(Math.max(0, components.getGuardComponent(guard.getKey())), k -> new HashMap<>())
+                    .put(guard.getKey(), guard.getValue());
+        }
+        if (!petri.isInitialized()) {
+            throw new NotInitializedPetriNetException();
+        }
+        for (Map.Entry<Integer, Map<String, Boolean>> partitionValues : valuesByPartition.entrySet()) {
+            partitions[partitionValues.getKey()].setGuards(partitionValues.getValue());
+        }
+    }
+
+    /**
+     * @see PetriMonitor#subscribeToTransition(String, Observer)
+     */
+    public Subscription subscribeToTransition(final String _transitionName, final Observer<String> _observer) throws IllegalArgumentException {
+        return subscribeToTransition(petri.getTransition(_transitionName), _observer);
+    }
+
+    /**
+     * @see PetriMonitor#subscribeToTransition(Transition, Observer)
+     */
+    public Subscription subscribeToTransition(final Transition _transition, final Observer<String> _observer) throws IllegalArgumentException {
+        return partitionOf(_transition).subscribeToTransition(_transition, _observer);
+    }
+
+    /**
+     * @see PetriMonitor#subscribeToTransitionEvents(String, Observer)
+     */
+    public Subscription subscribeToTransitionEvents(final String _transitionName, final Observer<TransitionFiredEvent> _observer) throws IllegalArgumentException {
+        return subscribeToTransitionEvents(petri.getTransition(_transitionName), _observer);
+    }
+
+    /**
+     * @see PetriMonitor#subscribeToTransitionEvents(Transition, Observer)
+     */
+    public Subscription subscribeToTransitionEvents(final Transition _transition, final Observer<TransitionFiredEvent> _observer) throws IllegalArgumentException {
+        return partitionOf(_transition).subscribeToTransitionEvents(_transition, _observer);
+    }
+
+    /**
+     * Subscribes the given observer to the events of every informed transition in all the partitions.
+     * The events of different partitions are fired in parallel, so they are delivered one at a time but in no particular order among partitions.
+     *
+     * @param _observer the observer to subscribe
+     * @return a Subscription object used to unsubscribe from all the partitions
+     * @throws IllegalArgumentException if the observer is null
+     * @see PetriMonitor#subscribeToAllTransitionsEvents(Observer)
+     */
+    public Subscription subscribeToAllTransitionsEvents(final Observer<TransitionFiredEvent> _observer) throws IllegalArgumentException {
+        if (_observer == null) {
+            throw new IllegalArgumentException("invalid observer recieved");
+        }
+        final Observer<TransitionFiredEvent> serializedObserver = new SerializedObserver<>(_observer);
+        CompositeSubscription subscriptions = new CompositeSubscription();
+        for (PetriMonitor partition : partitions) {
+            subscriptions.add(partition.subscribeToAllTransitionsEvents(serializedObserver));
+        }
+        return subscriptions;
+    }
+
+    /**
+     * @return a vector of boolean indicating if at least a thread is sleeping in each transition's queue
+     * @see PetriMonitor#getQueuesState()
+     */
+    public boolean[] getQueuesState() {
+        boolean[] queuesNotEmpty = new boolean[petri.getTransitions().length];
+        for (PetriMonitor partition : partitions) {
+            boolean[] partitionQueues = partition.getQueuesState();
+            for (int i = 0; i < queuesNotEmpty.length; i++) {
+                queuesNotEmpty[i] |= partitionQueues[i];
+            }
+        }
+        return queuesNotEmpty;
+    }
+
+    /**
+     * @see PetriMonitor#isAnyThreadSleepingForTransition(int)
+     */
+    public boolean isAnyThreadSleepingForTransition(int transitionIndex) {
+        return partitions[components.getComponent(petri.getTransitions()[transitionIndex])].isAnyThreadSleepingForTransition(transitionIndex);
+    }
+
+    /**
+     * Changes the transitions policy of every partition. If null just ignores the new policy and keeps the previous
+     *
+     * @param _transitionsPolicy the new policy to be set, called from several partitions at once
+     * @see PetriMonitor#setTransitionsPolicy(TransitionsPolicy)
+     */
+    public void setTransitionsPolicy(TransitionsPolicy _transitionsPolicy) {
+        for (PetriMonitor partition : partitions) {
+            partition.setTransitionsPolicy(_transitionsPolicy);
+        }
+    }
+
+    /**
+     * @see PetriMonitor#setSpinPolicy(SpinPolicy)
+     */
+    public void setSpinPolicy(final SpinPolicy spinPolicy) throws IllegalArgumentException {
+        for (PetriMonitor partition : partitions) {
+            partition.setSpinPolicy(spinPolicy);
+        }
+    }
+
+    /**
+     * @see PetriMonitor#setAgingThreshold(int)
+     */
+    public void setAgingThreshold(int agingThreshold) throws IllegalArgumentException {
+        for (PetriMonitor partition : partitions) {
+            partition.setAgingThreshold(agingThreshold);
+        }
+    }
+}
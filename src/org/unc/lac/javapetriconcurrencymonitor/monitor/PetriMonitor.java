@@ -1,53 +1,109 @@
 package org.unc.lac.javapetriconcurrencymonitor.monitor;
 
-import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.unc.lac.javapetriconcurrencymonitor.errors.IllegalTransitionFiringError;
 import org.unc.lac.javapetriconcurrencymonitor.exceptions.NotInitializedPetriNetException;
 import org.unc.lac.javapetriconcurrencymonitor.exceptions.PetriNetException;
 import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.TransitionsPolicy;
 import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNetFireOutcome;
 import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
-import org.unc.lac.javapetriconcurrencymonitor.queues.FairQueue;
-import org.unc.lac.javapetriconcurrencymonitor.queues.VarCondQueue;
 import org.unc.lac.javapetriconcurrencymonitor.utils.PriorityBinaryLock;
 import org.unc.lac.javapetriconcurrencymonitor.utils.PriorityBinaryLock.LockPriority;
+import org.unc.lac.javapetriconcurrencymonitor.utils.SpinPolicy;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
+import rx.BackpressureOverflow;
+import rx.Observable;
 import rx.Observer;
 import rx.Subscription;
+import rx.functions.Actions;
 import rx.subjects.PublishSubject;
 
 public class PetriMonitor {
 
+    /**
+     * What a publisher does with the events its subscriber didn't request yet
+     *
+     * @see #getTransitionEventsPublisher(Transition, BackpressureStrategy, int)
+     */
+    public enum BackpressureStrategy {
+        /** Keep them until requested. If the buffer is bounded and full, the oldest one is discarded */
+        BUFFER,
+        /** Discard them */
+        DROP,
+        /** Keep only the latest one, which is delivered on the next request */
+        LATEST
+    }
+
+    /**
+     * Amount of priority levels a firing thread can have when built with {@link #PetriMonitor(PetriNet, TransitionsPolicy)}
+     */
+    public static final int DEFAULT_PRIORITY_LEVELS = 3;
+    /**
+     * How many times the threads of a priority level can be passed over by higher levels before going ahead of them, by default
+     *
+     * @see #setAgingThreshold(int)
+     */
+    public static final int DEFAULT_AGING_THRESHOLD = 8;
+
     /**
      * Petri Net to command the monitor orchestration
      */
     private PetriNet petri;
     /**
-     * Mutex for the monitor access with a FIFO queue associated
+     * Amount of priority levels for firing threads, 0 being the highest.
+     * Locks and queues have an extra level above them, reserved for threads firing timed transitions after their time span begins
      */
-    private PriorityBinaryLock inQueue = new PriorityBinaryLock();
+    private final int priorityLevels;
     /**
-     * Condition variable queues where locked threads will wait
+     * Mutex for the monitor access with a FIFO queue for each priority level associated
      */
-    private VarCondQueue[] condVarQueue;
+    private final PriorityBinaryLock inQueue;
+    /**
+     * How many times the waiters of a priority level can be passed over in a transition's queue before going ahead
+     *
+     * @see #setAgingThreshold(int)
+     */
+    private volatile int agingThreshold = DEFAULT_AGING_THRESHOLD;
     /**
      * The policy to be used for transitions management. This will decide which transition
      * should be fired when there are multiple available
      */
-    private TransitionsPolicy transitionsPolicy;
+    private volatile TransitionsPolicy transitionsPolicy;
     /**
-     * A PublishSubject who sends events for informed transitions
-     * Observers have to explicitly subscribe to an informed transition's events.
+     * A PublishSubject for each informed transition, indexed by transition index, which sends that transition's events.
+     * Non-informed transitions have none.
+     * Observers have to explicitly subscribe to an informed transition's events, and only get that transition's events.
      *
      * @see #subscribeToTransition(Transition, Observer)
      */
-    private PublishSubject<String> informedTransitionsObservable;
+    private PublishSubject<TransitionFiredEvent>[] transitionEventsObservables;
+    /**
+     * A PublishSubject who sends the events of every informed transition
+     *
+     * @see #subscribeToAllTransitionsEvents(Observer)
+     */
+    private PublishSubject<TransitionFiredEvent> allTransitionsEventsObservable;
+    /**
+     * Delivers the events from its own threads when the asynchronous dispatch is enabled, null otherwise.
+     * Only replaced while holding {@link #inQueue}
+     *
+     * @see #enableAsyncEventDispatch(int, int, AsyncEventDispatcher.OverflowPolicy)
+     */
+    private volatile AsyncEventDispatcher eventDispatcher;
 
     /**
      * Contains true in the nth position if a thread is waiting for the nth transition's time span to occur
@@ -55,41 +111,131 @@ public class PetriMonitor {
     private AtomicBoolean[] anyThreadSleepingforTransition;
 
     /**
-     * An ObjectMapper used to build and parse JSON info sent as events
+     * The callers waiting for each transition, either threads sleeping in its queue, each with its own {@link SleepingThread},
+     * or asynchronous fires to be made on behalf of their callers. Null for the transitions no thread waits for.
+     * Threads are added before releasing the monitor and going to sleep, so the one woken up is always the one polled.
+     * Only accessed while holding {@link #inQueue}
      */
-    private ObjectMapper jsonMapper;
-
-    private final static String ID = "id";
-    private final static String INDEX = "index";
-    private final static String NAME = "name";
+    private TransitionQueue[] transitionWaiters;
+    /**
+     * How many threads are sleeping in each transition's queue.
+     * Only changed while holding {@link #inQueue}
+     *
+     * @see #getQueuesState()
+     */
+    private final AtomicIntegerArray sleepingThreads;
+    /**
+     * Returned by {@link #nextTransitionToFire()} when a sleeping thread was woken up and handed the monitor
+     */
+    private static final int WOKE_UP_THREAD = -2;
+    /**
+     * The asynchronous fire waiting to be made on behalf of its caller by the next firing, or null.
+     * Only accessed while holding {@link #inQueue}
+     */
+    private FireRequest servedAsyncFire;
+    /**
+     * The asynchronous fires already made, to be completed by the next thread leaving the monitor.
+     * A queue shared by all threads instead of a per thread list, so no state is kept for each of many short-lived threads
+     */
+    private final ConcurrentLinkedQueue<FireRequest> asyncFiresDone = new ConcurrentLinkedQueue<>();
+    /**
+     * Completes the asynchronous fires, or null to complete them on the firing thread once it leaves the monitor
+     */
+    private volatile Executor asyncFiresExecutor;
+    /**
+     * Bitset containing a set bit for each transition with threads waiting in its queue.
+     * Only changed while holding {@link #inQueue}, and atomic so a firing made outside the monitor sees the waiters
+     *
+     * @see #hasWaiters(int)
+     */
+    private final AtomicLongArray waitingTransitionsBitSet;
+    /**
+     * Bitset reused on every fire to combine the enabled, waiting and automatic transitions.
+     * Only accessed while holding {@link #inQueue}
+     */
+    private long[] availableTransitionsBitSet;
+    /**
+     * Bitset with a set bit for each transition this monitor fires, every transition unless it's a partition's monitor
+     *
+     * @see PartitionedPetriMonitor
+     */
+    private final long[] ownedTransitionsBitSet;
 
     public PetriMonitor(final PetriNet _petri, TransitionsPolicy _policy) {
-        if (_petri == null || _policy == null) {
+        this(_petri, _policy, DEFAULT_PRIORITY_LEVELS);
+    }
+
+    /**
+     * Creates a monitor whose firing threads may have the given amount of priority levels.
+     *
+     * @param _petri          the petri net to orchestrate
+     * @param _policy         the transitions policy
+     * @param _priorityLevels the amount of priority levels, 0 being the highest and _priorityLevels - 1 the lowest and the default
+     * @throws IllegalArgumentException if any argument is null or _priorityLevels is not positive
+     * @see #fireTransitionWithPriority(Transition, int)
+     */
+    public PetriMonitor(final PetriNet _petri, TransitionsPolicy _policy, int _priorityLevels) {
+        this(_petri, _policy, _priorityLevels, null);
+    }
+
+    /**
+     * Creates a monitor firing only the given transitions of the net, as one of the partitions of a {@link PartitionedPetriMonitor}.
+     * Only the given transitions have queues and events, and only they are chosen to be fired after a firing.
+     *
+     * @param _petri             the petri net to orchestrate
+     * @param _policy            the transitions policy
+     * @param _priorityLevels    the amount of priority levels
+     * @param _ownedTransitions  true for each transition the monitor fires, or null for every transition
+     * @throws IllegalArgumentException if any argument but _ownedTransitions is null or _priorityLevels is not positive
+     */
+    PetriMonitor(final PetriNet _petri, TransitionsPolicy _policy, int _priorityLevels, boolean[] _ownedTransitions) {
+        if (_petri == null || _policy == null || _priorityLevels < 1) {
             throw new IllegalArgumentException(this.getClass().getName() + " constructor. Invalid arguments");
         }
         petri = _petri;
         transitionsPolicy = _policy;
+        priorityLevels = _priorityLevels;
+        inQueue = new PriorityBinaryLock(priorityLevels + 1);
+        inQueue.setAgingThreshold(DEFAULT_AGING_THRESHOLD);
 
         int transitionsAmount = petri.getTransitions().length;
-        condVarQueue = new FairQueue[transitionsAmount];
-        informedTransitionsObservable = PublishSubject.create();
+        transitionWaiters = new TransitionQueue[transitionsAmount];
+        final boolean[] ownedTransitions = new boolean[transitionsAmount];
+        ownedTransitionsBitSet = new long[PetriNet.bitSetWords(transitionsAmount)];
+        for (int i = 0; i < transitionsAmount; i++) {
+            ownedTransitions[i] = _ownedTransitions == null || _ownedTransitions[i];
+            if (ownedTransitions[i]) {
+                ownedTransitionsBitSet[i >>> 6] |= 1L << i;
+            }
+        }
+        allTransitionsEventsObservable = PublishSubject.create();
+        transitionEventsObservables = newSubjectsArray(transitionsAmount);
+        final boolean informedTransitions[] = petri.getInformedTransitions();
+        for (int i = 0; i < informedTransitions.length; i++) {
+            if (informedTransitions[i] && ownedTransitions[i]) {
+                transitionEventsObservables[i] = PublishSubject.create();
+            }
+        }
         final boolean automaticTransitions[] = petri.getAutomaticTransitions();
         for (int i = 0; i < automaticTransitions.length; i++) {
             // Only non-automatic transitions have an associated queue
             // since no thread will try to fire an automatic transition
             // and thus will not sleep if fails
-            if (!automaticTransitions[i]) {
-                condVarQueue[i] = new FairQueue();
+            if (!automaticTransitions[i] && ownedTransitions[i]) {
+                // level 0 is reserved for timed transitions, as in the monitor's lock
+                transitionWaiters[i] = new TransitionQueue(priorityLevels + 1);
             }
         }
-
-        jsonMapper = new ObjectMapper();
+        sleepingThreads = new AtomicIntegerArray(transitionsAmount);
 
         anyThreadSleepingforTransition = new AtomicBoolean[transitionsAmount];
 
         for (int i = 0; i < transitionsAmount; i++) {
             anyThreadSleepingforTransition[i] = new AtomicBoolean(false);
         }
+
+        waitingTransitionsBitSet = new AtomicLongArray(PetriNet.bitSetWords(transitionsAmount));
+        availableTransitionsBitSet = new long[waitingTransitionsBitSet.length()];
     }
 
     /**
@@ -120,139 +266,1130 @@ public class PetriMonitor {
     }
 
     /**
-     * Tries to fire a transition.
-     * <ul>
-     * <li>If fails, the calling thread sleeps in the corresponding transition's queue</li>
-     * <li>If succeeds, it checks if there are new enabled transitions.
-     * If not it leaves, else it tries to fire some new enabled transition
-     * (which transition is to be fired is the policy's decision).
-     * This may lead into two situations:</li>
-     * <ul>
-     * <li>The transition to fire is automatic, then just fire it</li>
-     * <li>The transition to fire is not automatic but another thread was waiting to fire it.
-     * In that case, wake up that thread and leave the monitor</li>
-     * </ul>
-     * </ul>
-     * For timed transitions, the calling thread sleeps until the transition reaches its time span, only then fires it.
-     * A perennial fire sends a thread to sleep when the firing failed.
-     * More info in project readme file.
+     * Tries to fire a transition.
+     * <ul>
+     * <li>If fails, the calling thread sleeps in the corresponding transition's queue</li>
+     * <li>If succeeds, it checks if there are new enabled transitions.
+     * If not it leaves, else it tries to fire some new enabled transition
+     * (which transition is to be fired is the policy's decision).
+     * This may lead into two situations:</li>
+     * <ul>
+     * <li>The transition to fire is automatic, then just fire it</li>
+     * <li>The transition to fire is not automatic but another thread was waiting to fire it.
+     * In that case, wake up that thread and leave the monitor</li>
+     * </ul>
+     * </ul>
+     * For timed transitions, the calling thread sleeps until the transition reaches its time span, only then fires it.
+     * A perennial fire sends a thread to sleep when the firing failed.
+     * More info in project readme file.
+     *
+     * @param transitionToFire The transition to fire
+     * @param notPerennialFire False indicates a perennial fire
+     * @throws IllegalTransitionFiringError    when an request to fire an automatic transition arrives
+     * @throws NotInitializedPetriNetException when firing a timed transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     * @see PetriNet#fire(Transition)
+     */
+    public void fireTransition(final Transition transitionToFire, boolean notPerennialFire) throws IllegalTransitionFiringError, PetriNetException {
+        fireWithPriority(transitionToFire, notPerennialFire, priorityLevels - 1);
+    }
+
+    /**
+     * Same as {@link #fireTransition(Transition)} but the calling thread waits with the given priority,
+     * both to get into the monitor and in the transition's queue.
+     * A thread is let in or woken up before the waiting threads of lower priority,
+     * unless those were passed over too many times as set with {@link #setAgingThreshold(int)}.
+     * Threads firing timed transitions after their time span begins still go ahead of every priority.
+     *
+     * @param transitionToFire The transition to fire
+     * @param priority         The priority to wait with, from 0, the highest, to {@link #getPriorityLevels()} - 1, the lowest and the default
+     * @throws IllegalArgumentException        If there is no such priority
+     * @throws IllegalTransitionFiringError    when an request to fire an automatic transition arrives
+     * @throws NotInitializedPetriNetException when firing a timed transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     */
+    public void fireTransitionWithPriority(final Transition transitionToFire, int priority) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        fireTransitionWithPriority(transitionToFire, priority, false);
+    }
+
+    /**
+     * Same as {@link #fireTransition(Transition, boolean)} but the calling thread waits with the given priority.
+     *
+     * @param transitionToFire The transition to fire
+     * @param priority         The priority to wait with, from 0, the highest, to {@link #getPriorityLevels()} - 1, the lowest and the default
+     * @param notPerennialFire False indicates a perennial fire
+     * @throws IllegalArgumentException        If there is no such priority
+     * @throws IllegalTransitionFiringError    when an request to fire an automatic transition arrives
+     * @throws NotInitializedPetriNetException when firing a timed transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     * @see #fireTransitionWithPriority(Transition, int)
+     */
+    public void fireTransitionWithPriority(final Transition transitionToFire, int priority, boolean notPerennialFire) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        checkPriority(priority);
+        fireWithPriority(transitionToFire, notPerennialFire, priority);
+    }
+
+    /**
+     * @param priority a priority to wait with
+     * @throws IllegalArgumentException If there is no such priority
+     */
+    private void checkPriority(int priority) throws IllegalArgumentException {
+        if (priority < 0 || priority >= priorityLevels) {
+            throw new IllegalArgumentException("Invalid priority " + priority);
+        }
+    }
+
+    private void fireWithPriority(final Transition transitionToFire, boolean notPerennialFire, int priority) throws IllegalTransitionFiringError, PetriNetException {
+        // An attempt to fire an automatic transition is a severe error and the application should stop automatically
+        if (transitionToFire.getLabel().isAutomatic()) {
+            throw new IllegalTransitionFiringError("An automatic transition has tried to be fired manually");
+        }
+        if (!petri.isInitialized()) {
+            throw new NotInitializedPetriNetException();
+        }
+        boolean releaseLock = true;
+        try {
+            // take the mutex to access the monitor. Level 0 is reserved for timed transitions
+            inQueue.lock(priority + 1);
+            releaseLock = internalFireTransition(transitionToFire, notPerennialFire, 1, null, priority);
+        } finally {
+            // the firing is done, release the mutex and leave
+            if (releaseLock) {
+                releaseMonitor();
+            }
+            completeAsyncFiresDone();
+        }
+    }
+
+    /**
+     * Fires a transition without blocking the calling thread.
+     * If the transition can be fired now it's fired right away. Otherwise the request waits in the transition's queue
+     * along with the sleeping threads, with the lowest priority, and a later firing makes it on the caller's behalf when its turn comes.
+     * The returned future is completed once the transition was fired, by the executor set with {@link #setAsyncFiresExecutor(Executor)}
+     * or else by the thread that fired it or another one leaving the monitor right after.
+     * Cancelling the future before its turn comes withdraws the request. Once its turn came, it can't be cancelled.
+     *
+     * @param transitionToFire The transition to fire
+     * @return a future completed when the transition is fired
+     * @throws IllegalArgumentException        If the transition is null or timed
+     * @throws IllegalTransitionFiringError    when an request to fire an automatic transition arrives
+     * @throws NotInitializedPetriNetException when firing a transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     */
+    public CompletableFuture<Void> fireTransitionAsync(final Transition transitionToFire) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        checkRequestedFire(transitionToFire);
+        inQueue.lock();
+        return requestFire(transitionToFire, priorityLevels - 1);
+    }
+
+    /**
+     * Tries to fire a transition, waiting up to the given time for it.
+     * The time includes the wait to enter the monitor. While waiting, the caller keeps its place in the transition's queue
+     * among the sleeping threads, and a firing made when its turn comes fires the transition on its behalf.
+     * If the time elapses first the caller leaves the queue, and the transition is not fired.
+     * For a timed transition the caller fires it by itself: before its time span it sleeps until the span begins,
+     * or gives up right away if the time elapses first.
+     * The caller waits with the lowest priority, see {@link #fireTransitionWithPriority(Transition, int, long, TimeUnit)}.
+     *
+     * @param transitionToFire The transition to fire
+     * @param timeout          the maximum time to wait
+     * @param unit             the unit of timeout
+     * @return true if the transition was fired, false if the time elapsed first
+     * @throws InterruptedException            If the calling thread is interrupted while waiting. In that case the transition is not fired
+     * @throws IllegalArgumentException        If the transition or unit is null
+     * @throws IllegalTransitionFiringError    when an request to fire an automatic transition arrives
+     * @throws NotInitializedPetriNetException when firing a transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     */
+    public boolean fireTransition(final Transition transitionToFire, long timeout, TimeUnit unit)
+            throws InterruptedException, IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        return fireWithPriority(transitionToFire, priorityLevels - 1, timeout, unit);
+    }
+
+    /**
+     * Same as {@link #fireTransition(Transition, long, TimeUnit)} but the caller waits with the given priority,
+     * both to get into the monitor and in the transition's queue, as with {@link #fireTransitionWithPriority(Transition, int)}.
+     *
+     * @param transitionToFire The transition to fire
+     * @param priority         The priority to wait with, from 0, the highest, to {@link #getPriorityLevels()} - 1, the lowest and the default
+     * @param timeout          the maximum time to wait
+     * @param unit             the unit of timeout
+     * @return true if the transition was fired, false if the time elapsed first
+     * @throws InterruptedException            If the calling thread is interrupted while waiting. In that case the transition is not fired
+     * @throws IllegalArgumentException        If the transition or unit is null, or there is no such priority
+     * @throws IllegalTransitionFiringError    when an request to fire an automatic transition arrives
+     * @throws NotInitializedPetriNetException when firing a transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     */
+    public boolean fireTransitionWithPriority(final Transition transitionToFire, int priority, long timeout, TimeUnit unit)
+            throws InterruptedException, IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        checkPriority(priority);
+        return fireWithPriority(transitionToFire, priority, timeout, unit);
+    }
+
+    private boolean fireWithPriority(final Transition transitionToFire, int priority, long timeout, TimeUnit unit)
+            throws InterruptedException, IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        if (unit == null) {
+            throw new IllegalArgumentException("Null time unit not allowed");
+        }
+        checkManualFire(transitionToFire);
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (transitionToFire.isTimed()) {
+            return fireTimedTransition(transitionToFire, true, deadline, priority);
+        }
+        // level 0 is reserved for timed transitions
+        if (!inQueue.tryLock(priority + 1, timeout, unit)) {
+            return false;
+        }
+        FireRequest request = requestFire(transitionToFire, priority);
+        try {
+            awaitRequest(request, Math.max(0, deadline - System.nanoTime()));
+            return true;
+        } catch (TimeoutException e) {
+            return !withdraw(request) && awaitClaimedRequest(request);
+        } catch (InterruptedException e) {
+            if (withdraw(request)) {
+                throw e;
+            }
+            // it was already being fired, so report it and keep the interruption for later
+            awaitClaimedRequest(request);
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+
+    /**
+     * Fires a transition, sleeping until it can be fired like {@link #fireTransition(Transition)}
+     * but giving up if the calling thread is interrupted, including while waiting to enter the monitor.
+     * An interrupted caller leaves the transition's queue and the transition is not fired.
+     * For a timed transition the caller fires it by itself, sleeping until its time span begins if it came early.
+     * The caller waits with the lowest priority, see {@link #fireTransitionInterruptiblyWithPriority(Transition, int)}.
+     *
+     * @param transitionToFire The transition to fire
+     * @throws InterruptedException            If the calling thread is interrupted while waiting. In that case the transition is not fired
+     * @throws IllegalArgumentException        If the transition is null
+     * @throws IllegalTransitionFiringError    when an request to fire an automatic transition arrives
+     * @throws NotInitializedPetriNetException when firing a transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     */
+    public void fireTransitionInterruptibly(final Transition transitionToFire)
+            throws InterruptedException, IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        fireInterruptiblyWithPriority(transitionToFire, priorityLevels - 1);
+    }
+
+    /**
+     * Same as {@link #fireTransitionInterruptibly(Transition)} but the caller waits with the given priority,
+     * both to get into the monitor and in the transition's queue, as with {@link #fireTransitionWithPriority(Transition, int)}.
+     *
+     * @param transitionToFire The transition to fire
+     * @param priority         The priority to wait with, from 0, the highest, to {@link #getPriorityLevels()} - 1, the lowest and the default
+     * @throws InterruptedException            If the calling thread is interrupted while waiting. In that case the transition is not fired
+     * @throws IllegalArgumentException        If the transition is null or there is no such priority
+     * @throws IllegalTransitionFiringError    when an request to fire an automatic transition arrives
+     * @throws NotInitializedPetriNetException when firing a transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     */
+    public void fireTransitionInterruptiblyWithPriority(final Transition transitionToFire, int priority)
+            throws InterruptedException, IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        checkPriority(priority);
+        fireInterruptiblyWithPriority(transitionToFire, priority);
+    }
+
+    private void fireInterruptiblyWithPriority(final Transition transitionToFire, int priority)
+            throws InterruptedException, IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        checkManualFire(transitionToFire);
+        if (transitionToFire.isTimed()) {
+            fireTimedTransition(transitionToFire, false, 0, priority);
+            return;
+        }
+        // level 0 is reserved for timed transitions
+        inQueue.lockInterruptibly(priority + 1);
+        FireRequest request = requestFire(transitionToFire, priority);
+        try {
+            awaitRequest(request, -1);
+        } catch (TimeoutException e) {
+            // there's no time limit
+        } catch (InterruptedException e) {
+            if (withdraw(request)) {
+                throw e;
+            }
+            awaitClaimedRequest(request);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Checks a transition can be fired through a {@link FireRequest}
+     *
+     * @param transitionToFire the transition to fire
+     * @throws IllegalArgumentException        If the transition is null or timed
+     * @throws IllegalTransitionFiringError    If the transition is automatic
+     * @throws NotInitializedPetriNetException If the petri net is not initialized
+     */
+    void checkRequestedFire(final Transition transitionToFire) throws IllegalArgumentException, IllegalTransitionFiringError, NotInitializedPetriNetException {
+        checkManualFire(transitionToFire);
+        // a timed transition's waiter must wait for its time span, which needs a thread
+        if (transitionToFire.isTimed()) {
+            throw new IllegalArgumentException("Timed transition " + transitionToFire.getName() + " cannot be fired with a request");
+        }
+    }
+
+    /**
+     * Checks a transition can be fired by its caller
+     *
+     * @param transitionToFire the transition to fire
+     * @throws IllegalArgumentException        If the transition is null
+     * @throws IllegalTransitionFiringError    If the transition is automatic
+     * @throws NotInitializedPetriNetException If the petri net is not initialized
+     */
+    private void checkManualFire(final Transition transitionToFire) throws IllegalArgumentException, IllegalTransitionFiringError, NotInitializedPetriNetException {
+        if (transitionToFire == null) {
+            throw new IllegalArgumentException("Null transition not allowed");
+        }
+        if (transitionToFire.getLabel().isAutomatic()) {
+            throw new IllegalTransitionFiringError("An automatic transition has tried to be fired manually");
+        }
+        if (!petri.isInitialized()) {
+            throw new NotInitializedPetriNetException();
+        }
+    }
+
+    /**
+     * Fires a timed transition for {@link #fireTransitionWithPriority(Transition, int, long, TimeUnit)}
+     * and {@link #fireTransitionInterruptiblyWithPriority(Transition, int)}.
+     * Before its time span the calling thread sleeps by itself until the span begins, unless the deadline comes first.
+     * While the transition is not enabled or its span is over, the caller waits in the transition's queue
+     * with a {@link HandOverRequest}, so when its turn comes it's handed the monitor to try again instead of being fired.
+     *
+     * @param transitionToFire the timed transition to fire
+     * @param bounded          whether to give up at the deadline
+     * @param deadline         the {@link System#nanoTime()} to give up at, if bounded
+     * @param priority         the priority to wait with
+     * @return true if the transition was fired, false if the deadline came first
+     * @throws InterruptedException If the calling thread is interrupted while waiting. In that case the transition is not fired
+     * @throws PetriNetException    If an error regarding petri nets occurs.
+     */
+    private boolean fireTimedTransition(final Transition transitionToFire, boolean bounded, long deadline, int priority)
+            throws InterruptedException, PetriNetException {
+        final int transitionIndex = transitionToFire.getIndex();
+        if (!enterMonitor(priority + 1, bounded, deadline)) {
+            return false;
+        }
+        boolean holdingMonitor = true;
+        boolean interrupted = false;
+        try {
+            while (true) {
+                boolean enabled = petri.getEnabledTransitions()[transitionIndex];
+                if (enabled && transitionToFire.isBeforeTimeSpan(System.currentTimeMillis())) {
+                    final long sleepMillis = transitionToFire.getEnablingTime() - System.currentTimeMillis();
+                    releaseMonitor();
+                    holdingMonitor = false;
+                    if (interrupted) {
+                        interrupted = false;
+                        throw new InterruptedException();
+                    }
+                    if (bounded && deadline - System.nanoTime() < TimeUnit.MILLISECONDS.toNanos(sleepMillis)) {
+                        // it can't be fired before the deadline, so there's no point in waiting for it
+                        return false;
+                    }
+                    if (sleepMillis > 0) {
+                        Thread.sleep(sleepMillis);
+                    }
+                    // its time to fire has come and may be short, so get back ahead of the incoming threads
+                    if (!enterMonitor(0, bounded, deadline)) {
+                        return false;
+                    }
+                    holdingMonitor = true;
+                    continue;
+                }
+                if (enabled) {
+                    int[] firedTimes = new int[1];
+                    holdingMonitor = internalFireTransition(transitionToFire, true, 1, firedTimes, priority);
+                    if (firedTimes[0] != 0) {
+                        return true;
+                    }
+                    // its time span is over, so wait for it to be enabled again
+                }
+                if (interrupted) {
+                    interrupted = false;
+                    throw new InterruptedException();
+                }
+                if (bounded && deadline - System.nanoTime() <= 0) {
+                    return false;
+                }
+                FireRequest turn = new HandOverRequest(transitionIndex);
+                addWaiter(transitionIndex, turn, priority + 1);
+                if (enabledOutsideMonitor(transitionToFire)) {
+                    removeWaiter(transitionIndex, turn);
+                    continue;
+                }
+                releaseMonitor();
+                holdingMonitor = false;
+                try {
+                    awaitRequest(turn, bounded ? Math.max(0, deadline - System.nanoTime()) : -1);
+                } catch (TimeoutException e) {
+                    if (withdraw(turn)) {
+                        return false;
+                    }
+                    awaitClaimedRequest(turn);
+                } catch (InterruptedException e) {
+                    if (withdraw(turn)) {
+                        throw e;
+                    }
+                    // its turn already came, so try once more and keep the interruption for later
+                    awaitClaimedRequest(turn);
+                    interrupted = true;
+                }
+                // its turn came and the monitor was handed over
+                holdingMonitor = true;
+            }
+        } finally {
+            if (holdingMonitor) {
+                releaseMonitor();
+            }
+            completeAsyncFiresDone();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Takes the monitor, giving up if the calling thread is interrupted or, if bounded, at the deadline
+     *
+     * @param level    the level to wait with, 0 for timed transitions after their time span begins, else the priority + 1
+     * @param bounded  whether to give up at the deadline
+     * @param deadline the {@link System#nanoTime()} to give up at, if bounded
+     * @return true if the monitor was taken, false if the deadline came first
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     */
+    private boolean enterMonitor(int level, boolean bounded, long deadline) throws InterruptedException {
+        if (!bounded) {
+            inQueue.lockInterruptibly(level);
+            return true;
+        }
+        return inQueue.tryLock(level, Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Fires the transition now if possible, else leaves a request in its queue to be fired on the caller's behalf.
+     * Must be called holding {@link #inQueue}, which is released or handed to a woken up thread before returning.
+     *
+     * @param transitionToFire the transition to fire
+     * @param priority         the priority to wait with
+     * @return the request, completed once the transition is fired
+     */
+    private FireRequest requestFire(final Transition transitionToFire, int priority) throws IllegalTransitionFiringError, PetriNetException {
+        FireRequest request = new FireRequest(transitionToFire.getIndex());
+        boolean releaseLock = true;
+        try {
+            releaseLock = serveRequest(request, transitionToFire, false, priority);
+        } finally {
+            if (releaseLock) {
+                releaseMonitor();
+            }
+            completeAsyncFiresDone();
+        }
+        return request;
+    }
+
+    /**
+     * Fires the request's transition now if possible and completes the request.
+     * Otherwise a perennial request is left in the transition's queue to be fired on the caller's behalf,
+     * and a non-perennial one is completed without firing.
+     * Must be called holding {@link #inQueue}, which may be handed to a woken up thread.
+     * The request is completed once the monitor is left, see {@link #completeAsyncFiresDone()}.
+     *
+     * @param request          the request to serve, not claimed yet
+     * @param transitionToFire the request's transition, neither automatic nor timed
+     * @param notPerennialFire true to complete the request even if the transition couldn't be fired
+     * @return Whether to release the mutex {@link #inQueue}
+     * @throws IllegalTransitionFiringError If an illegal firing tries to occur in the petri net
+     * @throws PetriNetException            If an error regarding petri nets occurs.
+     */
+    boolean serveRequest(final FireRequest request, final Transition transitionToFire, boolean notPerennialFire) throws IllegalTransitionFiringError, PetriNetException {
+        return serveRequest(request, transitionToFire, notPerennialFire, priorityLevels - 1);
+    }
+
+    /**
+     * Same as {@link #serveRequest(FireRequest, Transition, boolean)} but the request waits with the given priority
+     *
+     * @param priority the priority to wait with
+     */
+    private boolean serveRequest(final FireRequest request, final Transition transitionToFire, boolean notPerennialFire, int priority)
+            throws IllegalTransitionFiringError, PetriNetException {
+        int[] firedTimes = new int[1];
+        while (true) {
+            boolean releaseLock = internalFireTransition(transitionToFire, true, 1, firedTimes, priority);
+            if (firedTimes[0] != 0 || notPerennialFire) {
+                request.claim();
+                completeAsyncFire(request);
+                return releaseLock;
+            }
+            // it couldn't be fired now, wait for it without a thread
+            addWaiter(transitionToFire.getIndex(), request, priority + 1);
+            if (!enabledOutsideMonitor(transitionToFire)) {
+                return releaseLock;
+            }
+            // the firing that enabled it may have missed the request, so try again instead of waiting
+            removeWaiter(transitionToFire.getIndex(), request);
+        }
+    }
+
+    /**
+     * Takes the monitor without waiting, only if it's free and no thread is waiting for it.
+     *
+     * @return true if the monitor was taken
+     */
+    boolean tryEnterMonitor() {
+        return inQueue.tryLock();
+    }
+
+    /**
+     * Releases the monitor. Every thread leaving the monitor without handing it to another one does it here
+     */
+    void releaseMonitor() {
+        inQueue.unlock();
+        monitorReleased();
+    }
+
+    /**
+     * Called right after the monitor was released. Does nothing, meant for subclasses waiting for a free monitor
+     */
+    void monitorReleased() {
+    }
+
+    /**
+     * Called holding {@link #inQueue} right after adding a waiter for a transition that couldn't be fired.
+     * Always false here, since every firing is made holding the monitor and so the transition can't have been enabled meanwhile.
+     * Meant for subclasses firing transitions outside the monitor, which check {@link #hasWaiters(int)} after firing:
+     * either the firing sees the waiter, or the waiter sees the firing here.
+     *
+     * @param transition the transition the waiter was added for
+     * @return true if the transition was enabled by a firing made outside the monitor, so the waiter must not wait
+     */
+    boolean enabledOutsideMonitor(final Transition transition) {
+        return false;
+    }
+
+    /**
+     * Takes the monitor to fire the enabled automatic transitions, or to wake up a thread waiting for an enabled transition,
+     * after the marking was changed outside the monitor.
+     *
+     * @throws PetriNetException If an error regarding petri nets occurs.
+     */
+    void serveEnabledTransitions() throws PetriNetException {
+        boolean releaseLock = true;
+        try {
+            inQueue.lock();
+            releaseLock = fireNextAvailableTransition();
+        } finally {
+            if (releaseLock) {
+                releaseMonitor();
+            }
+            completeAsyncFiresDone();
+        }
+    }
+
+    /**
+     * Takes a request out of its transition's queue, unless it was already claimed to be fired.
+     * Never waits for the monitor: a cancelled request is skipped when its turn comes, so it's only cleaned up now if the monitor is free.
+     * Otherwise it's dropped later on, when polled or when a new waiter finds it first in line.
+     *
+     * @param request the request to withdraw
+     * @return true if it was withdrawn and won't be fired, false if it was fired or is about to be
+     */
+    private boolean withdraw(final FireRequest request) {
+        if (!request.cancel(false)) {
+            return false;
+        }
+        if (tryEnterMonitor()) {
+            try {
+                removeWaiter(request.getTransitionIndex(), request);
+            } finally {
+                releaseMonitor();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits for a request to be fired
+     *
+     * @param request      the request to wait for
+     * @param timeoutNanos the maximum time to wait, or a negative value to wait with no limit
+     * @throws InterruptedException if the calling thread is interrupted while waiting
+     * @throws TimeoutException     if the time elapsed before the request was fired
+     */
+    private static void awaitRequest(final FireRequest request, long timeoutNanos) throws InterruptedException, TimeoutException {
+        try {
+            if (timeoutNanos < 0) {
+                request.get();
+            } else {
+                request.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            }
+        } catch (ExecutionException e) {
+            // requests are only completed normally
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Waits for a claimed request to be completed, which happens as soon as the thread firing it leaves the monitor
+     *
+     * @param request the claimed request
+     * @return true
+     */
+    private boolean awaitClaimedRequest(final FireRequest request) {
+        request.join();
+        return true;
+    }
+
+    /**
+     * Sets who completes the futures of asynchronous fires.
+     *
+     * @param executor the executor to complete them with, or null to complete them on the threads leaving the monitor
+     * @see #fireTransitionAsync(Transition)
+     */
+    public void setAsyncFiresExecutor(final Executor executor) {
+        asyncFiresExecutor = executor;
+    }
+
+    /**
+     * Sets how long threads spin before parking, both when waiting to get into the monitor
+     * and when sleeping in a transition's queue they found empty.
+     * Spinning cuts the handoff latency when the monitor is held for short times, at the cost of busy CPUs.
+     * By default threads park right away, as with {@link SpinPolicy#NO_SPIN}.
+     *
+     * @param spinPolicy the policy to use
+     * @throws IllegalArgumentException if spinPolicy is null
+     */
+    public void setSpinPolicy(final SpinPolicy spinPolicy) throws IllegalArgumentException {
+        if (spinPolicy == null) {
+            throw new IllegalArgumentException("Null spin policy not allowed");
+        }
+        inQueue.setSpinPolicy(spinPolicy);
+    }
+
+    /**
+     * Sets how many times the threads of a priority level can be passed over by threads of higher priority
+     * before going ahead of them, both to get into the monitor and in the transitions' queues, so they don't starve.
+     * Threads firing timed transitions after their time span begins are never passed over.
+     * {@link #DEFAULT_AGING_THRESHOLD} by default.
+     *
+     * @param agingThreshold the amount of times, or 0 to always let the highest priority go first
+     * @throws IllegalArgumentException if agingThreshold is negative
+     */
+    public void setAgingThreshold(int agingThreshold) throws IllegalArgumentException {
+        inQueue.setAgingThreshold(agingThreshold);
+        this.agingThreshold = agingThreshold;
+    }
+
+    /**
+     * @return the amount of priority levels for firing threads, 0 being the highest
+     * @see #fireTransitionWithPriority(Transition, int)
+     */
+    public int getPriorityLevels() {
+        return priorityLevels;
+    }
+
+    /**
+     * @return the policy deciding how long threads spin before parking
+     * @see #setSpinPolicy(SpinPolicy)
+     */
+    public SpinPolicy getSpinPolicy() {
+        return inQueue.getSpinPolicy();
+    }
+
+    /**
+     * Fires a transition the given amount of times, blocking until all of them are fired.
+     * As many firings as the marking allows are made in one step, with a single event sent for informed transitions.
+     *
+     * @param transitionToFire The transition to fire
+     * @param times            The amount of times to fire it. Must be positive
+     * @return the amount of times the transition was fired, which is always times
+     * @throws IllegalArgumentException        If times is not positive
+     * @throws IllegalTransitionFiringError    when an request to fire an automatic transition arrives
+     * @throws NotInitializedPetriNetException when firing a transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     * @see PetriMonitor#fireTransition(Transition, int, boolean)
+     */
+    public int fireTransition(final Transition transitionToFire, int times) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        return fireTransition(transitionToFire, times, false);
+    }
+
+    /**
+     * Fires a transition the given amount of times.
+     * As many firings as the marking allows are made in one step, with a single event sent for informed transitions.
+     * A perennial fire sends the calling thread to sleep until the remaining firings can be made.
+     * A non-perennial fire makes a single attempt and reports how many firings it could make.
+     *
+     * @param transitionToFire The transition to fire
+     * @param times            The amount of times to fire it. Must be positive
+     * @param notPerennialFire False indicates a perennial fire
+     * @return the amount of times the transition was fired
+     * @throws IllegalArgumentException        If times is not positive
+     * @throws IllegalTransitionFiringError    when an request to fire an automatic transition arrives
+     * @throws NotInitializedPetriNetException when firing a transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     * @see PetriNet#fire(Transition, int)
+     */
+    public int fireTransition(final Transition transitionToFire, int times, boolean notPerennialFire) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        if (times < 1) {
+            throw new IllegalArgumentException("Cannot fire a transition " + times + " times");
+        }
+        if (transitionToFire.getLabel().isAutomatic()) {
+            throw new IllegalTransitionFiringError("An automatic transition has tried to be fired manually");
+        }
+        if (!petri.isInitialized()) {
+            throw new NotInitializedPetriNetException();
+        }
+        int firedTimes = 0;
+        int[] firedInOneStep = new int[1];
+        do {
+            firedInOneStep[0] = 0;
+            boolean releaseLock = true;
+            try {
+                inQueue.lock();
+                releaseLock = internalFireTransition(transitionToFire, notPerennialFire, times - firedTimes, firedInOneStep, priorityLevels - 1);
+            } finally {
+                if (releaseLock) {
+                    releaseMonitor();
+                }
+                completeAsyncFiresDone();
+            }
+            firedTimes += firedInOneStep[0];
+        } while (!notPerennialFire && firedTimes < times);
+        return firedTimes;
+    }
+
+    /**
+     * Fires the given transitions in order as a unit, in a single monitor access.
+     * Either all of them are fired or none is, and no other thread can fire between them.
+     * Automatic transitions enabled by the sequence are fired, or a sleeping thread is woken up, only after the whole sequence.
+     * The calling thread never sleeps: if the sequence cannot be fired now, nothing happens.
+     *
+     * @param sequence The transitions to fire, in firing order
+     * @return true if the sequence was fired, false if no transition was fired
+     * @throws IllegalArgumentException        If the sequence is null, or contains a null or timed transition
+     * @throws IllegalTransitionFiringError    If the sequence contains an automatic transition
+     * @throws NotInitializedPetriNetException when firing before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     * @see PetriNet#fireSequence(Transition...)
+     */
+    public boolean fireSequence(final Transition... sequence) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        if (sequence == null) {
+            throw new IllegalArgumentException("Null sequence not allowed");
+        }
+        return fireAsUnit(sequence, null);
+    }
+
+    /**
+     * Fires every transition in the given set once as a unit, in a single monitor access.
+     * Either all of them are fired or none is, and the tokens required by all of them together must be available.
+     * They are fired, and their events sent, in ascending index order.
+     * The calling thread never sleeps: if the transitions cannot be fired now, nothing happens.
+     *
+     * @param transitionsToFire The transitions to fire
+     * @return true if the transitions were fired, false if no transition was fired
+     * @throws IllegalArgumentException        If the set is null, or contains a null or timed transition
+     * @throws IllegalTransitionFiringError    If the set contains an automatic transition
+     * @throws NotInitializedPetriNetException when firing before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     * @see PetriNet#fireAtomically(Set)
+     */
+    public boolean fireAtomically(final Set<Transition> transitionsToFire) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        if (transitionsToFire == null) {
+            throw new IllegalArgumentException("Null set not allowed");
+        }
+        return fireAsUnit(PetriNet.inFiringOrder(transitionsToFire), transitionsToFire);
+    }
+
+    /**
+     * Fires the given transitions as a unit and then handles the transitions they enabled
+     *
+     * @param transitions the transitions to fire
+     * @param asSet       if not null the transitions are fired with {@link PetriNet#fireAtomically(Set)}, else with {@link PetriNet#fireSequence(Transition...)}
+     * @return true if the transitions were fired
+     */
+    private boolean fireAsUnit(final Transition[] transitions, final Set<Transition> asSet) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        for (Transition transition : transitions) {
+            if (transition == null) {
+                throw new IllegalArgumentException("Null transition not allowed");
+            }
+            if (transition.getLabel().isAutomatic()) {
+                throw new IllegalTransitionFiringError("An automatic transition has tried to be fired manually");
+            }
+        }
+        if (!petri.isInitialized()) {
+            throw new NotInitializedPetriNetException();
+        }
+        boolean fired = false;
+        boolean releaseLock = true;
+        try {
+            inQueue.lock();
+            PetriNetFireOutcome outcome = asSet == null ? petri.fireSequence(transitions) : petri.fireAtomically(asSet);
+            fired = outcome == PetriNetFireOutcome.SUCCESS;
+            if (fired) {
+                // one firing step was made for each transition
+                long sequenceNumber = petri.getLastFiringSequenceNumber(transitions[transitions.length - 1]) - transitions.length;
+                for (Transition transition : transitions) {
+                    sequenceNumber++;
+                    if (transition.getLabel().isInformed()) {
+                        sendEventAfterFiring(transition, 1, sequenceNumber);
+                    }
+                }
+                releaseLock = fireNextAvailableTransition();
+            }
+        } finally {
+            if (releaseLock) {
+                releaseMonitor();
+            }
+            completeAsyncFiresDone();
+        }
+        return fired;
+    }
+
+    /**
+     * @param transitionName The name of the transition to fire.
+     * @throws IllegalArgumentException        If no transition matches transitionName
+     * @throws IllegalTransitionFiringError    If transitionName matches an automatic transition
+     * @throws NotInitializedPetriNetException when firing a timed transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     * @see PetriMonitor#fireTransition(Transition)
+     */
+    public void fireTransition(final String transitionName) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        fireTransition(transitionName, false);
+    }
+
+    /**
+     * @param transitionName   The name of the transition to fire.
+     * @param notPerennialFire False indicates a perennial fire
+     * @throws IllegalArgumentException        If no transition matches transitionName
+     * @throws IllegalTransitionFiringError    If transitionName matches an automatic transition
+     * @throws NotInitializedPetriNetException when firing a timed transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     * @see PetriMonitor#fireTransition(Transition)
+     */
+    public void fireTransition(final String transitionName, boolean notPerennialFire) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        fireTransition(petri.getTransition(transitionName), notPerennialFire);
+    }
+
+    /**
+     * Fires the transition with the given index. Intended to be used with indexes resolved once through
+     * {@link PetriNet#getTransitionIndex(String)}, avoiding a name lookup on every fire.
+     *
+     * @param transitionIndex The index of the transition to fire.
+     * @throws IllegalArgumentException        If no transition matches transitionIndex
+     * @throws IllegalTransitionFiringError    If transitionIndex matches an automatic transition
+     * @throws NotInitializedPetriNetException when firing a timed transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     * @see PetriMonitor#fireTransition(Transition)
+     */
+    public void fireTransition(final int transitionIndex) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        fireTransition(transitionIndex, false);
+    }
+
+    /**
+     * @param transitionIndex  The index of the transition to fire.
+     * @param notPerennialFire False indicates a perennial fire
+     * @throws IllegalArgumentException        If no transition matches transitionIndex
+     * @throws IllegalTransitionFiringError    If transitionIndex matches an automatic transition
+     * @throws NotInitializedPetriNetException when firing a timed transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     * @see PetriMonitor#fireTransition(Transition, boolean)
+     */
+    public void fireTransition(final int transitionIndex, boolean notPerennialFire) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
+        Transition[] transitions = petri.getTransitions();
+        if (transitionIndex < 0 || transitionIndex >= transitions.length) {
+            throw new IllegalArgumentException("Index " + transitionIndex + " doesn't match any transition's index in this petri net");
+        }
+        fireTransition(transitions[transitionIndex], notPerennialFire);
+    }
+
+    /**
+     * Fills and returns a vector of booleans containing
+     * whether at least one thread is sleeping in the matching transition's queue
+     *
+     * @return a vector of boolean indicating if at least a thread is sleeping in each transition's queue
+     */
+    public boolean[] getQueuesState() {
+        boolean[] queuesNotEmpty = new boolean[sleepingThreads.length()];
+        for (int i = 0; i < queuesNotEmpty.length; i++) {
+            queuesNotEmpty[i] = sleepingThreads.get(i) > 0;
+        }
+        return queuesNotEmpty;
+    }
+
+    /**
+     * Changes the transitions policy at runtime. If null just ignores the new policy and keeps the previous
+     *
+     * @param _transitionsPolicy the new policy to be set
+     */
+    public void setTransitionsPolicy(TransitionsPolicy _transitionsPolicy) {
+        if (_transitionsPolicy != null) {
+            this.transitionsPolicy = _transitionsPolicy;
+        }
+    }
+
+    /**
+     * Makes the events be delivered to subscribers by dedicated dispatcher threads instead of the firing thread.
+     * A fire only appends its event to a bounded buffer, so slow subscribers no longer delay the monitor,
+     * unless the buffer fills up with {@link AsyncEventDispatcher.OverflowPolicy#BLOCK}.
+     * The events of each transition keep their firing order.
+     *
+     * @param bufferCapacity    the amount of events the buffer can hold
+     * @param dispatcherThreads the amount of threads delivering events
+     * @param overflowPolicy    what to do with a new event when the buffer is full
+     * @throws IllegalArgumentException if bufferCapacity or dispatcherThreads are not positive or overflowPolicy is null
+     * @throws IllegalStateException    if the asynchronous dispatch is already enabled
+     */
+    public void enableAsyncEventDispatch(int bufferCapacity, int dispatcherThreads, AsyncEventDispatcher.OverflowPolicy overflowPolicy)
+            throws IllegalArgumentException, IllegalStateException {
+        try {
+            inQueue.lock();
+            if (eventDispatcher != null) {
+                throw new IllegalStateException("Asynchronous event dispatch already enabled");
+            }
+            eventDispatcher = new AsyncEventDispatcher(bufferCapacity, dispatcherThreads, overflowPolicy,
+                    transitionEventsObservables.length,
+                    event -> transitionEventsObservables[event.getIndex()].onNext(event),
+                    allTransitionsEventsObservable::onNext);
+        } finally {
+            releaseMonitor();
+        }
+    }
+
+    /**
+     * Goes back to delivering the events from the firing thread.
+     * Waits until the events already in the buffer are delivered.
+     *
+     * @throws InterruptedException if interrupted while waiting for the pending events to be delivered
+     */
+    public void disableAsyncEventDispatch() throws InterruptedException {
+        AsyncEventDispatcher previousDispatcher;
+        try {
+            inQueue.lock();
+            previousDispatcher = eventDispatcher;
+            eventDispatcher = null;
+        } finally {
+            releaseMonitor();
+        }
+        // the dispatchers may be delivering to a subscriber who needs the monitor, so wait outside it
+        if (previousDispatcher != null) {
+            previousDispatcher.shutdown(true);
+        }
+    }
+
+    /**
+     * @return the asynchronous event dispatcher to check its lag and dropped events, or null if the events are sent by the firing thread
+     */
+    public AsyncEventDispatcher getEventDispatcher() {
+        return eventDispatcher;
+    }
+
+    /**
+     * Subscribe the given observer to the transition matching the given name's events if it's informed.
+     * Events are sent in JSON format, use {@link #subscribeToTransitionEvents(String, Observer)} to get them without serialization.
+     *
+     * @param _transitionName the name of the transition to subscribe to
+     * @param _observer       the observer to subscribe
+     * @return a Subscription object used to unsubscribe
+     * @throws IllegalArgumentException if the given transition is not informed, the name or observer is null or the name doesn't match any transition
+     * @see TransitionFiredEvent#toJson()
+     */
+    public Subscription subscribeToTransition(final String _transitionName, final Observer<String> _observer) throws IllegalArgumentException {
+        return subscribeToTransition(petri.getTransition(_transitionName), _observer);
+    }
+
+    /**
+     * Subscribe the given observer to the given transition events if it's informed.
+     * Events are sent in JSON format, use {@link #subscribeToTransitionEvents(Transition, Observer)} to get them without serialization.
+     *
+     * @param _transition the transition to subscribe to
+     * @param _observer   the observer to subscribe
+     * @return a Subscription object used to unsubscribe
+     * @throws IllegalArgumentException if the given transition is not informed or the transition or observer is null
+     * @see TransitionFiredEvent#toJson()
+     */
+    public Subscription subscribeToTransition(final Transition _transition, final Observer<String> _observer) throws IllegalArgumentException {
+        checkSubscription(_transition, _observer);
+        // the JSON is built once per event and shared among all JSON subscribers
+        return transitionEventsObservables[_transition.getIndex()]
+                .map(TransitionFiredEvent::toJson)
+                .subscribe(_observer);
+    }
+
+    /**
+     * Subscribe the given observer to the events of the transition matching the given name if it's informed
+     *
+     * @param _transitionName the name of the transition to subscribe to
+     * @param _observer       the observer to subscribe
+     * @return a Subscription object used to unsubscribe
+     * @throws IllegalArgumentException if the given transition is not informed, the name or observer is null or the name doesn't match any transition
+     */
+    public Subscription subscribeToTransitionEvents(final String _transitionName, final Observer<TransitionFiredEvent> _observer) throws IllegalArgumentException {
+        return subscribeToTransitionEvents(petri.getTransition(_transitionName), _observer);
+    }
+
+    /**
+     * Subscribe the given observer to the given transition events if it's informed.
+     * The events are sent as {@link TransitionFiredEvent} objects, with no serialization involved
+     *
+     * @param _transition the transition to subscribe to
+     * @param _observer   the observer to subscribe
+     * @return a Subscription object used to unsubscribe
+     * @throws IllegalArgumentException if the given transition is not informed or the transition or observer is null
+     */
+    public Subscription subscribeToTransitionEvents(final Transition _transition, final Observer<TransitionFiredEvent> _observer) throws IllegalArgumentException {
+        checkSubscription(_transition, _observer);
+        return transitionEventsObservables[_transition.getIndex()].subscribe(_observer);
+    }
+
+    /**
+     * Subscribe the given observer to the events of every informed transition
+     * with a single subscription, for instance for auditing purposes.
      *
-     * @param transitionToFire The transition to fire
-     * @param notPerennialFire False indicates a perennial fire
-     * @throws IllegalTransitionFiringError    when an request to fire an automatic transition arrives
-     * @throws NotInitializedPetriNetException when firing a timed transition before initializing the petri net
-     * @throws PetriNetException               If an error regarding petri nets occurs.
-     * @see PetriNet#fire(Transition)
+     * @param _observer the observer to subscribe
+     * @return a Subscription object used to unsubscribe
+     * @throws IllegalArgumentException if the observer is null
      */
-    public void fireTransition(final Transition transitionToFire, boolean notPerennialFire) throws IllegalTransitionFiringError, PetriNetException {
-        // An attempt to fire an automatic transition is a severe error and the application should stop automatically
-        if (transitionToFire.getLabel().isAutomatic()) {
-            throw new IllegalTransitionFiringError("An automatic transition has tried to be fired manually");
-        }
-        if (!petri.isInitialized()) {
-            throw new NotInitializedPetriNetException();
-        }
-        boolean releaseLock = true;
-        try {
-            // take the mutex to access the monitor
-            inQueue.lock();
-            releaseLock = internalFireTransition(transitionToFire, notPerennialFire);
-        } finally {
-            // the firing is done, release the mutex and leave
-            if (releaseLock) {
-                inQueue.unlock();
-            }
+    public Subscription subscribeToAllTransitionsEvents(final Observer<TransitionFiredEvent> _observer) throws IllegalArgumentException {
+        if (_observer == null) {
+            throw new IllegalArgumentException("invalid observer recieved");
         }
+        return allTransitionsEventsObservable.subscribe(_observer);
     }
 
     /**
-     * @param transitionName The name of the transition to fire.
-     * @throws IllegalArgumentException        If no transition matches transitionName
-     * @throws IllegalTransitionFiringError    If transitionName matches an automatic transition
-     * @throws NotInitializedPetriNetException when firing a timed transition before initializing the petri net
-     * @throws PetriNetException               If an error regarding petri nets occurs.
-     * @see PetriMonitor#fireTransition(Transition)
+     * Creates a publisher of the given transition events that respects the amount of events its subscribers request.
+     * Each subscription gets its own buffer, so a slow subscriber neither affects the others nor gets a MissingBackpressureException.
+     * Subscribers control the flow through {@link rx.Subscriber#request(long)}.
+     *
+     * @param _transition the transition whose events are published
+     * @param strategy    what to do with the events the subscriber didn't request yet
+     * @param bufferSize  the maximum amount of events kept with {@link BackpressureStrategy#BUFFER}, or 0 for no limit
+     * @return the publisher of the transition's events
+     * @throws IllegalArgumentException if the given transition is not informed, the transition or strategy is null or bufferSize is negative
      */
-    public void fireTransition(final String transitionName) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
-        fireTransition(transitionName, false);
+    public Observable<TransitionFiredEvent> getTransitionEventsPublisher(final Transition _transition, final BackpressureStrategy strategy,
+            final int bufferSize) throws IllegalArgumentException {
+        checkPublisher(_transition, strategy, bufferSize);
+        return applyBackpressure(transitionEventsObservables[_transition.getIndex()], strategy, bufferSize);
     }
 
     /**
-     * @param transitionName   The name of the transition to fire.
-     * @param notPerennialFire False indicates a perennial fire
-     * @throws IllegalArgumentException        If no transition matches transitionName
-     * @throws IllegalTransitionFiringError    If transitionName matches an automatic transition
-     * @throws NotInitializedPetriNetException when firing a timed transition before initializing the petri net
-     * @throws PetriNetException               If an error regarding petri nets occurs.
-     * @see PetriMonitor#fireTransition(Transition)
+     * Creates a publisher of every informed transition's events that respects the amount of events its subscribers request.
+     *
+     * @param strategy   what to do with the events the subscriber didn't request yet
+     * @param bufferSize the maximum amount of events kept with {@link BackpressureStrategy#BUFFER}, or 0 for no limit
+     * @return the publisher of every informed transition's events
+     * @throws IllegalArgumentException if strategy is null or bufferSize is negative
+     * @see #getTransitionEventsPublisher(Transition, BackpressureStrategy, int)
      */
-    public void fireTransition(final String transitionName, boolean notPerennialFire) throws IllegalArgumentException, IllegalTransitionFiringError, PetriNetException {
-        fireTransition(petri.getTransition(transitionName), notPerennialFire);
+    public Observable<TransitionFiredEvent> getAllTransitionsEventsPublisher(final BackpressureStrategy strategy, final int bufferSize)
+            throws IllegalArgumentException {
+        checkPublisher(strategy, bufferSize);
+        return applyBackpressure(allTransitionsEventsObservable, strategy, bufferSize);
     }
 
     /**
-     * Fills and returns a vector of booleans containing
-     * whether at least one thread is sleeping in the matching VarCondQueue
+     * Creates a publisher that delivers the given transition events in batches, so a high firing rate doesn't overwhelm its subscribers.
+     * A batch is sent when it gets maxBatchSize events or when the timespan since the previous batch elapses, whatever happens first.
+     * Empty batches are not sent. The batches not requested yet are handled according to strategy.
      *
-     * @return a vector of boolean indicating if at least a thread is sleeping in each VarCondQueue
+     * @param _transition  the transition whose events are published
+     * @param timespan     the maximum time to wait before sending a non empty batch
+     * @param unit         the unit of timespan
+     * @param maxBatchSize the maximum amount of events in a batch
+     * @param strategy     what to do with the batches the subscriber didn't request yet
+     * @param bufferSize   the maximum amount of batches kept with {@link BackpressureStrategy#BUFFER}, or 0 for no limit
+     * @return the publisher of the transition's events batches
+     * @throws IllegalArgumentException if the given transition is not informed, the transition, unit or strategy is null,
+     *                                  timespan or maxBatchSize are not positive or bufferSize is negative
      */
-    public boolean[] getQueuesState() {
-        boolean[] queuesNotEmpty = new boolean[condVarQueue.length];
-        for (int i = 0; i < condVarQueue.length; i++) {
-            queuesNotEmpty[i] = condVarQueue[i] != null && !condVarQueue[i].isEmpty();
-        }
-        return queuesNotEmpty;
+    public Observable<List<TransitionFiredEvent>> getTransitionEventsBatchesPublisher(final Transition _transition, final long timespan,
+            final TimeUnit unit, final int maxBatchSize, final BackpressureStrategy strategy, final int bufferSize) throws IllegalArgumentException {
+        checkPublisher(_transition, strategy, bufferSize);
+        return applyBackpressure(inBatches(transitionEventsObservables[_transition.getIndex()], timespan, unit, maxBatchSize), strategy, bufferSize);
     }
 
     /**
-     * Changes the transitions policy at runtime. If null just ignores the new policy and keeps the previous
+     * Creates a publisher that delivers every informed transition's events in batches.
      *
-     * @param _transitionsPolicy the new policy to be set
+     * @param timespan     the maximum time to wait before sending a non empty batch
+     * @param unit         the unit of timespan
+     * @param maxBatchSize the maximum amount of events in a batch
+     * @param strategy     what to do with the batches the subscriber didn't request yet
+     * @param bufferSize   the maximum amount of batches kept with {@link BackpressureStrategy#BUFFER}, or 0 for no limit
+     * @return the publisher of every informed transition's events batches
+     * @throws IllegalArgumentException if unit or strategy is null, timespan or maxBatchSize are not positive or bufferSize is negative
+     * @see #getTransitionEventsBatchesPublisher(Transition, long, TimeUnit, int, BackpressureStrategy, int)
      */
-    public synchronized void setTransitionsPolicy(TransitionsPolicy _transitionsPolicy) {
-        if (_transitionsPolicy != null) {
-            this.transitionsPolicy = _transitionsPolicy;
+    public Observable<List<TransitionFiredEvent>> getAllTransitionsEventsBatchesPublisher(final long timespan, final TimeUnit unit,
+            final int maxBatchSize, final BackpressureStrategy strategy, final int bufferSize) throws IllegalArgumentException {
+        checkPublisher(strategy, bufferSize);
+        return applyBackpressure(inBatches(allTransitionsEventsObservable, timespan, unit, maxBatchSize), strategy, bufferSize);
+    }
+
+    /**
+     * @param _transition the transition to publish
+     * @param strategy    the backpressure strategy
+     * @param bufferSize  the buffer size for {@link BackpressureStrategy#BUFFER}
+     * @throws IllegalArgumentException if the given transition is not informed, the transition or strategy is null or bufferSize is negative
+     */
+    private void checkPublisher(final Transition _transition, final BackpressureStrategy strategy, final int bufferSize) throws IllegalArgumentException {
+        if (_transition == null) {
+            throw new IllegalArgumentException("invalid transition recieved");
+        } else if (!_transition.getLabel().isInformed()) {
+            throw new IllegalArgumentException("Transition " + _transition.getIndex() + " is not informed");
         }
+        checkPublisher(strategy, bufferSize);
     }
 
     /**
-     * Subscribe the given observer to the transition matching the given name's events if it's informed
-     *
-     * @param _transitionName the name of the transition to subscribe to
-     * @param _observer       the observer to subscribe
-     * @return a Subscription object used to unsubscribe
-     * @throws IllegalArgumentException if the given transition is not informed, the name or observer is null or the name doesn't match any transition
+     * @param strategy   the backpressure strategy
+     * @param bufferSize the buffer size for {@link BackpressureStrategy#BUFFER}
+     * @throws IllegalArgumentException if strategy is null or bufferSize is negative
      */
-    public Subscription subscribeToTransition(final String _transitionName, final Observer<String> _observer) throws IllegalArgumentException {
-        return subscribeToTransition(petri.getTransition(_transitionName), _observer);
+    private void checkPublisher(final BackpressureStrategy strategy, final int bufferSize) throws IllegalArgumentException {
+        if (strategy == null || bufferSize < 0) {
+            throw new IllegalArgumentException("invalid backpressure strategy or buffer size recieved");
+        }
+    }
+
+    private static <T> Observable<T> applyBackpressure(final Observable<T> source, final BackpressureStrategy strategy, final int bufferSize) {
+        switch (strategy) {
+            case DROP:
+                return source.onBackpressureDrop();
+            case LATEST:
+                return source.onBackpressureLatest();
+            default:
+                return bufferSize == 0
+                        ? source.onBackpressureBuffer()
+                        : source.onBackpressureBuffer(bufferSize, Actions.empty(), BackpressureOverflow.ON_OVERFLOW_DROP_OLDEST);
+        }
+    }
+
+    private static Observable<List<TransitionFiredEvent>> inBatches(final Observable<TransitionFiredEvent> source, final long timespan,
+            final TimeUnit unit, final int maxBatchSize) throws IllegalArgumentException {
+        if (unit == null || timespan <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("invalid batches timespan or size recieved");
+        }
+        return source.buffer(timespan, unit, maxBatchSize).filter(batch -> !batch.isEmpty());
     }
 
     /**
-     * Subscribe the given observer to the given transition events if it's informed
-     *
      * @param _transition the transition to subscribe to
      * @param _observer   the observer to subscribe
-     * @return a Subscription object used to unsubscribe
      * @throws IllegalArgumentException if the given transition is not informed or the transition or observer is null
      */
-    public Subscription subscribeToTransition(final Transition _transition, final Observer<String> _observer) throws IllegalArgumentException {
+    private void checkSubscription(final Transition _transition, final Observer<?> _observer) throws IllegalArgumentException {
         if (_transition == null || _observer == null) {
             throw new IllegalArgumentException("invalid transition or observer recieved");
         } else if (!_transition.getLabel().isInformed()) {
             throw new IllegalArgumentException("Transition " + _transition.getIndex() + " is not informed");
         }
-        // the subscription is made only to the specified transition filtering by id
-        return informedTransitionsObservable
-                .filter((String jsonInfo) -> {
-                    try {
-                        // checks that the ID registered is the same as the one in the JSON
-                        return _transition.getId()
-                                .equals(jsonMapper.readTree(jsonInfo).get(ID).asText());
-                    } catch (IOException e) {
-                        return false;
-                    }
-                })
-                .subscribe(_observer);
     }
 
     /**
@@ -278,27 +1415,107 @@ public class PetriMonitor {
             inQueue.lock();
             petri.readGuard(guardName);
             couldSet = petri.addGuard(guardName, newValue);
-            // setting this guard could've enabled some transitions
-            // if any automatic was enabled it should be fired immediately
-            // if any fired was enabled, let's wake a sleeping thread if available
-            int nextTransitionToFireIndex = getNextTransitionAvailableToFire();
-            if (nextTransitionToFireIndex >= 0) {
-                if (petri.getAutomaticTransitions()[nextTransitionToFireIndex]) {
-                    releaseLock = internalFireTransition(petri.getTransitions()[nextTransitionToFireIndex], false);
-                } else {
-                    // if a fired transition was enabled by the guard, wake up a thread waiting for it
-                    releaseLock = false;
-                    condVarQueue[nextTransitionToFireIndex].wakeUp();
-                }
-            }
+            releaseLock = fireNextAvailableTransition();
         } finally {
             if (releaseLock) {
-                inQueue.unlock();
+                releaseMonitor();
             }
+            completeAsyncFiresDone();
         }
         return couldSet;
     }
 
+    /**
+     * Sets several guards' new values atomically.
+     * All guards are updated in a single monitor access, the affected transitions are re-evaluated once,
+     * and only then automatic transitions are fired or a sleeping thread is woken up.
+     * Thus no transition is fired with some of the guards updated and some not.
+     *
+     * @param newValues The new value for each target guard
+     * @throws IndexOutOfBoundsException       If any guard doesn't exist. In that case no guard is changed
+     * @throws NullPointerException            If newValues is null or contains an empty guard name or a null value
+     * @throws NotInitializedPetriNetException when setting guards before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     */
+    public void setGuards(Map<String, Boolean> newValues) throws IndexOutOfBoundsException, NullPointerException, PetriNetException {
+        if (newValues == null) {
+            throw new NullPointerException("Null guards map not allowed");
+        }
+        for (Map.Entry<String, Boolean> guard : newValues.entrySet()) {
+            if (guard.getKey() == null || guard.getKey().isEmpty()) {
+                throw new NullPointerException("Empty guard name not allowed");
+            }
+            if (guard.getValue() == null) {
+                throw new NullPointerException("Null value not allowed for guard " + guard.getKey());
+            }
+        }
+        if (!petri.isInitialized()) {
+            throw new NotInitializedPetriNetException();
+        }
+        boolean releaseLock = true;
+        try {
+            inQueue.lock();
+            // check every guard exists before changing any
+            for (String guardName : newValues.keySet()) {
+                petri.readGuard(guardName);
+            }
+            petri.addGuards(newValues);
+            releaseLock = fireNextAvailableTransition();
+        } finally {
+            if (releaseLock) {
+                releaseMonitor();
+            }
+            completeAsyncFiresDone();
+        }
+    }
+
+    /**
+     * Handles the transitions a guards or marking change could've enabled outside the regular firing path.
+     * If any automatic was enabled it's fired immediately,
+     * if any fired was enabled a thread sleeping for it is woken up if available.
+     * Must be called holding {@link #inQueue}.
+     *
+     * @return Whether to release the mutex {@link #inQueue}
+     * @throws PetriNetException If an error regarding petri nets occurs.
+     */
+    private boolean fireNextAvailableTransition() throws PetriNetException {
+        int nextTransitionToFireIndex = nextTransitionToFire();
+        if (nextTransitionToFireIndex >= 0) {
+            return internalFireTransition(petri.getTransitions()[nextTransitionToFireIndex], false);
+        }
+        // if a thread waiting for a fired transition was woken up, it has the monitor now
+        return nextTransitionToFireIndex != WOKE_UP_THREAD;
+    }
+
+    /**
+     * Chooses the next transition to fire and serves it.
+     * If it's not automatic its next waiter is served: a sleeping thread or the caller of another {@link HandOverRequest} is woken up and handed the monitor,
+     * while an asynchronous fire is left in {@link #servedAsyncFire} to be made by the next firing.
+     * Cancelled asynchronous fires are discarded on the way.
+     *
+     * @return the index of the transition to fire, {@link #WOKE_UP_THREAD} if a thread was woken up or -1 if none is available
+     */
+    private int nextTransitionToFire() {
+        while (true) {
+            int nextTransitionToFireIndex = getNextTransitionAvailableToFire();
+            if (nextTransitionToFireIndex < 0 || petri.getAutomaticTransitions()[nextTransitionToFireIndex]) {
+                return nextTransitionToFireIndex;
+            }
+            FireRequest waiter = pollWaiter(nextTransitionToFireIndex);
+            if (waiter instanceof HandOverRequest) {
+                // its caller tries to fire it by itself, so hand it the monitor.
+                // Completing the request wakes up that very caller, whether it's already parked or not
+                waiter.complete(null);
+                return WOKE_UP_THREAD;
+            }
+            if (waiter != null) {
+                servedAsyncFire = waiter;
+                return nextTransitionToFireIndex;
+            }
+            // every waiter had cancelled, so look for another transition
+        }
+    }
+
     /**
      * Searches through enabled transitions looking for automatic transitions and threads sleeping for manual transitions.
      * If there is any available, the policy will tell which one is the next to be fired
@@ -307,50 +1524,158 @@ public class PetriMonitor {
      */
     private int getNextTransitionAvailableToFire() {
         // let's see if any transition was enabled due to the last fired
-        boolean enabledTransitions[] = petri.getEnabledTransitions();
-        boolean queueHasThreadSleeping[] = getQueuesState(); //Is there anyone in the queue?
-        boolean automaticTransitions[] = petri.getAutomaticTransitions();
+        // combining whole words of the enabled, waiting and automatic transitions bitsets
+        long automaticTransitions[] = petri.getAutomaticTransitionsBitSet();
 
-        boolean availablesToFire[] = new boolean[enabledTransitions.length];
         boolean anyAvailable = false;
-        for (int i = 0; i < availablesToFire.length; i++) {
-            availablesToFire[i] = enabledTransitions[i] && (queueHasThreadSleeping[i] || automaticTransitions[i]);
-            anyAvailable |= availablesToFire[i];
+        for (int i = 0; i < availableTransitionsBitSet.length; i++) {
+            availableTransitionsBitSet[i] = petri.getEnabledTransitionsWord(i) & (waitingTransitionsBitSet.get(i) | automaticTransitions[i])
+                    & ownedTransitionsBitSet[i];
+            anyAvailable |= availableTransitionsBitSet[i] != 0;
         }
 
         if (!anyAvailable) {
             return -1;
         }
 
-        return transitionsPolicy.which(availablesToFire);
+        return transitionsPolicy.which(availableTransitionsBitSet);
+    }
+
+    /**
+     * Adds a waiter at the end of its priority level in the given transition's waiters.
+     * Must be called holding {@link #inQueue}
+     *
+     * @param transitionIndex the index of the transition to wait for
+     * @param waiter          a {@link SleepingThread}, an asynchronous fire or another {@link HandOverRequest}
+     * @param level           the level to wait with, 0 for timed transitions after their time span begins, else the priority + 1
+     */
+    private void addWaiter(int transitionIndex, FireRequest waiter, int level) {
+        transitionWaiters[transitionIndex].add(waiter, level);
+        final int word = transitionIndex >>> 6;
+        waitingTransitionsBitSet.set(word, waitingTransitionsBitSet.get(word) | 1L << transitionIndex);
+    }
+
+    /**
+     * Takes the next waiter for the given transition, claiming it.
+     * Cancelled requests before it are discarded.
+     * Must be called holding {@link #inQueue}
+     *
+     * @param transitionIndex the index of a transition with waiters
+     * @return a claimed waiter or null if every waiter had cancelled
+     */
+    private FireRequest pollWaiter(int transitionIndex) {
+        TransitionQueue waiters = transitionWaiters[transitionIndex];
+        final int threshold = agingThreshold;
+        FireRequest waiter = waiters.poll(threshold);
+        while (waiter != null && !waiter.claim()) {
+            waiter = waiters.poll(threshold);
+        }
+        if (waiters.isEmpty()) {
+            clearWaitingTransition(transitionIndex);
+        }
+        if (waiter instanceof SleepingThread) {
+            sleepingThreads.decrementAndGet(transitionIndex);
+        }
+        return waiter;
+    }
+
+    /**
+     * Takes a waiter out of its transition's waiters, either a cancelled request or one that won't wait after all.
+     * Must be called holding {@link #inQueue}
+     *
+     * @param transitionIndex the index of the waiter's transition
+     * @param request         the waiter to remove
+     */
+    private void removeWaiter(int transitionIndex, FireRequest request) {
+        TransitionQueue waiters = transitionWaiters[transitionIndex];
+        if (waiters.remove(request) && waiters.isEmpty()) {
+            clearWaitingTransition(transitionIndex);
+        }
+    }
+
+    /**
+     * Clears the given transition's bit in {@link #waitingTransitionsBitSet}.
+     * Must be called holding {@link #inQueue}
+     *
+     * @param transitionIndex the index of a transition with no waiters left
+     */
+    private void clearWaitingTransition(int transitionIndex) {
+        final int word = transitionIndex >>> 6;
+        waitingTransitionsBitSet.set(word, waitingTransitionsBitSet.get(word) & ~(1L << transitionIndex));
+    }
+
+    /**
+     * Can be called without holding {@link #inQueue}.
+     *
+     * @param transitionIndex the index of a transition
+     * @return true if any thread or request is waiting in the transition's queue
+     */
+    boolean hasWaiters(int transitionIndex) {
+        return (waitingTransitionsBitSet.get(transitionIndex >>> 6) & 1L << transitionIndex) != 0;
+    }
+
+    /**
+     * Completes an asynchronous fire made on its caller's behalf,
+     * with the executor if any or else when a thread leaves the monitor.
+     * The future is never completed inside the monitor, since its continuations may try to enter it.
+     *
+     * @param asyncFire the fired request's future
+     */
+    private void completeAsyncFire(FireRequest asyncFire) {
+        Executor executor = asyncFiresExecutor;
+        if (executor != null) {
+            executor.execute(() -> asyncFire.complete(null));
+        } else {
+            asyncFiresDone.add(asyncFire);
+        }
+    }
+
+    /**
+     * Completes the asynchronous fires made so far, including the ones made by the calling thread.
+     * Must be called after leaving the monitor.
+     */
+    void completeAsyncFiresDone() {
+        FireRequest asyncFire;
+        while ((asyncFire = asyncFiresDone.poll()) != null) {
+            asyncFire.complete(null);
+        }
     }
 
     /**
-     * Sends an event to all subscribers in JSON format containing at least the transition's id.
-     * If no error occurs, the index is also added to the message.
+     * Sends a {@link TransitionFiredEvent} to all subscribers.
      * This method is intended to be called after a successful fire
      *
-     * @param t the transition to send an event about
+     * @param t              the transition to send an event about
+     * @param times          the amount of times t was fired
+     * @param sequenceNumber the firing step's sequence number
      * @throws IllegalArgumentException If t is not informed
      */
-    private void sendEventAfterFiring(Transition t) throws IllegalArgumentException {
+    private void sendEventAfterFiring(Transition t, int times, long sequenceNumber) throws IllegalArgumentException {
         if (!t.getLabel().isInformed()) {
             throw new IllegalArgumentException("Non-informed transitions cannot send events");
         }
-        try {
-            // The event to send contains a JSON with the transition info
-            HashMap<String, String> firedTransitionInfoMap = new HashMap<>();
-            firedTransitionInfoMap.put(ID, t.getId());
-            firedTransitionInfoMap.put(INDEX, Integer.toString(t.getIndex()));
-            firedTransitionInfoMap.put(NAME, t.getName());
-            informedTransitionsObservable.onNext(
-                    jsonMapper.writeValueAsString(firedTransitionInfoMap));
-        } catch (JsonProcessingException e) {
-            // If there was an error processing the JSON let's send the minimal needed info hardcoded here
-            informedTransitionsObservable.onNext(
-                    "{\"" + ID + "\":\"" + t.getId() + "\","
-                            + "\"" + NAME + "\":\"" + t.getName() + "\"}");
+        // the event is sent only to the fired transition's subscribers and the ones listening to every transition
+        PublishSubject<TransitionFiredEvent> transitionEventsObservable = transitionEventsObservables[t.getIndex()];
+        boolean transitionObserved = transitionEventsObservable.hasObservers();
+        if (!transitionObserved && !allTransitionsEventsObservable.hasObservers()) {
+            return;
+        }
+        TransitionFiredEvent event = new TransitionFiredEvent(t, times, System.currentTimeMillis(), sequenceNumber);
+        AsyncEventDispatcher dispatcher = eventDispatcher;
+        if (dispatcher != null) {
+            // the dispatcher threads deliver it, the monitor is only kept to append it
+            dispatcher.publish(event);
+            return;
+        }
+        if (transitionObserved) {
+            transitionEventsObservable.onNext(event);
         }
+        allTransitionsEventsObservable.onNext(event);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static PublishSubject<TransitionFiredEvent>[] newSubjectsArray(int length) {
+        return new PublishSubject[length];
     }
 
     /**
@@ -367,6 +1692,25 @@ public class PetriMonitor {
      * @throws IllegalTransitionFiringError    If an illegal firing tries to occur in the petri net
      */
     private boolean internalFireTransition(Transition transitionToFire, boolean notPerennialFire) throws PetriNetException, IllegalTransitionFiringError {
+        return internalFireTransition(transitionToFire, notPerennialFire, 1, null, priorityLevels - 1);
+    }
+
+    /**
+     * Same as {@link #internalFireTransition(Transition, boolean)} but transitionToFire is fired
+     * as many times as it's enabled, up to times, in one step.
+     * Automatic transitions fired afterwards are fired once each.
+     *
+     * @param transitionToFire the transition to fire.
+     * @param notPerennialFire False indicates a perennial fire
+     * @param times            The maximum amount of times to fire transitionToFire
+     * @param firedTimes       If not null, its first element is set to the amount of times transitionToFire was fired
+     * @param priority         The priority to sleep with in the transition's queue
+     * @return Whether to release the mutex {@link #inQueue}
+     * @throws NotInitializedPetriNetException If the net hasn't been initialized before calling this method.
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     * @throws IllegalTransitionFiringError    If an illegal firing tries to occur in the petri net
+     */
+    private boolean internalFireTransition(Transition transitionToFire, boolean notPerennialFire, int times, int[] firedTimes, int priority) throws PetriNetException, IllegalTransitionFiringError {
         boolean releaseLock = true;
         boolean keepFiring = true;
         boolean sleptByItselfForThisTransition = false;
@@ -377,28 +1721,37 @@ public class PetriMonitor {
             keepFiring = petri.getEnabledTransitions()[transitionToFire.getIndex()];
             if (keepFiring) {
                 try {
-                    switch (petri.fire(transitionToFire)) {
+                    // fire as many times as enabled in one step. If not enabled a single firing reports why
+                    int timesToFire = times > 1 ? Math.max(1, petri.getEnablingDegree(transitionToFire, times)) : 1;
+                    switch (timesToFire > 1 ? petri.fire(transitionToFire, timesToFire) : petri.fire(transitionToFire)) {
                         case SUCCESS:
                             //the transition was fired successfully. If it's informed let's send an event
                             try {
-                                sendEventAfterFiring(transitionToFire);
+                                sendEventAfterFiring(transitionToFire, timesToFire, petri.getLastFiringSequenceNumber(transitionToFire));
                             } catch (IllegalArgumentException e) {
                                 //nothing wrong, the transition is not informed
                             }
+                            if (firedTimes != null) {
+                                // only the requested transition is reported, the automatic ones fired afterwards are not
+                                firedTimes[0] = timesToFire;
+                                firedTimes = null;
+                            }
+                            times = 1;
+                            if (servedAsyncFire != null) {
+                                // this firing was made on behalf of an asynchronous caller
+                                completeAsyncFire(servedAsyncFire);
+                                servedAsyncFire = null;
+                            }
 
-                            boolean automaticTransitions[] = petri.getAutomaticTransitions();
-                            int nextTransitionToFireIndex = getNextTransitionAvailableToFire();
+                            int nextTransitionToFireIndex = nextTransitionToFire();
                             if (nextTransitionToFireIndex >= 0) {
-                                if (automaticTransitions[nextTransitionToFireIndex]) {
-                                    transitionToFire = petri.getTransitions()[nextTransitionToFireIndex];
-                                } else {
-                                    // The transition chosen isn't automatic
-                                    // so wake up the associated thread to that transition
-                                    // and leave the monitor without releasing the input mutex
-                                    condVarQueue[nextTransitionToFireIndex].wakeUp();
-                                    releaseLock = false;
-                                    keepFiring = false;
-                                }
+                                // The transition chosen is automatic or an asynchronous caller is waiting for it, so fire it
+                                transitionToFire = petri.getTransitions()[nextTransitionToFireIndex];
+                            } else if (nextTransitionToFireIndex == WOKE_UP_THREAD) {
+                                // The transition chosen had a thread waiting for it, which was woken up.
+                                // Leave the monitor without releasing the input mutex
+                                releaseLock = false;
+                                keepFiring = false;
                             } else {
                                 // no transition left to fire, leave the monitor releasing the lock
                                 keepFiring = false;
@@ -409,7 +1762,7 @@ public class PetriMonitor {
                             if (!notPerennialFire) {
                                 // if the transition wasn't fired sucessfully
                                 // go to sleep in the transition queue
-                                sleepInTransitionQueue(transitionToFire, sleptByItselfForThisTransition);
+                                sleepInTransitionQueue(transitionToFire, sleptByItselfForThisTransition, priority);
                                 // after waking up try to fire inside the timespan again
                             } else {
                                 // the firing failed but since it isn't a perennial fire
@@ -422,7 +1775,7 @@ public class PetriMonitor {
                             if (anyThreadSleepingforTransition[transitionIndex].compareAndSet(false, true)) {
                                 // The calling thread came before time span, and there is nobody sleeping waiting for this transition,
                                 // release the input mutex and sleep here until the time has come.
-                                inQueue.unlock();
+                                releaseMonitor();
 
                                 handleFiringBeforeTimespan(transitionToFire);
 
@@ -436,7 +1789,7 @@ public class PetriMonitor {
                                 sleptByItselfForThisTransition = true;
                             } else if (!notPerennialFire) {
                                 // if any thread was already sleeping on its own for this transition, sleep in the queue
-                                sleepInTransitionQueue(transitionToFire, sleptByItselfForThisTransition);
+                                sleepInTransitionQueue(transitionToFire, sleptByItselfForThisTransition, priority);
                             } else {
                                 // a non-perennial fire should not wait in the queue for the transition to get enabled again
                                 return releaseLock;
@@ -449,7 +1802,7 @@ public class PetriMonitor {
                                 return releaseLock;
                             }
                             // The calling thread came late, the time is over. Thus the thread releases the input mutex and goes to sleep
-                            sleepInTransitionQueue(transitionToFire, sleptByItselfForThisTransition);
+                            sleepInTransitionQueue(transitionToFire, sleptByItselfForThisTransition, priority);
                             break;
                     }
                 } catch (IllegalArgumentException e) {
@@ -459,27 +1812,55 @@ public class PetriMonitor {
             // if this is not a perennial fire and the transition is not enabled, don't send the thread to sleep
             else if (!notPerennialFire) {
                 // the fire failed, thus the thread releases the input mutex and goes to sleep
-                sleepInTransitionQueue(transitionToFire, sleptByItselfForThisTransition);
+                sleepInTransitionQueue(transitionToFire, sleptByItselfForThisTransition, priority);
                 keepFiring = true;
             }
         }
         return releaseLock;
     }
 
-    private void sleepInTransitionQueue(final Transition transitionToFire, boolean sleptByItselfForThisTransition) {
+    private void sleepInTransitionQueue(final Transition transitionToFire, boolean sleptByItselfForThisTransition, int priority) {
 
-        inQueue.unlock();
-        if (sleptByItselfForThisTransition) {
-            // If the flag sleptByItselfForThisTransition is true, it means this thread already slept by itself for this transition
-            // which implies that no thread had tried to fire this transition when it arrived the monitor.
-            // Additionally, this thread also lost the timespan so it must have the highest priority for next enabling time
-            condVarQueue[transitionToFire.getIndex()].sleepWithHighPriority();
-        } else {
-            condVarQueue[transitionToFire.getIndex()].sleep();
+        // register this thread as waiting while still holding the monitor
+        int transitionIndex = transitionToFire.getIndex();
+        SleepingThread turn = new SleepingThread(transitionIndex);
+        // only a thread finding the queue empty spins, since it's likely the next one woken up
+        boolean firstInLine = transitionWaiters[transitionIndex].isEmpty();
+        // If the flag sleptByItselfForThisTransition is true, it means this thread already slept by itself for this transition
+        // which implies that no thread had tried to fire this transition when it arrived the monitor.
+        // Additionally, this thread also lost the timespan so it must have the highest priority for next enabling time.
+        // Otherwise level 0 is reserved for timed transitions
+        addWaiter(transitionIndex, turn, sleptByItselfForThisTransition ? 0 : priority + 1);
+        sleepingThreads.incrementAndGet(transitionIndex);
+        if (enabledOutsideMonitor(transitionToFire)) {
+            // the firing that enabled it may have missed this thread, so keep the monitor and try again instead of sleeping
+            removeWaiter(transitionIndex, turn);
+            sleepingThreads.decrementAndGet(transitionIndex);
+            return;
         }
+        releaseMonitor();
+        awaitHandOver(turn, firstInLine);
         // when waking up, don't take the input lock for the waking thread didn't release it
     }
 
+    /**
+     * Sleeps until a thread leaving the monitor hands it over to this one by completing its turn.
+     * Interruptions don't stop the wait, they're kept for later.
+     *
+     * @param turn        the calling thread's turn in a transition's queue
+     * @param firstInLine whether to spin as decided by the spin policy before parking
+     */
+    private void awaitHandOver(final SleepingThread turn, boolean firstInLine) {
+        final long spinNanos = firstInLine ? inQueue.getSpinPolicy().spinNanos(inQueue.getAverageHoldNanos()) : 0;
+        if (spinNanos > 0) {
+            final long spinDeadline = System.nanoTime() + spinNanos;
+            while (!turn.isDone() && System.nanoTime() - spinDeadline < 0) {
+                SpinPolicy.onSpinWait();
+            }
+        }
+        turn.join();
+    }
+
     /**
      * This method should be called only when a thread tries to fire a timed transition before its timespan.
      * Before calling this method release the input mutex and take it immediately after.
@@ -519,4 +1900,154 @@ public class PetriMonitor {
     public boolean isAnyThreadSleepingForTransition(int transitionIndex) {
         return anyThreadSleepingforTransition[transitionIndex].get();
     }
+
+    /**
+     * A request to fire a transition on behalf of a caller who doesn't sleep in its queue.
+     * It's taken only once, either claimed by the monitor to fire it or cancelled by its caller,
+     * so a late cancellation can't undo a firing nor a firing be made for a cancelled request.
+     */
+    static class FireRequest extends CompletableFuture<Void> {
+
+        private final int transitionIndex;
+        private final AtomicBoolean taken = new AtomicBoolean(false);
+
+        FireRequest(int _transitionIndex) {
+            transitionIndex = _transitionIndex;
+        }
+
+        int getTransitionIndex() {
+            return transitionIndex;
+        }
+
+        /**
+         * @return true if the request was claimed to be fired, false if it was cancelled
+         */
+        boolean claim() {
+            return taken.compareAndSet(false, true);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return taken.compareAndSet(false, true) && super.cancel(mayInterruptIfRunning);
+        }
+    }
+
+    /**
+     * A caller's turn in a transition's queue, taken by a caller firing a timed transition by itself.
+     * When claimed, it's completed right away and the monitor is handed over to its caller instead of firing the transition.
+     * Only its caller waits for it, so it can be completed inside the monitor.
+     */
+    static class HandOverRequest extends FireRequest {
+
+        HandOverRequest(int _transitionIndex) {
+            super(_transitionIndex);
+        }
+    }
+
+    /**
+     * The turn of a thread sleeping in a transition's queue, which is never cancelled.
+     * Each sleeping thread has its own, so the monitor is handed to the very thread whose turn came
+     */
+    static final class SleepingThread extends HandOverRequest {
+
+        SleepingThread(int _transitionIndex) {
+            super(_transitionIndex);
+        }
+    }
+
+    /**
+     * The waiters of a transition, with a FIFO queue for each priority level.
+     * The next waiter is the first of the highest level, unless a lower level was passed over too many times,
+     * as done by {@link PriorityBinaryLock} for the threads getting into the monitor. Level 0 is never passed over.
+     * Cancelled requests are dropped once they're first in their level.
+     * Only accessed while holding the monitor
+     */
+    private static final class TransitionQueue {
+
+        private final ArrayDeque<FireRequest>[] levels;
+        /** How many times the first waiter of each level was passed over by a higher level */
+        private final int[] passedOver;
+        private int size = 0;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        TransitionQueue(int levelsAmount) {
+            levels = new ArrayDeque[levelsAmount];
+            for (int i = 0; i < levelsAmount; i++) {
+                levels[i] = new ArrayDeque<>();
+            }
+            passedOver = new int[levelsAmount];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void add(FireRequest waiter, int level) {
+            // drop the requests withdrawn while the monitor was busy, as they time out in about the order they came
+            first(level);
+            levels[level].add(waiter);
+            size++;
+        }
+
+        /**
+         * @param agingThreshold times a level can be passed over before going ahead, or 0 to never go ahead
+         * @return the next waiter, taken out of the queue, or null if there's none
+         */
+        FireRequest poll(int agingThreshold) {
+            int next = -1;
+            if (first(0) != null) {
+                next = 0;
+            } else {
+                for (int level = 1; level < levels.length; level++) {
+                    if (first(level) == null) {
+                        continue;
+                    }
+                    if (agingThreshold == 0 || passedOver[level] >= agingThreshold) {
+                        next = level;
+                        break;
+                    }
+                    if (next < 0) {
+                        next = level;
+                    }
+                }
+            }
+            if (next < 0) {
+                return null;
+            }
+            if (agingThreshold != 0) {
+                passedOver[next] = 0;
+                for (int lower = next + 1; lower < levels.length; lower++) {
+                    passedOver[lower] = levels[lower].isEmpty() ? 0 : passedOver[lower] + 1;
+                }
+            }
+            size--;
+            return levels[next].poll();
+        }
+
+        /**
+         * @param waiter a waiter in the queue
+         * @return true if it was found and taken out
+         */
+        boolean remove(FireRequest waiter) {
+            for (ArrayDeque<FireRequest> level : levels) {
+                if (level.removeLastOccurrence(waiter)) {
+                    size--;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * @return the first waiter of the given level not cancelled yet, or null if there's none
+         */
+        private FireRequest first(int level) {
+            ArrayDeque<FireRequest> queue = levels[level];
+            while (!queue.isEmpty() && queue.peekFirst().isCancelled()) {
+                queue.pollFirst();
+                size--;
+            }
+            return queue.peekFirst();
+        }
+    }
 }
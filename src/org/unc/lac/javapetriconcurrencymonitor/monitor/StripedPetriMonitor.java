@@ -0,0 +1,137 @@
+package org.unc.lac.javapetriconcurrencymonitor.monitor;
+
+import org.unc.lac.javapetriconcurrencymonitor.errors.IllegalTransitionFiringError;
+import org.unc.lac.javapetriconcurrencymonitor.exceptions.NotInitializedPetriNetException;
+import org.unc.lac.javapetriconcurrencymonitor.exceptions.PetriNetException;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.TransitionsPolicy;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PackedPetriNet;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNetFireOutcome;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
+
+/**
+ * A {@link PetriMonitor} that fires transitions in different parts of the net in parallel.
+ * The net's places are split into lock stripes, see {@link PetriNet#setLockStripes(int)}, and a transition that can be fired
+ * right away is fired locking only the stripes it reads or changes, without entering the monitor.
+ * The monitor is entered afterwards only if the firing enabled an automatic transition or one with threads waiting for it.
+ * The marking still goes through states reachable by firing one transition at a time.
+ *
+ * A transition is fired outside the monitor only if it's neither informed nor timed, and it can't enable a timed transition.
+ * Nor is it while any caller is waiting for it, so new firings don't overtake the callers in its queue.
+ * Any other firing, and any firing that has to wait, is made as in {@link PetriMonitor}.
+ * So are the firings with a priority, or more than once at a time.
+ * Unlike in {@link PetriMonitor}, firings of other parts of the net may happen between a firing and the automatic transitions it enabled.
+ *
+ * With a {@link PackedPetriNet} the firings made outside the monitor take no lock at all,
+ * and threads only wait in the monitor's queues when their transition is not enabled.
+ */
+public class StripedPetriMonitor extends PetriMonitor {
+
+    private final PetriNet petri;
+    /**
+     * For each transition, the transitions whose enabling may change when it's fired
+     */
+    private final int[][] affectedTransitions;
+    /**
+     * True for each transition that can be fired outside the monitor
+     */
+    private final boolean[] firedOutsideMonitor;
+
+    /**
+     * Creates a monitor with a lock stripe for each place of the net.
+     *
+     * @param _petri  the petri net to orchestrate, not initialized yet
+     * @param _policy the transitions policy
+     * @throws IllegalArgumentException if any argument is null
+     * @throws IllegalStateException    if the petri net was already initialized
+     */
+    public StripedPetriMonitor(final PetriNet _petri, TransitionsPolicy _policy) throws IllegalArgumentException, IllegalStateException {
+        this(_petri, _policy, DEFAULT_PRIORITY_LEVELS, _petri == null ? 1 : _petri.getPlaces().length);
+    }
+
+    /**
+     * @param _petri          the petri net to orchestrate, not initialized yet
+     * @param _policy         the transitions policy
+     * @param _priorityLevels the amount of priority levels, see {@link PetriMonitor#PetriMonitor(PetriNet, TransitionsPolicy, int)}
+     * @param _lockStripes    the amount of lock stripes to split the places into, up to the amount of places
+     * @throws IllegalArgumentException if any argument is null, or _priorityLevels or _lockStripes are not positive
+     * @throws IllegalStateException    if the petri net was already initialized
+     */
+    public StripedPetriMonitor(final PetriNet _petri, TransitionsPolicy _policy, int _priorityLevels, int _lockStripes)
+            throws IllegalArgumentException, IllegalStateException {
+        super(_petri, _policy, _priorityLevels);
+        petri = _petri;
+        petri.setLockStripes(_lockStripes);
+
+        Transition[] transitions = petri.getTransitions();
+        affectedTransitions = new int[transitions.length][];
+        firedOutsideMonitor = new boolean[transitions.length];
+        for (Transition t : transitions) {
+            affectedTransitions[t.getIndex()] = petri.getAffectedTransitions(t);
+        }
+        for (Transition t : transitions) {
+            // the events keep their order and timed transitions their time spans only inside the monitor
+            boolean outside = !t.getLabel().isAutomatic() && !t.getLabel().isInformed() && !t.isTimed();
+            for (int affected : affectedTransitions[t.getIndex()]) {
+                outside &= !transitions[affected].isTimed();
+            }
+            firedOutsideMonitor[t.getIndex()] = outside;
+        }
+    }
+
+    /**
+     * Same as {@link PetriMonitor#fireTransition(Transition, boolean)}, but if the transition can be fired right away
+     * it's fired without entering the monitor, in parallel with the firings of other parts of the net.
+     *
+     * @param transitionToFire The transition to fire
+     * @param notPerennialFire False indicates a perennial fire
+     * @throws IllegalTransitionFiringError    when an request to fire an automatic transition arrives
+     * @throws NotInitializedPetriNetException when firing a transition before initializing the petri net
+     * @throws PetriNetException               If an error regarding petri nets occurs.
+     */
+    @Override
+    public void fireTransition(final Transition transitionToFire, boolean notPerennialFire) throws IllegalTransitionFiringError, PetriNetException {
+        if (transitionToFire != null && firedOutsideMonitor[transitionToFire.getIndex()] && petri.isInitialized()
+                && !hasWaiters(transitionToFire.getIndex())) {
+            PetriNetFireOutcome outcome;
+            try {
+                outcome = petri.fire(transitionToFire);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalTransitionFiringError(e);
+            }
+            if (outcome == PetriNetFireOutcome.SUCCESS) {
+                serveAffectedTransitions(transitionToFire);
+                return;
+            }
+        }
+        // it has to wait, or be fired inside the monitor
+        super.fireTransition(transitionToFire, notPerennialFire);
+    }
+
+    /**
+     * Enters the monitor after a firing made outside it, only if any transition it enabled is automatic or has waiters
+     *
+     * @param firedTransition the transition fired outside the monitor
+     * @throws PetriNetException If an error regarding petri nets occurs.
+     */
+    private void serveAffectedTransitions(final Transition firedTransition) throws PetriNetException {
+        boolean[] enabledTransitions = petri.getEnabledTransitions();
+        boolean[] automaticTransitions = petri.getAutomaticTransitions();
+        for (int affected : affectedTransitions[firedTransition.getIndex()]) {
+            if (enabledTransitions[affected] && (automaticTransitions[affected] || hasWaiters(affected))) {
+                serveEnabledTransitions();
+                return;
+            }
+        }
+    }
+
+    /**
+     * A waiter is added holding the monitor but not the stripes, so a firing made outside the monitor in the meantime
+     * may have missed it. Checking the transition locking its stripes tells whether that happened.
+     * Timed transitions are never enabled outside the monitor.
+     */
+    @Override
+    boolean enabledOutsideMonitor(final Transition transition) {
+        return !transition.isTimed() && petri.isEnabledNow(transition);
+    }
+}
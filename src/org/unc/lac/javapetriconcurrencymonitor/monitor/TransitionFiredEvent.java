@@ -0,0 +1,139 @@
+package org.unc.lac.javapetriconcurrencymonitor.monitor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Immutable event sent by {@link PetriMonitor} when an informed transition is fired.
+ * The event is published as is, with no serialization involved.
+ * The JSON format sent to {@code Observer<String>} subscribers is built from it only when needed, see {@link #toJson()}.
+ *
+ * @see PetriMonitor#subscribeToTransitionEvents(Transition, rx.Observer)
+ */
+public final class TransitionFiredEvent {
+
+	public final static String ID = "id";
+	public final static String INDEX = "index";
+	public final static String NAME = "name";
+	public final static String COUNT = "count";
+
+	/** An ObjectMapper used to build the JSON representation. It's thread safe once configured */
+	private final static ObjectMapper jsonMapper = new ObjectMapper();
+
+	private final Transition transition;
+	private final int count;
+	private final long timestamp;
+	private final long sequenceNumber;
+
+	/** The JSON representation, built the first time it's requested */
+	private volatile String json;
+
+	/**
+	 * @param _transition the fired transition
+	 * @param _count the amount of times the transition was fired in one step
+	 * @param _timestamp the firing time in the format given by {@link System#currentTimeMillis()}
+	 * @param _sequenceNumber the firing step's sequence number in the petri net
+	 * @throws IllegalArgumentException if _transition is null
+	 * @see org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet#getFiringSequenceNumber()
+	 */
+	public TransitionFiredEvent(Transition _transition, int _count, long _timestamp, long _sequenceNumber) throws IllegalArgumentException {
+		if(_transition == null){
+			throw new IllegalArgumentException("Null transition not allowed");
+		}
+		transition = _transition;
+		count = _count;
+		timestamp = _timestamp;
+		sequenceNumber = _sequenceNumber;
+	}
+
+	/**
+	 * @return the fired transition
+	 */
+	public Transition getTransition() {
+		return transition;
+	}
+
+	/**
+	 * @return the fired transition's index
+	 */
+	public int getIndex() {
+		return transition.getIndex();
+	}
+
+	/**
+	 * @return the fired transition's id
+	 */
+	public String getId() {
+		return transition.getId();
+	}
+
+	/**
+	 * @return the fired transition's name
+	 */
+	public String getName() {
+		return transition.getName();
+	}
+
+	/**
+	 * @return the amount of times the transition was fired in one step. It's 1 unless a multiple firing was made
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the firing time in the format given by {@link System#currentTimeMillis()}
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return the firing step's sequence number in the petri net. Later firings have greater numbers
+	 */
+	public long getSequenceNumber() {
+		return sequenceNumber;
+	}
+
+	/**
+	 * Builds the JSON representation sent to {@code Observer<String>} subscribers.
+	 * It contains the transition's id, index and name, and the count if it's not 1.
+	 * The JSON is built once per event no matter how many subscribers ask for it.
+	 * @return this event in JSON format
+	 */
+	public String toJson() {
+		String ret = json;
+		if(ret == null){
+			ret = buildJson();
+			json = ret;
+		}
+		return ret;
+	}
+
+	private String buildJson() {
+		try {
+			Map<String, String> firedTransitionInfoMap = new LinkedHashMap<>();
+			firedTransitionInfoMap.put(ID, getId());
+			firedTransitionInfoMap.put(INDEX, Integer.toString(getIndex()));
+			firedTransitionInfoMap.put(NAME, getName());
+			if(count != 1){
+				firedTransitionInfoMap.put(COUNT, Integer.toString(count));
+			}
+			return jsonMapper.writeValueAsString(firedTransitionInfoMap);
+		} catch (JsonProcessingException e) {
+			// If there was an error processing the JSON let's send the minimal needed info hardcoded here
+			return "{\"" + ID + "\":\"" + getId() + "\","
+					+ "\"" + NAME + "\":\"" + getName() + "\"}";
+		}
+	}
+
+	@Override
+	public String toString() {
+		return toJson();
+	}
+}
@@ -22,4 +22,14 @@ public class FirstInLinePolicy extends TransitionsPolicy {
 		return -1;
 	}
 
+	@Override
+	public int which(long[] enabled){
+		for(int word = 0; word < enabled.length; word++){
+			if(enabled[word] != 0){
+				return word * Long.SIZE + Long.numberOfTrailingZeros(enabled[word]);
+			}
+		}
+		return -1;
+	}
+
 }
@@ -33,6 +33,34 @@ public class RandomPolicy extends TransitionsPolicy {
 		return index;
 	}
 
+	/**
+	 * Picks uniformly among the set bits, counting them a word at a time
+	 */
+	@Override
+	public int which(long[] enabled) {
+		int available = 0;
+		for(long word : enabled){
+			available += Long.bitCount(word);
+		}
+		if(available == 0){
+			return -1;
+		}
+		int chosen = random_generator.nextInt(available);
+		for(int word = 0; word < enabled.length; word++){
+			int bitsInWord = Long.bitCount(enabled[word]);
+			if(chosen < bitsInWord){
+				long bits = enabled[word];
+				// drop the lowest set bits until the chosen one is the lowest
+				for(; chosen > 0; chosen--){
+					bits &= bits - 1;
+				}
+				return word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+			}
+			chosen -= bitsInWord;
+		}
+		return -1;
+	}
+
 	private int sequentialFindFirst(boolean[] enabled) {
 		for(int i = 0; i< enabled.length; i++) {
 			if (enabled[i]) {
@@ -21,6 +21,23 @@ public abstract class TransitionsPolicy {
 	 */
 	public abstract int which(boolean[] enabled);
 
+	/**
+	 * Given a bitset specifying the transitions ready to be fired, the policy decides which should be fired.
+	 * Bit i of word i/64 is set if transition i is ready to be fired.
+	 * This implementation expands the bitset and calls {@link #which(boolean[])},
+	 * policies should override it to decide working with whole words.
+	 * @param enabled a bitset containing a set bit for each transition ready to be fired
+	 * @return the transition to fire or -1 if none is enabled
+	 */
+	public int which(long[] enabled){
+		int length = petri == null ? enabled.length * Long.SIZE : petri.getTransitions().length;
+		boolean[] expanded = new boolean[length];
+		for(int i = 0; i < length; i++){
+			expanded[i] = (enabled[i >>> 6] & (1L << i)) != 0;
+		}
+		return which(expanded);
+	}
+
 	public TransitionsPolicy(PetriNet _petri) {
 		this.petri = _petri;
 	}
@@ -0,0 +1,277 @@
+package org.unc.lac.javapetriconcurrencymonitor.petrinets;
+
+import java.util.Arrays;
+
+/**
+ * Immutable sparse integer matrix stored in compressed sparse column (CSC) format.
+ * Petri net matrices have one column per transition, so this layout gives direct access to
+ * the places touched by a transition, i.e. only its arcs, and memory scales with the amount of arcs instead of p*t.
+ *
+ * The non-zero elements of column j are stored at positions [{@link #columnStart(int) columnStart(j)}, {@link #columnEnd(int) columnEnd(j)})
+ * and within a column they are sorted by row.
+ *
+ * @see Builder
+ */
+public final class CompressedColumnMatrix {
+
+	private final int rows;
+	private final int columns;
+	/** The first position of each column. Position {@code columns} holds the amount of non-zero elements */
+	private final int[] columnPointers;
+	private final int[] rowIndexes;
+	private final int[] values;
+
+	private CompressedColumnMatrix(int _rows, int _columns, int[] _columnPointers, int[] _rowIndexes, int[] _values) {
+		rows = _rows;
+		columns = _columns;
+		columnPointers = _columnPointers;
+		rowIndexes = _rowIndexes;
+		values = _values;
+	}
+
+	/**
+	 * Makes an empty matrix (all elements are zero)
+	 * @param rows amount of rows
+	 * @param columns amount of columns
+	 * @return a matrix with no non-zero elements
+	 */
+	public static CompressedColumnMatrix empty(int rows, int columns) {
+		return new Builder(rows, columns).build();
+	}
+
+	/**
+	 * Compresses a boxed matrix indexed as [row][column]. Null elements are considered zero.
+	 * @param matrix the matrix to compress. If null an empty matrix is returned
+	 * @param rows amount of rows
+	 * @param columns amount of columns
+	 * @return the compressed matrix
+	 */
+	public static CompressedColumnMatrix fromRowMajor(Integer[][] matrix, int rows, int columns) {
+		Builder builder = new Builder(rows, columns);
+		if (matrix != null) {
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					if (matrix[i][j] != null) {
+						builder.add(i, j, matrix[i][j]);
+					}
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Compresses a boxed boolean matrix indexed as [row][column]. True elements are stored as 1.
+	 * @param matrix the matrix to compress. If null an empty matrix is returned
+	 * @param rows amount of rows
+	 * @param columns amount of columns
+	 * @return the compressed matrix
+	 */
+	public static CompressedColumnMatrix fromRowMajor(Boolean[][] matrix, int rows, int columns) {
+		Builder builder = new Builder(rows, columns);
+		if (matrix != null) {
+			for (int i = 0; i < rows; i++) {
+				for (int j = 0; j < columns; j++) {
+					if (Boolean.TRUE.equals(matrix[i][j])) {
+						builder.add(i, j, 1);
+					}
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * @return amount of rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return amount of columns
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return amount of non-zero elements stored
+	 */
+	public int nonZeros() {
+		return columnPointers[columns];
+	}
+
+	/**
+	 * @return true if all elements are zero
+	 */
+	public boolean isZero() {
+		return nonZeros() == 0;
+	}
+
+	/**
+	 * @param column the column to look for
+	 * @return the position of the first non-zero element of the column
+	 */
+	public int columnStart(int column) {
+		return columnPointers[column];
+	}
+
+	/**
+	 * @param column the column to look for
+	 * @return the position after the last non-zero element of the column
+	 */
+	public int columnEnd(int column) {
+		return columnPointers[column + 1];
+	}
+
+	/**
+	 * @param position a position between {@link #columnStart(int)} and {@link #columnEnd(int)}
+	 * @return the row of the non-zero element stored in position
+	 */
+	public int rowAt(int position) {
+		return rowIndexes[position];
+	}
+
+	/**
+	 * @param position a position between {@link #columnStart(int)} and {@link #columnEnd(int)}
+	 * @return the value of the non-zero element stored in position
+	 */
+	public int valueAt(int position) {
+		return values[position];
+	}
+
+	/**
+	 * Random access to an element. This costs a binary search over the column's non-zero elements.
+	 * @param row the element's row
+	 * @param column the element's column
+	 * @return the element's value
+	 */
+	public int get(int row, int column) {
+		int position = Arrays.binarySearch(rowIndexes, columnPointers[column], columnPointers[column + 1], row);
+		return position < 0 ? 0 : values[position];
+	}
+
+	/**
+	 * Expands this matrix into a boxed matrix indexed as [row][column]
+	 * @return a new dense matrix
+	 */
+	public Integer[][] toRowMajor() {
+		Integer[][] ret = new Integer[rows][columns];
+		for (Integer[] row : ret) {
+			Arrays.fill(row, 0);
+		}
+		for (int j = 0; j < columns; j++) {
+			for (int k = columnPointers[j]; k < columnPointers[j + 1]; k++) {
+				ret[rowIndexes[k]][j] = values[k];
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Accumulates elements in any order and compresses them.
+	 * Adding twice to the same element sums both values, while setting it replaces the value written so far.
+	 * Elements that end up being zero are not stored.
+	 */
+	public static final class Builder {
+
+		private final int rows;
+		private final int columns;
+		private int size;
+		private int[] elementRows = new int[16];
+		private int[] elementColumns = new int[16];
+		private int[] elementValues = new int[16];
+		private boolean[] elementReplaces = new boolean[16];
+
+		/**
+		 * @param _rows amount of rows
+		 * @param _columns amount of columns
+		 * @throws IllegalArgumentException if any dimension is negative
+		 */
+		public Builder(int _rows, int _columns) throws IllegalArgumentException {
+			if (_rows < 0 || _columns < 0) {
+				throw new IllegalArgumentException("Negative matrix dimensions not allowed");
+			}
+			rows = _rows;
+			columns = _columns;
+		}
+
+		/**
+		 * Adds value to the element in (row, column)
+		 * @return this builder
+		 * @throws IndexOutOfBoundsException if the element is outside the matrix
+		 */
+		public Builder add(int row, int column, int value) throws IndexOutOfBoundsException {
+			return append(row, column, value, false);
+		}
+
+		/**
+		 * Sets the element in (row, column) to value, replacing what was added or set before
+		 * @return this builder
+		 * @throws IndexOutOfBoundsException if the element is outside the matrix
+		 */
+		public Builder set(int row, int column, int value) throws IndexOutOfBoundsException {
+			return append(row, column, value, true);
+		}
+
+		private Builder append(int row, int column, int value, boolean replace) throws IndexOutOfBoundsException {
+			if (row < 0 || row >= rows || column < 0 || column >= columns) {
+				throw new IndexOutOfBoundsException("Element (" + row + ", " + column + ") outside matrix");
+			}
+			if (size == elementRows.length) {
+				elementRows = Arrays.copyOf(elementRows, size * 2);
+				elementColumns = Arrays.copyOf(elementColumns, size * 2);
+				elementValues = Arrays.copyOf(elementValues, size * 2);
+				elementReplaces = Arrays.copyOf(elementReplaces, size * 2);
+			}
+			elementRows[size] = row;
+			elementColumns[size] = column;
+			elementValues[size] = value;
+			elementReplaces[size] = replace;
+			size++;
+			return this;
+		}
+
+		/**
+		 * @return the compressed matrix holding all elements added so far
+		 */
+		public CompressedColumnMatrix build() {
+			// sort element positions by column, then by row. The sort is stable, so repeated elements keep the order they were written in
+			Integer[] order = new Integer[size];
+			for (int i = 0; i < size; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, (Integer a, Integer b) -> elementColumns[a] != elementColumns[b]
+					? Integer.compare(elementColumns[a], elementColumns[b])
+					: Integer.compare(elementRows[a], elementRows[b]));
+
+			int[] columnPointers = new int[columns + 1];
+			int[] rowIndexes = new int[size];
+			int[] values = new int[size];
+			int stored = 0;
+			int i = 0;
+			while (i < size) {
+				int row = elementRows[order[i]];
+				int column = elementColumns[order[i]];
+				int value = 0;
+				// merge repeated elements
+				while (i < size && elementRows[order[i]] == row && elementColumns[order[i]] == column) {
+					value = elementReplaces[order[i]] ? elementValues[order[i]] : value + elementValues[order[i]];
+					i++;
+				}
+				if (value != 0) {
+					rowIndexes[stored] = row;
+					values[stored] = value;
+					columnPointers[column + 1]++;
+					stored++;
+				}
+			}
+			for (int j = 0; j < columns; j++) {
+				columnPointers[j + 1] += columnPointers[j];
+			}
+			return new CompressedColumnMatrix(rows, columns, columnPointers,
+					Arrays.copyOf(rowIndexes, stored), Arrays.copyOf(values, stored));
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package org.unc.lac.javapetriconcurrencymonitor.petrinets;
+
+/**
+ * An immutable view of a {@link PetriNet}'s state at a single point: its marking, its enabled transitions
+ * and the amount of firing steps made to reach it. Every value belongs to the same state,
+ * unlike reading them one after the other while other threads fire transitions.
+ *
+ * @see PetriNet#snapshot()
+ */
+public final class MarkingSnapshot {
+
+	private final int[] marking;
+	private final boolean[] enabledTransitions;
+	private final long firingSequenceNumber;
+	private final long version;
+
+	/**
+	 * @param marking              the marking, owned by the snapshot from now on
+	 * @param enabledTransitions   the enabled transitions, owned by the snapshot from now on
+	 * @param firingSequenceNumber the amount of firing steps made
+	 * @param version              the net's version when the state was read
+	 */
+	MarkingSnapshot(int[] marking, boolean[] enabledTransitions, long firingSequenceNumber, long version) {
+		this.marking = marking;
+		this.enabledTransitions = enabledTransitions;
+		this.firingSequenceNumber = firingSequenceNumber;
+		this.version = version;
+	}
+
+	/**
+	 * @return a copy of the marking
+	 */
+	public Integer[] getMarking() {
+		Integer[] boxed = new Integer[marking.length];
+		for (int i = 0; i < marking.length; i++) {
+			boxed[i] = marking[i];
+		}
+		return boxed;
+	}
+
+	/**
+	 * @param placeIndex the index of the place to read
+	 * @return the amount of tokens in the place
+	 */
+	public int getMarking(int placeIndex) {
+		return marking[placeIndex];
+	}
+
+	/**
+	 * @return a copy of the enabled transitions
+	 */
+	public boolean[] getEnabledTransitions() {
+		return enabledTransitions.clone();
+	}
+
+	/**
+	 * @param transitionIndex the index of the transition to check
+	 * @return true if the transition was enabled
+	 */
+	public boolean isEnabled(int transitionIndex) {
+		return enabledTransitions[transitionIndex];
+	}
+
+	/**
+	 * @return the amount of firing steps made to reach this state
+	 * @see PetriNet#getFiringSequenceNumber()
+	 */
+	public long getFiringSequenceNumber() {
+		return firingSequenceNumber;
+	}
+
+	/**
+	 * @return the net's version when this snapshot was taken.
+	 * While {@link PetriNet#version()} returns the same value, no change to the net was completed since
+	 */
+	public long getVersion() {
+		return version;
+	}
+}
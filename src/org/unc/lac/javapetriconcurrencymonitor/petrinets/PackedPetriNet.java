@@ -0,0 +1,775 @@
+package org.unc.lac.javapetriconcurrencymonitor.petrinets;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.unc.lac.javapetriconcurrencymonitor.exceptions.NotInitializedPetriNetException;
+import org.unc.lac.javapetriconcurrencymonitor.exceptions.PetriNetException;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Arc;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Place;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
+
+/**
+ * A place/transition {@link PetriNet} for small bounded nets, such as 1-safe control nets, whose whole state fits in a single long.
+ * Each place gets a bit field for its tokens, followed by a bit for each guard associated to a transition,
+ * and every firing and guard change is a compare-and-set of that long, without taking any lock.
+ * So threads firing transitions never block each other, and a firing that finds its transition disabled leaves right away.
+ *
+ * Each transition's arcs are precomputed as packed masks, so checking whether it's enabled and firing it
+ * take a few arithmetic operations on the long, however many places it reads.
+ * Each place's field has an extra overflow bit above its tokens, which lets a single subtraction check every input place at once.
+ * Places get the bits for the most tokens they hold in any reachable marking, found by exploring the markings when the net is created,
+ * so no firing can ever put more tokens in a place than its field holds. A net that can't be proven bounded that way isn't packed.
+ * The transitions enabled in each state are computed once by the change that reached it, and shared by every reader of that state.
+ *
+ * Timed transitions are not supported. The {@link Place} objects read their marking from the packed state.
+ * Firings made in parallel get their sequence numbers in any order, but a {@link #snapshot()} always holds the sequence number of its state.
+ */
+public class PackedPetriNet extends PetriNet {
+
+	/**
+	 * The most markings explored to prove the net bounded, so creating an unbounded net fails in bounded time
+	 */
+	private static final int MAX_EXPLORED_MARKINGS = 1 << 16;
+
+	/**
+	 * The marking in its place fields and the guards' values above them
+	 */
+	private final AtomicLong packedState;
+	/**
+	 * The lowest bit of each place's field
+	 */
+	private final int[] placeShifts;
+	/**
+	 * The mask of each place's tokens, once shifted to the lowest bits
+	 */
+	private final long[] placeTokenMasks;
+	/**
+	 * The overflow bit of every place's field
+	 */
+	private final long overflowBits;
+	/**
+	 * The amount of guards kept in the packed state, the ones associated to transitions when the net was created
+	 */
+	private final int packedGuards;
+	/**
+	 * The lowest guard bit
+	 */
+	private final int guardsShift;
+
+	/**
+	 * For each transition, the packed tokens it needs in each place to be enabled: the highest of its normal and reader arcs weights,
+	 * or one for reset arcs
+	 */
+	private final long[] requiredTokens;
+	/**
+	 * For each transition, the overflow bits of the places in {@link #requiredTokens}
+	 */
+	private final long[] requiredOverflowBits;
+	/**
+	 * For each transition, the token bits of the places it has inhibition arcs from
+	 */
+	private final long[] inhibitionMasks;
+	/**
+	 * For each transition, the packed tokens its firing takes and puts in each place
+	 */
+	private final long[] removedTokens;
+	private final long[] addedTokens;
+	/**
+	 * For each transition, the whole fields of the places it has reset arcs from
+	 */
+	private final long[] resetMasks;
+	/**
+	 * For each transition, the bit of its guard, or 0 if it has none, and the value its guard must have
+	 */
+	private final long[] guardMasks;
+	private final long[] requiredGuards;
+
+	/**
+	 * Amount of readers holding back new changes to take a snapshot, after failing to take it while changes kept being made
+	 */
+	private final AtomicInteger pausingReaders = new AtomicInteger();
+
+	/**
+	 * The transitions enabled in the last state reached, published by the change that reached it
+	 */
+	private volatile EnabledTransitions enabledInState;
+
+	/**
+	 * Packs the given net's state into a long.
+	 *
+	 * @see PetriNet#PetriNet(Place[], Transition[], Arc[], int[], CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix)
+	 * @throws IllegalArgumentException if the net has a timed transition, if it can't be proven bounded
+	 * or if its places and guards don't fit in a long
+	 */
+	public PackedPetriNet(Place[] _places, Transition[] _transitions, Arc[] _arcs, int[] _initialMarking,
+			CompressedColumnMatrix _preI, CompressedColumnMatrix _posI, CompressedColumnMatrix _I,
+			CompressedColumnMatrix _inhibition, CompressedColumnMatrix _resetMatrix, CompressedColumnMatrix _readerMatrix)
+			throws IllegalArgumentException {
+		super(_places, _transitions, _arcs, _initialMarking, _preI, _posI, _I, _inhibition, _resetMatrix, _readerMatrix);
+		for (Transition t : transitions) {
+			if (t.isTimed()) {
+				throw new IllegalArgumentException("Timed transition " + t.getName() + " not supported in a packed petri net");
+			}
+		}
+
+		packedGuards = guardDependentTransitions.getColumns();
+		final int[] tokenBits = tokenBits(reachableBounds());
+		final int usedBits = usedBits(tokenBits);
+		if (usedBits > Long.SIZE) {
+			throw new IllegalArgumentException("The petri net needs " + usedBits + " bits, more than fit in a long");
+		}
+
+		placeShifts = new int[places.length];
+		placeTokenMasks = new long[places.length];
+		long overflow = 0;
+		long state = 0;
+		int shift = 0;
+		for (int placeIndex = 0; placeIndex < places.length; placeIndex++) {
+			placeShifts[placeIndex] = shift;
+			placeTokenMasks[placeIndex] = (1L << tokenBits[placeIndex]) - 1;
+			state |= (long) initialMarking[placeIndex] << shift;
+			shift += tokenBits[placeIndex];
+			overflow |= 1L << shift;
+			shift++;
+		}
+		overflowBits = overflow;
+		guardsShift = shift;
+		packedState = new AtomicLong(state);
+
+		requiredTokens = new long[transitions.length];
+		requiredOverflowBits = new long[transitions.length];
+		inhibitionMasks = new long[transitions.length];
+		removedTokens = new long[transitions.length];
+		addedTokens = new long[transitions.length];
+		resetMasks = new long[transitions.length];
+		guardMasks = new long[transitions.length];
+		requiredGuards = new long[transitions.length];
+		for (Transition t : transitions) {
+			final int transitionIndex = t.getIndex();
+			int[] required = new int[places.length];
+			for (CompressedColumnMatrix matrix : new CompressedColumnMatrix[]{pre, readerMatrix}) {
+				for (int k = matrix.columnStart(transitionIndex); k < matrix.columnEnd(transitionIndex); k++) {
+					required[matrix.rowAt(k)] = Math.max(required[matrix.rowAt(k)], matrix.valueAt(k));
+				}
+			}
+			for (int k = resetMatrix.columnStart(transitionIndex); k < resetMatrix.columnEnd(transitionIndex); k++) {
+				// a reset arc needs at least one token to be taken
+				required[resetMatrix.rowAt(k)] = Math.max(required[resetMatrix.rowAt(k)], 1);
+				resetMasks[transitionIndex] |= fieldMask(resetMatrix.rowAt(k));
+			}
+			for (int placeIndex = 0; placeIndex < places.length; placeIndex++) {
+				if (required[placeIndex] > 0) {
+					requiredTokens[transitionIndex] |= (long) required[placeIndex] << placeShifts[placeIndex];
+					requiredOverflowBits[transitionIndex] |= overflowBit(placeIndex);
+				}
+			}
+			for (int k = inhibitionMatrix.columnStart(transitionIndex); k < inhibitionMatrix.columnEnd(transitionIndex); k++) {
+				inhibitionMasks[transitionIndex] |= placeTokenMasks[inhibitionMatrix.rowAt(k)] << placeShifts[inhibitionMatrix.rowAt(k)];
+			}
+			for (int k = pre.columnStart(transitionIndex); k < pre.columnEnd(transitionIndex); k++) {
+				removedTokens[transitionIndex] += (long) pre.valueAt(k) << placeShifts[pre.rowAt(k)];
+			}
+			for (int k = post.columnStart(transitionIndex); k < post.columnEnd(transitionIndex); k++) {
+				addedTokens[transitionIndex] += (long) post.valueAt(k) << placeShifts[post.rowAt(k)];
+			}
+			final int guardIndex = transitionGuards[transitionIndex];
+			if (guardIndex >= 0) {
+				guardMasks[transitionIndex] = guardBit(guardIndex);
+				requiredGuards[transitionIndex] = t.getGuardEnablingValue() ? guardBit(guardIndex) : 0;
+			}
+		}
+		enabledInState = enabledIn(state);
+		for (Place place : places) {
+			final int placeIndex = place.getIndex();
+			place.readMarkingFrom(() -> getMarking(placeIndex));
+		}
+	}
+
+	/**
+	 * Finds the most tokens each place holds in any marking reachable from the initial one, by exploring them all.
+	 * Guards are ignored, so the markings reachable with any of their values are covered.
+	 *
+	 * @return the bound of each place
+	 * @throws IllegalArgumentException if more than {@link #MAX_EXPLORED_MARKINGS} markings are reachable
+	 * or the tokens found already need more bits than fit in a long, so the net can't be proven bounded
+	 */
+	private int[] reachableBounds() throws IllegalArgumentException {
+		final int[] bounds = initialMarking.clone();
+		final Set<ExploredMarking> explored = new HashSet<>();
+		final Deque<int[]> pending = new ArrayDeque<>();
+		explored.add(new ExploredMarking(bounds.clone()));
+		pending.add(bounds.clone());
+		while (!pending.isEmpty()) {
+			final int[] marking = pending.poll();
+			for (int transitionIndex = 0; transitionIndex < transitions.length; transitionIndex++) {
+				if (!isEnabledIgnoringGuard(transitionIndex, marking)) {
+					continue;
+				}
+				final int[] next = marking.clone();
+				for (int k = inc.columnStart(transitionIndex); k < inc.columnEnd(transitionIndex); k++) {
+					next[inc.rowAt(k)] += inc.valueAt(k);
+				}
+				for (int k = resetMatrix.columnStart(transitionIndex); k < resetMatrix.columnEnd(transitionIndex); k++) {
+					next[resetMatrix.rowAt(k)] = 0;
+				}
+				if (!explored.add(new ExploredMarking(next))) {
+					continue;
+				}
+				if (explored.size() > MAX_EXPLORED_MARKINGS) {
+					throw new IllegalArgumentException("The petri net can't be proven bounded, it reaches more than " + MAX_EXPLORED_MARKINGS + " markings");
+				}
+				boolean grown = false;
+				for (int placeIndex = 0; placeIndex < places.length; placeIndex++) {
+					if (next[placeIndex] < 0) {
+						throw new IllegalArgumentException("The petri net can't be proven bounded, place " + places[placeIndex].getName() + " gets more tokens than fit in an int");
+					}
+					if (next[placeIndex] > bounds[placeIndex]) {
+						bounds[placeIndex] = next[placeIndex];
+						grown = true;
+					}
+				}
+				if (grown && usedBits(tokenBits(bounds)) > Long.SIZE) {
+					throw new IllegalArgumentException("The petri net can't be proven bounded, its places get more tokens than fit in a long");
+				}
+				pending.add(next);
+			}
+		}
+		return bounds;
+	}
+
+	/**
+	 * Checks a transition's arcs against a marking, as {@link PetriNet} does, whatever the value of its guard is
+	 */
+	private boolean isEnabledIgnoringGuard(int transitionIndex, int[] marking) {
+		for (CompressedColumnMatrix matrix : new CompressedColumnMatrix[]{pre, readerMatrix}) {
+			for (int k = matrix.columnStart(transitionIndex); k < matrix.columnEnd(transitionIndex); k++) {
+				if (matrix.valueAt(k) > marking[matrix.rowAt(k)]) {
+					return false;
+				}
+			}
+		}
+		for (int k = inhibitionMatrix.columnStart(transitionIndex); k < inhibitionMatrix.columnEnd(transitionIndex); k++) {
+			if (marking[inhibitionMatrix.rowAt(k)] != 0) {
+				return false;
+			}
+		}
+		for (int k = resetMatrix.columnStart(transitionIndex); k < resetMatrix.columnEnd(transitionIndex); k++) {
+			if (marking[resetMatrix.rowAt(k)] == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param bounds the most tokens each place holds
+	 * @return the bits each place's tokens need for its bound and its arcs weights
+	 */
+	private int[] tokenBits(int[] bounds) {
+		int[] tokenBits = new int[places.length];
+		for (int placeIndex = 0; placeIndex < places.length; placeIndex++) {
+			tokenBits[placeIndex] = bitsFor(Math.max(1, bounds[placeIndex]));
+		}
+		for (CompressedColumnMatrix matrix : new CompressedColumnMatrix[]{pre, post, readerMatrix}) {
+			for (int transitionIndex = 0; transitionIndex < transitions.length; transitionIndex++) {
+				for (int k = matrix.columnStart(transitionIndex); k < matrix.columnEnd(transitionIndex); k++) {
+					tokenBits[matrix.rowAt(k)] = Math.max(tokenBits[matrix.rowAt(k)], bitsFor(matrix.valueAt(k)));
+				}
+			}
+		}
+		return tokenBits;
+	}
+
+	/**
+	 * @param tokenBits the bits each place's tokens need
+	 * @return the bits the whole state needs, with the overflow bits and the guards
+	 */
+	private int usedBits(int[] tokenBits) {
+		int usedBits = packedGuards;
+		for (int bits : tokenBits) {
+			// plus the overflow bit
+			usedBits += bits + 1;
+		}
+		return usedBits;
+	}
+
+	/**
+	 * @param value a positive value
+	 * @return the amount of bits needed to hold the value
+	 */
+	private static int bitsFor(int value) {
+		return Integer.SIZE - Integer.numberOfLeadingZeros(value);
+	}
+
+	private long overflowBit(int placeIndex) {
+		return 1L << (placeShifts[placeIndex] + Long.bitCount(placeTokenMasks[placeIndex]));
+	}
+
+	/**
+	 * @return the token and overflow bits of the given place
+	 */
+	private long fieldMask(int placeIndex) {
+		return (placeTokenMasks[placeIndex] << placeShifts[placeIndex]) | overflowBit(placeIndex);
+	}
+
+	private long guardBit(int guardIndex) {
+		return 1L << (guardsShift + guardIndex);
+	}
+
+	/**
+	 * @param placeIndex a place's index
+	 * @return the amount of tokens the place's field can hold, at least the most tokens the place gets
+	 */
+	public int getPlaceBound(int placeIndex) {
+		return (int) placeTokenMasks[placeIndex];
+	}
+
+	/**
+	 * Checks a transition against a packed state.
+	 * Setting the overflow bits before subtracting the required tokens keeps the fields from borrowing from each other,
+	 * so a field keeps its overflow bit only if it had enough tokens.
+	 *
+	 * @param transitionIndex the transition to check
+	 * @param state           the packed state
+	 * @return true if the transition is enabled in the state
+	 */
+	private boolean isEnabled(int transitionIndex, long state) {
+		return (((state | overflowBits) - requiredTokens[transitionIndex]) & requiredOverflowBits[transitionIndex]) == requiredOverflowBits[transitionIndex]
+				&& (state & inhibitionMasks[transitionIndex]) == 0
+				&& (state & guardMasks[transitionIndex]) == requiredGuards[transitionIndex];
+	}
+
+	/**
+	 * Fires a transition on a packed state. The transition must be enabled in it,
+	 * and the places' fields hold the tokens it puts in them, since the places' bounds were proven
+	 *
+	 * @param transitionIndex the transition to fire
+	 * @param state           the packed state
+	 * @return the state after the firing
+	 */
+	private long fire(int transitionIndex, long state) {
+		return ((state - removedTokens[transitionIndex]) + addedTokens[transitionIndex]) & ~resetMasks[transitionIndex];
+	}
+
+	/**
+	 * @param state a packed state
+	 * @return the marking held in the state
+	 */
+	private int[] unpack(long state) {
+		int[] marking = new int[places.length];
+		for (int placeIndex = 0; placeIndex < places.length; placeIndex++) {
+			marking[placeIndex] = (int) ((state >>> placeShifts[placeIndex]) & placeTokenMasks[placeIndex]);
+		}
+		return marking;
+	}
+
+	/**
+	 * Fires the transition with a compare-and-set of the packed state, retrying only if another change was made in between.
+	 *
+	 * @see PetriNet#fire(Transition)
+	 */
+	@Override
+	public PetriNetFireOutcome fire(final Transition transition) throws IllegalArgumentException, PetriNetException {
+		return fire(transition, 1);
+	}
+
+	/**
+	 * @see PetriNet#fire(Transition, int)
+	 */
+	@Override
+	public PetriNetFireOutcome fire(final Transition transition, int times) throws IllegalArgumentException, PetriNetException {
+		if (times < 1) {
+			throw new IllegalArgumentException("Cannot fire a transition " + times + " times");
+		}
+		checkFireable(transition);
+		final int transitionIndex = transition.getIndex();
+		long state;
+		long next;
+		boolean fired = false;
+		beginPackedChange();
+		try {
+			do {
+				state = packedState.get();
+				next = state;
+				for (int i = 0; i < times; i++) {
+					if (!isEnabled(transitionIndex, next)) {
+						return PetriNetFireOutcome.NOT_ENABLED;
+					}
+					next = fire(transitionIndex, next);
+				}
+			} while (!packedState.compareAndSet(state, next));
+			enabledInState = enabledIn(next);
+			recordFiringStep(transitionIndex);
+			fired = true;
+			return PetriNetFireOutcome.SUCCESS;
+		} finally {
+			endChange(fired);
+		}
+	}
+
+	/**
+	 * @see PetriNet#fireSequence(Transition...)
+	 */
+	@Override
+	public PetriNetFireOutcome fireSequence(final Transition... sequence) throws IllegalArgumentException, NotInitializedPetriNetException {
+		if (sequence == null) {
+			throw new IllegalArgumentException("Null sequence passed as argument");
+		}
+		for (Transition transition : sequence) {
+			checkFireable(transition);
+		}
+		return fireSequence(sequence, false) ? PetriNetFireOutcome.SUCCESS : PetriNetFireOutcome.NOT_ENABLED;
+	}
+
+	/**
+	 * @see PetriNet#fireAtomically(Set)
+	 */
+	@Override
+	public PetriNetFireOutcome fireAtomically(final Set<Transition> transitionsToFire) throws IllegalArgumentException, NotInitializedPetriNetException {
+		if (transitionsToFire == null) {
+			throw new IllegalArgumentException("Null set passed as argument");
+		}
+		final Transition[] sequence = inFiringOrder(transitionsToFire);
+		for (Transition transition : sequence) {
+			checkFireable(transition);
+		}
+		return fireSequence(sequence, true) ? PetriNetFireOutcome.SUCCESS : PetriNetFireOutcome.NOT_ENABLED;
+	}
+
+	/**
+	 * Fires the given transitions in order with a single compare-and-set
+	 *
+	 * @param sequence          the transitions to fire, already checked
+	 * @param checkTokensAtOnce whether the tokens required by all the transitions together must be in the marking beforehand
+	 * @return true if every transition was fired, false if none was
+	 */
+	private boolean fireSequence(final Transition[] sequence, boolean checkTokensAtOnce) {
+		long state;
+		long next;
+		boolean fired = false;
+		beginPackedChange();
+		try {
+			do {
+				state = packedState.get();
+				if (checkTokensAtOnce && !holdsRequiredTokens(sequence, state)) {
+					return false;
+				}
+				next = state;
+				for (Transition transition : sequence) {
+					if (!isEnabled(transition.getIndex(), next)) {
+						return false;
+					}
+					next = fire(transition.getIndex(), next);
+				}
+			} while (!packedState.compareAndSet(state, next));
+			enabledInState = enabledIn(next);
+			for (Transition transition : sequence) {
+				recordFiringStep(transition.getIndex());
+			}
+			fired = true;
+			return true;
+		} finally {
+			endChange(fired);
+		}
+	}
+
+	/**
+	 * @return true if the state's marking holds the tokens required by all the transitions' normal arcs together
+	 */
+	private boolean holdsRequiredTokens(final Transition[] transitionsToFire, long state) {
+		final int[] marking = unpack(state);
+		for (Transition transition : transitionsToFire) {
+			final int transitionIndex = transition.getIndex();
+			for (int k = pre.columnStart(transitionIndex); k < pre.columnEnd(transitionIndex); k++) {
+				marking[pre.rowAt(k)] -= pre.valueAt(k);
+				if (marking[pre.rowAt(k)] < 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the degree by firing the transition on a copy of the packed state
+	 *
+	 * @see PetriNet#getEnablingDegree(Transition, int)
+	 */
+	@Override
+	public int getEnablingDegree(final Transition t, int bound) {
+		final int transitionIndex = t.getIndex();
+		long state = packedState.get();
+		int degree = 0;
+		while (degree < bound && isEnabled(transitionIndex, state)) {
+			state = fire(transitionIndex, state);
+			degree++;
+		}
+		return degree;
+	}
+
+	@Override
+	public boolean isEnabled(final Transition t) {
+		return isEnabled(t.getIndex(), packedState.get());
+	}
+
+	/**
+	 * Same as {@link #isEnabled(Transition)}, since the packed state is always read as a whole
+	 */
+	@Override
+	public boolean isEnabledNow(final Transition t) {
+		return isEnabled(t);
+	}
+
+	/**
+	 * @return the transitions enabled in the current state, shared by every reader of that state, so it must not be modified
+	 */
+	@Override
+	public boolean[] getEnabledTransitions() {
+		return currentlyEnabled().enabled;
+	}
+
+	/**
+	 * @return a new bitset with the transitions enabled in the current state
+	 */
+	@Override
+	public long[] getEnabledTransitionsBitSet() {
+		return currentlyEnabled().bitSet.clone();
+	}
+
+	/**
+	 * @see PetriNet#getEnabledTransitionsWord(int)
+	 */
+	@Override
+	public long getEnabledTransitionsWord(int word) {
+		return currentlyEnabled().bitSet[word];
+	}
+
+	/**
+	 * Takes the transitions enabled in the current state from the last change, and computes them only if
+	 * a change made in parallel published an older state after it
+	 *
+	 * @return the transitions enabled in the current state
+	 */
+	private EnabledTransitions currentlyEnabled() {
+		final long state = packedState.get();
+		EnabledTransitions enabled = enabledInState;
+		if (enabled.state != state) {
+			enabled = enabledIn(state);
+			enabledInState = enabled;
+		}
+		return enabled;
+	}
+
+	/**
+	 * @param state a packed state
+	 * @return the transitions enabled in the state
+	 */
+	private EnabledTransitions enabledIn(long state) {
+		boolean[] enabled = new boolean[transitions.length];
+		long[] bitSet = new long[bitSetWords(transitions.length)];
+		for (int transitionIndex = 0; transitionIndex < transitions.length; transitionIndex++) {
+			if (isEnabled(transitionIndex, state)) {
+				enabled[transitionIndex] = true;
+				bitSet[transitionIndex >>> 6] |= 1L << transitionIndex;
+			}
+		}
+		return new EnabledTransitions(state, enabled, bitSet);
+	}
+
+	@Override
+	public Integer[] getCurrentMarking() {
+		int[] marking = unpack(packedState.get());
+		Integer[] boxed = new Integer[marking.length];
+		for (int i = 0; i < marking.length; i++) {
+			boxed[i] = marking[i];
+		}
+		return boxed;
+	}
+
+	@Override
+	public int getMarking(int placeIndex) {
+		return (int) ((packedState.get() >>> placeShifts[placeIndex]) & placeTokenMasks[placeIndex]);
+	}
+
+	/**
+	 * Reads the state without locking, since the firings don't take the stripes' locks.
+	 * Only if changes keep being made through many attempts, new changes are held back until the snapshot is taken.
+	 * The changes in progress end soon, since they only retry their compare-and-set when another one succeeds.
+	 *
+	 * @see PetriNet#snapshot()
+	 */
+	@Override
+	public MarkingSnapshot snapshot() {
+		MarkingSnapshot snapshot;
+		for (int attempt = 0; attempt < OPTIMISTIC_SNAPSHOT_ATTEMPTS; attempt++) {
+			if ((snapshot = tryOptimisticSnapshot()) != null) {
+				return snapshot;
+			}
+			Thread.yield();
+		}
+		pausingReaders.incrementAndGet();
+		try {
+			// only the changes that started before the pause can make this fail
+			while ((snapshot = tryOptimisticSnapshot()) == null) {
+				Thread.yield();
+			}
+			return snapshot;
+		} finally {
+			pausingReaders.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Starts a change to the packed state, waiting first while a reader holds the changes back
+	 *
+	 * @see PetriNet#beginChange()
+	 */
+	private void beginPackedChange() {
+		while (pausingReaders.get() != 0) {
+			Thread.yield();
+		}
+		beginChange();
+	}
+
+	/**
+	 * Takes the marking and the enabled transitions from a single read of the packed state
+	 *
+	 * @see PetriNet#readSnapshot(long)
+	 */
+	@Override
+	protected MarkingSnapshot readSnapshot(long version) {
+		final EnabledTransitions enabled = currentlyEnabled();
+		return new MarkingSnapshot(unpack(enabled.state), enabled.enabled.clone(), getFiringSequenceNumber(), version);
+	}
+
+	/**
+	 * Copies the transitions enabled in the current packed state
+	 *
+	 * @see PetriNet#computeEnabledTransitions()
+	 */
+	@Override
+	protected final boolean[] computeEnabledTransitions() {
+		return currentlyEnabled().enabled.clone();
+	}
+
+	/**
+	 * @see PetriNet#updateEnabledTransition(Transition)
+	 */
+	@Override
+	protected final void updateEnabledTransition(Transition t) {
+		setEnabledTransition(t.getIndex(), isEnabled(t));
+	}
+
+	/**
+	 * Sets a guard associated to a transition with a compare-and-set of its bit in the packed state.
+	 * Other guards are kept as in {@link PetriNet}.
+	 *
+	 * @see PetriNet#addGuard(String, Boolean)
+	 */
+	@Override
+	public boolean addGuard(String key, Boolean value) {
+		final Integer guardIndex = key == null ? null : guardIndexes.get(key);
+		if (guardIndex == null || guardIndex >= packedGuards) {
+			return super.addGuard(key, value);
+		}
+		setGuardBits(value ? guardBit(guardIndex) : 0, value ? 0 : guardBit(guardIndex));
+		return true;
+	}
+
+	/**
+	 * Sets all the guards associated to transitions with a single compare-and-set.
+	 * Other guards are kept as in {@link PetriNet}.
+	 *
+	 * @see PetriNet#addGuards(Map)
+	 */
+	@Override
+	public void addGuards(Map<String, Boolean> newValues) {
+		long setBits = 0;
+		long clearedBits = 0;
+		Map<String, Boolean> unpackedValues = new HashMap<>();
+		for (Map.Entry<String, Boolean> guard : newValues.entrySet()) {
+			final Integer guardIndex = guard.getKey() == null ? null : guardIndexes.get(guard.getKey());
+			if (guardIndex == null || guardIndex >= packedGuards) {
+				unpackedValues.put(guard.getKey(), guard.getValue());
+			} else if (guard.getValue()) {
+				setBits |= guardBit(guardIndex);
+			} else {
+				clearedBits |= guardBit(guardIndex);
+			}
+		}
+		setGuardBits(setBits, clearedBits);
+		if (!unpackedValues.isEmpty()) {
+			super.addGuards(unpackedValues);
+		}
+	}
+
+	private void setGuardBits(long setBits, long clearedBits) {
+		long state;
+		long next;
+		beginPackedChange();
+		try {
+			do {
+				state = packedState.get();
+				next = (state | setBits) & ~clearedBits;
+			} while (!packedState.compareAndSet(state, next));
+			enabledInState = enabledIn(next);
+		} finally {
+			endChange(true);
+		}
+	}
+
+	@Override
+	public boolean readGuard(String guard) throws IndexOutOfBoundsException {
+		final Integer guardIndex = guard == null ? null : guardIndexes.get(guard);
+		if (guardIndex == null || guardIndex >= packedGuards) {
+			return super.readGuard(guard);
+		}
+		return (packedState.get() & guardBit(guardIndex)) != 0;
+	}
+
+	/**
+	 * The transitions enabled in a packed state, never modified once published
+	 */
+	private static final class EnabledTransitions {
+
+		private final long state;
+		private final boolean[] enabled;
+		private final long[] bitSet;
+
+		EnabledTransitions(long _state, boolean[] _enabled, long[] _bitSet) {
+			state = _state;
+			enabled = _enabled;
+			bitSet = _bitSet;
+		}
+	}
+
+	/**
+	 * A marking found while proving the net bounded, compared by its tokens
+	 */
+	private static final class ExploredMarking {
+
+		private final int[] marking;
+
+		ExploredMarking(int[] _marking) {
+			marking = _marking;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof ExploredMarking && Arrays.equals(marking, ((ExploredMarking) other).marking);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(marking);
+		}
+	}
+}
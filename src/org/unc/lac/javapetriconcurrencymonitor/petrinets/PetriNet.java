@@ -10,10 +10,16 @@ import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Place;
 import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 /**
  * Implementation for petri net model.
@@ -25,51 +31,156 @@ public abstract class PetriNet {
     protected Place[] places;
     protected Transition[] transitions;
     protected Arc[] arcs;
-    protected Integer[][] pre;
-    protected Integer[][] post;
     /**
-     * Incidece matrix
+     * Pre-incidence matrix. Column t holds the input places of transition t with their arcs weights
      */
-    protected Integer[][] inc;
-    protected Integer[] currentMarking;
-    protected Integer[] initialMarking;
+    protected CompressedColumnMatrix pre;
+    /**
+     * Post-incidence matrix. Column t holds the output places of transition t with their arcs weights
+     */
+    protected CompressedColumnMatrix post;
+    /**
+     * Incidece matrix. Column t holds the marking delta produced by firing transition t
+     */
+    protected CompressedColumnMatrix inc;
+    protected int[] currentMarking;
+    protected int[] initialMarking;
     protected boolean[] automaticTransitions;
     protected boolean[] informedTransitions;
     protected boolean[] enabledTransitions;
+    /**
+     * Bitset versions of {@link #automaticTransitions} and {@link #enabledTransitions}.
+     * Bit i of word i/64 is set for transition i.
+     * The enabled transitions' words are shared by transitions in different stripes, so each bit is changed with a compare-and-set
+     */
+    protected long[] automaticTransitionsBitSet;
+    protected AtomicLongArray enabledTransitionsBitSet;
 
     /**
-     * Inhibition arcs pre-incidence matrix
+     * Inhibition arcs pre-incidence matrix. Its elements are 1 where there is an inhibition arc
      */
-    protected Boolean[][] inhibitionMatrix;
+    protected CompressedColumnMatrix inhibitionMatrix;
     /**
-     * Reset arcs pre-incidence matrix
+     * Reset arcs pre-incidence matrix. Its elements are 1 where there is a reset arc
      */
-    protected Boolean[][] resetMatrix;
+    protected CompressedColumnMatrix resetMatrix;
     /**
      * Reader arcs pre-incidence matrix
      */
-    protected Integer[][] readerMatrix;
+    protected CompressedColumnMatrix readerMatrix;
 
     protected boolean hasInhibitionArcs;
     protected boolean hasResetArcs;
 
     protected boolean hasReaderArcs;
 
+    /**
+     * Place to transition dependency index (dimension t*p). Column p holds the transitions whose enabling
+     * depends on place p's marking, i.e. the ones connected to p through normal, inhibition, reset or reader arcs
+     */
+    protected CompressedColumnMatrix dependentTransitions;
+
+    /**
+     * For each transition, the transitions whose enabling may change when it's fired, i.e. the ones reading a place it changes.
+     * Each transition appears once, even if it reads several of the changed places
+     */
+    private int[][] affectedTransitions;
+
+    /**
+     * Marks for the transitions already re-evaluated after a guards change, so a transition associated to
+     * several changed guards is checked only once.
+     * A transition was checked in the current change if its mark equals {@link #enablingCheckRound}
+     */
+    private int[] enablingCheckMarks;
+    private int enablingCheckRound;
 
     protected boolean initializedPetriNet;
 
     /**
-     * HashMap for guards. These variables can enable or disable associated transitions
+     * Amount of firing steps made since the net was created. A multiple firing counts as one step
+     */
+    private final AtomicLong firingSequenceNumber = new AtomicLong();
+    /**
+     * The sequence number of each transition's last firing step, or 0 if it was never fired
+     */
+    private long[] lastFiringSequenceNumbers;
+
+    /**
+     * Amount of bits of {@link #changes} counting the changes in progress
+     */
+    private static final int CHANGES_IN_PROGRESS_BITS = 16;
+    private static final long CHANGES_IN_PROGRESS_MASK = (1L << CHANGES_IN_PROGRESS_BITS) - 1;
+    /**
+     * Times {@link #snapshot()} tries to read the state without locking before holding the changes back
+     */
+    protected static final int OPTIMISTIC_SNAPSHOT_ATTEMPTS = 64;
+    /**
+     * The amount of completed changes to the marking, enabled transitions and guards, above the amount of changes in progress.
+     * Since firings in different stripes are made in parallel, several changes may be in progress at once.
+     * A snapshot read while no change was in progress, and with this value unchanged afterwards, is consistent
+     *
+     * @see #snapshot()
+     */
+    private final AtomicLong changes = new AtomicLong();
+
+    /**
+     * Serializes the changes to the marking and guards, with a lock for each stripe of places.
+     * A single stripe, the default, serializes every change.
+     * With more, a fire only locks the stripes it reads or changes, so transitions far apart in the net are fired in parallel,
+     * while firings of several transitions and registering new guards lock every stripe.
+     * Stripes are always locked in ascending order, so no two threads wait for each other.
+     * Locks are used instead of synchronized methods since a virtual thread blocked on them releases its carrier thread
+     *
+     * @see #setLockStripes(int)
+     */
+    private ReentrantLock[] stateLocks = {new ReentrantLock()};
+    /**
+     * For each transition, the stripes to lock to fire it, in ascending order.
+     * They hold the places it reads or changes and the places read by the transitions it affects,
+     * so their enabling is re-evaluated against a stable marking
+     */
+    private int[][] firingStripes;
+    /**
+     * For each guard associated to a transition, the stripes to lock to change its value, in ascending order.
+     * They hold the places read by the guard's transitions, so changing a guard only blocks the firings near them
+     */
+    private int[][] guardStripes;
+
+    /**
+     * Immutable indexes from names and ids to the matching place or transition index.
+     * Built once at construction time so looking up a node doesn't scan the whole array
+     */
+    protected Map<String, Integer> placesByName;
+    protected Map<String, Integer> placesById;
+    protected Map<String, Integer> transitionsByName;
+    protected Map<String, Integer> transitionsById;
+
+    /**
+     * Guards are interned to integer slots. These variables can enable or disable associated transitions.
+     * This map holds the slot for each guard name
+     */
+    protected Map<String, Integer> guardIndexes;
+    /**
+     * The value of each guard, indexed by guard slot
+     */
+    protected boolean[] guardValues;
+    /**
+     * The guard slot for each transition, or -1 if the transition has no guard
      */
-    protected Map<String, Boolean> guards;
+    protected int[] transitionGuards;
+    /**
+     * Guard to transition dependency index (dimension t*g). Column g holds the transitions associated to guard g
+     */
+    protected CompressedColumnMatrix guardDependentTransitions;
 
     /**
      * Makes a PetriNet Object. This is intended to be used by PetriNetFactory
+     * All matrices have dimension p*t, and their columns hold each transition's arcs.
      *
      * @param _places           Array of Place objects (dimension p)
      * @param _transitions      Array of Transition objects (dimension t)
      * @param _arcs             Array of Arcs
-     * @param _initialMarking   Array of Integers (tokens in each place) (dimension p)
+     * @param _initialMarking   Array of ints (tokens in each place) (dimension p)
      * @param _preI             Pre-Incidence matrix (dimension p*t)
      * @param _posI             Post-Incidence matrix (dimension p*t)
      * @param _I                Incidence matrix (dimension p*t)
@@ -78,8 +189,8 @@ public abstract class PetriNet {
      * @param _readerMatrix     Pre-Incidence matrix for reader arcs only. If no reader arcs, null is accepted.
      */
     protected PetriNet(Place[] _places, Transition[] _transitions, Arc[] _arcs,
-                       Integer[] _initialMarking, Integer[][] _preI, Integer[][] _posI, Integer[][] _I,
-                       Boolean[][] _inhibitionMatrix, Boolean[][] _resetMatrix, Integer[][] _readerMatrix) {
+                       int[] _initialMarking, CompressedColumnMatrix _preI, CompressedColumnMatrix _posI, CompressedColumnMatrix _I,
+                       CompressedColumnMatrix _inhibitionMatrix, CompressedColumnMatrix _resetMatrix, CompressedColumnMatrix _readerMatrix) {
         this.places = _places;
         this.transitions = _transitions;
 
@@ -90,18 +201,48 @@ public abstract class PetriNet {
         computeAutomaticAndInformed();
         fillGuardsMap();
 
+        placesByName = indexNodes(_places, PetriNode::getName);
+        placesById = indexNodes(_places, PetriNode::getId);
+        transitionsByName = indexNodes(_transitions, PetriNode::getName);
+        transitionsById = indexNodes(_transitions, PetriNode::getId);
+
+        final CompressedColumnMatrix noArcs = CompressedColumnMatrix.empty(_places.length, _transitions.length);
         this.arcs = _arcs;
         this.initialMarking = _initialMarking.clone();
         this.currentMarking = _initialMarking;
         this.pre = _preI;
         this.post = _posI;
         this.inc = _I;
-        this.inhibitionMatrix = _inhibitionMatrix;
-        this.resetMatrix = _resetMatrix;
-        this.readerMatrix = _readerMatrix;
-        hasInhibitionArcs = isMatrixNonZero(inhibitionMatrix);
-        hasResetArcs = isMatrixNonZero(resetMatrix);
-        hasReaderArcs = isMatrixNonZero(readerMatrix);
+        this.inhibitionMatrix = _inhibitionMatrix == null ? noArcs : _inhibitionMatrix;
+        this.resetMatrix = _resetMatrix == null ? noArcs : _resetMatrix;
+        this.readerMatrix = _readerMatrix == null ? noArcs : _readerMatrix;
+        hasInhibitionArcs = !inhibitionMatrix.isZero();
+        hasResetArcs = !resetMatrix.isZero();
+        hasReaderArcs = !readerMatrix.isZero();
+        this.dependentTransitions = computeDependentTransitions();
+        this.affectedTransitions = computeAffectedTransitions();
+        this.enablingCheckMarks = new int[_transitions.length];
+        this.lastFiringSequenceNumbers = new long[_transitions.length];
+        this.firingStripes = computeFiringStripes(null, 1);
+        this.guardStripes = computeGuardStripes();
+    }
+
+    /**
+     * Makes a PetriNet Object from boxed two-dimensional matrices indexed as [place][transition].
+     * The matrices are compressed into the sparse storage used internally.
+     *
+     * @see PetriNet#PetriNet(Place[], Transition[], Arc[], int[], CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix)
+     */
+    protected PetriNet(Place[] _places, Transition[] _transitions, Arc[] _arcs,
+                       Integer[] _initialMarking, Integer[][] _preI, Integer[][] _posI, Integer[][] _I,
+                       Boolean[][] _inhibitionMatrix, Boolean[][] _resetMatrix, Integer[][] _readerMatrix) {
+        this(_places, _transitions, _arcs, unbox(_initialMarking),
+                CompressedColumnMatrix.fromRowMajor(_preI, _places.length, _transitions.length),
+                CompressedColumnMatrix.fromRowMajor(_posI, _places.length, _transitions.length),
+                CompressedColumnMatrix.fromRowMajor(_I, _places.length, _transitions.length),
+                CompressedColumnMatrix.fromRowMajor(_inhibitionMatrix, _places.length, _transitions.length),
+                CompressedColumnMatrix.fromRowMajor(_resetMatrix, _places.length, _transitions.length),
+                CompressedColumnMatrix.fromRowMajor(_readerMatrix, _places.length, _transitions.length));
     }
 
     /**
@@ -111,6 +252,14 @@ public abstract class PetriNet {
      */
     protected abstract boolean[] computeEnabledTransitions();
 
+    /**
+     * Re-evaluates whether the given transition is enabled and stores the result in {@link #enabledTransitions}.
+     * This is used after a fire to update only the transitions affected by it.
+     *
+     * @param t the transition to check
+     */
+    protected abstract void updateEnabledTransition(Transition t);
+
     /**
      * Initialize the petri net and computes enabled transitions for the first time.
      * This method must be called before being ready to fire a transition.
@@ -118,30 +267,348 @@ public abstract class PetriNet {
      * @see PetriNet#computeEnabledTransitions()
      */
     public void initializePetriNet() {
-        enabledTransitions = computeEnabledTransitions();
-        initializedPetriNet = true;
+        beginChange();
+        try {
+            enabledTransitions = computeEnabledTransitions();
+            fillEnabledTransitionsBitSet();
+            initializedPetriNet = true;
+        } finally {
+            endChange(true);
+        }
     }
 
     private void computeAutomaticAndInformed() {
         this.automaticTransitions = new boolean[transitions.length];
         this.informedTransitions = new boolean[transitions.length];
+        this.automaticTransitionsBitSet = new long[bitSetWords(transitions.length)];
+        this.enabledTransitionsBitSet = new AtomicLongArray(automaticTransitionsBitSet.length);
         for (int i = 0; i < automaticTransitions.length; i++) {
             Label thisTransitionLabel = transitions[i].getLabel();
             automaticTransitions[i] = thisTransitionLabel.isAutomatic();
             informedTransitions[i] = thisTransitionLabel.isInformed();
+            if (automaticTransitions[i]) {
+                automaticTransitionsBitSet[i >>> 6] |= 1L << i;
+            }
         }
     }
 
-    private void fillGuardsMap() {
-        if (guards == null) {
-            guards = new HashMap<>();
+    /**
+     * Stores whether a transition is enabled in both {@link #enabledTransitions} and {@link #enabledTransitionsBitSet}
+     *
+     * @param transitionIndex the transition's index
+     * @param enabled         true if the transition is enabled
+     */
+    protected final void setEnabledTransition(int transitionIndex, boolean enabled) {
+        enabledTransitions[transitionIndex] = enabled;
+        final int word = transitionIndex >>> 6;
+        final long bit = 1L << transitionIndex;
+        long current;
+        do {
+            current = enabledTransitionsBitSet.get(word);
+            if (((current & bit) != 0) == enabled) {
+                return;
+            }
+        } while (!enabledTransitionsBitSet.compareAndSet(word, current, current ^ bit));
+    }
+
+    /**
+     * Rebuilds {@link #enabledTransitionsBitSet} after {@link #enabledTransitions} was fully recomputed
+     */
+    private void fillEnabledTransitionsBitSet() {
+        long[] words = new long[enabledTransitionsBitSet.length()];
+        for (int i = 0; i < enabledTransitions.length; i++) {
+            if (enabledTransitions[i]) {
+                words[i >>> 6] |= 1L << i;
+            }
         }
+        for (int word = 0; word < words.length; word++) {
+            enabledTransitionsBitSet.set(word, words[word]);
+        }
+    }
+
+    /**
+     * @param bits amount of bits to store
+     * @return the amount of long words needed to store the given amount of bits
+     */
+    public static int bitSetWords(int bits) {
+        return (bits + Long.SIZE - 1) >>> 6;
+    }
+
+    /**
+     * Builds the place to transition dependency index from the input matrices.
+     * Repeated arcs between the same place and transition are merged into one entry.
+     *
+     * @return a t*p matrix whose column p holds the transitions that read place p
+     */
+    private CompressedColumnMatrix computeDependentTransitions() {
+        CompressedColumnMatrix.Builder builder = new CompressedColumnMatrix.Builder(transitions.length, places.length);
+        for (CompressedColumnMatrix inputMatrix : new CompressedColumnMatrix[]{pre, inhibitionMatrix, resetMatrix, readerMatrix}) {
+            for (int transitionIndex = 0; transitionIndex < transitions.length; transitionIndex++) {
+                for (int k = inputMatrix.columnStart(transitionIndex); k < inputMatrix.columnEnd(transitionIndex); k++) {
+                    builder.add(transitionIndex, inputMatrix.rowAt(k), 1);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Builds the list of transitions affected by each transition's firing from the dependency index
+     *
+     * @return for each transition, the transitions reading a place it changes through the incidence matrix or a reset arc
+     */
+    private int[][] computeAffectedTransitions() {
+        int[][] affected = new int[transitions.length][];
+        int[] marks = new int[transitions.length];
+        int[] found = new int[transitions.length];
+        for (int transitionIndex = 0; transitionIndex < transitions.length; transitionIndex++) {
+            int amount = 0;
+            for (CompressedColumnMatrix changedPlaces : new CompressedColumnMatrix[]{inc, resetMatrix}) {
+                for (int k = changedPlaces.columnStart(transitionIndex); k < changedPlaces.columnEnd(transitionIndex); k++) {
+                    int placeIndex = changedPlaces.rowAt(k);
+                    for (int d = dependentTransitions.columnStart(placeIndex); d < dependentTransitions.columnEnd(placeIndex); d++) {
+                        int dependent = dependentTransitions.rowAt(d);
+                        // marks hold the fired transition's index plus one, so no clearing is needed between transitions
+                        if (marks[dependent] != transitionIndex + 1) {
+                            marks[dependent] = transitionIndex + 1;
+                            found[amount++] = dependent;
+                        }
+                    }
+                }
+            }
+            affected[transitionIndex] = Arrays.copyOf(found, amount);
+        }
+        return affected;
+    }
+
+    /**
+     * Computes the stripes each transition locks to be fired
+     *
+     * @param placeStripes the stripe of each place, or null for a single stripe
+     * @param stripes      the amount of stripes
+     * @return for each transition, the stripes of the places it reads or changes and the places read by the transitions it affects,
+     * in ascending order and without repetitions
+     */
+    private int[][] computeFiringStripes(int[] placeStripes, int stripes) {
+        int[][] firing = new int[transitions.length][];
+        if (stripes == 1) {
+            int[] onlyStripe = {0};
+            Arrays.fill(firing, onlyStripe);
+            return firing;
+        }
+        CompressedColumnMatrix[] inputMatrices = {pre, inhibitionMatrix, resetMatrix, readerMatrix};
+        for (int transitionIndex = 0; transitionIndex < transitions.length; transitionIndex++) {
+            boolean[] locked = new boolean[stripes];
+            markStripes(locked, placeStripes, new CompressedColumnMatrix[]{pre, post, inhibitionMatrix, resetMatrix, readerMatrix}, transitionIndex);
+            for (int affected : affectedTransitions[transitionIndex]) {
+                markStripes(locked, placeStripes, inputMatrices, affected);
+            }
+            firing[transitionIndex] = markedStripes(locked);
+        }
+        return firing;
+    }
+
+    /**
+     * Computes the stripes each guard locks to change its value, from the transitions' firing stripes
+     *
+     * @return for each guard associated to a transition, the stripes locked by any of its transitions,
+     * in ascending order and without repetitions
+     */
+    private int[][] computeGuardStripes() {
+        int[][] guards = new int[guardDependentTransitions.getColumns()][];
+        for (int guardIndex = 0; guardIndex < guards.length; guardIndex++) {
+            boolean[] locked = new boolean[stateLocks.length];
+            for (int k = guardDependentTransitions.columnStart(guardIndex); k < guardDependentTransitions.columnEnd(guardIndex); k++) {
+                for (int stripe : firingStripes[guardDependentTransitions.rowAt(k)]) {
+                    locked[stripe] = true;
+                }
+            }
+            guards[guardIndex] = markedStripes(locked);
+        }
+        return guards;
+    }
+
+    /**
+     * @param locked the marks, indexed by stripe
+     * @return the marked stripes in ascending order, or stripe 0 if none is marked
+     */
+    private static int[] markedStripes(boolean[] locked) {
+        int amount = 0;
+        int[] stripesToLock = new int[locked.length];
+        for (int stripe = 0; stripe < locked.length; stripe++) {
+            if (locked[stripe]) {
+                stripesToLock[amount++] = stripe;
+            }
+        }
+        // a transition with no arcs changes nothing, but still locks a stripe to fire
+        return amount == 0 ? new int[]{0} : Arrays.copyOf(stripesToLock, amount);
+    }
+
+    /**
+     * Marks the stripes of the places in the given column of each matrix
+     *
+     * @param locked          the marks, indexed by stripe
+     * @param placeStripes    the stripe of each place
+     * @param matrices        the matrices whose column to read
+     * @param transitionIndex the column to read
+     */
+    private static void markStripes(boolean[] locked, int[] placeStripes, CompressedColumnMatrix[] matrices, int transitionIndex) {
+        for (CompressedColumnMatrix matrix : matrices) {
+            for (int k = matrix.columnStart(transitionIndex); k < matrix.columnEnd(transitionIndex); k++) {
+                locked[placeStripes[matrix.rowAt(k)]] = true;
+            }
+        }
+    }
+
+    /**
+     * Splits the places into the given amount of lock stripes, so transitions that don't share any stripe are fired in parallel.
+     * A transition locks the stripes of the places it reads or changes, and of the places read by the transitions whose
+     * enabling it may change, so a firing still looks atomic to any other. The marking always goes through states
+     * reachable by firing one transition at a time.
+     * Place p belongs to stripe p % stripes.
+     * Must be called before initializing the net. A single stripe, the default, serializes every change.
+     *
+     * @param stripes the amount of stripes, up to the amount of places
+     * @throws IllegalArgumentException if stripes is not positive
+     * @throws IllegalStateException    if the net was already initialized
+     * @see #setLockStripes(int[])
+     */
+    public void setLockStripes(int stripes) throws IllegalArgumentException, IllegalStateException {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Invalid amount of lock stripes: " + stripes);
+        }
+        stripes = Math.max(1, Math.min(stripes, places.length));
+        int[] placeStripes = new int[places.length];
+        for (int placeIndex = 0; placeIndex < places.length; placeIndex++) {
+            placeStripes[placeIndex] = placeIndex % stripes;
+        }
+        setLockStripes(placeStripes);
+    }
+
+    /**
+     * Same as {@link #setLockStripes(int)}, but choosing the stripe of each place.
+     * Giving each of the net's {@link #getComponents() components} its own stripe makes transitions lock a single stripe.
+     *
+     * @param placeStripes the stripe of each place, indexed by place. The amount of stripes is the highest one plus one
+     * @throws IllegalArgumentException if placeStripes is null, its length doesn't match the amount of places or any stripe is negative
+     * @throws IllegalStateException    if the net was already initialized
+     */
+    public void setLockStripes(int[] placeStripes) throws IllegalArgumentException, IllegalStateException {
+        if (placeStripes == null || placeStripes.length != places.length) {
+            throw new IllegalArgumentException("Invalid lock stripes, one is needed for each place");
+        }
+        int stripes = 1;
+        for (int stripe : placeStripes) {
+            if (stripe < 0) {
+                throw new IllegalArgumentException("Invalid lock stripe: " + stripe);
+            }
+            stripes = Math.max(stripes, stripe + 1);
+        }
+        if (initializedPetriNet) {
+            throw new IllegalStateException("Lock stripes must be set before initializing the petri net");
+        }
+        ReentrantLock[] locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        firingStripes = computeFiringStripes(placeStripes.clone(), stripes);
+        stateLocks = locks;
+        guardStripes = computeGuardStripes();
+    }
+
+    /**
+     * Splits the net into its independent components: the places and transitions connected through arcs of any kind,
+     * or through guards shared by transitions. Firing a transition never changes the enabling of a transition in another component.
+     *
+     * @return the net's components
+     */
+    public PetriNetComponents getComponents() {
+        return new PetriNetComponents(this);
+    }
+
+    /**
+     * @return the amount of lock stripes places are split into
+     * @see #setLockStripes(int)
+     */
+    public int getLockStripes() {
+        return stateLocks.length;
+    }
+
+    /**
+     * Locks the given stripes in order
+     *
+     * @param stripes the stripes to lock, in ascending order
+     */
+    private void lockStripes(int[] stripes) {
+        for (int stripe : stripes) {
+            stateLocks[stripe].lock();
+        }
+    }
+
+    /**
+     * @param stripes the locked stripes, in ascending order
+     */
+    private void unlockStripes(int[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stateLocks[stripes[i]].unlock();
+        }
+    }
+
+    /**
+     * Locks every stripe, for changes that may affect any transition
+     */
+    private void lockAllStripes() {
+        for (ReentrantLock lock : stateLocks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAllStripes() {
+        for (int i = stateLocks.length - 1; i >= 0; i--) {
+            stateLocks[i].unlock();
+        }
+    }
+
+    /**
+     * Builds an immutable index from the given key to each node's index.
+     * If two nodes share a key the first one is kept. Null keys are not indexed
+     *
+     * @param nodes the nodes to index, sorted by index
+     * @param key   the function to get the key from a node
+     * @return an unmodifiable map from key to node index
+     */
+    private static Map<String, Integer> indexNodes(PetriNode[] nodes, Function<PetriNode, String> key) {
+        Map<String, Integer> index = new HashMap<>(nodes.length * 2);
+        for (PetriNode node : nodes) {
+            String nodeKey = key.apply(node);
+            if (nodeKey != null) {
+                index.putIfAbsent(nodeKey, node.getIndex());
+            }
+        }
+        return Collections.unmodifiableMap(index);
+    }
+
+    private void fillGuardsMap() {
+        // read without locking when changing a guard's value, while a new guard may be registered
+        guardIndexes = new ConcurrentHashMap<>();
+        transitionGuards = new int[transitions.length];
+        Arrays.fill(transitionGuards, -1);
         for (Transition t : transitions) {
             if (t.hasGuard()) {
-                // TODO: get initial guards value
-                guards.put(t.getGuardName(), false);
+                Integer guardIndex = guardIndexes.putIfAbsent(t.getGuardName(), guardIndexes.size());
+                transitionGuards[t.getIndex()] = guardIndex == null ? guardIndexes.size() - 1 : guardIndex;
+            }
+        }
+        // TODO: get initial guards value
+        guardValues = new boolean[guardIndexes.size()];
+
+        CompressedColumnMatrix.Builder builder = new CompressedColumnMatrix.Builder(transitions.length, guardIndexes.size());
+        for (int i = 0; i < transitions.length; i++) {
+            if (transitionGuards[i] >= 0) {
+                builder.add(i, transitionGuards[i], 1);
             }
         }
+        guardDependentTransitions = builder.build();
     }
 
     /**
@@ -168,12 +635,170 @@ public abstract class PetriNet {
      * @throws NotInitializedPetriNetException If the net hasn't been initialized before calling this method
      * @throws PetriNetException               If an error regarding the petri occurs, for instance if the net hasn't been initialized before calling this method.
      */
-    public synchronized PetriNetFireOutcome fire(final Transition transition) throws IllegalArgumentException, PetriNetException {
-        // m_(i+1) = m_i + I*d
-        // when d is a vector where every element is 0 but the nth which is 1
-        // it's equivalent to pick nth column from Incidence matrix (I)
-        // and add it to the current marking (m_i)
-        // and if there is a reset arc, all tokens from its source place are taken.
+    public PetriNetFireOutcome fire(final Transition transition) throws IllegalArgumentException, PetriNetException {
+        checkFireable(transition);
+        final int[] stripes = firingStripes[transition.getIndex()];
+        lockStripes(stripes);
+        try {
+
+            if (!isEnabled(transition)) {
+                return PetriNetFireOutcome.NOT_ENABLED;
+            }
+
+            beginChange();
+            try {
+                applyFiring(transition.getIndex(), 1);
+            } finally {
+                endChange(true);
+            }
+
+            return PetriNetFireOutcome.SUCCESS;
+        } finally {
+            unlockStripes(stripes);
+        }
+    }
+
+    /**
+     * Fires the transition given as argument the given amount of times in one step, if it's enabled to be fired that many times.
+     * The result is the same as firing the transition times times in a row, but the marking is updated only once.
+     * If the transition cannot be fired that many times, it's not fired at all.
+     *
+     * @param transition Transition to be fired.
+     * @param times      The amount of times to fire the transition. Must be positive
+     * @return {@link PetriNetFireOutcome#SUCCESS} if transition was fired times times
+     * @throws IllegalArgumentException        If transition is null, if it doesn't match any transition index or if times is not positive
+     * @throws NotInitializedPetriNetException If the net hasn't been initialized before calling this method
+     * @throws PetriNetException               If an error regarding the petri occurs, for instance if the net hasn't been initialized before calling this method.
+     * @see #getEnablingDegree(Transition, int)
+     */
+    public PetriNetFireOutcome fire(final Transition transition, int times) throws IllegalArgumentException, PetriNetException {
+        if (times < 1) {
+            throw new IllegalArgumentException("Cannot fire a transition " + times + " times");
+        }
+        checkFireable(transition);
+        final int[] stripes = firingStripes[transition.getIndex()];
+        lockStripes(stripes);
+        try {
+
+            if (getEnablingDegree(transition, times) < times) {
+                return PetriNetFireOutcome.NOT_ENABLED;
+            }
+
+            beginChange();
+            try {
+                applyFiring(transition.getIndex(), times);
+            } finally {
+                endChange(true);
+            }
+
+            return PetriNetFireOutcome.SUCCESS;
+        } finally {
+            unlockStripes(stripes);
+        }
+    }
+
+    /**
+     * Fires the given transitions in order as a unit: either all of them are fired or none is.
+     * The whole sequence is checked against the current marking before firing any transition.
+     * Timed transitions are not supported, since their time spans may start in the middle of the sequence.
+     *
+     * @param sequence the transitions to fire, in firing order
+     * @return {@link PetriNetFireOutcome#SUCCESS} if every transition was fired,
+     * or {@link PetriNetFireOutcome#NOT_ENABLED} if none was fired because some transition in the sequence wouldn't be enabled
+     * @throws IllegalArgumentException        If the sequence is null, contains a null or timed transition, or one that doesn't match any transition index
+     * @throws NotInitializedPetriNetException If the net hasn't been initialized before calling this method
+     */
+    public PetriNetFireOutcome fireSequence(final Transition... sequence) throws IllegalArgumentException, NotInitializedPetriNetException {
+        lockAllStripes();
+        try {
+            if (sequence == null) {
+                throw new IllegalArgumentException("Null sequence passed as argument");
+            }
+            for (Transition transition : sequence) {
+                checkFireable(transition);
+                if (transition.isTimed()) {
+                    throw new IllegalArgumentException("Timed transition " + transition.getName() + " cannot be fired in a sequence");
+                }
+            }
+            // run the sequence on a copy of the marking first
+            final int[] marking = currentMarking.clone();
+            for (Transition transition : sequence) {
+                if (!isEnabled(transition, marking)) {
+                    return PetriNetFireOutcome.NOT_ENABLED;
+                }
+                applyToMarking(marking, transition.getIndex(), 1);
+            }
+            beginChange();
+            try {
+                for (Transition transition : sequence) {
+                    applyFiring(transition.getIndex(), 1);
+                }
+            } finally {
+                endChange(true);
+            }
+            return PetriNetFireOutcome.SUCCESS;
+        } finally {
+            unlockAllStripes();
+        }
+    }
+
+    /**
+     * Fires every transition in the given set once, as a unit: either all of them are fired or none is.
+     * The tokens required by all the transitions together must be available in the current marking,
+     * and the transitions must be fireable one after the other in ascending index order, whatever the set's iteration order is,
+     * so inhibitor, reader and reset arcs give the same outcome for the same set and marking.
+     * Timed transitions are not supported.
+     *
+     * @param transitionsToFire the transitions to fire
+     * @return {@link PetriNetFireOutcome#SUCCESS} if every transition was fired, {@link PetriNetFireOutcome#NOT_ENABLED} if none was
+     * @throws IllegalArgumentException        If the set is null, contains a null or timed transition, or one that doesn't match any transition index
+     * @throws NotInitializedPetriNetException If the net hasn't been initialized before calling this method
+     * @see #fireSequence(Transition...)
+     */
+    public PetriNetFireOutcome fireAtomically(final Set<Transition> transitionsToFire) throws IllegalArgumentException, NotInitializedPetriNetException {
+        lockAllStripes();
+        try {
+            if (transitionsToFire == null) {
+                throw new IllegalArgumentException("Null set passed as argument");
+            }
+            final Transition[] sequence = inFiringOrder(transitionsToFire);
+            for (Transition transition : sequence) {
+                checkFireable(transition);
+            }
+            // check the combined token requirement before trying the sequence
+            final int[] requiredTokens = new int[places.length];
+            for (Transition transition : sequence) {
+                final int transitionIndex = transition.getIndex();
+                for (int k = pre.columnStart(transitionIndex); k < pre.columnEnd(transitionIndex); k++) {
+                    final int placeIndex = pre.rowAt(k);
+                    requiredTokens[placeIndex] += pre.valueAt(k);
+                    if (requiredTokens[placeIndex] > currentMarking[placeIndex]) {
+                        return PetriNetFireOutcome.NOT_ENABLED;
+                    }
+                }
+            }
+            return fireSequence(sequence);
+        } finally {
+            unlockAllStripes();
+        }
+    }
+
+    /**
+     * @param transitionsToFire the transitions to fire as a set
+     * @return the transitions in the order {@link #fireAtomically(Set)} fires them, which is ascending index order. Nulls go first
+     */
+    public static Transition[] inFiringOrder(final Set<Transition> transitionsToFire) {
+        final Transition[] sequence = transitionsToFire.toArray(new Transition[transitionsToFire.size()]);
+        Arrays.sort(sequence, Comparator.nullsFirst(Comparator.comparingInt(Transition::getIndex)));
+        return sequence;
+    }
+
+    /**
+     * @param transition the transition about to be fired
+     * @throws IllegalArgumentException        If transition is null or if it doesn't match any transition index
+     * @throws NotInitializedPetriNetException If the net hasn't been initialized
+     */
+    protected final void checkFireable(final Transition transition) throws IllegalArgumentException, NotInitializedPetriNetException {
         if (transition == null) {
             throw new IllegalArgumentException("Null Transition passed as argument");
         }
@@ -186,23 +811,165 @@ public abstract class PetriNet {
         if (transitionIndex < 0 || transitionIndex > transitions.length) {
             throw new IllegalArgumentException("Index " + transitionIndex + " doesn't match any transition's index in this petri net");
         }
+    }
+
+    /**
+     * Updates the current marking as if the given transition was fired the given amount of times
+     * and updates the enabled transitions. The transition must be enabled that many times.
+     *
+     * @param transitionIndex the index of the transition to fire
+     * @param times           the amount of times to fire it
+     */
+    private void applyFiring(int transitionIndex, int times) {
+        // m_(i+1) = m_i + I*d
+        // when d is a vector where every element is 0 but the nth which is times
+        // it's equivalent to pick nth column from Incidence matrix (I) multiplied by times
+        // and add it to the current marking (m_i)
+        // and if there is a reset arc, all tokens from its source place are taken.
+
+        // only the places connected to the transition are visited
+        for (int k = inc.columnStart(transitionIndex); k < inc.columnEnd(transitionIndex); k++) {
+            int placeIndex = inc.rowAt(k);
+            currentMarking[placeIndex] += times * inc.valueAt(k);
+            places[placeIndex].setMarking(currentMarking[placeIndex]);
+        }
+        // a reset arc takes all tokens from its source place regardless of the incidence matrix
+        for (int k = resetMatrix.columnStart(transitionIndex); k < resetMatrix.columnEnd(transitionIndex); k++) {
+            int placeIndex = resetMatrix.rowAt(k);
+            currentMarking[placeIndex] = 0;
+            places[placeIndex].setMarking(0);
+        }
+
+        // only the transitions reading a changed place may change their enabling
+        for (int affected : affectedTransitions[transitionIndex]) {
+            updateEnabledTransition(transitions[affected]);
+        }
+        recordFiringStep(transitionIndex);
+    }
+
+    /**
+     * Counts a firing step of the given transition, made after every firing
+     *
+     * @param transitionIndex the index of the fired transition
+     * @see #getLastFiringSequenceNumber(Transition)
+     */
+    protected final void recordFiringStep(int transitionIndex) {
+        lastFiringSequenceNumbers[transitionIndex] = firingSequenceNumber.incrementAndGet();
+    }
+
+    /**
+     * Marks the start of a change to the state read by {@link #snapshot()}.
+     * Every call must be followed by {@link #endChange(boolean)}, even if the change fails
+     */
+    protected final void beginChange() {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * Marks the end of a change started with {@link #beginChange()}
+     *
+     * @param changed whether the state was actually changed, which advances the {@link #version()}
+     */
+    protected final void endChange(boolean changed) {
+        changes.addAndGet(changed ? CHANGES_IN_PROGRESS_MASK : -1L);
+    }
 
-        if (!isEnabled(transition)) {
-            return PetriNetFireOutcome.NOT_ENABLED;
+    /**
+     * Updates the given marking as if the given transition was fired the given amount of times
+     *
+     * @param marking         the marking to update
+     * @param transitionIndex the index of the transition to fire
+     * @param times           the amount of times to fire it
+     */
+    private void applyToMarking(int[] marking, int transitionIndex, int times) {
+        for (int k = inc.columnStart(transitionIndex); k < inc.columnEnd(transitionIndex); k++) {
+            marking[inc.rowAt(k)] += times * inc.valueAt(k);
+        }
+        for (int k = resetMatrix.columnStart(transitionIndex); k < resetMatrix.columnEnd(transitionIndex); k++) {
+            marking[resetMatrix.rowAt(k)] = 0;
         }
+    }
 
-        for (int i = 0; i < currentMarking.length; i++) {
-            if (resetMatrix[i][transitionIndex]) {
-                currentMarking[i] = 0;
-            } else {
-                currentMarking[i] += inc[i][transitionIndex];
+    /**
+     * Computes how many times in a row the given transition can be fired from the current marking, up to bound.
+     * <li> A normal or reader arc whose place is drained by the transition limits the amount of firings to the tokens available </li>
+     * <li> An inhibition arc whose place is changed by the transition allows only one firing </li>
+     * <li> A reset arc allows only one firing, since its place is empty afterwards </li>
+     *
+     * @param t     the transition to check
+     * @param bound the maximum degree to compute
+     * @return the amount of times t can be fired, between 0 (not enabled) and bound
+     */
+    public int getEnablingDegree(final Transition t, int bound) {
+        if (bound < 1 || !isEnabled(t)) {
+            return 0;
+        }
+        final int transitionIndex = t.getIndex();
+        if (resetMatrix.columnStart(transitionIndex) != resetMatrix.columnEnd(transitionIndex)) {
+            return 1;
+        }
+        for (int k = inhibitionMatrix.columnStart(transitionIndex); k < inhibitionMatrix.columnEnd(transitionIndex); k++) {
+            if (inc.get(inhibitionMatrix.rowAt(k), transitionIndex) != 0) {
+                return 1;
+            }
+        }
+        int degree = limitEnablingDegree(pre, transitionIndex, bound);
+        return limitEnablingDegree(readerMatrix, transitionIndex, degree);
+    }
+
+    /**
+     * Limits the enabling degree by the tokens required by the arcs in the given matrix' column.
+     * The transition must be enabled.
+     *
+     * @param matrix          a matrix holding arcs weights that must be met to fire
+     * @param transitionIndex the transition to check
+     * @param degree          the current degree
+     * @return the degree allowed by both the current degree and the arcs
+     */
+    private int limitEnablingDegree(CompressedColumnMatrix matrix, int transitionIndex, int degree) {
+        for (int k = matrix.columnStart(transitionIndex); k < matrix.columnEnd(transitionIndex); k++) {
+            int placeIndex = matrix.rowAt(k);
+            int delta = inc.get(placeIndex, transitionIndex);
+            if (delta < 0) {
+                // every firing takes -delta tokens and the last one still needs the arc's weight
+                degree = Math.min(degree, (currentMarking[placeIndex] - matrix.valueAt(k)) / -delta + 1);
             }
-            places[i].setMarking(currentMarking[i]);
         }
+        return degree;
+    }
+
+    /**
+     * Starts a new round of enabling checks, after which every transition is re-evaluated at most once
+     *
+     * @see #updateEnabledTransitionOnce(int)
+     */
+    private void startEnablingCheckRound() {
+        if (++enablingCheckRound == 0) {
+            // the round counter wrapped around, old marks could be mistaken for the current round
+            Arrays.fill(enablingCheckMarks, 0);
+            enablingCheckRound = 1;
+        }
+    }
 
-        enabledTransitions = computeEnabledTransitions();
+    /**
+     * Re-evaluates the given transition unless it was already done in the current round
+     *
+     * @param transitionIndex the transition to check
+     */
+    private void updateEnabledTransitionOnce(int transitionIndex) {
+        if (enablingCheckMarks[transitionIndex] != enablingCheckRound) {
+            enablingCheckMarks[transitionIndex] = enablingCheckRound;
+            updateEnabledTransition(transitions[transitionIndex]);
+        }
+    }
 
-        return PetriNetFireOutcome.SUCCESS;
+    /**
+     * @param t a transition
+     * @return the indexes of the transitions whose enabling may change when t is fired.
+     * Any other transition keeps its enabling since neither its places nor the guards change
+     */
+    public int[] getAffectedTransitions(final Transition t) {
+        return affectedTransitions[t.getIndex()].clone();
     }
 
     /**
@@ -218,6 +985,38 @@ public abstract class PetriNet {
         return automaticTransitions;
     }
 
+    /**
+     * The enabled transitions as a bitset, where bit i of word i/64 is set if transition i is enabled.
+     * The words are read one at a time, see {@link #getEnabledTransitionsWord(int)}.
+     *
+     * @return a new array with the enabled transitions bitset
+     */
+    public long[] getEnabledTransitionsBitSet() {
+        long[] words = new long[enabledTransitionsBitSet.length()];
+        for (int word = 0; word < words.length; word++) {
+            words[word] = getEnabledTransitionsWord(word);
+        }
+        return words;
+    }
+
+    /**
+     * Reads a word of the enabled transitions bitset without copying it, as done on every fire by the monitor.
+     *
+     * @param word the index of the word, from 0 to {@link #bitSetWords(int)} of the amount of transitions - 1
+     * @return the word whose bit i is set if transition 64 * word + i is enabled
+     * @see #getEnabledTransitionsBitSet()
+     */
+    public long getEnabledTransitionsWord(int word) {
+        return enabledTransitionsBitSet.get(word);
+    }
+
+    /**
+     * @return the automatic transitions bitset, where bit i of word i/64 is set if transition i is automatic
+     */
+    public long[] getAutomaticTransitionsBitSet() {
+        return automaticTransitionsBitSet;
+    }
+
     public boolean[] getInformedTransitions() {
         return informedTransitions;
     }
@@ -257,6 +1056,53 @@ public abstract class PetriNet {
         return getPetriNode(transitionName, Transition.class);
     }
 
+    /**
+     * Looks for a transition whose id matches transitionId and returns it.
+     *
+     * @param transitionId The id of the transition to look for
+     * @return The transition found
+     * @throws IllegalArgumentException if transitionId is null or doesn't match any transition
+     */
+    public Transition getTransitionById(final String transitionId) throws IllegalArgumentException {
+        return transitions[lookUp(transitionsById, transitionId, "transition", "id")];
+    }
+
+    /**
+     * Looks for a place whose id matches placeId and returns it.
+     *
+     * @param placeId The id of the place to look for
+     * @return The place found
+     * @throws IllegalArgumentException if placeId is null or doesn't match any place
+     */
+    public Place getPlaceById(final String placeId) throws IllegalArgumentException {
+        return places[lookUp(placesById, placeId, "place", "id")];
+    }
+
+    /**
+     * Resolves a transition name to its index. The index is stable for the whole life of the net,
+     * so callers can resolve names once and then fire by index.
+     *
+     * @param transitionName The name of the transition to look for
+     * @return the index of the transition matching transitionName
+     * @throws IllegalArgumentException if transitionName is null or doesn't match any transition
+     * @see #fire(int)
+     */
+    public int getTransitionIndex(final String transitionName) throws IllegalArgumentException {
+        return lookUp(transitionsByName, transitionName, "transition", "name");
+    }
+
+    /**
+     * Resolves a place name to its index. The index is stable for the whole life of the net.
+     *
+     * @param placeName The name of the place to look for
+     * @return the index of the place matching placeName
+     * @throws IllegalArgumentException if placeName is null or doesn't match any place
+     * @see #getMarking(int)
+     */
+    public int getPlaceIndex(final String placeName) throws IllegalArgumentException {
+        return lookUp(placesByName, placeName, "place", "name");
+    }
+
     /**
      * Looks for a {@link Place} or {@link Transition} that matches petriNodeName name.
      * The second parameter is the class required for the call query. This can be either {@link Transition}.class or {@link Place}.class.
@@ -268,26 +1114,31 @@ public abstract class PetriNet {
      */
     @SuppressWarnings("unchecked")
     private <E extends PetriNode> E getPetriNode(String petriNodeName, Class<E> _class) throws IllegalArgumentException {
-        E[] arrayToFilter;
-        if (petriNodeName == null) {
-            throw new IllegalArgumentException("Null name not supported");
-        }
-
         if (_class == Transition.class) {
-            arrayToFilter = (E[]) transitions;
+            return (E) transitions[lookUp(transitionsByName, petriNodeName, "transition", "name")];
         } else if (_class == Place.class) {
-            arrayToFilter = (E[]) places;
-        } else {
-            throw new IllegalArgumentException("Method not supported for class " + _class.getName());
+            return (E) places[lookUp(placesByName, petriNodeName, "place", "name")];
         }
+        throw new IllegalArgumentException("Method not supported for class " + _class.getName());
+    }
 
-        Optional<E> filteredPetriNode = Arrays.stream(arrayToFilter)
-                .filter((E element) -> element.getName().equals(petriNodeName))
-                .findFirst();
-
-        // if there is a matching argument return it, else throw an exception
-        return filteredPetriNode.orElseThrow(() -> new IllegalArgumentException("No " + _class.getSimpleName().toLowerCase() + " matches the name " + petriNodeName));
-
+    /**
+     * @param index    the index to look into
+     * @param key      the name or id to look for
+     * @param nodeType the node type, used for the error message
+     * @param keyType  the key type, used for the error message
+     * @return the node index matching key
+     * @throws IllegalArgumentException If key is null or there isn't a match for it
+     */
+    private static int lookUp(Map<String, Integer> index, String key, String nodeType, String keyType) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("Null " + keyType + " not supported");
+        }
+        Integer nodeIndex = index.get(key);
+        if (nodeIndex == null) {
+            throw new IllegalArgumentException("No " + nodeType + " matches the " + keyType + " " + key);
+        }
+        return nodeIndex;
     }
 
     /**
@@ -298,38 +1149,128 @@ public abstract class PetriNet {
     }
 
     /**
-     * @return the pre matrix
+     * @return a copy of the pre matrix
      */
     public Integer[][] getPre() {
-        return pre;
+        return pre.toRowMajor();
     }
 
     /**
-     * @return the post matrix
+     * @return a copy of the post matrix
      */
     public Integer[][] getPost() {
-        return post;
+        return post.toRowMajor();
     }
 
     /**
-     * @return the incidence matrix
+     * @return a copy of the incidence matrix
      */
     public Integer[][] getInc() {
-        return inc;
+        return inc.toRowMajor();
     }
 
     /**
-     * @return the currentMarking
+     * Reads the marking, the enabled transitions and the firing sequence number from the same state, without blocking the firings.
+     * The state is read while no change is in progress and read again if a change started meanwhile,
+     * like a seqlock but allowing the parallel firings of different stripes.
+     * Only if changes keep being made through many attempts, every stripe is locked for a single read.
+     *
+     * @return an immutable snapshot of the current state
+     * @see #version()
+     */
+    public MarkingSnapshot snapshot() {
+        for (int attempt = 0; attempt < OPTIMISTIC_SNAPSHOT_ATTEMPTS; attempt++) {
+            final MarkingSnapshot snapshot = tryOptimisticSnapshot();
+            if (snapshot != null) {
+                return snapshot;
+            }
+            Thread.yield();
+        }
+        lockAllStripes();
+        try {
+            return readSnapshot(version());
+        } finally {
+            unlockAllStripes();
+        }
+    }
+
+    /**
+     * @return a consistent snapshot of the current state, or null if a change was made while reading it
+     */
+    protected final MarkingSnapshot tryOptimisticSnapshot() {
+        final long before = changes.get();
+        if ((before & CHANGES_IN_PROGRESS_MASK) != 0) {
+            return null;
+        }
+        final MarkingSnapshot snapshot = readSnapshot(before >>> CHANGES_IN_PROGRESS_BITS);
+        // the compare-and-set keeps the reads above before it, and fails if any change started since
+        return changes.compareAndSet(before, before) ? snapshot : null;
+    }
+
+    /**
+     * Copies the state into a snapshot. It may be torn if a change is in progress, which the caller checks
+     *
+     * @param version the version the state is read at
+     * @return a snapshot of the state
+     */
+    protected MarkingSnapshot readSnapshot(long version) {
+        // no transition is enabled before initializing the net
+        final boolean[] enabled = enabledTransitions;
+        return new MarkingSnapshot(currentMarking.clone(), enabled == null ? new boolean[transitions.length] : enabled.clone(),
+                firingSequenceNumber.get(), version);
+    }
+
+    /**
+     * A cheap counter to skip reading a state already read. It's advanced by every completed firing and guard change,
+     * so if it returns the same value twice no change was completed in between.
+     *
+     * @return the amount of changes made to the net's state so far, modulo 2^48
+     * @see MarkingSnapshot#getVersion()
+     */
+    public long version() {
+        return changes.get() >>> CHANGES_IN_PROGRESS_BITS;
+    }
+
+    /**
+     * @return a copy of the currentMarking
      */
     public Integer[] getCurrentMarking() {
-        return currentMarking;
+        return box(currentMarking);
     }
 
     /**
-     * @return the initialMarking
+     * @return a copy of the initialMarking
      */
     public Integer[] getInitialMarking() {
-        return initialMarking;
+        return box(initialMarking);
+    }
+
+    /**
+     * @param placeIndex the index of the place to read
+     * @return the amount of tokens currently in the place
+     */
+    public int getMarking(int placeIndex) {
+        return currentMarking[placeIndex];
+    }
+
+    /**
+     * @return the amount of firing steps made so far, which is also the sequence number of the last one.
+     * A multiple firing counts as one step
+     */
+    public long getFiringSequenceNumber() {
+        return firingSequenceNumber.get();
+    }
+
+    /**
+     * Unlike {@link #getFiringSequenceNumber()}, it isn't changed by firings of other transitions made in parallel
+     * with more than one lock stripe, so it tells a firing's step right after making it.
+     *
+     * @param t a transition
+     * @return the sequence number of the given transition's last firing step, or 0 if it was never fired
+     * @see #setLockStripes(int)
+     */
+    public long getLastFiringSequenceNumber(final Transition t) {
+        return lastFiringSequenceNumbers[t.getIndex()];
     }
 
     /**
@@ -359,43 +1300,61 @@ public abstract class PetriNet {
      * @return True if the transition is enabled, False otherwise
      */
     public boolean isEnabled(final Transition t) {
-        int transitionIndex = t.getIndex();
-        for (int i = 0; i < places.length; i++) {
-            if (pre[i][transitionIndex] > currentMarking[i]) {
-                return false;
-            }
+        return isEnabled(t, currentMarking);
+    }
+
+    /**
+     * Same as {@link #isEnabled(Transition)}, but locking the stripes the transition reads,
+     * so the answer takes into account every firing made in parallel that already finished.
+     *
+     * @param t Transition objects to check if it's enabled
+     * @return True if the transition is enabled, False otherwise
+     * @see #setLockStripes(int)
+     */
+    public boolean isEnabledNow(final Transition t) {
+        final int[] stripes = firingStripes[t.getIndex()];
+        lockStripes(stripes);
+        try {
+            return isEnabled(t, currentMarking);
+        } finally {
+            unlockStripes(stripes);
         }
-        if (t.hasGuard()) {
-            String guardName = t.getGuardName();
-            Boolean guardValue = guards.get(guardName);
-            if (!guardValue.equals(t.getGuardEnablingValue())) {
+    }
+
+    /**
+     * Checks if a transition is enabled in the given marking
+     *
+     * @param t       Transition objects to check if it's enabled
+     * @param marking the marking to check against
+     * @return True if the transition is enabled, False otherwise
+     */
+    private boolean isEnabled(final Transition t, final int[] marking) {
+        final int transitionIndex = t.getIndex();
+        // only the arcs entering the transition are checked
+        for (int k = pre.columnStart(transitionIndex); k < pre.columnEnd(transitionIndex); k++) {
+            if (pre.valueAt(k) > marking[pre.rowAt(k)]) {
                 return false;
             }
         }
-        if (hasInhibitionArcs) {
-            for (int i = 0; i < places.length; i++) {
-                boolean emptyPlace = places[i].getMarking() == 0;
-                boolean placeInhibitsTransition = inhibitionMatrix[i][transitionIndex];
-                if (!emptyPlace && placeInhibitsTransition) {
-                    return false;
-                }
+        final int guardIndex = transitionGuards[transitionIndex];
+        if (guardIndex >= 0 && guardValues[guardIndex] != t.getGuardEnablingValue()) {
+            return false;
+        }
+        for (int k = inhibitionMatrix.columnStart(transitionIndex); k < inhibitionMatrix.columnEnd(transitionIndex); k++) {
+            // an inhibition arc disables the transition if its source place is not empty
+            if (marking[inhibitionMatrix.rowAt(k)] != 0) {
+                return false;
             }
         }
-        if (hasResetArcs) {
-            for (int i = 0; i < places.length; i++) {
-                boolean emptyPlace = places[i].getMarking() == 0;
-                //resetMatrix should be a binary matrix, so it never should have an element with value grater than 1
-                boolean placeResetsTransition = resetMatrix[i][transitionIndex];
-                if (placeResetsTransition && emptyPlace) {
-                    return false;
-                }
+        for (int k = resetMatrix.columnStart(transitionIndex); k < resetMatrix.columnEnd(transitionIndex); k++) {
+            // a reset arc needs at least one token to be taken
+            if (marking[resetMatrix.rowAt(k)] == 0) {
+                return false;
             }
         }
-        if (hasReaderArcs) {
-            for (int i = 0; i < places.length; i++) {
-                if (readerMatrix[i][transitionIndex] > currentMarking[i]) {
-                    return false;
-                }
+        for (int k = readerMatrix.columnStart(transitionIndex); k < readerMatrix.columnEnd(transitionIndex); k++) {
+            if (readerMatrix.valueAt(k) > marking[readerMatrix.rowAt(k)]) {
+                return false;
             }
         }
         return true;
@@ -416,18 +1375,92 @@ public abstract class PetriNet {
 
     /**
      * Adds a new guard to the petriNet or updates a guard's value.
+     * Only the transitions associated to the guard are re-evaluated.
      * Intended only for internal using. Use {@link org.unc.lac.javapetriconcurrencymonitor.monitor.PetriMonitor#setGuard(String, boolean)} instead
      *
      * @param key   the guard name
      * @param value the new value
      * @return True when succeeded
      */
-    public synchronized boolean addGuard(String key, Boolean value) {
-        boolean success = guards.put(key, value) != null;
+    public boolean addGuard(String key, Boolean value) {
+        Integer guardIndex = guardIndexes.get(key);
+        if (guardIndex == null || guardIndex >= guardStripes.length) {
+            // registering a guard replaces the values array, which no other change may be using
+            lockAllStripes();
+            beginChange();
+            try {
+                return setGuardValue(key, value, false);
+            } finally {
+                endChange(true);
+                unlockAllStripes();
+            }
+        }
+        final int[] stripes = guardStripes[guardIndex];
+        lockStripes(stripes);
+        beginChange();
+        try {
+            return setGuardValue(key, value, false);
+        } finally {
+            endChange(true);
+            unlockStripes(stripes);
+        }
+    }
 
-        enabledTransitions = computeEnabledTransitions();
+    /**
+     * Updates several guards' values at once. Guards not registered yet are added.
+     * The transitions associated to any changed guard are re-evaluated once, after all guards are set.
+     * Intended only for internal using. Use {@link org.unc.lac.javapetriconcurrencymonitor.monitor.PetriMonitor#setGuards(Map)} instead
+     *
+     * @param newValues the new value for each guard name
+     */
+    public void addGuards(Map<String, Boolean> newValues) {
+        lockAllStripes();
+        beginChange();
+        try {
+            startEnablingCheckRound();
+            for (Map.Entry<String, Boolean> guard : newValues.entrySet()) {
+                setGuardValue(guard.getKey(), guard.getValue(), true);
+            }
+        } finally {
+            endChange(true);
+            unlockAllStripes();
+        }
+    }
 
-        return success;
+    /**
+     * Sets a guard's value and re-evaluates the transitions associated to it if the value changed.
+     * When changing several guards, transitions already re-evaluated in the current round are skipped.
+     *
+     * @param key          the guard name
+     * @param value        the new value
+     * @param severalGuards whether other guards are changed in the same round
+     * @return True if the guard was already registered
+     */
+    private boolean setGuardValue(String key, boolean value, boolean severalGuards) {
+        Integer guardIndex = guardIndexes.get(key);
+        if (guardIndex == null) {
+            // a guard no transition is associated to, it can't change any enabling
+            guardIndexes.put(key, guardValues.length);
+            guardValues = Arrays.copyOf(guardValues, guardValues.length + 1);
+            guardValues[guardValues.length - 1] = value;
+            return false;
+        }
+        if (guardValues[guardIndex] != value) {
+            guardValues[guardIndex] = value;
+            // only the transitions associated to this guard may change their enabling
+            if (initializedPetriNet && guardIndex < guardDependentTransitions.getColumns()) {
+                for (int k = guardDependentTransitions.columnStart(guardIndex); k < guardDependentTransitions.columnEnd(guardIndex); k++) {
+                    int transitionIndex = guardDependentTransitions.rowAt(k);
+                    if (severalGuards) {
+                        updateEnabledTransitionOnce(transitionIndex);
+                    } else {
+                        // each transition has a single guard, so it's found once
+                        updateEnabledTransition(transitions[transitionIndex]);
+                    }
+                }
+            }
+        }
+        return true;
     }
 
     /**
@@ -438,63 +1471,34 @@ public abstract class PetriNet {
      * @throws IndexOutOfBoundsException if the guard does not exist
      */
     public boolean readGuard(String guard) throws IndexOutOfBoundsException {
-        try {
-            return guards.get(guard);
-        } catch (NullPointerException e) {
+        Integer guardIndex = guard == null ? null : guardIndexes.get(guard);
+        if (guardIndex == null) {
             throw new IndexOutOfBoundsException("No guard registered for " + guard + " name");
         }
+        return guardValues[guardIndex];
     }
 
     /**
      * @return The amount of guards stored
      */
     public int getGuardsAmount() {
-        return guards.size();
+        return guardIndexes.size();
     }
 
-    /**
-     * Checks if all elements in the matrix are false.
-     * This is used to know if the petri has the type of arcs described by the matrix semantics.
-     *
-     * @param matrix specifies the kind of arcs
-     * @return True if the matrix doesn't have all entries as false.
-     */
-    protected boolean isMatrixNonZero(Boolean[][] matrix) {
-        // if the matrix is null or if all elements are zeros
-        // the net does not have the type of arcs described by the matrix semantics
-        if (matrix == null) {
-            return false;
+    private static int[] unbox(Integer[] array) {
+        int[] ret = new int[array.length];
+        for (int i = 0; i < array.length; i++) {
+            ret[i] = array[i];
         }
-        for (Boolean[] row : matrix) {
-            // if any element is 'true', return true
-            if (Arrays.stream(row).anyMatch(Boolean.TRUE::equals)) {
-                return true;
-            }
-        }
-        return false;
+        return ret;
     }
 
-    /**
-     * Checks if all elements in the matrix are zero.
-     * This is used to know if the petri has the type of arcs described by the matrix semantics.
-     *
-     * @param matrix specifies the kind of arcs
-     * @return True if the matrix is not all zeros.
-     */
-    protected boolean isMatrixNonZero(Integer[][] matrix) {
-        // if the matrix is null or if all elements are zeros
-        // the net does not have the type of arcs described by the matrix semantics
-        if (matrix == null) {
-            return false;
+    private static Integer[] box(int[] array) {
+        Integer[] ret = new Integer[array.length];
+        for (int i = 0; i < array.length; i++) {
+            ret[i] = array[i];
         }
-        for (Integer[] row : matrix) {
-            // if there is at least one '1' return true
-            if (Arrays.stream(row).anyMatch(Integer.valueOf(1)::equals)) {
-                return true;
-            }
-        }
-        return false;
+        return ret;
     }
 
-
 }
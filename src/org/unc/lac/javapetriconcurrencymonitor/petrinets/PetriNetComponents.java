@@ -0,0 +1,164 @@
+package org.unc.lac.javapetriconcurrencymonitor.petrinets;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Place;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
+
+/**
+ * Immutable split of a petri net into its independent components.
+ * Two transitions are in the same component if they are connected through places, by arcs of any kind,
+ * or if they share a guard. So firing a transition or changing a guard never changes the enabling of a transition in another component.
+ *
+ * Components are numbered from 0 in the order of their lowest transition index.
+ * Places not connected to any transition belong to no component.
+ *
+ * @see PetriNet#getComponents()
+ */
+public final class PetriNetComponents {
+
+	private final int componentsAmount;
+	/** The component of each place, or -1 for places not connected to any transition */
+	private final int[] placeComponents;
+	private final int[] transitionComponents;
+	/** The component of each guard associated to a transition */
+	private final Map<String, Integer> guardComponents;
+
+	PetriNetComponents(PetriNet petri) {
+		final int placesAmount = petri.places.length;
+		final int transitionsAmount = petri.transitions.length;
+		// places are nodes [0, placesAmount), transitions follow them
+		int[] parents = new int[placesAmount + transitionsAmount];
+		for (int node = 0; node < parents.length; node++) {
+			parents[node] = node;
+		}
+		CompressedColumnMatrix[] matrices = {petri.pre, petri.post, petri.inhibitionMatrix, petri.resetMatrix, petri.readerMatrix};
+		for (int transitionIndex = 0; transitionIndex < transitionsAmount; transitionIndex++) {
+			for (CompressedColumnMatrix matrix : matrices) {
+				for (int k = matrix.columnStart(transitionIndex); k < matrix.columnEnd(transitionIndex); k++) {
+					union(parents, matrix.rowAt(k), placesAmount + transitionIndex);
+				}
+			}
+		}
+		CompressedColumnMatrix guardDependents = petri.guardDependentTransitions;
+		for (int guardIndex = 0; guardIndex < guardDependents.getColumns(); guardIndex++) {
+			for (int k = guardDependents.columnStart(guardIndex) + 1; k < guardDependents.columnEnd(guardIndex); k++) {
+				union(parents, placesAmount + guardDependents.rowAt(k - 1), placesAmount + guardDependents.rowAt(k));
+			}
+		}
+
+		// number the components by their lowest transition
+		int[] rootComponents = new int[parents.length];
+		Arrays.fill(rootComponents, -1);
+		int amount = 0;
+		transitionComponents = new int[transitionsAmount];
+		for (int transitionIndex = 0; transitionIndex < transitionsAmount; transitionIndex++) {
+			int root = find(parents, placesAmount + transitionIndex);
+			if (rootComponents[root] < 0) {
+				rootComponents[root] = amount++;
+			}
+			transitionComponents[transitionIndex] = rootComponents[root];
+		}
+		componentsAmount = amount;
+		placeComponents = new int[placesAmount];
+		for (int placeIndex = 0; placeIndex < placesAmount; placeIndex++) {
+			placeComponents[placeIndex] = rootComponents[find(parents, placeIndex)];
+		}
+
+		Map<String, Integer> guards = new HashMap<>();
+		for (Transition t : petri.transitions) {
+			if (t.hasGuard()) {
+				guards.put(t.getGuardName(), transitionComponents[t.getIndex()]);
+			}
+		}
+		guardComponents = Collections.unmodifiableMap(guards);
+	}
+
+	/**
+	 * @param parents the parent of each node, roots are their own parents
+	 * @param node the node to look for
+	 * @return the root of the node's tree
+	 */
+	private static int find(int[] parents, int node) {
+		while (parents[node] != node) {
+			// path halving keeps the trees flat
+			parents[node] = parents[parents[node]];
+			node = parents[node];
+		}
+		return node;
+	}
+
+	private static void union(int[] parents, int node, int otherNode) {
+		int root = find(parents, node);
+		int otherRoot = find(parents, otherNode);
+		if (root != otherRoot) {
+			parents[Math.max(root, otherRoot)] = Math.min(root, otherRoot);
+		}
+	}
+
+	/**
+	 * @return the amount of components holding transitions
+	 */
+	public int getComponentsAmount() {
+		return componentsAmount;
+	}
+
+	/**
+	 * @param t a transition of the net
+	 * @return the component holding the transition
+	 */
+	public int getComponent(Transition t) {
+		return transitionComponents[t.getIndex()];
+	}
+
+	/**
+	 * @param p a place of the net
+	 * @return the component holding the place, or -1 if it's not connected to any transition
+	 */
+	public int getComponent(Place p) {
+		return placeComponents[p.getIndex()];
+	}
+
+	/**
+	 * @param guardName the name of a guard
+	 * @return the component of the transitions associated to the guard, or -1 if no transition is associated to it
+	 */
+	public int getGuardComponent(String guardName) {
+		Integer component = guardName == null ? null : guardComponents.get(guardName);
+		return component == null ? -1 : component;
+	}
+
+	/**
+	 * @param component a component of the net
+	 * @return the indexes of the transitions in the component, in ascending order
+	 * @throws IndexOutOfBoundsException if the component doesn't exist
+	 */
+	public int[] getTransitions(int component) throws IndexOutOfBoundsException {
+		if (component < 0 || component >= componentsAmount) {
+			throw new IndexOutOfBoundsException("No component " + component + " in this petri net");
+		}
+		int amount = 0;
+		int[] found = new int[transitionComponents.length];
+		for (int transitionIndex = 0; transitionIndex < transitionComponents.length; transitionIndex++) {
+			if (transitionComponents[transitionIndex] == component) {
+				found[amount++] = transitionIndex;
+			}
+		}
+		return Arrays.copyOf(found, amount);
+	}
+
+	/**
+	 * @return the stripe of each place to give each component its own lock stripe, see {@link PetriNet#setLockStripes(int[])}.
+	 * Places not connected to any transition go to the first stripe
+	 */
+	public int[] getPlaceStripes() {
+		int[] stripes = placeComponents.clone();
+		for (int placeIndex = 0; placeIndex < stripes.length; placeIndex++) {
+			stripes[placeIndex] = Math.max(0, stripes[placeIndex]);
+		}
+		return stripes;
+	}
+}
@@ -6,6 +6,16 @@ import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
 
 public class PlaceTransitionPetriNet extends PetriNet{
 
+	/**
+	 * extends the abstract class PetriNet
+	 * @see PetriNet#PetriNet(Place[], Transition[], Arc[], int[], CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix)
+	 */
+	public PlaceTransitionPetriNet(Place[] _places, Transition[] _transitions, Arc[] _arcs, int[] _initialMarking,
+			CompressedColumnMatrix _preI, CompressedColumnMatrix _posI, CompressedColumnMatrix _I,
+			CompressedColumnMatrix _inhibition, CompressedColumnMatrix _resetMatrix, CompressedColumnMatrix _readerMatrix) {
+		super(_places, _transitions, _arcs, _initialMarking, _preI, _posI, _I, _inhibition, _resetMatrix, _readerMatrix);
+	}
+
 	/**
 	 * extends the abstract class PetriNet
 	 * @see PetriNet#PetriNet(Place[], Transition[], Arc[], Integer[], Integer[][], Integer[][], Integer[][], Boolean[][], Boolean[][], Integer[][])
@@ -28,4 +38,11 @@ public class PlaceTransitionPetriNet extends PetriNet{
 		return _enabledTransitions;
 	}
 
+	/**
+	 * @see PetriNet#updateEnabledTransition(Transition)
+	 */
+	protected final void updateEnabledTransition(Transition t){
+		setEnabledTransition(t.getIndex(), isEnabled(t));
+	}
+
 }
@@ -16,6 +16,20 @@ public class TimedPetriNet extends PetriNet{
 	 * The enabled transitions are not calculated at initialization time, so
 	 * before firing the first transition, they must be calculated {@link TimedPetriNet#initializePetriNet()}.
 	 * Other way to start times is firing a non timed transition before a timed transition
+	 * @see PetriNet#PetriNet(Place[], Transition[], Arc[], int[], CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix)
+	 */
+	public TimedPetriNet(Place[] _places, Transition[] _transitions, Arc[] _arcs, int[] _initialMarking,
+			CompressedColumnMatrix _preI, CompressedColumnMatrix _posI, CompressedColumnMatrix _I,
+			CompressedColumnMatrix _inhibition, CompressedColumnMatrix _resetMatrix, CompressedColumnMatrix _readerMatrix) {
+		super(_places, _transitions, _arcs, _initialMarking, _preI, _posI, _I, _inhibition, _resetMatrix, _readerMatrix);
+		enabledTransitions = new boolean[_transitions.length];
+		Arrays.fill(enabledTransitions, false);
+		this.initializedPetriNet = false;
+	}
+
+	/**
+	 * Constructs a TimedPetriNet object from boxed two-dimensional matrices
+	 * @see TimedPetriNet#TimedPetriNet(Place[], Transition[], Arc[], int[], CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix)
 	 * @see PetriNet#PetriNet(Place[], Transition[], Arc[], Integer[], Integer[][], Integer[][], Integer[][], Boolean[][], Boolean[][], Integer[][])
 	 */
 	public TimedPetriNet(Place[] _places, Transition[] _transitions, Arc[] _arcs, Integer[] _initialMarking,
@@ -69,6 +83,30 @@ public class TimedPetriNet extends PetriNet{
 		return super.fire(t);
 	}
 
+	/**
+	 * Fires the specified transition the given amount of times in one step and updates the enabled transitions with their timestamps.
+	 * All the firings happen at the same time, so they are all inside or outside the transition's time span.
+	 * @param t The transition to be fired
+	 * @param times The amount of times to fire the transition
+	 * @return A status code indicating the if the fire was successful, or the failure cause
+	 * @throws PetriNetException If an error regarding the petri occurs, for instance if the net hasn't been initialized before calling this method.
+	 * @throws IllegalArgumentException If the given transition is null, its index doesn't match any existing transition or times is not positive
+	 * @see PetriNet#fire(Transition, int)
+	 */
+	public PetriNetFireOutcome fire(final Transition t, int times) throws IllegalArgumentException, PetriNetException{
+		if(t == null){
+			throw new IllegalArgumentException("Tried to fire null transition");
+		}
+		long fireTime = System.currentTimeMillis();
+		if(t.isBeforeTimeSpan(fireTime)){
+			return PetriNetFireOutcome.TIMED_BEFORE_TIMESPAN;
+		}
+		else if (!t.insideTimeSpan(fireTime)){
+			return PetriNetFireOutcome.TIMED_AFTER_TIMESPAN;
+		}
+		return super.fire(t, times);
+	}
+
 	public boolean[] getEnabledTransitions(){
 		return this.enabledTransitions;
 	}
@@ -94,4 +132,17 @@ public class TimedPetriNet extends PetriNet{
 		}
 		return _enabledTransitions;
 	}
+
+	/**
+	 * Updates the given transition's enabling, setting its enable time only if it was enabled by the last fire
+	 * @see PetriNet#updateEnabledTransition(Transition)
+	 */
+	protected final void updateEnabledTransition(Transition t){
+		int transitionIndex = t.getIndex();
+		boolean transitionEnabled = isEnabled(t);
+		if(t.getTimeSpan() != null && transitionEnabled && !enabledTransitions[transitionIndex]){
+			t.getTimeSpan().setEnablingTime(System.currentTimeMillis());
+		}
+		setEnabledTransition(transitionIndex, transitionEnabled);
+	}
 }
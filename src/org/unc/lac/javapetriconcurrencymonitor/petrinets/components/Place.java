@@ -1,8 +1,14 @@
 package org.unc.lac.javapetriconcurrencymonitor.petrinets.components;
 
+import java.util.function.IntSupplier;
+
 public class Place extends PetriNode{
 	
 	private int marking;
+	/**
+	 * The net's own record of the marking, if the net keeps it instead of the place, or null
+	 */
+	private volatile IntSupplier markingSource;
 
 	/**
 	 * Constructs a place object mathcing arguments if valid
@@ -29,19 +35,33 @@ public class Place extends PetriNode{
 	 * @return the place's current marking
 	 */
 	public int getMarking() {
-		return marking;
+		final IntSupplier source = markingSource;
+		return source == null ? marking : source.getAsInt();
 	}
 	
 	/**
 	 * Sets a new marking to the place. If new marking is less than 0 throws IllegalArgumentException
 	 * @param _marking the new marking o set
 	 * @throws IllegalArgumentException
+	 * @throws IllegalStateException if the marking is kept by the net, see {@link #readMarkingFrom(IntSupplier)}
 	 */
-	public void setMarking(int _marking) throws IllegalArgumentException {
+	public void setMarking(int _marking) throws IllegalArgumentException, IllegalStateException {
 		if (_marking < 0){
 			throw new IllegalArgumentException("Negative marking is not allowed");
 		}
+		if (markingSource != null){
+			throw new IllegalStateException("The marking of place " + getName() + " is kept by its petri net");
+		}
 		this.marking = _marking;
 	}
+	
+	/**
+	 * Makes the place read its marking from the net that keeps it, so it's never stale.
+	 * The marking can't be set through the place afterwards
+	 * @param _markingSource the net's record of the place's current marking
+	 */
+	public void readMarkingFrom(IntSupplier _markingSource) {
+		this.markingSource = _markingSource;
+	}
 
 }
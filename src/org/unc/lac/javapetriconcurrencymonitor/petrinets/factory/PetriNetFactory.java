@@ -1,8 +1,6 @@
 package org.unc.lac.javapetriconcurrencymonitor.petrinets.factory;
 
 import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.Arrays;
 
 import org.javatuples.Quartet;
 import org.javatuples.Sextet;
@@ -11,6 +9,8 @@ import org.unc.lac.javapetriconcurrencymonitor.errors.CannotCreatePetriNetError;
 import org.unc.lac.javapetriconcurrencymonitor.exceptions.BadPnmlFormatException;
 import org.unc.lac.javapetriconcurrencymonitor.parser.PnmlParser;
 import org.unc.lac.javapetriconcurrencymonitor.parser.TinaPnmlParser;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.CompressedColumnMatrix;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PackedPetriNet;
 import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet;
 import org.unc.lac.javapetriconcurrencymonitor.petrinets.PlaceTransitionPetriNet;
 import org.unc.lac.javapetriconcurrencymonitor.petrinets.TimedPetriNet;
@@ -33,7 +33,9 @@ import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Arc.ArcType;
 		 */
 		public enum petriNetType {
 			PLACE_TRANSITION,
-			TIMED
+			TIMED,
+			/** A place/transition net packed in a single long, see {@link PackedPetriNet} */
+			PACKED
 		}
 		
 		public PetriNetFactory(String pathToPNML) throws NullPointerException{
@@ -57,12 +59,13 @@ import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Arc.ArcType;
 		 * @return PetriNet object containing info described in PNML file
 		 * @param type petri net type from enum type {@link petriNetType}
 		 * @throws CannotCreatePetriNetError If any a non supported arc type is given,
-		 * or if a transition that has a reset arc as input has another arc as input
+		 * or if a transition that has a reset arc as input has another arc as input,
+		 * or if a {@link petriNetType#PACKED} net has timed transitions, can't be proven bounded or doesn't fit in a long
 		 */
 		public PetriNet makePetriNet(petriNetType type) throws CannotCreatePetriNetError{
 			
-			Quartet<Place[], Transition[], Arc[], Integer[]> petriComponents = pnmlInfoToPetriNetComponents();
-			Sextet<Integer[][], Integer[][], Integer[][], Boolean[][], Boolean[][], Integer[][]> petriMatrices =
+			Quartet<Place[], Transition[], Arc[], int[]> petriComponents = pnmlInfoToPetriNetComponents();
+			Sextet<CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix> petriMatrices =
 					petriNetComponentsToMatrices(petriComponents.getValue0(), petriComponents.getValue1(), petriComponents.getValue2());
 			
 			switch(type){
@@ -72,6 +75,13 @@ import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Arc.ArcType;
 			case TIMED:
 				return new TimedPetriNet(petriComponents.getValue0(), petriComponents.getValue1(), petriComponents.getValue2(), petriComponents.getValue3(),
 						petriMatrices.getValue0(), petriMatrices.getValue1(), petriMatrices.getValue2(), petriMatrices.getValue3(), petriMatrices.getValue4(), petriMatrices.getValue5());
+			case PACKED:
+				try {
+					return new PackedPetriNet(petriComponents.getValue0(), petriComponents.getValue1(), petriComponents.getValue2(), petriComponents.getValue3(),
+							petriMatrices.getValue0(), petriMatrices.getValue1(), petriMatrices.getValue2(), petriMatrices.getValue3(), petriMatrices.getValue4(), petriMatrices.getValue5());
+				} catch (IllegalArgumentException e) {
+					throw new CannotCreatePetriNetError("Cannot create a packed petri net. " + e.getMessage(), e);
+				}
 			default:
 				throw new CannotCreatePetriNetError("Cannot create petri net from unknown type " + type);
 			}
@@ -82,7 +92,7 @@ import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Arc.ArcType;
 		 * @return a 4-tuple containig (places, transitions, arcs, initial marking)
 		 * @throws CannotCreatePetriNetError If an error occurs during parsing
 		 */
-		protected Quartet<Place[], Transition[], Arc[], Integer[]> pnmlInfoToPetriNetComponents() throws CannotCreatePetriNetError{
+		protected Quartet<Place[], Transition[], Arc[], int[]> pnmlInfoToPetriNetComponents() throws CannotCreatePetriNetError{
 			try{
 				Triplet<Place[], Transition[], Arc[]> ret = reader.parseFileAndGetPetriComponents();
 			
@@ -94,37 +104,28 @@ import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Arc.ArcType;
 		}
 		
 		/**
-		 * makes and returns petri net matrices from its components
+		 * makes and returns petri net matrices from its components.
+		 * The matrices are built directly from the arcs in compressed sparse column format,
+		 * so the memory used scales with the amount of arcs.
+		 * A repeated arc replaces the one read before it, while the incidence matrix accumulates every normal arc.
 		 * @param places petri net's places
 		 * @param transitions petri net's transitions
 		 * @param arcs petri net's arcs
-		 * @return a 5-tuple containing (Pre matrix, Post matrix, Incidence matrix, Inhibition matrix, Reset matrix)
+		 * @return a 6-tuple containing (Pre matrix, Post matrix, Incidence matrix, Inhibition matrix, Reset matrix, Reader matrix)
 		 * @throws CannotCreatePetriNetError If any a non supported arc type is given,
 		 * or if a transition that has a reset arc as input has another arc as input
 		 * @see org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Arc.ArcType
 		 */
-		protected Sextet<Integer[][], Integer[][], Integer[][], Boolean[][], Boolean[][], Integer[][]> petriNetComponentsToMatrices(
+		protected Sextet<CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix, CompressedColumnMatrix> petriNetComponentsToMatrices(
 				Place[] places, Transition[] transitions, Arc[] arcs) throws CannotCreatePetriNetError{
 			final int placesAmount = places.length;
 			final int transitionsAmount = transitions.length;
-			Integer[][] pre = new Integer[placesAmount][transitionsAmount];
-			Integer[][] pos = new Integer[placesAmount][transitionsAmount];
-			Integer[][] inc = new Integer[placesAmount][transitionsAmount];
-			Boolean[][] inhibition = new Boolean[placesAmount][transitionsAmount];
-			Boolean[][] resetMatrix = new Boolean[placesAmount][transitionsAmount];
-			Integer[][] readerMatrix = new Integer[placesAmount][transitionsAmount];
-			for(int i = 0; i < placesAmount; i++){
-				for(int j = 0; j < transitionsAmount; j++){
-					// Since Integer default value is null
-					// I need to fill the matrixes with zeros
-					pre[i][j] = 0;
-					pos[i][j] = 0;
-					inc[i][j] = 0;
-					inhibition[i][j] = false;
-					resetMatrix[i][j] = false;
-					readerMatrix[i][j] = 0;
-				}
-			}
+			CompressedColumnMatrix.Builder pre = new CompressedColumnMatrix.Builder(placesAmount, transitionsAmount);
+			CompressedColumnMatrix.Builder pos = new CompressedColumnMatrix.Builder(placesAmount, transitionsAmount);
+			CompressedColumnMatrix.Builder inc = new CompressedColumnMatrix.Builder(placesAmount, transitionsAmount);
+			CompressedColumnMatrix.Builder inhibition = new CompressedColumnMatrix.Builder(placesAmount, transitionsAmount);
+			CompressedColumnMatrix.Builder resetMatrix = new CompressedColumnMatrix.Builder(placesAmount, transitionsAmount);
+			CompressedColumnMatrix.Builder readerMatrix = new CompressedColumnMatrix.Builder(placesAmount, transitionsAmount);
 			
 			for(Arc arc : arcs){
 				PetriNode source = arc.getSource();
@@ -137,54 +138,54 @@ import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Arc.ArcType;
 				case NORMAL:
 					if(source.getClass().equals(Place.class)){
 						// arc goes from place to transition, let's fill the pre-incidence matrix
-						pre[sourceIndex][targetIndex] = arcWeight;
+						pre.set(sourceIndex, targetIndex, arcWeight);
 						// since inc = pos - pre, here substract the arcWeight from the incidence matrix
-						inc[sourceIndex][targetIndex] -= arcWeight;
+						inc.add(sourceIndex, targetIndex, -arcWeight);
 					}
 					else {
 						// arc goes from transition to place, let's fill the post-incidence matrix
-						pos[targetIndex][sourceIndex] = arcWeight;
+						pos.set(targetIndex, sourceIndex, arcWeight);
 						// since inc = pos - pre, here add the arcWeight from the incidence matrix
-						inc[targetIndex][sourceIndex] += arcWeight;
+						inc.add(targetIndex, sourceIndex, arcWeight);
 					}
 					break;
 				case INHIBITOR:
 					// source has to be a place and target a transition
-					inhibition[sourceIndex][targetIndex] = true;
+					inhibition.set(sourceIndex, targetIndex, 1);
 					break;
 				case RESET:
-					resetMatrix[sourceIndex][targetIndex] = true;
+					resetMatrix.set(sourceIndex, targetIndex, 1);
 					break;
 				case READ:
-					readerMatrix[sourceIndex][targetIndex] = arcWeight;
+					readerMatrix.set(sourceIndex, targetIndex, arcWeight);
 					break;
 				default:
 					throw new CannotCreatePetriNetError("Arc " + type + " not supported");
 				}
 			}
 			
+			CompressedColumnMatrix preMatrix = pre.build();
+			CompressedColumnMatrix inhibitionMatrix = inhibition.build();
+			CompressedColumnMatrix reset = resetMatrix.build();
 			
 			// Now let's check if any transition that has a reset arc as input also has any other input arc
 			// That is an illegal condition
-			
-			Arc[] resetArcs = Arrays.stream(arcs)
-					.filter((Arc a) -> a.getType() == ArcType.RESET)
-					.toArray(Arc[]::new);
-			for(Arc resetArc : resetArcs){
-				int placeIndex = resetArc.getSource().getIndex();
-				int transitionIndex = resetArc.getTarget().getIndex();
-				for(int i = 0; i < placesAmount; i++){
-					boolean anotherResetArcEntersTransition = i != placeIndex && resetMatrix[i][transitionIndex];
-					boolean inhibitionArcEntersTransition = inhibition[i][transitionIndex];
-					boolean normalArcEntersTransition = pre[i][transitionIndex] > 0;
-					if(normalArcEntersTransition || inhibitionArcEntersTransition || anotherResetArcEntersTransition){
-						throw new CannotCreatePetriNetError(
-								"Cannot have another input arcs in transition " + resetArc.getTarget().getName() + ", id: " + transitionIndex + ", because there is a reset arc.");
-					}
+			for(Transition transition : transitions){
+				int transitionIndex = transition.getIndex();
+				int resetArcsAmount = reset.columnEnd(transitionIndex) - reset.columnStart(transitionIndex);
+				if(resetArcsAmount == 0){
+					continue;
+				}
+				boolean anotherResetArcEntersTransition = resetArcsAmount > 1;
+				boolean inhibitionArcEntersTransition = inhibitionMatrix.columnEnd(transitionIndex) > inhibitionMatrix.columnStart(transitionIndex);
+				boolean normalArcEntersTransition = preMatrix.columnEnd(transitionIndex) > preMatrix.columnStart(transitionIndex);
+				if(normalArcEntersTransition || inhibitionArcEntersTransition || anotherResetArcEntersTransition){
+					throw new CannotCreatePetriNetError(
+							"Cannot have another input arcs in transition " + transition.getName() + ", id: " + transitionIndex + ", because there is a reset arc.");
 				}
 			}
 			
-			return new Sextet<>(pre, pos, inc, inhibition, resetMatrix, readerMatrix);
+			return new Sextet<>(preMatrix, pos.build(), inc.build(), inhibitionMatrix, reset, readerMatrix.build());
 		}
 		
 		/**
@@ -192,13 +193,12 @@ import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Arc.ArcType;
 		 * @param places the places to check
 		 * @return place's initial marking
 		 */
-		protected Integer[] getMarkingFromPlaces(Place[] places){
-			ArrayList<Integer> initialMarking = new ArrayList<>(places.length);
-			for(Place place : places){
-				initialMarking.add(place.getMarking());
+		protected int[] getMarkingFromPlaces(Place[] places){
+			int[] initialMarking = new int[places.length];
+			for(int i = 0; i < places.length; i++){
+				initialMarking[i] = places[i].getMarking();
 			}
-			Integer[] ret = new Integer[initialMarking.size()];
-			return initialMarking.toArray(ret);
+			return initialMarking;
 		}
 		
 	}
\ No newline at end of file
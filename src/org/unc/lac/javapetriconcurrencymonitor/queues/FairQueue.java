@@ -2,6 +2,7 @@ package org.unc.lac.javapetriconcurrencymonitor.queues;
 
 import org.unc.lac.javapetriconcurrencymonitor.utils.PriorityBinaryLock;
 import org.unc.lac.javapetriconcurrencymonitor.utils.PriorityBinaryLock.LockPriority;
+import org.unc.lac.javapetriconcurrencymonitor.utils.SpinPolicy;
 
 public class FairQueue implements VarCondQueue{
 	
@@ -12,13 +13,51 @@ public class FairQueue implements VarCondQueue{
 	 * A call to {@link #sleep() sleep} sends the calling thread to sleep until any threads calls {@link #wakeUp() wakeUp}
 	 */
 	public FairQueue(){
-		lock = new PriorityBinaryLock();
+		this(2);
+	}
+	
+	/**
+	 * A fair sleeping queue for threads with the given amount of priority levels, 0 being the highest.
+	 * {@link #sleepWithHighPriority()} sleeps with level 0 and {@link #sleep()} with the lowest.
+	 * @param priorityLevels the amount of priority levels
+	 * @throws IllegalArgumentException if priorityLevels is not positive
+	 */
+	public FairQueue(int priorityLevels) throws IllegalArgumentException {
+		lock = new PriorityBinaryLock(priorityLevels);
 		// take the lock so no permissions are available
 		// and when a thread calls sleep() (or sleepWithHighPriority())
 		// it can't acquire the lock and continue, and must sleep
 		lock.lock();
 	}
 	
+	/**
+	 * A fair sleeping queue for threads, where the thread first in line spins as decided by the given policy before sleeping.
+	 * @param spinPolicy the policy to use
+	 * @throws IllegalArgumentException if spinPolicy is null
+	 * @see #setSpinPolicy(SpinPolicy)
+	 */
+	public FairQueue(SpinPolicy spinPolicy) throws IllegalArgumentException {
+		this();
+		setSpinPolicy(spinPolicy);
+	}
+	
+	/**
+	 * Sets how long the thread first in line spins waiting for a {@link #wakeUp() wakeUp} before sleeping.
+	 * An adaptive policy learns from the time between consecutive wake ups.
+	 * @param spinPolicy the policy to use
+	 * @throws IllegalArgumentException if spinPolicy is null
+	 */
+	public void setSpinPolicy(SpinPolicy spinPolicy) throws IllegalArgumentException {
+		lock.setSpinPolicy(spinPolicy);
+	}
+	
+	/**
+	 * @return the policy deciding how long the thread first in line spins before sleeping
+	 */
+	public SpinPolicy getSpinPolicy(){
+		return lock.getSpinPolicy();
+	}
+	
 	public void sleep(){
 		lock.lock();
 	}
@@ -26,6 +65,21 @@ public class FairQueue implements VarCondQueue{
 	public void sleepWithHighPriority() {
 		lock.lock(LockPriority.HIGH);
 	}
+	
+	public void sleep(int priority) throws IllegalArgumentException {
+		lock.lock(priority);
+	}
+	
+	/**
+	 * Sets how many times the first thread of a priority level can be passed over by higher levels
+	 * before being woken up ahead of them. The highest level is never passed over.
+	 * @param agingThreshold the amount of times, or 0 to always wake up the highest level first
+	 * @throws IllegalArgumentException if agingThreshold is negative
+	 * @see PriorityBinaryLock#setAgingThreshold(int)
+	 */
+	public void setAgingThreshold(int agingThreshold) throws IllegalArgumentException {
+		lock.setAgingThreshold(agingThreshold);
+	}
 
 	public void wakeUp() {
 		if(!isEmpty()){
@@ -50,5 +104,14 @@ public class FairQueue implements VarCondQueue{
 	public int getLowPriorityThreadsSleeping(){
 		return (int) (lock.getLowPriorityQueueLength());
 	}
+	
+	/**
+	 * @param priority the priority level
+	 * @return the amount of threads sleeping with the given priority
+	 * @throws IllegalArgumentException if the queue has no such priority
+	 */
+	public int getThreadsSleeping(int priority) throws IllegalArgumentException {
+		return (int) (lock.getQueueLength(priority));
+	}
 
 }
@@ -14,6 +14,14 @@ public interface VarCondQueue{
 	 */
 	void sleepWithHighPriority();
 	
+	/**
+	 * Sends the calling thread to sleep with the given priority.
+	 * A {@link #wakeUp()} call signals a thread of the highest priority first, 0 being the highest
+	 * @param priority the priority to sleep with
+	 * @throws IllegalArgumentException if the queue has no such priority
+	 */
+	void sleep(int priority) throws IllegalArgumentException;
+	
 	/**
 	 * Wakes a sleeping thread up if there is any.
 	 * The woken thread is the one that has been waiting the longer
@@ -1,39 +1,76 @@
 package org.unc.lac.javapetriconcurrencymonitor.utils;
 
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.Date;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.LockSupport;
 
 /**
- * A lock with two priority levels.
+ * A lock with priority levels, two unless otherwise specified.
  * There is only one permit available, thus the 'binary' in the class' name.
  * Each lock() blocks if necessary until the lock is available, and then takes it.
  * Each unlock() releases the lock, potentially waking a blocking acquirer.
  * 
- * The special feature in this lock is that a {@link #lock(LockPriority)} call may be with high or low priority,
- * and a {@link #unlock()} call prioritizes a high priority caller.
+ * The special feature in this lock is that a {@link #lock(int)} call may be with any priority level,
+ * level 0 being the highest, and a {@link #unlock()} call prioritizes the highest priority caller.
  * That is, a thread sleeping with high priority will be released before a low priority one.
+ * {@link LockPriority#HIGH} and {@link LockPriority#LOW} stand for the highest and the lowest level.
+ * 
+ * To avoid starving the lower levels, a level whose first thread was passed over {@link #setAgingThreshold(int) a given amount of times}
+ * by higher levels goes ahead of them, except for level 0, which is never passed over.
  * 
  * Among threads of the same priority level, the lock's queue behaves as a FIFO queue.
+ * Each priority level has its own lock-free FIFO queue of waiting threads, so the order within a level
+ * is the exact arrival order. The lock's state and the amount of waiting threads share a single word,
+ * so taking a free lock with no thread waiting is a single CAS, which neither reads the queues nor allocates.
+ * 
+ * The thread next in line may spin for a while before parking, as decided by the lock's {@link SpinPolicy}.
+ * 
+ * As a {@link Lock}, the methods without a priority use the lowest level.
+ * Unlike most locks, this one is not owned by the thread that took it. Any thread may unlock it,
+ * so it can be handed from one thread to another, as the monitor does, or be used as a binary semaphore.
+ * For the same reason, waiting threads report this lock as their blocker but no thread as its owner.
  *
  * @see LockPriority
  */
-public class PriorityBinaryLock {
+public class PriorityBinaryLock implements Lock {
 
-	/** Atomic boolean object to take register of the lock and guarantee no concurrence errors may allow two threads to take it */
-	private final AtomicBoolean locked = new AtomicBoolean(false);
+	/**
+	 * The lock's state, {@link #LOCKED} if taken, plus {@link #WAITER} for each thread waiting for it.
+	 * A waiting thread is counted before getting into its queue, so a thread finding the word at 0 may take the lock right away
+	 */
+	private final AtomicInteger state = new AtomicInteger(0);
+	/** The bit of {@link #state} set while the lock is taken */
+	private static final int LOCKED = 1;
+	/** What each waiting thread adds to {@link #state} */
+	private static final int WAITER = 2;
 	
-	/** 
-	 * The container to organize the sleeping threads.
-	 * This is ordered by priority and by arrival time among same priority level threads
+	/**
+	 * The threads waiting with each priority level, in arrival order.
+	 * A thread is in a queue from the moment it starts waiting until it takes the lock or gives up,
+	 * so the queue lengths are read from here
 	 */
-	private final PriorityBlockingQueue<PrioritizedThread> queue = new PriorityBlockingQueue<>();
+	private final ConcurrentLinkedQueue<Thread>[] queues;
 	
-	/** A counter for low priority sleeping threads */
-	private AtomicLong lowPriorityThreadsSleeping = new AtomicLong(0);
-	/** A counter for high priority sleeping threads */
-	private AtomicLong highPriorityThreadsSleeping = new AtomicLong(0); 
+	/**
+	 * How many times the first thread of each level was passed over by a thread of a higher level.
+	 * Only updated by the thread taking the lock
+	 */
+	private final AtomicIntegerArray passedOver;
+	/** Times a level can be passed over before going ahead of the higher ones, or 0 to never go ahead */
+	private volatile int agingThreshold = 0;
+	
+	/** Decides how long the thread next in line spins before parking */
+	private volatile SpinPolicy spinPolicy = SpinPolicy.NO_SPIN;
+	/** The time the lock was taken, or 0 if not measured. Only measured with an adaptive {@link #spinPolicy} */
+	private volatile long lockedAt;
+	/** Moving average of the time the lock is held. Only updated by the thread releasing the lock */
+	private volatile long averageHoldNanos;
 	
 	/**
 	 * Available priorities for {@link PriorityBinaryLock}
@@ -44,9 +81,37 @@ public class PriorityBinaryLock {
 	}
 	
 	/**
-	 * Creates a PriorityBinaryLock.
+	 * Creates a PriorityBinaryLock with two priority levels.
 	 */
 	public PriorityBinaryLock() {
+		this(2);
+	}
+	
+	/**
+	 * Creates a PriorityBinaryLock with two priority levels whose waiting threads spin as decided by the given policy before parking.
+	 * @param _spinPolicy the policy to use
+	 * @throws IllegalArgumentException if _spinPolicy is null
+	 */
+	public PriorityBinaryLock(SpinPolicy _spinPolicy) throws IllegalArgumentException {
+		this();
+		setSpinPolicy(_spinPolicy);
+	}
+	
+	/**
+	 * Creates a PriorityBinaryLock with the given amount of priority levels.
+	 * @param priorityLevels the amount of priority levels, 0 being the highest and priorityLevels - 1 the lowest
+	 * @throws IllegalArgumentException if priorityLevels is not positive
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public PriorityBinaryLock(int priorityLevels) throws IllegalArgumentException {
+		if(priorityLevels < 1){
+			throw new IllegalArgumentException("At least one priority level is needed");
+		}
+		queues = new ConcurrentLinkedQueue[priorityLevels];
+		for(int i = 0; i < priorityLevels; i++){
+			queues[i] = new ConcurrentLinkedQueue<>();
+		}
+		passedOver = new AtomicIntegerArray(priorityLevels);
 	}
 	
 	/**
@@ -56,6 +121,7 @@ public class PriorityBinaryLock {
 	 * some other thread invokes the {@link #unlock()} method for this lock
 	 * and the current thread is next in line.
 	 */
+	@Override
 	public void lock(){
 		lock(LockPriority.LOW);
 	}
@@ -68,70 +134,401 @@ public class PriorityBinaryLock {
 	 * and the current thread is next in line.
 	 */
 	public void lock(LockPriority priority){
-
-		PrioritizedThread entry = new PrioritizedThread(Thread.currentThread(), priority);
-		queue.add(entry);
-
-		switch(priority){
-		case HIGH:
-			highPriorityThreadsSleeping.incrementAndGet();
-			break;
-		case LOW:
-			lowPriorityThreadsSleeping.incrementAndGet();
-			break;
+		lock(levelOf(priority));
+	}
+	
+	/**
+	 * Tries to lock this PriorityLock with the specified priority level.
+	 * Takes the lock if available and returns immediately,
+	 * else the current thread becomes disabled for thread scheduling purposes and lies dormant until
+	 * some other thread invokes the {@link #unlock()} method for this lock
+	 * and the current thread is next in line.
+	 * @param level the priority level to wait with, 0 being the highest
+	 * @throws IllegalArgumentException if there is no such level
+	 */
+	public void lock(int level) throws IllegalArgumentException {
+		try {
+			acquire(level, false, -1);
+		} catch (InterruptedException e) {
+			// never thrown when not interruptible
 		}
-		// Block while not first in queue or cannot acquire lock
-		while(queue.peek() != entry || !locked.compareAndSet(false, true)){
-
-			LockSupport.park(this); // disable the current thread with the semaphore as permit
-			// this is inside a while just in case. It's recommended
+	}
+	
+	/**
+	 * Same as {@link #lock(LockPriority)} but the wait is abandoned if the current thread is interrupted.
+	 * In that case the thread leaves the queue and the lock is not taken.
+	 * @param priority the priority to wait with
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	public void lockInterruptibly(LockPriority priority) throws InterruptedException {
+		acquire(levelOf(priority), true, -1);
+	}
+	
+	/**
+	 * Same as {@link #lock()} but the wait is abandoned if the current thread is interrupted.
+	 * In that case the thread leaves the queue and the lock is not taken.
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	@Override
+	public void lockInterruptibly() throws InterruptedException {
+		lockInterruptibly(LockPriority.LOW);
+	}
+	
+	/**
+	 * Same as {@link #lockInterruptibly(LockPriority)} but with a priority level
+	 * @param level the priority level to wait with, 0 being the highest
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 * @throws IllegalArgumentException if there is no such level
+	 */
+	public void lockInterruptibly(int level) throws InterruptedException, IllegalArgumentException {
+		acquire(level, true, -1);
+	}
+	
+	/**
+	 * Same as {@link #lock(LockPriority)} but the wait is abandoned if the lock is not taken within the given time
+	 * or the current thread is interrupted. In both cases the thread leaves the queue and the lock is not taken.
+	 * @param priority the priority to wait with
+	 * @param timeout the maximum time to wait for the lock
+	 * @param unit the unit of timeout
+	 * @return true if the lock was taken, false if the time elapsed first
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	public boolean tryLock(LockPriority priority, long timeout, TimeUnit unit) throws InterruptedException {
+		return tryLock(levelOf(priority), timeout, unit);
+	}
+	
+	/**
+	 * Takes the lock only if it's free and no thread is waiting for it, without waiting.
+	 * @return true if the lock was taken
+	 */
+	@Override
+	public boolean tryLock(){
+		if(state.compareAndSet(0, LOCKED)){
+			holdStarted(spinPolicy);
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Same as {@link #tryLock(LockPriority, long, TimeUnit)} with the lowest priority
+	 * @param timeout the maximum time to wait for the lock
+	 * @param unit the unit of timeout
+	 * @return true if the lock was taken, false if the time elapsed first
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 */
+	@Override
+	public boolean tryLock(long timeout, TimeUnit unit) throws InterruptedException {
+		return tryLock(LockPriority.LOW, timeout, unit);
+	}
+	
+	/**
+	 * Same as {@link #tryLock(LockPriority, long, TimeUnit)} but with a priority level
+	 * @param level the priority level to wait with, 0 being the highest
+	 * @param timeout the maximum time to wait for the lock
+	 * @param unit the unit of timeout
+	 * @return true if the lock was taken, false if the time elapsed first
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 * @throws IllegalArgumentException if there is no such level
+	 */
+	public boolean tryLock(int level, long timeout, TimeUnit unit) throws InterruptedException, IllegalArgumentException {
+		return acquire(level, true, Math.max(0, unit.toNanos(timeout)));
+	}
+	
+	/**
+	 * @param priority the priority to translate
+	 * @return the highest level for {@link LockPriority#HIGH}, the lowest for {@link LockPriority#LOW}
+	 * @throws NullPointerException if priority is null
+	 */
+	private int levelOf(LockPriority priority) throws NullPointerException {
+		if(priority == null){
+			throw new NullPointerException("No null priority allowed");
+		}
+		return priority == LockPriority.HIGH ? 0 : queues.length - 1;
+	}
+	
+	/**
+	 * Waits in the queue until the lock is taken
+	 * @param level the priority level to wait with
+	 * @param interruptible whether to give up if the thread is interrupted
+	 * @param timeoutNanos the maximum time to wait, or a negative value to wait with no limit
+	 * @return true if the lock was taken, false if the time elapsed first
+	 * @throws InterruptedException if interruptible and the current thread is interrupted while waiting
+	 * @throws IllegalArgumentException if there is no such level
+	 */
+	private boolean acquire(int level, boolean interruptible, long timeoutNanos) throws InterruptedException, IllegalArgumentException {
+		if(level < 0 || level >= queues.length){
+			throw new IllegalArgumentException("Invalid priority level " + level);
 		}
 		
-		// once the lock is taken by the current thread, remove it from the queue
-		queue.remove(entry);
+		final SpinPolicy spin = spinPolicy;
+		// fast path, the lock is free and nobody is waiting for it
+		if(state.compareAndSet(0, LOCKED)){
+			holdStarted(spin);
+			return true;
+		}
+
+		final Thread current = Thread.currentThread();
+		final ConcurrentLinkedQueue<Thread> queue = queues[level];
+		state.addAndGet(WAITER);
+		queue.add(current);
+
+		// the clock is only read when there's a time limit or a time to spin
+		final long deadline = timeoutNanos < 0 ? 0 : System.nanoTime() + timeoutNanos;
+		final long spinNanos = spin.spinNanos(averageHoldNanos);
+		final long spinDeadline = spinNanos > 0 ? System.nanoTime() + spinNanos : 0;
+		boolean interrupted = false;
+		// Block while not first in line or cannot acquire lock
+		while(nextInLine() != current || !takeAsWaiter()){
+			if(spinNanos > 0 && nextInLine() == current && System.nanoTime() - spinDeadline < 0){
+				// the lock is expected to be released soon, so keep trying instead of parking
+				SpinPolicy.onSpinWait();
+				continue;
+			}
+			if(timeoutNanos < 0){
+				LockSupport.park(this); // disable the current thread with the semaphore as permit
+				// this is inside a while just in case. It's recommended
+			}
+			else{
+				long remaining = deadline - System.nanoTime();
+				if(remaining <= 0){
+					giveUp(current, level);
+					return false;
+				}
+				LockSupport.parkNanos(this, remaining);
+			}
+			if(Thread.interrupted()){
+				if(interruptible){
+					giveUp(current, level);
+					throw new InterruptedException();
+				}
+				// an interrupted thread doesn't park, so clear the flag while waiting and restore it later
+				interrupted = true;
+			}
+		}
 		
-		switch(priority){
-		case HIGH:
-			highPriorityThreadsSleeping.decrementAndGet();
-			break;
-		case LOW:
-			lowPriorityThreadsSleeping.decrementAndGet();
-			break;
+		// once the lock is taken by the current thread, remove it from the queue.
+		// Threads only leave the queue by themselves, so the current thread is still its head
+		queue.poll();
+		age(level);
+		holdStarted(spin);
+		if(interrupted){
+			current.interrupt();
+		}
+		return true;
+	}
+	
+	/**
+	 * Takes the lock if it's free, no longer counting the calling thread as waiting
+	 * @return true if the lock was taken
+	 */
+	private boolean takeAsWaiter(){
+		int current;
+		while(((current = state.get()) & LOCKED) == 0){
+			if(state.compareAndSet(current, current + LOCKED - WAITER)){
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Counts a pass over for every lower level with threads waiting, after a thread of the given level took the lock.
+	 * Must be called holding the lock
+	 * @param level the level of the thread that took the lock
+	 */
+	private void age(int level){
+		if(agingThreshold == 0){
+			return;
+		}
+		passedOver.set(level, 0);
+		for(int lower = level + 1; lower < queues.length; lower++){
+			if(queues[lower].isEmpty()){
+				passedOver.set(lower, 0);
+			}
+			else{
+				passedOver.incrementAndGet(lower);
+			}
+		}
+	}
+	
+	/**
+	 * Takes note of the time the lock was taken, if the policy needs the hold times
+	 * @param spin the spin policy in use when the lock was taken
+	 */
+	private void holdStarted(SpinPolicy spin){
+		if(spin.isAdaptive()){
+			lockedAt = System.nanoTime();
+		}
+	}
+	
+	/**
+	 * Adds the time the lock has been held to {@link #averageHoldNanos}, if it was measured
+	 */
+	private void holdFinished(){
+		final long start = lockedAt;
+		if(start != 0){
+			lockedAt = 0;
+			final long held = System.nanoTime() - start;
+			final long average = averageHoldNanos;
+			// exponential moving average giving the new hold time a weight of 1/8
+			averageHoldNanos = average + (Math.max(0, held) - average) / 8;
+		}
+	}
+	
+	/**
+	 * Takes the given thread out of its queue when it stops waiting.
+	 * If the lock was released meanwhile, it could've been meant for this thread, so the next one in line is woken up
+	 * @param thread the leaving thread
+	 * @param level the priority level the thread was waiting with
+	 */
+	private void giveUp(Thread thread, int level){
+		queues[level].remove(thread);
+		if((state.addAndGet(-WAITER) & LOCKED) == 0){
+			Thread next = nextInLine();
+			if(next != null){
+				LockSupport.unpark(next);
+			}
 		}
 	}
 	
+	/**
+	 * The first thread of level 0 if any, else the first thread of the highest level passed over too many times if any,
+	 * else the first thread of the highest level with threads waiting.
+	 * @return the thread to take the lock next, or null if none is waiting
+	 */
+	private Thread nextInLine(){
+		Thread next = queues[0].peek();
+		if(next != null){
+			return next;
+		}
+		final int threshold = agingThreshold;
+		for(int level = 1; level < queues.length; level++){
+			Thread first = queues[level].peek();
+			if(first == null){
+				continue;
+			}
+			if(threshold == 0){
+				return first;
+			}
+			if(passedOver.get(level) >= threshold){
+				// this level waited long enough, it goes ahead of the higher ones
+				return first;
+			}
+			if(next == null){
+				next = first;
+			}
+		}
+		return next;
+	}
+	
 	/**
 	 * Releases this lock.
-	 * If there's any thread waiting for it, wake it up.
-	 * Which thread is to be woken is {@link #queue}'s responsibility.
+	 * If there's any thread waiting for it, wake up the first one of the highest priority level,
+	 * unless a lower level was passed over too many times.
 	 */
+	@Override
 	public void unlock() {
-		locked.set(false);
-		// wakes the first thread in priority order if any
-		try{
-			LockSupport.unpark(queue.peek().getThread());
-		} catch (NullPointerException e){
-			// queue was empty, no problem
+		int current = state.get();
+		if((current & LOCKED) != 0){
+			holdFinished();
+		}
+		while(!state.compareAndSet(current, current & ~LOCKED)){
+			current = state.get();
+		}
+		// wakes the first thread in priority order if any.
+		// If none is counted, no thread tried to acquire the lock while the current thread had the lock
+		if(current >= WAITER){
+			Thread next = nextInLine();
+			if(next != null){
+				LockSupport.unpark(next);
+			}
 		}
-		// if the queue is empty, no thread tried to acquire the lock
-		// while the current thread had the lock
 	}
 	
 
 	
+	/**
+	 * Sets how long the thread next in line spins before parking.
+	 * Threads already waiting keep the policy they found.
+	 * @param _spinPolicy the policy to use
+	 * @throws IllegalArgumentException if _spinPolicy is null
+	 */
+	public void setSpinPolicy(SpinPolicy _spinPolicy) throws IllegalArgumentException {
+		if(_spinPolicy == null){
+			throw new IllegalArgumentException("Null spin policy not allowed");
+		}
+		spinPolicy = _spinPolicy;
+	}
+	
+	/**
+	 * @return the policy deciding how long the thread next in line spins before parking
+	 */
+	public SpinPolicy getSpinPolicy(){
+		return spinPolicy;
+	}
+	
+	/**
+	 * @return the moving average of the time this lock is held, in nanoseconds.
+	 * Only measured with an adaptive {@link SpinPolicy}, 0 if never measured
+	 */
+	public long getAverageHoldNanos(){
+		return averageHoldNanos;
+	}
+	
+	/**
+	 * Sets how many times the first thread of a level can be passed over by higher levels before going ahead of them.
+	 * Level 0 is never passed over, whatever the threshold.
+	 * @param _agingThreshold the amount of times, or 0 to always serve the highest level first, which is the default
+	 * @throws IllegalArgumentException if _agingThreshold is negative
+	 */
+	public void setAgingThreshold(int _agingThreshold) throws IllegalArgumentException {
+		if(_agingThreshold < 0){
+			throw new IllegalArgumentException("Aging threshold can't be negative");
+		}
+		agingThreshold = _agingThreshold;
+	}
+	
+	/**
+	 * @return how many times the first thread of a level can be passed over before going ahead, 0 if never
+	 */
+	public int getAgingThreshold(){
+		return agingThreshold;
+	}
+	
+	/**
+	 * @return the amount of priority levels, 0 being the highest
+	 */
+	public int getPriorityLevels(){
+		return queues.length;
+	}
+	
+	/**
+	 * Returns the length of the given level's queue
+	 * @param level the priority level
+	 * @return the number of threads waiting for this lock with the given level
+	 * @throws IllegalArgumentException if there is no such level
+	 */
+	public long getQueueLength(int level) throws IllegalArgumentException {
+		if(level < 0 || level >= queues.length){
+			throw new IllegalArgumentException("Invalid priority level " + level);
+		}
+		return queues[level].size();
+	}
+	
 	/**
 	 * Returns the length of the low priority queue
-	 * @return the number of threads waiting for this lock with low priority
+	 * @return the number of threads waiting for this lock with the lowest level
 	 */
 	public long getLowPriorityQueueLength(){
-		return lowPriorityThreadsSleeping.get();
+		return queues[queues.length - 1].size();
 	}
 	/**
 	 * Returns the length of the high priority queue
-	 * @return the number of threads waiting for this lock with high priority
+	 * @return the number of threads waiting for this lock with the highest level
 	 */
 	public long getHighPriorityQueueLength(){
-		return highPriorityThreadsSleeping.get();
+		return queues[0].size();
 	}
 	
 	/**
@@ -139,89 +536,179 @@ public class PriorityBinaryLock {
 	 * @return True if the lock is taken
 	 */
 	public boolean isLocked(){
-		return locked.get();
+		return (state.get() & LOCKED) != 0;
 	}
 	
 	/**
 	 * @return True if there are threads waiting to take this lock
 	 */
 	public boolean hasQueuedThreads(){
-		return (highPriorityThreadsSleeping.get() != 0L) ||
-				(lowPriorityThreadsSleeping.get() != 0L);
+		for(int level = 0; level < queues.length; level++){
+			if(!queues[level].isEmpty()){
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
-	 * A container for threads to be compared.
-	 * The comparison is to be made first using {@link LockPriority} and only then by creation time.
-	 * The natural order is that high priority threads are on top of low,
-	 * and among same priority level threads, older threads come first.
+	 * Returns a new condition for this lock.
+	 * Threads awaiting it take the lock back with the lowest priority once signalled.
+	 * Since the lock has no owner, awaiting or signalling the condition only requires the lock to be taken.
+	 * @return a new condition for this lock
 	 */
-	private class PrioritizedThread implements Comparable<PrioritizedThread> {
+	@Override
+	public Condition newCondition(){
+		return new PriorityCondition();
+	}
 
-		/** The contained Thread */
-		private Thread thread;
-		/** The thread calling priority */
-		private LockPriority priority;
-		/** Object's creation time */
-		private long timestamp;
-		
-		/**
-		 * Constructs the {@link PrioritizedThread} object wrapping the given thread associated with the given priority.
-		 * Also a timestamp is generated at construction time for comparison.
-		 * @param _thread The thread to wrap.
-		 * @param _priority The priority of the thread.
-		 * @throws NullPointerException If thread or priority is null
-		 */
-		public PrioritizedThread(Thread _thread, LockPriority _priority) throws NullPointerException {
-			if(_thread == null || _priority == null){
-				throw new NullPointerException("No null thread nor priority allowed");
+	/**
+	 * A condition whose waiting threads are signalled in arrival order.
+	 * A waiting thread is either signalled or gives up, never both, since both take its {@link ConditionWaiter} once
+	 */
+	private class PriorityCondition implements Condition {
+
+		/** The threads waiting for the condition, in arrival order */
+		private final ConcurrentLinkedQueue<ConditionWaiter> waiters = new ConcurrentLinkedQueue<>();
+
+		@Override
+		public void await() throws InterruptedException {
+			awaitNanos(true, -1);
+		}
+
+		@Override
+		public void awaitUninterruptibly() {
+			try {
+				awaitNanos(false, -1);
+			} catch (InterruptedException e) {
+				// never thrown when not interruptible
 			}
-			
-			thread = _thread;
-			priority = _priority;
-			timestamp = System.currentTimeMillis();
-			
 		}
-		
+
+		@Override
+		public long awaitNanos(long nanosTimeout) throws InterruptedException {
+			return awaitNanos(true, Math.max(0, nanosTimeout));
+		}
+
+		@Override
+		public boolean await(long time, TimeUnit unit) throws InterruptedException {
+			return awaitNanos(true, Math.max(0, unit.toNanos(time))) > 0;
+		}
+
+		@Override
+		public boolean awaitUntil(Date deadline) throws InterruptedException {
+			return await(deadline.getTime() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		}
+
 		/**
-		 * @return The thread priority
+		 * Releases the lock, waits to be signalled and takes the lock back
+		 * @param interruptible whether to give up if the thread is interrupted
+		 * @param timeoutNanos the maximum time to wait, or a negative value to wait with no limit
+		 * @return an estimate of the time left to wait, 0 or less if it elapsed before being signalled
+		 * @throws InterruptedException if interruptible and the current thread is interrupted while waiting
+		 * @throws IllegalMonitorStateException if the lock is not taken
 		 */
-		public final LockPriority getPriority(){
-			return priority;
+		private long awaitNanos(boolean interruptible, long timeoutNanos) throws InterruptedException {
+			if(!isLocked()){
+				throw new IllegalMonitorStateException("The lock must be taken to await a condition");
+			}
+			final ConditionWaiter waiter = new ConditionWaiter(Thread.currentThread());
+			waiters.add(waiter);
+			unlock();
+
+			final long deadline = System.nanoTime() + timeoutNanos;
+			long remaining = timeoutNanos;
+			boolean interrupted = false;
+			while(!waiter.signalled){
+				if(timeoutNanos < 0){
+					LockSupport.park(this);
+				}
+				else{
+					remaining = deadline - System.nanoTime();
+					if(remaining <= 0){
+						if(waiter.take()){
+							waiters.remove(waiter);
+							break;
+						}
+						// signalled meanwhile
+						continue;
+					}
+					LockSupport.parkNanos(this, remaining);
+				}
+				if(Thread.interrupted()){
+					if(interruptible && waiter.take()){
+						waiters.remove(waiter);
+						lock();
+						throw new InterruptedException();
+					}
+					// either not interruptible or signalled meanwhile, so restore the flag later
+					interrupted = true;
+				}
+			}
+			lock();
+			if(interrupted){
+				Thread.currentThread().interrupt();
+			}
+			return timeoutNanos < 0 ? 1 : deadline - System.nanoTime();
 		}
-		
+
+		@Override
+		public void signal() {
+			checkLocked();
+			ConditionWaiter waiter;
+			while((waiter = waiters.poll()) != null){
+				if(signal(waiter)){
+					return;
+				}
+			}
+		}
+
+		@Override
+		public void signalAll() {
+			checkLocked();
+			ConditionWaiter waiter;
+			while((waiter = waiters.poll()) != null){
+				signal(waiter);
+			}
+		}
+
 		/**
-		 * The format of this timestamp is the format of {@link System#currentTimeMillis()}
-		 * @return Object's creation time
+		 * @return true if the waiter was signalled, false if it already gave up
 		 */
-		public final long getTimestamp(){
-			return timestamp;
+		private boolean signal(ConditionWaiter waiter) {
+			if(!waiter.take()){
+				return false;
+			}
+			waiter.signalled = true;
+			LockSupport.unpark(waiter.thread);
+			return true;
 		}
-		
+
+		private void checkLocked() {
+			if(!isLocked()){
+				throw new IllegalMonitorStateException("The lock must be taken to signal a condition");
+			}
+		}
+	}
+
+	/**
+	 * A thread waiting for a condition, taken once either by a signalling thread or by the waiting thread giving up
+	 */
+	private static final class ConditionWaiter {
+
+		private final Thread thread;
+		private final AtomicBoolean taken = new AtomicBoolean(false);
+		private volatile boolean signalled = false;
+
+		private ConditionWaiter(Thread _thread) {
+			thread = _thread;
+		}
+
 		/**
-		 * @return The wrapped thread
+		 * @return true if the waiter wasn't taken before
 		 */
-		public final Thread getThread(){
-			return thread;
-		}
-		
-		@Override
-		public int compareTo(PrioritizedThread _prioritizedThread) {
-			int priorityComparison = priority.compareTo(_prioritizedThread.getPriority());
-			
-			if(priorityComparison < 0){
-				// this thread has higher priority
-				return -1;
-			}
-			
-			if(priorityComparison > 0){
-				// the other thread has higher priority
-				return 1;
-			}
-			
-			//both threads have same priority, return the one with the lower timestamp
-			return (timestamp - _prioritizedThread.getTimestamp()) < 0 ? -1 : 1;
+		private boolean take() {
+			return taken.compareAndSet(false, true);
 		}
-		
 	}
 }
@@ -0,0 +1,111 @@
+package org.unc.lac.javapetriconcurrencymonitor.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how long a thread next in line for a {@link PriorityBinaryLock} spins before parking.
+ * Spinning saves the two context switches of a park and unpark when the lock is released soon,
+ * at the cost of keeping a CPU busy meanwhile.
+ *
+ * With a fixed policy the thread always spins up to the given time.
+ * With an adaptive policy the lock learns how long it is usually held, and the thread spins for about twice that time,
+ * or doesn't spin at all if the lock is usually held longer than the given maximum.
+ *
+ * @see PriorityBinaryLock#setSpinPolicy(SpinPolicy)
+ */
+public final class SpinPolicy {
+
+	/** Parks right away. This is the default policy */
+	public static final SpinPolicy NO_SPIN = new SpinPolicy(0, false);
+
+	/** Thread.onSpinWait(), only available since Java 9, or null */
+	private static final MethodHandle ON_SPIN_WAIT = findOnSpinWait();
+
+	/** The maximum time to spin before parking */
+	private final long maxSpinNanos;
+	/** Whether the spinning time depends on the lock's hold times */
+	private final boolean adaptive;
+
+	private SpinPolicy(long _maxSpinNanos, boolean _adaptive){
+		maxSpinNanos = _maxSpinNanos;
+		adaptive = _adaptive;
+	}
+
+	/**
+	 * @param maxSpinTime the time to spin before parking
+	 * @param unit the unit of maxSpinTime
+	 * @return a policy that always spins up to the given time
+	 * @throws IllegalArgumentException if maxSpinTime is negative or unit is null
+	 */
+	public static SpinPolicy fixed(long maxSpinTime, TimeUnit unit) throws IllegalArgumentException {
+		return new SpinPolicy(toNanos(maxSpinTime, unit), false);
+	}
+
+	/**
+	 * @param maxSpinTime the maximum time to spin before parking
+	 * @param unit the unit of maxSpinTime
+	 * @return a policy that spins for about twice the lock's average hold time, up to the given time,
+	 * and doesn't spin if the lock is usually held longer than that
+	 * @throws IllegalArgumentException if maxSpinTime is negative or unit is null
+	 */
+	public static SpinPolicy adaptive(long maxSpinTime, TimeUnit unit) throws IllegalArgumentException {
+		return new SpinPolicy(toNanos(maxSpinTime, unit), true);
+	}
+
+	private static long toNanos(long time, TimeUnit unit) throws IllegalArgumentException {
+		if(time < 0 || unit == null){
+			throw new IllegalArgumentException("Invalid spin time");
+		}
+		return unit.toNanos(time);
+	}
+
+	/**
+	 * @return the maximum time to spin before parking, in nanoseconds
+	 */
+	public long getMaxSpinNanos(){
+		return maxSpinNanos;
+	}
+
+	/**
+	 * @return true if the spinning time depends on the lock's hold times
+	 */
+	public boolean isAdaptive(){
+		return adaptive;
+	}
+
+	/**
+	 * @param averageHoldNanos the lock's average hold time, only used by adaptive policies
+	 * @return the time to spin before parking, in nanoseconds
+	 */
+	public long spinNanos(long averageHoldNanos){
+		if(!adaptive){
+			return maxSpinNanos;
+		}
+		// spinning for a lock held longer than the maximum would just burn the CPU
+		return averageHoldNanos > maxSpinNanos ? 0 : Math.min(2 * averageHoldNanos, maxSpinNanos);
+	}
+
+	/**
+	 * Hints the processor that the current thread is spinning, if the JVM supports it
+	 */
+	public static void onSpinWait(){
+		if(ON_SPIN_WAIT != null){
+			try {
+				ON_SPIN_WAIT.invokeExact();
+			} catch (Throwable e) {
+				// Thread.onSpinWait() throws nothing
+			}
+		}
+	}
+
+	private static MethodHandle findOnSpinWait(){
+		try {
+			return MethodHandles.lookup().findStatic(Thread.class, "onSpinWait", MethodType.methodType(void.class));
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package org.lac.javapetriconcurrencymonitor.test.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.unc.lac.javapetriconcurrencymonitor.monitor.CombiningPetriMonitor;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.PetriMonitor;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.FirstInLinePolicy;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory.petriNetType;
+
+/**
+ * Compares the firing throughput of {@link PetriMonitor} and {@link CombiningPetriMonitor} under contention.
+ * For each number of threads, every thread fires t0 and then t1 of monitorTest03 a fixed number of times,
+ * all of them competing for a single token.
+ * Each configuration is measured several times, alternating both monitors, and the median is reported with the
+ * lowest and highest results, since a single run depends heavily on how the threads happen to be scheduled.
+ *
+ * Run it after {@code mvn test-compile} with:
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; \
+ *     org.lac.javapetriconcurrencymonitor.test.benchmarks.CombiningMonitorBenchmark [rounds per thread] [repetitions]
+ * </pre>
+ */
+public class CombiningMonitorBenchmark {
+
+	private static final String MONITOR_TEST_03_PETRI = "/org/lac/javapetriconcurrencymonitor/test/resources/monitorTest03.pnml";
+	private static final int[] THREADS = {2, 4, 8, 16, 32, 64};
+	private static final int DEFAULT_ROUNDS = 2000;
+	private static final int DEFAULT_REPETITIONS = 7;
+
+	public static void main(String[] args) throws Exception {
+		final int rounds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROUNDS;
+		final int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_REPETITIONS;
+
+		// a first pass to warm up the JIT, its results are discarded
+		for (int threads : THREADS) {
+			run(false, threads, rounds / 10);
+			run(true, threads, rounds / 10);
+		}
+
+		System.out.println(String.format("%d repetitions, firings per second as median [lowest - highest]", repetitions));
+		System.out.println(String.format("%8s %32s %32s", "threads", "PetriMonitor", "CombiningPetriMonitor"));
+		for (int threads : THREADS) {
+			long[] plain = new long[repetitions];
+			long[] combining = new long[repetitions];
+			for (int i = 0; i < repetitions; i++) {
+				plain[i] = run(false, threads, rounds);
+				combining[i] = run(true, threads, rounds);
+			}
+			System.out.println(String.format("%8d %32s %32s", threads, summary(plain), summary(combining)));
+		}
+	}
+
+	/**
+	 * @param results the firings per second of each repetition, sorted by this method
+	 * @return the median, lowest and highest results
+	 */
+	private static String summary(long[] results) {
+		Arrays.sort(results);
+		final int middle = results.length / 2;
+		final long median = results.length % 2 == 1 ? results[middle] : (results[middle - 1] + results[middle]) / 2;
+		return String.format("%d [%d - %d]", median, results[0], results[results.length - 1]);
+	}
+
+	/**
+	 * @param combining whether to use a {@link CombiningPetriMonitor}
+	 * @param threads the amount of firing threads
+	 * @param rounds the times each thread fires t0 and t1
+	 * @return the firings per second
+	 * @throws IllegalStateException if a firing failed
+	 */
+	private static long run(boolean combining, int threads, int rounds) throws Exception {
+		PetriNet petri = new PetriNetFactory(MONITOR_TEST_03_PETRI).makePetriNet(petriNetType.PLACE_TRANSITION);
+		PetriMonitor monitor = combining
+				? new CombiningPetriMonitor(petri, new FirstInLinePolicy(petri))
+				: new PetriMonitor(petri, new FirstInLinePolicy(petri));
+		petri.initializePetriNet();
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+
+		AtomicInteger failures = new AtomicInteger(0);
+		Thread[] firers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			firers[i] = new Thread(() -> {
+				try {
+					for (int j = 0; j < rounds; j++) {
+						monitor.fireTransition(t0);
+						monitor.fireTransition(t1);
+					}
+				} catch (Exception e) {
+					failures.incrementAndGet();
+				}
+			});
+		}
+		long start = System.nanoTime();
+		for (Thread firer : firers) {
+			firer.start();
+		}
+		for (Thread firer : firers) {
+			firer.join();
+		}
+		long elapsed = System.nanoTime() - start;
+
+		if (failures.get() > 0) {
+			throw new IllegalStateException(failures.get() + " firing threads failed");
+		}
+		return 2L * threads * rounds * TimeUnit.SECONDS.toNanos(1) / elapsed;
+	}
+}
@@ -0,0 +1,88 @@
+package org.lac.javapetriconcurrencymonitor.test.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.unc.lac.javapetriconcurrencymonitor.monitor.PetriMonitor;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.FirstInLinePolicy;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory.petriNetType;
+
+/**
+ * Runs one virtual thread per firer on a small carrier pool, all of them competing for a single token.
+ * Each firer fires t0 and then t1 of monitorTest03, so almost every firer is blocked in t0's queue at any time.
+ *
+ * Virtual threads need Java 21. They are looked up by reflection since the project targets Java 8,
+ * and on older JVMs the benchmark falls back to a pool of platform threads.
+ * Run it after {@code mvn test-compile} with:
+ * <pre>
+ * java -Djdk.tracePinnedThreads=short -cp target/classes:target/test-classes:&lt;dependencies&gt; \
+ *     org.lac.javapetriconcurrencymonitor.test.benchmarks.VirtualThreadsFiringBenchmark [firers] [carriers]
+ * </pre>
+ * Any pinned virtual thread is reported by the JVM on the standard output.
+ */
+public class VirtualThreadsFiringBenchmark {
+
+	private static final String MONITOR_TEST_03_PETRI = "/org/lac/javapetriconcurrencymonitor/test/resources/monitorTest03.pnml";
+	private static final int DEFAULT_FIRERS = 100000;
+	private static final int DEFAULT_CARRIERS = 4;
+	private static final int PLATFORM_THREADS = 256;
+
+	public static void main(String[] args) throws Exception {
+		final int firers = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FIRERS;
+		final int carriers = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CARRIERS;
+		// the carrier pool is sized when the first virtual thread is created
+		System.setProperty("jdk.virtualThreadScheduler.parallelism", Integer.toString(carriers));
+		System.setProperty("jdk.virtualThreadScheduler.maxPoolSize", Integer.toString(carriers));
+
+		PetriNet petri = new PetriNetFactory(MONITOR_TEST_03_PETRI).makePetriNet(petriNetType.PLACE_TRANSITION);
+		PetriMonitor monitor = new PetriMonitor(petri, new FirstInLinePolicy(petri));
+		petri.initializePetriNet();
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+
+		ExecutorService executor = newVirtualThreadPerTaskExecutor();
+		boolean virtual = executor != null;
+		if (!virtual) {
+			System.out.println("Virtual threads not available in this JVM, using " + PLATFORM_THREADS + " platform threads");
+			executor = Executors.newFixedThreadPool(PLATFORM_THREADS);
+		}
+
+		AtomicInteger failures = new AtomicInteger(0);
+		long start = System.nanoTime();
+		for (int i = 0; i < firers; i++) {
+			executor.execute(() -> {
+				try {
+					monitor.fireTransition(t0);
+					monitor.fireTransition(t1);
+				} catch (Exception e) {
+					failures.incrementAndGet();
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.HOURS);
+		long elapsed = System.nanoTime() - start;
+
+		System.out.println((virtual ? "Virtual threads on " + carriers + " carriers" : "Platform threads") + ": "
+				+ firers + " firers, " + (2L * firers) + " firings in " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms, "
+				+ (2L * firers * 1000000000L / elapsed) + " firings/s, " + failures.get() + " failures");
+		System.out.println("Final marking: " + Arrays.toString(petri.getCurrentMarking()));
+	}
+
+	/**
+	 * @return Executors.newVirtualThreadPerTaskExecutor() if the JVM supports virtual threads, null otherwise
+	 */
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+}
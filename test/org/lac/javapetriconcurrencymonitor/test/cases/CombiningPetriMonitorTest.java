@@ -0,0 +1,152 @@
+package org.lac.javapetriconcurrencymonitor.test.cases;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.lac.javapetriconcurrencymonitor.test.utils.TransitionEventObserver;
+import org.unc.lac.javapetriconcurrencymonitor.errors.IllegalTransitionFiringError;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.CombiningPetriMonitor;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.FirstInLinePolicy;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory.petriNetType;
+
+public class CombiningPetriMonitorTest {
+
+	CombiningPetriMonitor monitor;
+	PetriNet petri;
+
+	private static final String TEST_PETRI_FOLDER = "/org/lac/javapetriconcurrencymonitor/test/resources/";
+	private static final String MONITOR_TEST_01_PETRI = TEST_PETRI_FOLDER + "monitorTest01.pnml";
+	private static final String MONITOR_TEST_03_PETRI = TEST_PETRI_FOLDER + "monitorTest03.pnml";
+
+	/**
+	 * Creates petri and monitor from given PNML, and initializes the petri net
+	 * @param PNML path to the PNML file
+	 */
+	private void setUpMonitor(String PNML){
+		petri = new PetriNetFactory(PNML).makePetriNet(petriNetType.PLACE_TRANSITION);
+		monitor = new CombiningPetriMonitor(petri, new FirstInLinePolicy(petri));
+		petri.initializePetriNet();
+	}
+
+	/**
+	 * <li> Given the initial marking is {1, 0, 0, 0} and only t0 is enabled </li>
+	 * <li> When I fire t0 </li>
+	 * <li> Then the automatic t1 is fired too </li>
+	 * <li> And the final marking is {0, 0, 1, 1} </li>
+	 */
+	@Test
+	public void testFireShouldFireAutomaticTransitionsAfterwards() throws Exception {
+		setUpMonitor(MONITOR_TEST_01_PETRI);
+
+		TransitionEventObserver obs = new TransitionEventObserver();
+		monitor.subscribeToTransition(petri.getTransitions()[1], obs);
+
+		monitor.fireTransition(petri.getTransitions()[0]);
+
+		Assert.assertArrayEquals(new Integer[]{0, 0, 1, 1}, petri.getCurrentMarking());
+		Assert.assertEquals(1, obs.getEvents().size());
+	}
+
+	/**
+	 * <li> Given p0 has a token and t1 needs a token in p1 </li>
+	 * <li> And th0 is waiting to fire t1 </li>
+	 * <li> When I fire t0 </li>
+	 * <li> Then th0's request is fired on its behalf and th0 returns </li>
+	 */
+	@Test
+	public void testBlockedFireShouldBeMadeWhenTheTransitionGetsEnabled() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+
+		Thread th0 = new Thread(() -> {
+			try {
+				monitor.fireTransition(t1);
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+		// th0 parks once its request waits in t1's queue
+		while(th0.getState() != Thread.State.WAITING){
+			Thread.sleep(10);
+		}
+
+		monitor.fireTransition(t0);
+		th0.join(1000);
+
+		Assert.assertFalse(th0.isAlive());
+		Assert.assertArrayEquals(new Integer[]{1, 0}, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given p0 has a token and t1 needs a token in p1 </li>
+	 * <li> When I make a non perennial fire of t1 </li>
+	 * <li> Then the fire returns without firing t1 </li>
+	 * <li> And a later fire of t0 doesn't fire t1 </li>
+	 */
+	@Test
+	public void testNotPerennialFireShouldNotWait() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		monitor.fireTransition(petri.getTransitions()[1], true);
+		monitor.fireTransition(petri.getTransitions()[0]);
+
+		Assert.assertArrayEquals(new Integer[]{0, 1}, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given p0 has a token </li>
+	 * <li> When 16 threads fire t0 and then t1 100 times each </li>
+	 * <li> Then every fire is made </li>
+	 * <li> And the final marking is {1, 0} </li>
+	 */
+	@Test
+	public void testConcurrentFiresShouldAllBeMade() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+		AtomicInteger failures = new AtomicInteger(0);
+
+		Thread[] threads = new Thread[16];
+		for(int i = 0; i < threads.length; i++){
+			threads[i] = new Thread(() -> {
+				try {
+					for(int j = 0; j < 100; j++){
+						monitor.fireTransition(t0);
+						monitor.fireTransition(t1);
+					}
+				} catch (Exception e) {
+					failures.incrementAndGet();
+				}
+			});
+			threads[i].start();
+		}
+		for(Thread th : threads){
+			th.join(10000);
+			Assert.assertFalse(th.isAlive());
+		}
+
+		Assert.assertEquals(0, failures.get());
+		Assert.assertEquals(3200, petri.getFiringSequenceNumber());
+		Assert.assertArrayEquals(new Integer[]{1, 0}, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given t1 in monitorTest01 is automatic </li>
+	 * <li> When I fire t1 </li>
+	 * <li> Then an IllegalTransitionFiringError is thrown </li>
+	 */
+	@Test(expected = IllegalTransitionFiringError.class)
+	public void testFireAutomaticTransitionShouldThrowError() throws Exception {
+		setUpMonitor(MONITOR_TEST_01_PETRI);
+
+		monitor.fireTransition(petri.getTransitions()[1]);
+	}
+}
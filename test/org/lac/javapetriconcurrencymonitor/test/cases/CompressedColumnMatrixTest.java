@@ -0,0 +1,98 @@
+package org.lac.javapetriconcurrencymonitor.test.cases;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.CompressedColumnMatrix;
+
+public class CompressedColumnMatrixTest {
+
+	/**
+	 * <li> Given a 3x2 matrix with elements added in any order </li>
+	 * <li> When I build it </li>
+	 * <li> Then each column holds only its non-zero elements sorted by row </li>
+	 */
+	@Test
+	public void builtMatrixShouldStoreOnlyNonZeroElementsSortedByRow() {
+		CompressedColumnMatrix matrix = new CompressedColumnMatrix.Builder(3, 2)
+				.add(2, 0, 1)
+				.add(0, 0, -2)
+				.add(1, 1, 4)
+				.add(0, 1, 0)
+				.build();
+
+		Assert.assertEquals(3, matrix.nonZeros());
+		Assert.assertEquals(2, matrix.columnEnd(0) - matrix.columnStart(0));
+		Assert.assertEquals(0, matrix.rowAt(matrix.columnStart(0)));
+		Assert.assertEquals(-2, matrix.valueAt(matrix.columnStart(0)));
+		Assert.assertEquals(2, matrix.rowAt(matrix.columnStart(0) + 1));
+		Assert.assertEquals(1, matrix.columnEnd(1) - matrix.columnStart(1));
+		Assert.assertEquals(4, matrix.get(1, 1));
+		Assert.assertEquals(0, matrix.get(0, 1));
+	}
+
+	/**
+	 * <li> Given the same element is added twice with opposite values </li>
+	 * <li> When I build the matrix </li>
+	 * <li> Then the element is not stored </li>
+	 */
+	@Test
+	public void repeatedElementsShouldBeSummedAndDroppedWhenZero() {
+		CompressedColumnMatrix matrix = new CompressedColumnMatrix.Builder(2, 2)
+				.add(1, 0, 3)
+				.add(1, 0, -3)
+				.add(0, 1, 1)
+				.add(0, 1, 1)
+				.build();
+
+		Assert.assertEquals(1, matrix.nonZeros());
+		Assert.assertEquals(0, matrix.get(1, 0));
+		Assert.assertEquals(2, matrix.get(0, 1));
+	}
+
+	/**
+	 * <li> Given an element is added, then set, then added again </li>
+	 * <li> When I build the matrix </li>
+	 * <li> Then setting it drops what was added before, and what's added afterwards is summed </li>
+	 */
+	@Test
+	public void settingAnElementShouldReplaceItsPreviousValues() {
+		CompressedColumnMatrix matrix = new CompressedColumnMatrix.Builder(2, 2)
+				.add(1, 0, 3)
+				.set(1, 0, 2)
+				.add(1, 0, 1)
+				.set(0, 1, 4)
+				.set(0, 1, 5)
+				.build();
+
+		Assert.assertEquals(3, matrix.get(1, 0));
+		Assert.assertEquals(5, matrix.get(0, 1));
+	}
+
+	/**
+	 * <li> Given a boxed matrix </li>
+	 * <li> When I compress it and expand it again </li>
+	 * <li> Then I get the original matrix </li>
+	 */
+	@Test
+	public void compressingAndExpandingShouldKeepTheMatrix() {
+		Integer[][] dense = { {-2, 2}, {0, 1}, {1, 0} };
+
+		CompressedColumnMatrix matrix = CompressedColumnMatrix.fromRowMajor(dense, 3, 2);
+
+		Assert.assertArrayEquals(dense, matrix.toRowMajor());
+	}
+
+	/**
+	 * <li> When I add an element outside the matrix dimensions </li>
+	 * <li> Then an IndexOutOfBoundsException is thrown </li>
+	 */
+	@Test
+	public void addingElementOutsideMatrixShouldThrowException() {
+		try{
+			new CompressedColumnMatrix.Builder(2, 2).add(2, 0, 1);
+			Assert.fail("An exception should've been thrown before this point");
+		} catch (IndexOutOfBoundsException e){
+			Assert.assertEquals("IndexOutOfBoundsException", e.getClass().getSimpleName());
+		}
+	}
+}
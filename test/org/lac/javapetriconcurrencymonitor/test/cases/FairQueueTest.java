@@ -10,6 +10,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.lac.javapetriconcurrencymonitor.test.utils.DummyTask;
 import org.unc.lac.javapetriconcurrencymonitor.queues.FairQueue;
+import org.unc.lac.javapetriconcurrencymonitor.utils.SpinPolicy;
 
 public class FairQueueTest {
 	
@@ -135,4 +136,25 @@ public class FairQueueTest {
 		
 	}
 
+	/**
+	 * <li> Given a null spin policy </li>
+	 * <li> When I create a queue with it, or set it to an existing queue </li>
+	 * <li> Then an IllegalArgumentException is thrown both times </li>
+	 */
+	@Test
+	public void nullSpinPolicyShouldNotBeAllowed() {
+		try {
+			new FairQueue((SpinPolicy) null);
+			Assert.fail("A queue was created with a null spin policy");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+		try {
+			queue.setSpinPolicy(null);
+			Assert.fail("A null spin policy was set");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
 }
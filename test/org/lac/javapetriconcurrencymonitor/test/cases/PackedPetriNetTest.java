@@ -0,0 +1,364 @@
+package org.lac.javapetriconcurrencymonitor.test.cases;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.unc.lac.javapetriconcurrencymonitor.errors.CannotCreatePetriNetError;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.StripedPetriMonitor;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.FirstInLinePolicy;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.MarkingSnapshot;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PackedPetriNet;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNetFireOutcome;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory.petriNetType;
+
+public class PackedPetriNetTest {
+
+	private static final String TEST_PETRI_FOLDER = "/org/lac/javapetriconcurrencymonitor/test/resources/";
+	private static final String MONITOR_TEST_01_PETRI = TEST_PETRI_FOLDER + "monitorTest01.pnml";
+	private static final String MONITOR_TEST_03_PETRI = TEST_PETRI_FOLDER + "monitorTest03.pnml";
+	private static final String MUTUAL_EXCLUSION_PETRI = TEST_PETRI_FOLDER + "mutualExclusion.pnml";
+	private static final String READER_WRITER = TEST_PETRI_FOLDER + "readerWriter.pnml";
+	private static final String PETRI_WITH_GUARD_02 = TEST_PETRI_FOLDER + "petriWithGuard02.pnml";
+	private static final String PETRI_WITH_INHIBITOR_01 = TEST_PETRI_FOLDER + "petriWithInhibitor01.pnml";
+	private static final String PETRI_WITH_RESET_01 = TEST_PETRI_FOLDER + "petriWithReset01.pnml";
+	private static final String PETRI_WITH_RESET_03 = TEST_PETRI_FOLDER + "petriWithReset03.pnml";
+	private static final String PETRI_WITH_READER_01 = TEST_PETRI_FOLDER + "petriWithReader01.pnml";
+	private static final String BOUNDED_INHIBITOR_AND_READER = TEST_PETRI_FOLDER + "boundedInhibitorAndReader.pnml";
+	private static final String INDEPENDENT_CYCLES_PETRI = TEST_PETRI_FOLDER + "independentCycles.pnml";
+	private static final String PETRI_WITH_CUSTOM_NAMES = TEST_PETRI_FOLDER + "petriWithCustomNames.pnml";
+
+	private static PetriNet makePetriNet(String PNML, petriNetType type){
+		PetriNet petri = new PetriNetFactory(PNML).makePetriNet(type);
+		petri.initializePetriNet();
+		return petri;
+	}
+
+	/**
+	 * <li> Given bounded nets with normal, inhibition, reset and reader arcs </li>
+	 * <li> When I fire the same random transitions on a packed net and a place/transition net made from each </li>
+	 * <li> Then both nets give the same outcomes, markings, enabled transitions and enabling degrees </li>
+	 */
+	@Test
+	public void testPackedNetShouldFireAsPlaceTransitionNet() throws Exception {
+		Random random = new Random(7);
+		String[] nets = {MONITOR_TEST_01_PETRI, MUTUAL_EXCLUSION_PETRI, READER_WRITER, BOUNDED_INHIBITOR_AND_READER,
+				PETRI_WITH_RESET_01, PETRI_WITH_RESET_03};
+		for(String PNML : nets){
+			PetriNet packed = makePetriNet(PNML, petriNetType.PACKED);
+			PetriNet reference = makePetriNet(PNML, petriNetType.PLACE_TRANSITION);
+			Assert.assertTrue(packed instanceof PackedPetriNet);
+			int transitionsAmount = reference.getTransitions().length;
+			for(int step = 0; step < 200; step++){
+				Assert.assertArrayEquals(PNML, reference.getCurrentMarking(), packed.getCurrentMarking());
+				Assert.assertArrayEquals(PNML, reference.getEnabledTransitions(), packed.getEnabledTransitions());
+				Assert.assertArrayEquals(PNML, reference.getEnabledTransitionsBitSet(), packed.getEnabledTransitionsBitSet());
+				int transitionIndex = random.nextInt(transitionsAmount);
+				Assert.assertEquals(PNML, reference.getEnablingDegree(reference.getTransitions()[transitionIndex], 3),
+						packed.getEnablingDegree(packed.getTransitions()[transitionIndex], 3));
+				Assert.assertEquals(PNML, reference.fire(transitionIndex), packed.fire(transitionIndex));
+			}
+			Assert.assertEquals(PNML, reference.getFiringSequenceNumber(), packed.getFiringSequenceNumber());
+		}
+	}
+
+	/**
+	 * <li> Given t0 in petriWithGuard02 needs guard "test" to be true and t1 needs it to be false </li>
+	 * <li> When I set "test" to true in a packed net </li>
+	 * <li> Then the guard reads true, t0 is enabled and t1 is not </li>
+	 * <li> And setting it back to false through a map enables t1 and disables t0 </li>
+	 */
+	@Test
+	public void testGuardsShouldBeKeptInThePackedState() throws Exception {
+		PetriNet packed = makePetriNet(PETRI_WITH_GUARD_02, petriNetType.PACKED);
+		Transition t0 = packed.getTransitions()[0];
+		Transition t1 = packed.getTransitions()[1];
+
+		Assert.assertFalse(packed.readGuard("test"));
+		Assert.assertTrue(packed.isEnabled(t1));
+
+		Assert.assertTrue(packed.addGuard("test", true));
+		Assert.assertTrue(packed.readGuard("test"));
+		Assert.assertTrue(packed.isEnabled(t0));
+		Assert.assertFalse(packed.isEnabled(t1));
+
+		Map<String, Boolean> newValues = new HashMap<>();
+		newValues.put("test", false);
+		newValues.put("notAssociated", true);
+		packed.addGuards(newValues);
+		Assert.assertFalse(packed.readGuard("test"));
+		Assert.assertTrue(packed.readGuard("notAssociated"));
+		Assert.assertFalse(packed.isEnabled(t0));
+		Assert.assertTrue(packed.isEnabled(t1));
+	}
+
+	/**
+	 * <li> Given a net with timed transitions </li>
+	 * <li> When I make a packed net from it </li>
+	 * <li> Then a CannotCreatePetriNetError is thrown </li>
+	 */
+	@Test(expected = CannotCreatePetriNetError.class)
+	public void testPackedNetWithTimedTransitionsShouldNotBeCreated() {
+		new PetriNetFactory(PETRI_WITH_CUSTOM_NAMES).makePetriNet(petriNetType.PACKED);
+	}
+
+	/**
+	 * <li> Given nets with a transition without input places, which can put tokens in a place forever </li>
+	 * <li> When I make a packed net from each </li>
+	 * <li> Then a CannotCreatePetriNetError is thrown, since the net can't be proven bounded </li>
+	 */
+	@Test
+	public void testPackedNetThatCantBeProvenBoundedShouldNotBeCreated() {
+		for(String PNML : new String[]{PETRI_WITH_INHIBITOR_01, PETRI_WITH_READER_01}){
+			try {
+				new PetriNetFactory(PNML).makePetriNet(petriNetType.PACKED);
+				Assert.fail(PNML + " was packed");
+			} catch (CannotCreatePetriNetError e) {
+				Assert.assertTrue(e.getMessage().contains("bounded"));
+			}
+		}
+	}
+
+	/**
+	 * <li> Given p2 in readerWriter starts with 5 tokens and never gets more </li>
+	 * <li> When I make a packed net from it </li>
+	 * <li> Then p2 gets the 3 bits its proven bound needs </li>
+	 */
+	@Test
+	public void testPlacesShouldGetTheBitsForTheirProvenBounds() {
+		PackedPetriNet packed = (PackedPetriNet) makePetriNet(READER_WRITER, petriNetType.PACKED);
+		Assert.assertEquals(7, packed.getPlaceBound(2));
+	}
+
+	/**
+	 * <li> Given p0 has a token, t0 moves it to p1 and t1 moves it back </li>
+	 * <li> When I fire t0 on a packed net </li>
+	 * <li> Then the Place objects hold the new marking </li>
+	 * <li> And setting a place's marking through the Place object throws an IllegalStateException </li>
+	 */
+	@Test
+	public void testPlacesShouldReadTheirMarkingFromThePackedState() throws Exception {
+		PetriNet packed = makePetriNet(MONITOR_TEST_03_PETRI, petriNetType.PACKED);
+		Assert.assertEquals(PetriNetFireOutcome.SUCCESS, packed.fire(packed.getTransitions()[0]));
+
+		Assert.assertEquals(0, packed.getPlaces()[0].getMarking());
+		Assert.assertEquals(1, packed.getPlaces()[1].getMarking());
+		try {
+			packed.getPlaces()[0].setMarking(1);
+			Assert.fail("The marking was set through the place");
+		} catch (IllegalStateException e) {
+			Assert.assertEquals(0, packed.getMarking(0));
+		}
+	}
+
+	/**
+	 * <li> Given p0 has a token, t0 moves it to p1 and t1 moves it back </li>
+	 * <li> When I read the enabled transitions of a packed net twice </li>
+	 * <li> Then the same array is returned while no transition is fired </li>
+	 * <li> And firing t0 publishes the transitions enabled in the new state </li>
+	 */
+	@Test
+	public void testEnabledTransitionsShouldBeComputedOncePerState() throws Exception {
+		PetriNet packed = makePetriNet(MONITOR_TEST_03_PETRI, petriNetType.PACKED);
+		boolean[] enabled = packed.getEnabledTransitions();
+		Assert.assertSame(enabled, packed.getEnabledTransitions());
+		Assert.assertArrayEquals(new boolean[]{true, false}, enabled);
+
+		packed.fire(packed.getTransitions()[0]);
+		boolean[] enabledAfterFiring = packed.getEnabledTransitions();
+		Assert.assertNotSame(enabled, enabledAfterFiring);
+		Assert.assertSame(enabledAfterFiring, packed.getEnabledTransitions());
+		Assert.assertArrayEquals(new boolean[]{false, true}, enabledAfterFiring);
+		Assert.assertEquals(2L, packed.getEnabledTransitionsWord(0));
+		Assert.assertArrayEquals(new boolean[]{true, false}, enabled);
+	}
+
+	/**
+	 * <li> Given p0 has a token, t0 moves it to p1 and t1 moves it back </li>
+	 * <li> When 8 threads fire t0 and t1 directly on the packed net, retrying until each fire succeeds, 500 times each </li>
+	 * <li> Then every fire is made exactly once </li>
+	 * <li> And the final marking is {1, 0} </li>
+	 */
+	@Test
+	public void testConcurrentFiresShouldNotLoseAnyFiring() throws Exception {
+		PetriNet packed = makePetriNet(MONITOR_TEST_03_PETRI, petriNetType.PACKED);
+		Transition t0 = packed.getTransitions()[0];
+		Transition t1 = packed.getTransitions()[1];
+		AtomicInteger failures = new AtomicInteger(0);
+
+		Thread[] threads = new Thread[8];
+		for(int i = 0; i < threads.length; i++){
+			threads[i] = new Thread(() -> {
+				try {
+					for(int j = 0; j < 500; j++){
+						while(packed.fire(t0) != PetriNetFireOutcome.SUCCESS){
+							Thread.yield();
+						}
+						while(packed.fire(t1) != PetriNetFireOutcome.SUCCESS){
+							Thread.yield();
+						}
+					}
+				} catch (Exception e) {
+					failures.incrementAndGet();
+				}
+			});
+			threads[i].start();
+		}
+		for(Thread th : threads){
+			th.join(20000);
+			Assert.assertFalse(th.isAlive());
+		}
+
+		Assert.assertEquals(0, failures.get());
+		Assert.assertEquals(8000, packed.getFiringSequenceNumber());
+		Assert.assertArrayEquals(new Integer[]{1, 0}, packed.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given a packed net of two independent cycles, where t1 is informed and t3 is automatic </li>
+	 * <li> And a StripedPetriMonitor firing its transitions outside the monitor </li>
+	 * <li> When th0 waits to fire t1 and I fire t0 and t2 </li>
+	 * <li> Then th0 is woken up and fires t1, and t3 is fired after t2 </li>
+	 * <li> And the final marking is {1, 0, 1, 0} </li>
+	 */
+	@Test
+	public void testStripedMonitorShouldFirePackedNet() throws Exception {
+		PetriNet packed = new PetriNetFactory(INDEPENDENT_CYCLES_PETRI).makePetriNet(petriNetType.PACKED);
+		StripedPetriMonitor monitor = new StripedPetriMonitor(packed, new FirstInLinePolicy(packed));
+		packed.initializePetriNet();
+		Transition[] t = packed.getTransitions();
+
+		Thread th0 = new Thread(() -> {
+			try {
+				monitor.fireTransition(t[1]);
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+		while(!monitor.getQueuesState()[1]){
+			Thread.sleep(10);
+		}
+
+		monitor.fireTransition(t[0]);
+		monitor.fireTransition(t[2]);
+		th0.join(1000);
+
+		Assert.assertFalse(th0.isAlive());
+		Assert.assertArrayEquals(new Integer[]{1, 0, 1, 0}, packed.getCurrentMarking());
+		Assert.assertEquals(4, packed.getFiringSequenceNumber());
+	}
+
+	/**
+	 * <li> Given p0 has a token, t0 moves it to p1 and t1 moves it back </li>
+	 * <li> When 4 threads fire t0 and t1 directly on the packed net while another one takes snapshots </li>
+	 * <li> Then every snapshot holds a single token, and only the transition taking it is enabled </li>
+	 * <li> And the token is in p0 exactly when an even amount of firings was made </li>
+	 */
+	@Test
+	public void testSnapshotsTakenWhileFiringShouldBeConsistent() throws Exception {
+		PetriNet packed = makePetriNet(MONITOR_TEST_03_PETRI, petriNetType.PACKED);
+		Transition t0 = packed.getTransitions()[0];
+		Transition t1 = packed.getTransitions()[1];
+		AtomicInteger failures = new AtomicInteger(0);
+
+		Thread[] threads = new Thread[4];
+		for(int i = 0; i < threads.length; i++){
+			threads[i] = new Thread(() -> {
+				try {
+					for(int j = 0; j < 500; j++){
+						while(packed.fire(t0) != PetriNetFireOutcome.SUCCESS){
+							Thread.yield();
+						}
+						while(packed.fire(t1) != PetriNetFireOutcome.SUCCESS){
+							Thread.yield();
+						}
+					}
+				} catch (Exception e) {
+					failures.incrementAndGet();
+				}
+			});
+			threads[i].start();
+		}
+		int inconsistentSnapshots = 0;
+		boolean firing = true;
+		while(firing){
+			firing = false;
+			for(Thread th : threads){
+				firing |= th.isAlive();
+			}
+			MarkingSnapshot snapshot = packed.snapshot();
+			boolean tokenInP0 = snapshot.getMarking(0) == 1;
+			if(snapshot.getMarking(0) + snapshot.getMarking(1) != 1
+					|| snapshot.isEnabled(0) != tokenInP0
+					|| snapshot.isEnabled(1) == tokenInP0
+					|| (snapshot.getFiringSequenceNumber() % 2 == 0) != tokenInP0){
+				inconsistentSnapshots++;
+			}
+		}
+
+		Assert.assertEquals(0, failures.get());
+		Assert.assertEquals(0, inconsistentSnapshots);
+		Assert.assertEquals(4000, packed.snapshot().getFiringSequenceNumber());
+		Assert.assertEquals(packed.version(), packed.snapshot().getVersion());
+	}
+
+	/**
+	 * <li> Given p0 has a token, t0 moves it to p1 and t1 moves it back </li>
+	 * <li> When 4 threads keep firing t0 and t1 directly on the packed net with no pause </li>
+	 * <li> And I take 200 snapshots </li>
+	 * <li> Then every snapshot is taken while the threads are still firing </li>
+	 * <li> And every snapshot is consistent </li>
+	 */
+	@Test
+	public void testSnapshotShouldNotStarveWhileFiringNeverStops() throws Exception {
+		PetriNet packed = makePetriNet(MONITOR_TEST_03_PETRI, petriNetType.PACKED);
+		Transition t0 = packed.getTransitions()[0];
+		Transition t1 = packed.getTransitions()[1];
+		AtomicInteger failures = new AtomicInteger(0);
+		AtomicBoolean stop = new AtomicBoolean(false);
+
+		Thread[] threads = new Thread[4];
+		for(int i = 0; i < threads.length; i++){
+			threads[i] = new Thread(() -> {
+				try {
+					while(!stop.get()){
+						packed.fire(t0);
+						packed.fire(t1);
+					}
+				} catch (Exception e) {
+					failures.incrementAndGet();
+				}
+			});
+			threads[i].start();
+		}
+		int inconsistentSnapshots = 0;
+		try {
+			for(int i = 0; i < 200; i++){
+				MarkingSnapshot snapshot = packed.snapshot();
+				if(snapshot.getMarking(0) + snapshot.getMarking(1) != 1
+						|| (snapshot.getFiringSequenceNumber() % 2 == 0) != (snapshot.getMarking(0) == 1)){
+					inconsistentSnapshots++;
+				}
+			}
+			for(Thread th : threads){
+				Assert.assertTrue(th.isAlive());
+			}
+		} finally {
+			stop.set(true);
+			for(Thread th : threads){
+				th.join(10000);
+			}
+		}
+
+		Assert.assertEquals(0, failures.get());
+		Assert.assertEquals(0, inconsistentSnapshots);
+	}
+}
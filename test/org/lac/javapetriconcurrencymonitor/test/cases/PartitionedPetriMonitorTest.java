@@ -0,0 +1,194 @@
+package org.lac.javapetriconcurrencymonitor.test.cases;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.PartitionedPetriMonitor;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.TransitionFiredEvent;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.FirstInLinePolicy;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory.petriNetType;
+
+import rx.observers.Observers;
+
+public class PartitionedPetriMonitorTest {
+
+	PartitionedPetriMonitor monitor;
+	PetriNet petri;
+
+	private static final String TEST_PETRI_FOLDER = "/org/lac/javapetriconcurrencymonitor/test/resources/";
+	private static final String INDEPENDENT_CYCLES_PETRI = TEST_PETRI_FOLDER + "independentCycles.pnml";
+	private static final String GUARDED_CYCLES_PETRI = TEST_PETRI_FOLDER + "guardedCycles.pnml";
+	private static final String SHARED_GUARD_CYCLES_PETRI = TEST_PETRI_FOLDER + "sharedGuardCycles.pnml";
+
+	/**
+	 * Creates petri and monitor from given PNML, and initializes the petri net.
+	 * In independentCycles, p0(1) -> t0 -> p1 -> t1 -> p0 and p2(1) -> t2 -> p3 -> t3 -> p2,
+	 * where t1 is informed and t3 is automatic.
+	 * guardedCycles is the same net with guard "first" on t0 and guard "second" on t2,
+	 * and sharedGuardCycles has guard "open" on both t0 and t2
+	 * @param PNML path to the PNML file
+	 */
+	private void setUpMonitor(String PNML){
+		petri = new PetriNetFactory(PNML).makePetriNet(petriNetType.PLACE_TRANSITION);
+		monitor = new PartitionedPetriMonitor(petri, new FirstInLinePolicy(petri));
+		petri.initializePetriNet();
+	}
+
+	/**
+	 * <li> Given a net made of two independent cycles </li>
+	 * <li> When I create a PartitionedPetriMonitor for it </li>
+	 * <li> Then the net is split into two partitions, one for each cycle </li>
+	 * <li> And each partition has its own lock stripe </li>
+	 */
+	@Test
+	public void testMonitorShouldSplitIndependentCyclesIntoPartitions() {
+		setUpMonitor(INDEPENDENT_CYCLES_PETRI);
+
+		Transition[] t = petri.getTransitions();
+		Assert.assertEquals(2, monitor.getPartitionsAmount());
+		Assert.assertEquals(2, petri.getLockStripes());
+		Assert.assertEquals(monitor.getComponents().getComponent(t[0]), monitor.getComponents().getComponent(t[1]));
+		Assert.assertEquals(monitor.getComponents().getComponent(t[2]), monitor.getComponents().getComponent(t[3]));
+		Assert.assertNotEquals(monitor.getComponents().getComponent(t[0]), monitor.getComponents().getComponent(t[2]));
+	}
+
+	/**
+	 * <li> Given t0 and t2 are in different cycles but share guard "open" </li>
+	 * <li> When I create a PartitionedPetriMonitor for the net </li>
+	 * <li> Then the net is kept in a single partition </li>
+	 */
+	@Test
+	public void testSharedGuardShouldKeepCyclesInTheSamePartition() {
+		setUpMonitor(SHARED_GUARD_CYCLES_PETRI);
+
+		Assert.assertEquals(1, monitor.getPartitionsAmount());
+		Assert.assertEquals(0, monitor.getComponents().getGuardComponent("open"));
+	}
+
+	/**
+	 * <li> Given t1 needs a token in p1 and t3 is automatic </li>
+	 * <li> And th0 is waiting to fire t1 </li>
+	 * <li> When I fire t0 and t2 </li>
+	 * <li> Then th0 is woken up and fires t1 </li>
+	 * <li> And t3 is fired after t2 </li>
+	 * <li> And the final marking is {1, 0, 1, 0} </li>
+	 */
+	@Test
+	public void testFiresShouldBeRoutedToTheTransitionsPartition() throws Exception {
+		setUpMonitor(INDEPENDENT_CYCLES_PETRI);
+
+		Transition[] t = petri.getTransitions();
+		List<TransitionFiredEvent> events = new ArrayList<>();
+		monitor.subscribeToTransitionEvents(t[1], Observers.create(events::add));
+
+		Thread th0 = new Thread(() -> {
+			try {
+				monitor.fireTransition(t[1]);
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+		while(!monitor.getQueuesState()[1]){
+			Thread.sleep(10);
+		}
+
+		monitor.fireTransition(t[0]);
+		monitor.fireTransition("t2");
+		th0.join(1000);
+
+		Assert.assertFalse(th0.isAlive());
+		Assert.assertArrayEquals(new Integer[]{1, 0, 1, 0}, petri.getCurrentMarking());
+		Assert.assertEquals(1, events.size());
+		Assert.assertEquals(4, petri.getFiringSequenceNumber());
+	}
+
+	/**
+	 * <li> Given guard "second" is false, so t2 is disabled </li>
+	 * <li> And th0 is waiting to fire t2 </li>
+	 * <li> When I set "second" to true </li>
+	 * <li> Then th0 is woken up and fires t2 </li>
+	 * <li> And the automatic t3 is fired afterwards </li>
+	 * <li> And t0's partition is not affected </li>
+	 */
+	@Test
+	public void testSetGuardShouldBeRoutedToTheGuardsPartition() throws Exception {
+		setUpMonitor(GUARDED_CYCLES_PETRI);
+
+		Transition t2 = petri.getTransitions()[2];
+		Assert.assertEquals(2, monitor.getPartitionsAmount());
+
+		Thread th0 = new Thread(() -> {
+			try {
+				monitor.fireTransition(t2);
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+		while(!monitor.getQueuesState()[2]){
+			Thread.sleep(10);
+		}
+
+		monitor.setGuard("second", true);
+		th0.join(1000);
+
+		Assert.assertFalse(th0.isAlive());
+		Assert.assertTrue(petri.readGuard("second"));
+		Assert.assertFalse(petri.readGuard("first"));
+		Assert.assertArrayEquals(new Integer[]{1, 0, 1, 0}, petri.getCurrentMarking());
+		Assert.assertEquals(2, petri.getFiringSequenceNumber());
+	}
+
+	/**
+	 * <li> Given two independent cycles with a token each </li>
+	 * <li> When 8 threads fire t0 and t1 and other 8 threads fire t2, 200 times each </li>
+	 * <li> Then every fire is made, including the automatic t3 after each t2 </li>
+	 * <li> And every event is sent to the observer subscribed to all transitions </li>
+	 * <li> And the final marking is {1, 0, 1, 0} </li>
+	 */
+	@Test
+	public void testConcurrentFiresInIndependentPartitionsShouldAllBeMade() throws Exception {
+		setUpMonitor(INDEPENDENT_CYCLES_PETRI);
+
+		Transition[] t = petri.getTransitions();
+		List<TransitionFiredEvent> events = new ArrayList<>();
+		monitor.subscribeToAllTransitionsEvents(Observers.create(events::add));
+		AtomicInteger failures = new AtomicInteger(0);
+
+		Thread[] threads = new Thread[16];
+		for(int i = 0; i < threads.length; i++){
+			final boolean firstCycle = i % 2 == 0;
+			threads[i] = new Thread(() -> {
+				try {
+					for(int j = 0; j < 200; j++){
+						if(firstCycle){
+							monitor.fireTransition(t[0]);
+							monitor.fireTransition(t[1]);
+						} else {
+							monitor.fireTransition(t[2]);
+						}
+					}
+				} catch (Exception e) {
+					failures.incrementAndGet();
+				}
+			});
+			threads[i].start();
+		}
+		for(Thread th : threads){
+			th.join(10000);
+			Assert.assertFalse(th.isAlive());
+		}
+
+		Assert.assertEquals(0, failures.get());
+		Assert.assertEquals(6400, petri.getFiringSequenceNumber());
+		Assert.assertEquals(1600, events.size());
+		Assert.assertArrayEquals(new Integer[]{1, 0, 1, 0}, petri.getCurrentMarking());
+	}
+}
@@ -4,6 +4,15 @@ package org.lac.javapetriconcurrencymonitor.test.cases;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -11,17 +20,26 @@ import org.junit.Test;
 import org.lac.javapetriconcurrencymonitor.test.utils.TransitionEventObserver;
 import org.unc.lac.javapetriconcurrencymonitor.errors.IllegalTransitionFiringError;
 import org.unc.lac.javapetriconcurrencymonitor.exceptions.PetriNetException;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.AsyncEventDispatcher;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.AsyncEventDispatcher.OverflowPolicy;
 import org.unc.lac.javapetriconcurrencymonitor.monitor.PetriMonitor;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.PetriMonitor.BackpressureStrategy;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.TransitionFiredEvent;
 import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.FirstInLinePolicy;
 import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNetFireOutcome;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Label;
 import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
 import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory;
 import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory.petriNetType;
+import org.unc.lac.javapetriconcurrencymonitor.utils.SpinPolicy;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import rx.Subscription;
+import rx.observers.Observers;
+import rx.observers.TestSubscriber;
 
 public class PetriMonitorTest {
 	
@@ -1061,4 +1079,864 @@ setUpMonitor(MONITOR_TEST_02_PETRI);
 			Assert.assertEquals(IllegalArgumentException.class, e.getClass());
 		}
 	}
+
+	/**
+	 * <li> Given t0 has a guard "test" which expects true to fire </li>
+	 * <li> When I set "test" to true and an unknown guard together </li>
+	 * <li> Then IndexOutOfBoundsException is thrown </li>
+	 * <li> And "test" keeps its value </li>
+	 * <li> When I set only "test" to true in a batch </li>
+	 * <li> Then t0 gets enabled </li>
+	 */
+	@Test
+	public void testSetGuardsShouldUpdateAllGuardsOrNone() throws PetriNetException {
+		setUpMonitor(PETRI_WITH_GUARD_02);
+
+		Transition t0 = petri.getTransitions()[0];
+		Assert.assertFalse(petri.isEnabled(t0));
+
+		HashMap<String, Boolean> newValues = new HashMap<>();
+		newValues.put("test", true);
+		newValues.put("ghost", true);
+		try{
+			monitor.setGuards(newValues);
+			Assert.fail("An exception should've been thrown before this point");
+		} catch (IndexOutOfBoundsException e){
+			// expected
+		}
+		Assert.assertFalse(petri.readGuard("test"));
+		Assert.assertFalse(petri.getEnabledTransitions()[t0.getIndex()]);
+
+		newValues.remove("ghost");
+		monitor.setGuards(newValues);
+		Assert.assertTrue(petri.readGuard("test"));
+		Assert.assertTrue(petri.getEnabledTransitions()[t0.getIndex()]);
+	}
+
+	/**
+	 * <li> Given t0 is informed and always enabled </li>
+	 * <li> And obs is subscribed to t0's events </li>
+	 * <li> When I fire t0 five times in one call </li>
+	 * <li> Then t0 is fired five times </li>
+	 * <li> And obs gets a single event carrying the count </li>
+	 */
+	@Test
+	public void testMultipleFiringShouldSendASingleEventWithTheCount() throws Exception {
+		setUpMonitor(MONITOR_TEST_02_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		TransitionEventObserver obs = new TransitionEventObserver();
+		monitor.subscribeToTransition(t0, obs);
+
+		Assert.assertEquals(5, monitor.fireTransition(t0, 5));
+
+		ArrayList<String> events = obs.getEvents();
+		Assert.assertEquals(1, events.size());
+		JsonNode event = jsonParser.readTree(events.get(0));
+		Assert.assertEquals(t0.getId(), event.get(ID).asText());
+		Assert.assertEquals(5, event.get("count").asInt());
+	}
+
+	/**
+	 * <li> Given p0 feeds t0 and has one token </li>
+	 * <li> When I non-perennial fire t0 three times </li>
+	 * <li> Then t0 is fired only once </li>
+	 * <li> And the fired count is reported </li>
+	 */
+	@Test
+	public void testNonPerennialMultipleFiringShouldReportPartialCount() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Assert.assertEquals(1, monitor.fireTransition(t0, 3, true));
+
+		Integer[] expectedMarking = {0, 1};
+		Assert.assertArrayEquals(expectedMarking, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given p0 feeds t0, t0 feeds p1, p1 feeds t1 and t1 feeds p0 </li>
+	 * <li> And p0 has one token </li>
+	 * <li> When I fire the sequence t1, t0 </li>
+	 * <li> Then nothing is fired since t1 is not enabled </li>
+	 * <li> When I fire t0 and t1 atomically as a set </li>
+	 * <li> Then nothing is fired since there are not tokens enough for both </li>
+	 * <li> When I fire the sequence t0, t1 </li>
+	 * <li> Then both are fired and the marking is back to the initial one </li>
+	 */
+	@Test
+	public void testFiringSequenceShouldFireAllTransitionsOrNone() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+		Integer[] initialMarking = {1, 0};
+
+		Assert.assertFalse(monitor.fireSequence(t1, t0));
+		Assert.assertArrayEquals(initialMarking, petri.getCurrentMarking());
+
+		Assert.assertFalse(monitor.fireAtomically(new HashSet<>(Arrays.asList(t0, t1))));
+		Assert.assertArrayEquals(initialMarking, petri.getCurrentMarking());
+
+		TransitionEventObserver obs = new TransitionEventObserver();
+		monitor.subscribeToTransition(t0, obs);
+		Assert.assertTrue(monitor.fireSequence(t0, t1));
+		Assert.assertArrayEquals(initialMarking, petri.getCurrentMarking());
+		Assert.assertEquals(1, obs.getEvents().size());
+	}
+
+	/**
+	 * <li> Given t0 feeds p2 from no place, and t2 moves a token from p0 to p1 but is inhibited by p2 </li>
+	 * <li> And p2 is empty, so t2 is enabled </li>
+	 * <li> When I fire t2 and t0 atomically in a set iterated as t2, t0 </li>
+	 * <li> Then nothing is fired, since t0 is fired first and then p2 inhibits t2 </li>
+	 * <li> And a set iterated as t0, t2 gives the same outcome </li>
+	 */
+	@Test
+	public void testFiringASetShouldNotDependOnItsIterationOrder() throws Exception {
+		setUpMonitor(PETRI_WITH_INHIBITOR_01);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t2 = petri.getTransitions()[2];
+		Integer[] initialMarking = petri.getCurrentMarking();
+		Assert.assertTrue(petri.isEnabled(t2));
+
+		Assert.assertEquals(PetriNetFireOutcome.NOT_ENABLED, petri.fireAtomically(new LinkedHashSet<>(Arrays.asList(t2, t0))));
+		Assert.assertEquals(PetriNetFireOutcome.NOT_ENABLED, petri.fireAtomically(new LinkedHashSet<>(Arrays.asList(t0, t2))));
+		Assert.assertFalse(monitor.fireAtomically(new LinkedHashSet<>(Arrays.asList(t2, t0))));
+		Assert.assertArrayEquals(initialMarking, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given t0 is informed and always enabled </li>
+	 * <li> And events is subscribed to t0's typed events </li>
+	 * <li> When I fire t0 twice </li>
+	 * <li> Then events gets two events matching t0 </li>
+	 * <li> And the second one has a greater sequence number </li>
+	 */
+	@Test
+	public void testTypedSubscriptionShouldReceiveTransitionFiredEvents() throws Exception {
+		setUpMonitor(MONITOR_TEST_02_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		ArrayList<TransitionFiredEvent> events = new ArrayList<>();
+		monitor.subscribeToTransitionEvents(t0.getName(), Observers.create(events::add));
+
+		monitor.fireTransition(t0);
+		monitor.fireTransition(t0);
+
+		Assert.assertEquals(2, events.size());
+		Assert.assertEquals(t0.getIndex(), events.get(0).getIndex());
+		Assert.assertEquals(t0.getId(), events.get(0).getId());
+		Assert.assertEquals(1, events.get(0).getCount());
+		Assert.assertTrue(events.get(1).getSequenceNumber() > events.get(0).getSequenceNumber());
+		Assert.assertEquals(t0.getId(), jsonParser.readTree(events.get(1).toJson()).get(ID).asText());
+	}
+
+	/**
+	 * <li> Given t0 and t1 are informed </li>
+	 * <li> And obs0 is subscribed to t0's events </li>
+	 * <li> And auditor is subscribed to every transition's events </li>
+	 * <li> When I fire t0 and then t1 </li>
+	 * <li> Then obs0 gets only t0's event </li>
+	 * <li> And auditor gets both events in firing order </li>
+	 */
+	@Test
+	public void testEventsShouldBeRoutedToTheFiredTransitionSubscribersAndAuditors() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+		ArrayList<TransitionFiredEvent> events0 = new ArrayList<>();
+		ArrayList<TransitionFiredEvent> auditedEvents = new ArrayList<>();
+		monitor.subscribeToTransitionEvents(t0, Observers.create(events0::add));
+		monitor.subscribeToAllTransitionsEvents(Observers.create(auditedEvents::add));
+
+		monitor.fireTransition(t0);
+		monitor.fireTransition(t1);
+
+		Assert.assertEquals(1, events0.size());
+		Assert.assertEquals(t0.getIndex(), events0.get(0).getIndex());
+		Assert.assertEquals(2, auditedEvents.size());
+		Assert.assertEquals(t0.getIndex(), auditedEvents.get(0).getIndex());
+		Assert.assertEquals(t1.getIndex(), auditedEvents.get(1).getIndex());
+	}
+
+	/**
+	 * <li> Given t0 is informed and always enabled </li>
+	 * <li> And the asynchronous event dispatch is enabled </li>
+	 * <li> And obs0 is subscribed to t0's events </li>
+	 * <li> When I fire t0 100 times </li>
+	 * <li> And I disable the asynchronous dispatch </li>
+	 * <li> Then obs0 got 100 events in firing order </li>
+	 * <li> And none of them was delivered by the firing thread </li>
+	 */
+	@Test
+	public void testAsyncDispatchShouldDeliverEveryEventInOrderFromAnotherThread() throws Exception {
+		setUpMonitor(MONITOR_TEST_02_PETRI);
+		monitor.enableAsyncEventDispatch(16, 2, OverflowPolicy.BLOCK);
+
+		Transition t0 = petri.getTransitions()[0];
+		ArrayList<TransitionFiredEvent> events = new ArrayList<>();
+		ArrayList<Thread> deliveringThreads = new ArrayList<>();
+		monitor.subscribeToTransitionEvents(t0, Observers.create((TransitionFiredEvent event) -> {
+			events.add(event);
+			deliveringThreads.add(Thread.currentThread());
+		}));
+
+		for(int i = 0; i < 100; i++){
+			monitor.fireTransition(t0);
+		}
+		monitor.disableAsyncEventDispatch();
+
+		Assert.assertEquals(100, events.size());
+		for(int i = 1; i < events.size(); i++){
+			Assert.assertTrue(events.get(i).getSequenceNumber() > events.get(i - 1).getSequenceNumber());
+		}
+		Assert.assertFalse(deliveringThreads.contains(Thread.currentThread()));
+	}
+
+	/**
+	 * <li> Given t0 is informed and always enabled </li>
+	 * <li> And the asynchronous event dispatch is enabled with a 4 events buffer dropping the oldest events </li>
+	 * <li> And obs0 is subscribed to t0's events and blocks on the first one </li>
+	 * <li> When I fire t0 20 times </li>
+	 * <li> Then every fire succeeds even though obs0 is blocked </li>
+	 * <li> And when obs0 is released it gets the first event and the last 4 </li>
+	 * <li> And 15 events are reported as dropped </li>
+	 */
+	@Test
+	public void testAsyncDispatchDroppingOldestShouldNotBlockTheMonitor() throws Exception {
+		setUpMonitor(MONITOR_TEST_02_PETRI);
+		monitor.enableAsyncEventDispatch(4, 1, OverflowPolicy.DROP_OLDEST);
+
+		Transition t0 = petri.getTransitions()[0];
+		ArrayList<TransitionFiredEvent> events = new ArrayList<>();
+		CountDownLatch firstEventReceived = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		monitor.subscribeToTransitionEvents(t0, Observers.create((TransitionFiredEvent event) -> {
+			events.add(event);
+			firstEventReceived.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {}
+		}));
+
+		monitor.fireTransition(t0);
+		firstEventReceived.await();
+		for(int i = 1; i < 20; i++){
+			monitor.fireTransition(t0);
+		}
+
+		Assert.assertEquals(20, monitor.getEventDispatcher().getLag(t0.getIndex()));
+
+		release.countDown();
+		AsyncEventDispatcher dispatcher = monitor.getEventDispatcher();
+		monitor.disableAsyncEventDispatch();
+
+		Assert.assertEquals(5, events.size());
+		Assert.assertEquals(15, dispatcher.getDroppedEvents());
+		Assert.assertEquals(0, dispatcher.getLag(t0.getIndex()));
+	}
+
+	/**
+	 * <li> Given t0 is informed and always enabled </li>
+	 * <li> And the asynchronous event dispatch is enabled with a 4 events buffer coalescing events </li>
+	 * <li> And obs0 is subscribed to t0's events and blocks on the first one </li>
+	 * <li> When I fire t0 20 times </li>
+	 * <li> And obs0 is released </li>
+	 * <li> Then the counts of the events obs0 got add up to 20 </li>
+	 * <li> And the last event has the last firing's sequence number </li>
+	 */
+	@Test
+	public void testAsyncDispatchCoalescingShouldKeepTheTotalCount() throws Exception {
+		setUpMonitor(MONITOR_TEST_02_PETRI);
+		monitor.enableAsyncEventDispatch(4, 1, OverflowPolicy.COALESCE);
+
+		Transition t0 = petri.getTransitions()[0];
+		ArrayList<TransitionFiredEvent> events = new ArrayList<>();
+		CountDownLatch firstEventReceived = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		monitor.subscribeToTransitionEvents(t0, Observers.create((TransitionFiredEvent event) -> {
+			events.add(event);
+			firstEventReceived.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {}
+		}));
+
+		monitor.fireTransition(t0);
+		firstEventReceived.await();
+		for(int i = 1; i < 20; i++){
+			monitor.fireTransition(t0);
+		}
+		long lastSequenceNumber = petri.getFiringSequenceNumber();
+
+		release.countDown();
+		monitor.disableAsyncEventDispatch();
+
+		int totalCount = 0;
+		for(TransitionFiredEvent event : events){
+			totalCount += event.getCount();
+		}
+		Assert.assertEquals(20, totalCount);
+		Assert.assertTrue(events.size() < 20);
+		Assert.assertEquals(lastSequenceNumber, events.get(events.size() - 1).getSequenceNumber());
+	}
+
+	/**
+	 * <li> Given a dispatcher with 2 threads and a 4 events buffer coalescing events, for transitions t0 and t1 </li>
+	 * <li> And t1's events are delivered by the second dispatcher thread, which blocks on the first one </li>
+	 * <li> When I publish 20 events of t1 </li>
+	 * <li> And the second dispatcher thread is released </li>
+	 * <li> Then the counts of t1's events add up to 20 </li>
+	 * <li> And the counts of the events delivered to the channel listening to all transitions add up to 20 too </li>
+	 */
+	@Test
+	public void testAsyncDispatchCoalescingShouldDeliverEveryEventToAllTransitionsChannel() throws Exception {
+		Transition t1 = new Transition("t1", new Label(false, true), 1, "t1");
+		ArrayList<TransitionFiredEvent> transitionEvents = new ArrayList<>();
+		ArrayList<TransitionFiredEvent> allTransitionsEvents = new ArrayList<>();
+		CountDownLatch firstEventReceived = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4, 2, OverflowPolicy.COALESCE, 2,
+				event -> {
+					transitionEvents.add(event);
+					firstEventReceived.countDown();
+					try {
+						release.await();
+					} catch (InterruptedException e) {}
+				},
+				allTransitionsEvents::add);
+
+		dispatcher.publish(new TransitionFiredEvent(t1, 1, System.currentTimeMillis(), 1));
+		firstEventReceived.await();
+		for(int i = 2; i <= 20; i++){
+			dispatcher.publish(new TransitionFiredEvent(t1, 1, System.currentTimeMillis(), i));
+		}
+
+		release.countDown();
+		dispatcher.shutdown(true);
+
+		int transitionCount = 0;
+		for(TransitionFiredEvent event : transitionEvents){
+			transitionCount += event.getCount();
+		}
+		int allTransitionsCount = 0;
+		for(TransitionFiredEvent event : allTransitionsEvents){
+			allTransitionsCount += event.getCount();
+		}
+		Assert.assertTrue(transitionEvents.size() < 20);
+		Assert.assertEquals(20, transitionCount);
+		Assert.assertEquals(20, allTransitionsCount);
+		Assert.assertEquals(20, allTransitionsEvents.get(allTransitionsEvents.size() - 1).getSequenceNumber());
+	}
+
+	/**
+	 * <li> Given t0 is informed and always enabled </li>
+	 * <li> And sub0 requested 1 event from a buffering publisher of t0's events </li>
+	 * <li> And sub1 requested 1 event from a dropping publisher of t0's events </li>
+	 * <li> And sub2 requested 1 event from a latest publisher of t0's events </li>
+	 * <li> When I fire t0 5 times </li>
+	 * <li> And every subscriber requests 10 more events </li>
+	 * <li> Then sub0 gets the 5 events </li>
+	 * <li> And sub1 gets only the first event </li>
+	 * <li> And sub2 gets the first and the last events </li>
+	 */
+	@Test
+	public void testPublishersShouldRespectTheRequestedAmountOfEvents() throws Exception {
+		setUpMonitor(MONITOR_TEST_02_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		TestSubscriber<TransitionFiredEvent> sub0 = new TestSubscriber<>(1);
+		TestSubscriber<TransitionFiredEvent> sub1 = new TestSubscriber<>(1);
+		TestSubscriber<TransitionFiredEvent> sub2 = new TestSubscriber<>(1);
+		monitor.getTransitionEventsPublisher(t0, BackpressureStrategy.BUFFER, 0).subscribe(sub0);
+		monitor.getTransitionEventsPublisher(t0, BackpressureStrategy.DROP, 0).subscribe(sub1);
+		monitor.getTransitionEventsPublisher(t0, BackpressureStrategy.LATEST, 0).subscribe(sub2);
+
+		for(int i = 0; i < 5; i++){
+			monitor.fireTransition(t0);
+		}
+
+		sub0.assertValueCount(1);
+		sub1.assertValueCount(1);
+		sub2.assertValueCount(1);
+		sub0.assertNoErrors();
+
+		sub0.requestMore(10);
+		sub1.requestMore(10);
+		sub2.requestMore(10);
+
+		sub0.assertValueCount(5);
+		sub1.assertValueCount(1);
+		sub2.assertValueCount(2);
+		Assert.assertEquals(petri.getFiringSequenceNumber(), sub2.getOnNextEvents().get(1).getSequenceNumber());
+	}
+
+	/**
+	 * <li> Given t0 is informed and always enabled </li>
+	 * <li> And sub0 is subscribed to t0's events in batches of up to 3 events </li>
+	 * <li> When I fire t0 7 times </li>
+	 * <li> Then sub0 gets 2 batches of 3 events right away </li>
+	 * <li> And the last event comes alone once the timespan elapses </li>
+	 */
+	@Test
+	public void testBatchesPublisherShouldGroupEvents() throws Exception {
+		setUpMonitor(MONITOR_TEST_02_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		TestSubscriber<List<TransitionFiredEvent>> sub0 = new TestSubscriber<>();
+		monitor.getTransitionEventsBatchesPublisher(t0, 200, TimeUnit.MILLISECONDS, 3, BackpressureStrategy.BUFFER, 0).subscribe(sub0);
+
+		for(int i = 0; i < 7; i++){
+			monitor.fireTransition(t0);
+		}
+
+		sub0.assertValueCount(2);
+		Assert.assertEquals(3, sub0.getOnNextEvents().get(0).size());
+		Assert.assertEquals(3, sub0.getOnNextEvents().get(1).size());
+
+		Thread.sleep(400);
+
+		sub0.assertValueCount(3);
+		Assert.assertEquals(1, sub0.getOnNextEvents().get(2).size());
+		sub0.unsubscribe();
+	}
+
+	/**
+	 * <li> Given p0 has a token and t1 needs a token in p1 </li>
+	 * <li> When I fire t1 asynchronously </li>
+	 * <li> Then the returned future is not completed and t1 is not fired </li>
+	 * <li> And when I fire t0 </li>
+	 * <li> Then t1 is fired on my behalf and the future is completed </li>
+	 */
+	@Test
+	public void testAsyncFireShouldWaitWithoutAThreadUntilTheTransitionIsFired() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+
+		CompletableFuture<Void> asyncFire = monitor.fireTransitionAsync(t1);
+
+		Assert.assertFalse(asyncFire.isDone());
+		Assert.assertArrayEquals(new Integer[]{1, 0}, petri.getCurrentMarking());
+
+		monitor.fireTransition(t0);
+
+		Assert.assertTrue(asyncFire.isDone());
+		Assert.assertArrayEquals(new Integer[]{1, 0}, petri.getCurrentMarking());
+		Assert.assertEquals(2, petri.getFiringSequenceNumber());
+	}
+
+	/**
+	 * <li> Given p0 has a token and t1 needs a token in p1 </li>
+	 * <li> And th0 is sleeping in t1's queue </li>
+	 * <li> And then I fire t1 asynchronously </li>
+	 * <li> When I fire t0 </li>
+	 * <li> Then th0 fires t1 and the future is not completed </li>
+	 * <li> And when I fire t0 again </li>
+	 * <li> Then t1 is fired on my behalf and the future is completed </li>
+	 */
+	@Test
+	public void testAsyncFireShouldKeepArrivalOrderWithSleepingThreads() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+
+		Thread th0 = new Thread(() -> {
+			try {
+				monitor.fireTransition(t1);
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+		while(!monitor.getQueuesState()[t1.getIndex()]){
+			Thread.sleep(10);
+		}
+
+		CompletableFuture<Void> asyncFire = monitor.fireTransitionAsync(t1);
+
+		monitor.fireTransition(t0);
+		th0.join(1000);
+
+		Assert.assertFalse(th0.isAlive());
+		Assert.assertFalse(asyncFire.isDone());
+
+		monitor.fireTransition(t0);
+
+		Assert.assertTrue(asyncFire.isDone());
+		Assert.assertArrayEquals(new Integer[]{1, 0}, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given p0 has a token and t1 needs a token in p1 </li>
+	 * <li> And I fire t1 asynchronously </li>
+	 * <li> When I cancel the returned future </li>
+	 * <li> And I fire t0 </li>
+	 * <li> Then t1 is not fired </li>
+	 */
+	@Test
+	public void testCancelledAsyncFireShouldNotBeMade() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+
+		CompletableFuture<Void> asyncFire = monitor.fireTransitionAsync(t1);
+		asyncFire.cancel(false);
+
+		monitor.fireTransition(t0);
+
+		Assert.assertArrayEquals(new Integer[]{0, 1}, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given p0 has a token and t1 needs a token in p1 </li>
+	 * <li> When I fire t1 with a 100 ms timeout </li>
+	 * <li> Then the fire gives up and reports t1 was not fired </li>
+	 * <li> And when I fire t0 </li>
+	 * <li> Then t1 is not fired, since I'm no longer waiting for it </li>
+	 */
+	@Test
+	public void testTimedFireShouldGiveUpWhenTheTimeElapses() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+
+		Assert.assertFalse(monitor.fireTransition(t1, 100, TimeUnit.MILLISECONDS));
+
+		monitor.fireTransition(t0);
+
+		Assert.assertArrayEquals(new Integer[]{0, 1}, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given p0 has a token and t1 needs a token in p1 </li>
+	 * <li> And th0 is firing t1 with a 200 ms timeout </li>
+	 * <li> When th1 fires t0 and keeps the monitor, blocked in t0's event observer for seconds </li>
+	 * <li> Then th0 gives up when its time elapses, without waiting for the monitor </li>
+	 * <li> And t1 is not fired once th1 leaves the monitor </li>
+	 */
+	@Test
+	public void testTimedFireShouldGiveUpInTimeWhileTheMonitorIsBusy() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+		CountDownLatch observerInside = new CountDownLatch(1);
+		CountDownLatch leaveMonitor = new CountDownLatch(1);
+		monitor.subscribeToTransitionEvents(t0, Observers.create((TransitionFiredEvent event) -> {
+			observerInside.countDown();
+			try {
+				leaveMonitor.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}));
+		AtomicBoolean fired = new AtomicBoolean(true);
+
+		Thread th0 = new Thread(() -> {
+			try {
+				fired.set(monitor.fireTransition(t1, 200, TimeUnit.MILLISECONDS));
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		Thread th1 = new Thread(() -> {
+			try {
+				monitor.fireTransition(t0);
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+		Thread.sleep(50);
+		th1.start();
+		Assert.assertTrue(observerInside.await(1, TimeUnit.SECONDS));
+
+		th0.join(1000);
+		Assert.assertFalse(th0.isAlive());
+		Assert.assertFalse(fired.get());
+
+		leaveMonitor.countDown();
+		th1.join();
+		Assert.assertArrayEquals(new Integer[]{0, 1}, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given p0 has a token and t1 needs a token in p1 </li>
+	 * <li> And th0 will fire t0 in 100 ms </li>
+	 * <li> When I fire t1 with a 5 seconds timeout </li>
+	 * <li> Then t1 is fired before the time elapses </li>
+	 */
+	@Test
+	public void testTimedFireShouldFireWhenEnabledInTime() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+
+		Thread th0 = new Thread(() -> {
+			try {
+				Thread.sleep(100);
+				monitor.fireTransition(t0);
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+
+		Assert.assertTrue(monitor.fireTransition(t1, 5, TimeUnit.SECONDS));
+		th0.join();
+
+		Assert.assertArrayEquals(new Integer[]{1, 0}, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given p0 has a token and t1 needs a token in p1 </li>
+	 * <li> And th0 is waiting to fire t1 interruptibly </li>
+	 * <li> When I interrupt th0 </li>
+	 * <li> Then th0 gets an InterruptedException </li>
+	 * <li> And when I fire t0 </li>
+	 * <li> Then t1 is not fired </li>
+	 */
+	@Test
+	public void testInterruptibleFireShouldGiveUpWhenInterrupted() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+
+		CountDownLatch interrupted = new CountDownLatch(1);
+		Thread th0 = new Thread(() -> {
+			try {
+				monitor.fireTransitionInterruptibly(t1);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+		Thread.sleep(100);
+
+		th0.interrupt();
+
+		Assert.assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+
+		monitor.fireTransition(t0);
+
+		Assert.assertArrayEquals(new Integer[]{0, 1}, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given p0 has a token and t1 needs a token in p1 </li>
+	 * <li> And the monitor spins up to 10 seconds before parking </li>
+	 * <li> And th0 is waiting to fire t1 </li>
+	 * <li> When I fire t0 </li>
+	 * <li> Then th0 fires t1 </li>
+	 * <li> And th0 never parked while waiting </li>
+	 */
+	@Test
+	public void testSpinningThreadShouldFireWhenTheTransitionIsEnabled() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+		monitor.setSpinPolicy(SpinPolicy.fixed(10, TimeUnit.SECONDS));
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+
+		Thread th0 = new Thread(() -> {
+			try {
+				monitor.fireTransition(t1);
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+		while(!monitor.getQueuesState()[1]){
+			Thread.sleep(10);
+		}
+
+		Assert.assertEquals(Thread.State.RUNNABLE, th0.getState());
+
+		monitor.fireTransition(t0);
+		th0.join(1000);
+
+		Assert.assertFalse(th0.isAlive());
+		Assert.assertArrayEquals(new Integer[]{1, 0}, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given p0 has a token and t1 needs a token in p1 </li>
+	 * <li> And th0 is waiting to fire t1 with the lowest priority </li>
+	 * <li> And th1 is waiting to fire t1 with the highest priority </li>
+	 * <li> When I fire t0 </li>
+	 * <li> Then th1 fires t1 </li>
+	 * <li> And th0 keeps waiting </li>
+	 */
+	@Test
+	public void testHigherPriorityThreadShouldFireFirst() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+
+		Assert.assertEquals(PetriMonitor.DEFAULT_PRIORITY_LEVELS, monitor.getPriorityLevels());
+
+		List<Integer> firers = Collections.synchronizedList(new ArrayList<>());
+		Thread th0 = new Thread(() -> {
+			try {
+				monitor.fireTransitionWithPriority(t1, monitor.getPriorityLevels() - 1);
+				firers.add(0);
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		Thread th1 = new Thread(() -> {
+			try {
+				monitor.fireTransitionWithPriority(t1, 0);
+				firers.add(1);
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+		while(!monitor.getQueuesState()[1]){
+			Thread.sleep(10);
+		}
+		th1.start();
+		Thread.sleep(100);
+
+		monitor.fireTransition(t0);
+		th1.join(1000);
+
+		Assert.assertEquals(Arrays.asList(1), firers);
+		Assert.assertTrue(th0.isAlive());
+
+		monitor.fireTransition(t0);
+		th0.join(1000);
+
+		Assert.assertEquals(Arrays.asList(1, 0), firers);
+		Assert.assertArrayEquals(new Integer[]{1, 0}, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given p0 has a token and t1 needs a token in p1 </li>
+	 * <li> And an asynchronous fire of t1 is waiting, with the lowest priority </li>
+	 * <li> And th0 is waiting to fire t1 with the highest priority </li>
+	 * <li> When I fire t0 </li>
+	 * <li> Then th0 is the one woken up and fires t1 </li>
+	 * <li> And the asynchronous fire keeps waiting until I fire t0 again </li>
+	 */
+	@Test
+	public void testHigherPriorityThreadShouldFireBeforeAnEarlierAsyncFire() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+
+		CompletableFuture<Void> asyncFire = monitor.fireTransitionAsync(t1);
+		Thread th0 = new Thread(() -> {
+			try {
+				monitor.fireTransitionWithPriority(t1, 0);
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+		while(!monitor.getQueuesState()[1]){
+			Thread.sleep(10);
+		}
+
+		monitor.fireTransition(t0);
+		th0.join(1000);
+
+		Assert.assertFalse(th0.isAlive());
+		Assert.assertFalse(asyncFire.isDone());
+
+		monitor.fireTransition(t0);
+		asyncFire.get(1, TimeUnit.SECONDS);
+
+		Assert.assertArrayEquals(new Integer[]{1, 0}, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given p0 has a token and t1 needs a token in p1 </li>
+	 * <li> And th0 is waiting up to 5 seconds to fire t1 with the lowest priority </li>
+	 * <li> And th1 is waiting interruptibly to fire t1 with the highest priority </li>
+	 * <li> When I fire t0 </li>
+	 * <li> Then th1 fires t1 </li>
+	 * <li> And th0 keeps waiting until I fire t0 again </li>
+	 */
+	@Test
+	public void testBoundedAndInterruptibleFiresShouldWaitWithTheirPriority() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+
+		List<Integer> firers = Collections.synchronizedList(new ArrayList<>());
+		Thread th0 = new Thread(() -> {
+			try {
+				if(monitor.fireTransitionWithPriority(t1, monitor.getPriorityLevels() - 1, 5, TimeUnit.SECONDS)){
+					firers.add(0);
+				}
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		Thread th1 = new Thread(() -> {
+			try {
+				monitor.fireTransitionInterruptiblyWithPriority(t1, 0);
+				firers.add(1);
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+		Thread.sleep(100);
+		th1.start();
+		Thread.sleep(100);
+
+		monitor.fireTransition(t0);
+		th1.join(1000);
+
+		Assert.assertEquals(Arrays.asList(1), firers);
+		Assert.assertTrue(th0.isAlive());
+
+		monitor.fireTransition(t0);
+		th0.join(1000);
+
+		Assert.assertEquals(Arrays.asList(1, 0), firers);
+		Assert.assertArrayEquals(new Integer[]{1, 0}, petri.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given a monitor with the default priority levels </li>
+	 * <li> When I fire t0 waiting up to a second with a priority out of range </li>
+	 * <li> Then an IllegalArgumentException is thrown </li>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testBoundedFireWithInvalidPriorityShouldThrowException() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		monitor.fireTransitionWithPriority(petri.getTransitions()[0], -1, 1, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * <li> Given a monitor with the default priority levels </li>
+	 * <li> When I fire t0 with a priority out of range </li>
+	 * <li> Then an IllegalArgumentException is thrown </li>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testFireWithInvalidPriorityShouldThrowException() throws Exception {
+		setUpMonitor(MONITOR_TEST_03_PETRI);
+
+		monitor.fireTransitionWithPriority(petri.getTransitions()[0], monitor.getPriorityLevels());
+	}
 }
@@ -4,6 +4,8 @@ import static org.junit.Assert.*;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -782,4 +784,137 @@ public class PetriMonitorTimeTest {
 		Assert.assertFalse(queuesState[t0.getIndex()]);
 		Assert.assertFalse(queuesState[t1.getIndex()]);
 	}
+
+	/**
+	 * <li> Given t0 is enabled </li>
+	 * <li> And t0 is timed [a,b], a>0, b>a </li>
+	 * <li> When I try to fire t0 waiting up to a time shorter than a </li>
+	 * <li> Then the firing gives up right away, without waiting for the time to elapse </li>
+	 * <li> And t0 is not fired </li>
+	 */
+	@Test
+	public void testBoundedFireOfATimedTransitionShouldGiveUpWhenItsTimeSpanBeginsTooLate() throws Exception {
+		setUpMonitor(TIMED_PETRI_NET);
+		timedPetriNet.initializePetriNet();
+
+		Transition t0 = timedPetriNet.getTransitions()[0];
+		Integer[] initialMarking = timedPetriNet.getCurrentMarking();
+		long t0BeginTime = t0.getTimeSpan().getTimespanBeginning();
+
+		long start = System.nanoTime();
+		Assert.assertFalse(monitor.fireTransition(t0, t0BeginTime / 2, TimeUnit.MILLISECONDS));
+
+		Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < t0BeginTime / 2);
+		Assert.assertArrayEquals(initialMarking, timedPetriNet.getCurrentMarking());
+		Assert.assertFalse(monitor.isAnyThreadSleepingForTransition(t0.getIndex()));
+	}
+
+	/**
+	 * <li> Given t0 is enabled </li>
+	 * <li> And t0 is timed [a,b], a>0, b>a </li>
+	 * <li> When I try to fire t0 waiting up to a time longer than a </li>
+	 * <li> Then the firing sleeps until t0's time span begins </li>
+	 * <li> And t0 is fired </li>
+	 */
+	@Test
+	public void testBoundedFireOfATimedTransitionShouldSleepUntilItsTimeSpanAndFire() throws Exception {
+		setUpMonitor(TIMED_PETRI_NET);
+		timedPetriNet.initializePetriNet();
+
+		Transition t0 = timedPetriNet.getTransitions()[0];
+		long t0BeginTime = t0.getTimeSpan().getTimespanBeginning();
+
+		long start = System.nanoTime();
+		Assert.assertTrue(monitor.fireTransition(t0, t0BeginTime * 2, TimeUnit.MILLISECONDS));
+
+		Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= t0BeginTime / 2);
+		Integer[] expectedMarking = {0, 0, 1, 1};
+		Assert.assertArrayEquals(expectedMarking, timedPetriNet.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given t0 and t3 are enabled by the same place p0 </li>
+	 * <li> And t0 is timed [a,b], a>0, b>a </li>
+	 * <li> And t3 is fired, disabling t0 </li>
+	 * <li> When I try to fire t0 waiting up to a given time </li>
+	 * <li> Then the firing gives up when the time elapses </li>
+	 * <li> And t0 is not fired </li>
+	 */
+	@Test
+	public void testBoundedFireOfADisabledTimedTransitionShouldGiveUpWhenTheTimeElapses() throws Exception {
+		setUpMonitor(TIMED_PETRI_NET);
+		timedPetriNet.initializePetriNet();
+
+		Transition t0 = timedPetriNet.getTransitions()[0];
+		Transition t3 = timedPetriNet.getTransitions()[3];
+		monitor.fireTransition(t3);
+		Assert.assertFalse(timedPetriNet.isEnabled(t0));
+		Integer[] marking = timedPetriNet.getCurrentMarking();
+
+		long start = System.nanoTime();
+		Assert.assertFalse(monitor.fireTransition(t0, 100, TimeUnit.MILLISECONDS));
+
+		Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+		Assert.assertArrayEquals(marking, timedPetriNet.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given t0 is enabled </li>
+	 * <li> And t0 is timed [a,b], a>0, b>a </li>
+	 * <li> When th0 fires t0 interruptibly before its time span </li>
+	 * <li> And th0 is interrupted while sleeping for the time span </li>
+	 * <li> Then th0 gets an InterruptedException </li>
+	 * <li> And t0 is not fired, not even after its time span begins </li>
+	 */
+	@Test
+	public void testInterruptibleFireOfATimedTransitionShouldGiveUpWhenInterruptedBeforeItsTimeSpan() throws Exception {
+		setUpMonitor(TIMED_PETRI_NET);
+		timedPetriNet.initializePetriNet();
+
+		Transition t0 = timedPetriNet.getTransitions()[0];
+		Integer[] initialMarking = timedPetriNet.getCurrentMarking();
+		long t0BeginTime = t0.getTimeSpan().getTimespanBeginning();
+		AtomicBoolean interrupted = new AtomicBoolean(false);
+
+		Thread th0 = new Thread(() -> {
+			try {
+				monitor.fireTransitionInterruptibly(t0);
+			} catch (InterruptedException e) {
+				interrupted.set(true);
+			} catch (PetriNetException | IllegalTransitionFiringError e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+
+		Thread.sleep(t0BeginTime / 10);
+		th0.interrupt();
+		th0.join(t0BeginTime);
+
+		Assert.assertTrue(interrupted.get());
+		Thread.sleep(t0BeginTime);
+		Assert.assertArrayEquals(initialMarking, timedPetriNet.getCurrentMarking());
+	}
+
+	/**
+	 * <li> Given t0 is enabled </li>
+	 * <li> And t0 is timed [a,b], a>0, b>a </li>
+	 * <li> When I fire t0 interruptibly before its time span </li>
+	 * <li> Then t0 is fired once its time span begins </li>
+	 */
+	@Test
+	public void testInterruptibleFireOfATimedTransitionShouldSleepUntilItsTimeSpanAndFire() throws Exception {
+		setUpMonitor(TIMED_PETRI_NET);
+		timedPetriNet.initializePetriNet();
+
+		Transition t0 = timedPetriNet.getTransitions()[0];
+		long t0BeginTime = t0.getTimeSpan().getTimespanBeginning();
+
+		long start = System.nanoTime();
+		monitor.fireTransitionInterruptibly(t0);
+
+		Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= t0BeginTime / 2);
+		Integer[] expectedMarking = {0, 0, 1, 1};
+		Assert.assertArrayEquals(expectedMarking, timedPetriNet.getCurrentMarking());
+	}
 }
@@ -157,6 +157,36 @@ public class PetriNetFactoryTest {
 		}
 	}
 	
+	/**
+	 * <li> Given a parser that reads arc p0 -> t0 twice, with weights 2 and 3 </li>
+	 * <li> And arc t0 -> p1 twice, with weights 1 and 4 </li>
+	 * <li> When I make a petri net from it </li>
+	 * <li> Then the pre and post matrices keep the weight of the last arc read </li>
+	 * <li> And the incidence matrix accumulates every arc, as the dense matrices did </li>
+	 */
+	@Test
+	public void petriNetFactoryShouldKeepTheLastRepeatedArc() throws Exception {
+		Place p0 = new Place("p0", 5, 0, "p0");
+		Place p1 = new Place("p1", 0, 1, "p1");
+		Transition t0 = new Transition("t0", new Label(false, false), 0, new TimeSpan(0,0), "t0");
+		final Arc[] arcs = {
+			new Arc("a0", p0, t0, 2),
+			new Arc("a1", t0, p1, 1),
+			new Arc("a2", p0, t0, 3),
+			new Arc("a3", t0, p1, 4)
+		};
+		PnmlParser repeatedArcsParser = Mockito.mock(PnmlParser.class);
+		Mockito.when(repeatedArcsParser.parseFileAndGetPetriComponents())
+			.thenReturn(new Triplet<Place[], Transition[], Arc[]>(new Place[]{ p0, p1 }, new Transition[]{ t0 }, arcs));
+		
+		PetriNet petriNet = new PetriNetFactory(repeatedArcsParser).makePetriNet(petriNetType.PLACE_TRANSITION);
+		
+		Assert.assertEquals(Integer.valueOf(3), petriNet.getPre()[0][0]);
+		Assert.assertEquals(Integer.valueOf(4), petriNet.getPost()[1][0]);
+		Assert.assertEquals(Integer.valueOf(-5), petriNet.getInc()[0][0]);
+		Assert.assertEquals(Integer.valueOf(5), petriNet.getInc()[1][0]);
+	}
+	
 	@Test
 	public void petriNetFactoryShouldReturnPlacesInOrder(){
 		try{
@@ -1,6 +1,9 @@
 package org.lac.javapetriconcurrencymonitor.test.cases;
 
 import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -10,6 +13,7 @@ import org.junit.Test;
 import org.unc.lac.javapetriconcurrencymonitor.exceptions.PetriNetException;
 import org.unc.lac.javapetriconcurrencymonitor.parser.PnmlParser;
 import org.unc.lac.javapetriconcurrencymonitor.parser.TinaPnmlParser;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.MarkingSnapshot;
 import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet;
 import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNetFireOutcome;
 import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Place;
@@ -29,6 +33,9 @@ public class PetriNetTest {
 	private static final String PETRI_WITH_READER_01 = TEST_PETRI_FOLDER + "petriWithReader01.pnml";
 	private static final String TIMED_PETRI_NET = TEST_PETRI_FOLDER + "timedPetri.pnml";
 	private static final String TIMED_PETRI_NET_02 = TEST_PETRI_FOLDER + "timedPetri02.pnml";
+	private static final String MONITOR_TEST_03_PETRI = TEST_PETRI_FOLDER + "monitorTest03.pnml";
+	private static final String INDEPENDENT_CYCLES_PETRI = TEST_PETRI_FOLDER + "independentCycles.pnml";
+	private static final String GUARDED_CYCLES_PETRI = TEST_PETRI_FOLDER + "guardedCycles.pnml";
 	
 	private static PetriNetFactory factory;
 	private PetriNet petriNet;
@@ -849,6 +856,31 @@ public class PetriNetTest {
 		}
 	}
 
+	/**
+	 * <li> Given petriNet has transition t2 and place p4 </li>
+	 * <li> When I resolve their names and ids to indexes </li>
+	 * <li> Then the indexes match the nodes with those names and ids </li>
+	 * <li> And resolving an unknown name throws IllegalArgumentException </li>
+	 */
+	@Test
+	public void testNamesAndIdsAreResolvedToIndexes() throws FileNotFoundException {
+		readFileAndMakePetriNet(READER_WRITER);
+		petriNet.initializePetriNet();
+
+		Transition t2 = petriNet.getTransitions()[2];
+		Place p4 = petriNet.getPlace("p4");
+		Assert.assertEquals(2, petriNet.getTransitionIndex(t2.getName()));
+		Assert.assertEquals(p4.getIndex(), petriNet.getPlaceIndex("p4"));
+		Assert.assertSame(t2, petriNet.getTransitionById(t2.getId()));
+		Assert.assertSame(p4, petriNet.getPlaceById(p4.getId()));
+		try{
+			petriNet.getTransitionIndex("ghost");
+			Assert.fail("The exception should be thrown before");
+		} catch (IllegalArgumentException e){
+			// expected
+		}
+	}
+
 	/**
 	 * <li> Given petriNet has reader arcs </li>
 	 * <li> When I ask if it has reader arcs </li>
@@ -885,4 +917,262 @@ public class PetriNetTest {
 		petriNet.initializePetriNet();
 		Assert.assertTrue(petriNet.hasResetArcs());
 	}
+
+	/**
+	 * <li> Given petriNet has inhibitor, reset and normal arcs </li>
+	 * <li> When I fire enabled transitions many times </li>
+	 * <li> Then after each fire the enabled transitions match the enabling of every transition </li>
+	 */
+	@Test
+	public void testEnabledTransitionsAreUpdatedAfterEachFire() throws FileNotFoundException, PetriNetException {
+		for(String pnml : new String[]{READER_WRITER, PETRI_WITH_INHIBITOR_01, PETRI_WITH_RESET_02, PETRI_WITH_READER_01}){
+			readFileAndMakePetriNet(pnml);
+			petriNet.initializePetriNet();
+			for(int fires = 0; fires < 50; fires++){
+				boolean[] enabled = petriNet.getEnabledTransitions();
+				int toFire = -1;
+				for(int i = 0; i < enabled.length; i++){
+					Assert.assertEquals(petriNet.isEnabled(i), enabled[i]);
+					if(enabled[i] && (toFire < 0 || fires % 2 == 0)){
+						toFire = i;
+					}
+				}
+				if(toFire < 0){
+					break;
+				}
+				Assert.assertEquals(PetriNetFireOutcome.SUCCESS, petriNet.fire(toFire));
+			}
+		}
+	}
+
+	/**
+	 * <li> Given a transition is enabled n times from the initial marking </li>
+	 * <li> When I fire it n times in one step </li>
+	 * <li> Then the marking is the same as firing it n times in a row on another net </li>
+	 * <li> And after those n firings it's disabled </li>
+	 * <li> And firing it more times than enabled fires nothing </li>
+	 */
+	@Test
+	public void testMultipleFiringShouldMatchFiringInARow() throws FileNotFoundException, PetriNetException {
+		for(String pnml : new String[]{READER_WRITER, PETRI_WITH_INHIBITOR_01, PETRI_WITH_READER_01}){
+			readFileAndMakePetriNet(pnml);
+			petriNet.initializePetriNet();
+			PetriNet oneByOne = new PetriNetFactory(new TinaPnmlParser(pnml)).makePetriNet(petriNetType.PLACE_TRANSITION);
+			oneByOne.initializePetriNet();
+			for(Transition t : petriNet.getTransitions()){
+				int degree = petriNet.getEnablingDegree(t, 1000);
+				if(degree == 0 || degree == 1000){
+					continue;
+				}
+				Assert.assertEquals(PetriNetFireOutcome.NOT_ENABLED, petriNet.fire(t, degree + 1));
+				Assert.assertEquals(PetriNetFireOutcome.SUCCESS, petriNet.fire(t, degree));
+				for(int i = 0; i < degree; i++){
+					Assert.assertEquals(PetriNetFireOutcome.SUCCESS, oneByOne.fire(oneByOne.getTransitions()[t.getIndex()]));
+				}
+				Assert.assertArrayEquals(oneByOne.getCurrentMarking(), petriNet.getCurrentMarking());
+				Assert.assertArrayEquals(oneByOne.getEnabledTransitions(), petriNet.getEnabledTransitions());
+				Assert.assertFalse(petriNet.isEnabled(t));
+			}
+		}
+	}
+
+	/**
+	 * <li> Given petriNet has inhibitor, reset and normal arcs and a lock stripe for each place </li>
+	 * <li> When I fire enabled transitions many times </li>
+	 * <li> Then the marking and enabled transitions are the same as on a net with a single stripe </li>
+	 * <li> And each transition's last firing sequence number is its last firing step </li>
+	 */
+	@Test
+	public void testStripedNetShouldFireAsSingleStripeNet() throws FileNotFoundException, PetriNetException {
+		for(String pnml : new String[]{READER_WRITER, PETRI_WITH_INHIBITOR_01, PETRI_WITH_RESET_02, PETRI_WITH_READER_01}){
+			readFileAndMakePetriNet(pnml);
+			petriNet.setLockStripes(petriNet.getPlaces().length);
+			petriNet.initializePetriNet();
+			PetriNet singleStripe = new PetriNetFactory(new TinaPnmlParser(pnml)).makePetriNet(petriNetType.PLACE_TRANSITION);
+			singleStripe.initializePetriNet();
+			for(int fires = 0; fires < 50; fires++){
+				int toFire = -1;
+				for(int i = 0; i < petriNet.getTransitions().length; i++){
+					if(petriNet.isEnabled(i) && (toFire < 0 || fires % 2 == 0)){
+						toFire = i;
+					}
+				}
+				if(toFire < 0){
+					break;
+				}
+				Assert.assertEquals(PetriNetFireOutcome.SUCCESS, petriNet.fire(toFire));
+				Assert.assertEquals(PetriNetFireOutcome.SUCCESS, singleStripe.fire(toFire));
+				Assert.assertArrayEquals(singleStripe.getCurrentMarking(), petriNet.getCurrentMarking());
+				Assert.assertArrayEquals(singleStripe.getEnabledTransitions(), petriNet.getEnabledTransitions());
+				Assert.assertEquals(fires + 1, petriNet.getLastFiringSequenceNumber(petriNet.getTransitions()[toFire]));
+			}
+		}
+	}
+
+	/**
+	 * <li> Given petriNet is initialized </li>
+	 * <li> When I set its lock stripes </li>
+	 * <li> Then an IllegalStateException is thrown </li>
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testSetLockStripesAfterInitializingShouldThrowException() throws FileNotFoundException {
+		readFileAndMakePetriNet(READER_WRITER);
+		petriNet.initializePetriNet();
+
+		petriNet.setLockStripes(2);
+	}
+
+	/**
+	 * <li> Given p0 has a token, t0 moves it to p1 and t1 moves it back </li>
+	 * <li> When I take a snapshot, fire t0, try to fire t0 again and take another snapshot </li>
+	 * <li> Then each snapshot holds the marking, enabled transitions and firing sequence number when it was taken </li>
+	 * <li> And the version is advanced by the successful fire only </li>
+	 * <li> And changing the arrays returned by a snapshot doesn't change it </li>
+	 */
+	@Test
+	public void testSnapshotShouldHoldTheStateWhenItWasTaken() throws FileNotFoundException, PetriNetException {
+		readFileAndMakePetriNet(MONITOR_TEST_03_PETRI);
+		petriNet.initializePetriNet();
+
+		MarkingSnapshot before = petriNet.snapshot();
+		Assert.assertEquals(before.getVersion(), petriNet.version());
+		Assert.assertEquals(PetriNetFireOutcome.SUCCESS, petriNet.fire(0));
+		long versionAfterFiring = petriNet.version();
+		Assert.assertNotEquals(before.getVersion(), versionAfterFiring);
+		Assert.assertEquals(PetriNetFireOutcome.NOT_ENABLED, petriNet.fire(0));
+		Assert.assertEquals(versionAfterFiring, petriNet.version());
+		MarkingSnapshot after = petriNet.snapshot();
+
+		Assert.assertArrayEquals(new Integer[]{1, 0}, before.getMarking());
+		Assert.assertArrayEquals(new boolean[]{true, false}, before.getEnabledTransitions());
+		Assert.assertEquals(0, before.getFiringSequenceNumber());
+		Assert.assertArrayEquals(new Integer[]{0, 1}, after.getMarking());
+		Assert.assertArrayEquals(new boolean[]{false, true}, after.getEnabledTransitions());
+		Assert.assertEquals(1, after.getFiringSequenceNumber());
+		Assert.assertEquals(versionAfterFiring, after.getVersion());
+
+		after.getEnabledTransitions()[0] = true;
+		after.getMarking()[0] = 5;
+		Assert.assertFalse(after.isEnabled(0));
+		Assert.assertEquals(0, after.getMarking(0));
+	}
+
+	/**
+	 * <li> Given a net made of two independent cycles, p0 -> t0 -> p1 -> t1 -> p0 and p2 -> t2 -> p3 -> t3 -> p2, with a token each </li>
+	 * <li> And a lock stripe for each place </li>
+	 * <li> When two threads fire around each cycle while another one takes snapshots </li>
+	 * <li> Then every snapshot holds a token in each cycle and the transitions enabled by that marking </li>
+	 * <li> And its firing sequence number matches the amount of tokens moved in both cycles </li>
+	 */
+	@Test
+	public void testSnapshotsTakenWhileFiringShouldBeConsistent() throws Exception {
+		readFileAndMakePetriNet(INDEPENDENT_CYCLES_PETRI);
+		petriNet.setLockStripes(petriNet.getPlaces().length);
+		petriNet.initializePetriNet();
+		AtomicInteger failures = new AtomicInteger(0);
+
+		Thread[] firers = new Thread[2];
+		for(int i = 0; i < firers.length; i++){
+			final int firstTransition = 2 * i;
+			firers[i] = new Thread(() -> {
+				try {
+					for(int j = 0; j < 2000; j++){
+						for(int t = firstTransition; t < firstTransition + 2; t++){
+							if(petriNet.fire(t) != PetriNetFireOutcome.SUCCESS){
+								failures.incrementAndGet();
+							}
+						}
+					}
+				} catch (Exception e) {
+					failures.incrementAndGet();
+				}
+			});
+			firers[i].start();
+		}
+		int inconsistentSnapshots = 0;
+		while(firers[0].isAlive() || firers[1].isAlive()){
+			MarkingSnapshot snapshot = petriNet.snapshot();
+			for(int place = 0; place < 4; place += 2){
+				if(snapshot.getMarking(place) + snapshot.getMarking(place + 1) != 1
+						|| snapshot.isEnabled(place) != (snapshot.getMarking(place) == 1)
+						|| snapshot.isEnabled(place + 1) != (snapshot.getMarking(place + 1) == 1)){
+					inconsistentSnapshots++;
+				}
+			}
+			if(snapshot.getFiringSequenceNumber() % 2 != (snapshot.getMarking(1) + snapshot.getMarking(3)) % 2){
+				inconsistentSnapshots++;
+			}
+		}
+		for(Thread th : firers){
+			th.join(10000);
+		}
+
+		Assert.assertEquals(0, failures.get());
+		Assert.assertEquals(0, inconsistentSnapshots);
+		Assert.assertEquals(8000, petriNet.snapshot().getFiringSequenceNumber());
+		Assert.assertEquals(petriNet.version(), petriNet.snapshot().getVersion());
+	}
+
+	/**
+	 * <li> Given p0 -> t0 -> p1 -> t1 -> p0 and p2 -> t2 -> p3 -> t3 -> p2 with a token in p0 and p2 </li>
+	 * <li> And t0 has a guard "first" and t2 has a guard "second", both expecting true to fire </li>
+	 * <li> And t1's entry in the enabled transitions is stale, saying it's enabled </li>
+	 * <li> When I set "second" and then "first" to true </li>
+	 * <li> Then t2 and then t0 get enabled </li>
+	 * <li> And t1's stale entry is left as it was, since it has no guard </li>
+	 * <li> And t3 keeps disabled </li>
+	 */
+	@Test
+	public void testSetGuardShouldOnlyReevaluateItsTransitions() throws FileNotFoundException {
+		readFileAndMakePetriNet(GUARDED_CYCLES_PETRI);
+		petriNet.initializePetriNet();
+		boolean[] enabled = petriNet.getEnabledTransitions();
+		Assert.assertArrayEquals(new boolean[]{false, false, false, false}, enabled);
+		// the net's own array, so a transition re-evaluated by the guard change would overwrite this
+		enabled[1] = true;
+
+		Assert.assertTrue(petriNet.addGuard("second", true));
+		Assert.assertArrayEquals(new boolean[]{false, true, true, false}, petriNet.getEnabledTransitions());
+
+		Assert.assertTrue(petriNet.addGuard("first", true));
+		Assert.assertArrayEquals(new boolean[]{true, true, true, false}, petriNet.getEnabledTransitions());
+	}
+
+	/**
+	 * <li> Given t0 has a guard "first" and t2 has a guard "second", both expecting true to fire </li>
+	 * <li> When I read a guard that was never set </li>
+	 * <li> Then an IndexOutOfBoundsException is thrown </li>
+	 * <li> And setting it registers it with its value, without changing any transition's enabling </li>
+	 * <li> And setting it again only changes its value </li>
+	 * <li> And setting it together with "second" enables t2 only </li>
+	 */
+	@Test
+	public void testGuardsNotAssociatedToTransitionsShouldNotChangeEnabling() throws FileNotFoundException {
+		readFileAndMakePetriNet(GUARDED_CYCLES_PETRI);
+		petriNet.initializePetriNet();
+		boolean[] initiallyEnabled = petriNet.getEnabledTransitions().clone();
+		int guardsAmount = petriNet.getGuardsAmount();
+
+		try {
+			petriNet.readGuard("unknown");
+			Assert.fail("An IndexOutOfBoundsException should've been thrown");
+		} catch (IndexOutOfBoundsException e) {}
+
+		Assert.assertFalse(petriNet.addGuard("unknown", true));
+		Assert.assertTrue(petriNet.readGuard("unknown"));
+		Assert.assertEquals(guardsAmount + 1, petriNet.getGuardsAmount());
+		Assert.assertArrayEquals(initiallyEnabled, petriNet.getEnabledTransitions());
+
+		Assert.assertTrue(petriNet.addGuard("unknown", false));
+		Assert.assertFalse(petriNet.readGuard("unknown"));
+		Assert.assertArrayEquals(initiallyEnabled, petriNet.getEnabledTransitions());
+
+		Map<String, Boolean> newValues = new HashMap<>();
+		newValues.put("unknown", true);
+		newValues.put("second", true);
+		petriNet.addGuards(newValues);
+		Assert.assertTrue(petriNet.readGuard("unknown"));
+		Assert.assertFalse(petriNet.readGuard("first"));
+		Assert.assertArrayEquals(new boolean[]{false, false, true, false}, petriNet.getEnabledTransitions());
+	}
 }
@@ -1,14 +1,22 @@
 package org.lac.javapetriconcurrencymonitor.test.cases;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.unc.lac.javapetriconcurrencymonitor.utils.PriorityBinaryLock;
 import org.unc.lac.javapetriconcurrencymonitor.utils.PriorityBinaryLock.LockPriority;
+import org.unc.lac.javapetriconcurrencymonitor.utils.SpinPolicy;
 
 public class PriorityBinaryLockTest {
 
@@ -370,4 +378,371 @@ public class PriorityBinaryLockTest {
 			Assert.fail("No exception should've been thrown: " + e.getMessage());
 		}
 	}
+
+	/**
+	 * <li> Given lock l0 gets locked </li>
+	 * <li> When thread th0 tries to lock l0 with a 100 ms timeout </li>
+	 * <li> Then th0 gives up without the lock </li>
+	 * <li> And l0's queues are empty </li>
+	 * <li> And when l0 is unlocked, th1 can lock it </li>
+	 */
+	@Test
+	public void testTryLockShouldLeaveTheQueueWhenTheTimeElapses() throws Exception {
+		PriorityBinaryLock l0 = new PriorityBinaryLock();
+		l0.lock();
+
+		FutureTask<Boolean> th0 = new FutureTask<>(() -> l0.tryLock(LockPriority.LOW, 100, TimeUnit.MILLISECONDS));
+		new Thread(th0).start();
+
+		Assert.assertFalse(th0.get(1, TimeUnit.SECONDS));
+		Assert.assertFalse(l0.hasQueuedThreads());
+
+		l0.unlock();
+
+		FutureTask<Boolean> th1 = new FutureTask<>(() -> l0.tryLock(LockPriority.LOW, 100, TimeUnit.MILLISECONDS));
+		new Thread(th1).start();
+
+		Assert.assertTrue(th1.get(1, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * <li> Given lock l0 gets locked </li>
+	 * <li> And thread th0 is waiting to lock l0 interruptibly </li>
+	 * <li> When I interrupt th0 </li>
+	 * <li> Then th0 gets an InterruptedException </li>
+	 * <li> And l0's queues are empty </li>
+	 */
+	@Test
+	public void testLockInterruptiblyShouldLeaveTheQueueWhenInterrupted() throws Exception {
+		PriorityBinaryLock l0 = new PriorityBinaryLock();
+		l0.lock();
+
+		FutureTask<Boolean> task = new FutureTask<>(() -> {
+			try {
+				l0.lockInterruptibly(LockPriority.HIGH);
+				return false;
+			} catch (InterruptedException e) {
+				return true;
+			}
+		});
+		Thread th0 = new Thread(task);
+		th0.start();
+		Thread.sleep(50);
+		Assert.assertEquals(1, l0.getHighPriorityQueueLength());
+
+		th0.interrupt();
+
+		Assert.assertTrue(task.get(1, TimeUnit.SECONDS));
+		Assert.assertFalse(l0.hasQueuedThreads());
+	}
+
+	/**
+	 * <li> Given lock l0 gets locked </li>
+	 * <li> And 10 threads try to take l0 with low priority, one after the other </li>
+	 * <li> When l0 is unlocked by each thread that takes it </li>
+	 * <li> Then the threads take l0 in the same order they arrived </li>
+	 */
+	@Test
+	public void testThreadsWithSamePriorityShouldTakeTheLockInArrivalOrder() throws Exception {
+		PriorityBinaryLock l0 = new PriorityBinaryLock();
+		l0.lock();
+
+		List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+		Thread[] threads = new Thread[10];
+		for(int i = 0; i < threads.length; i++){
+			final int id = i;
+			threads[i] = new Thread(() -> {
+				l0.lock(LockPriority.LOW);
+				order.add(id);
+				l0.unlock();
+			});
+			threads[i].start();
+			// wait for the thread to be queued before starting the next one
+			while(l0.getLowPriorityQueueLength() != i + 1){
+				Thread.sleep(1);
+			}
+		}
+
+		l0.unlock();
+		for(Thread th : threads){
+			th.join(1000);
+		}
+
+		Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), order);
+		Assert.assertFalse(l0.hasQueuedThreads());
+	}
+
+	/**
+	 * <li> Given lock l0 gets locked </li>
+	 * <li> And thread th0 gave up waiting for l0 after 50 ms </li>
+	 * <li> When l0 is unlocked </li>
+	 * <li> Then a try to lock l0 without waiting takes it </li>
+	 * <li> And once unlocked again, l0 is free </li>
+	 */
+	@Test
+	public void testTryLockShouldTakeTheLockOnceTheWaitingThreadsGaveUp() throws Exception {
+		PriorityBinaryLock l0 = new PriorityBinaryLock();
+		l0.lock();
+
+		FutureTask<Boolean> th0 = new FutureTask<>(() -> l0.tryLock(LockPriority.HIGH, 50, TimeUnit.MILLISECONDS));
+		new Thread(th0).start();
+		Assert.assertFalse(th0.get(1, TimeUnit.SECONDS));
+
+		l0.unlock();
+
+		Assert.assertTrue(l0.tryLock());
+		Assert.assertTrue(l0.isLocked());
+
+		l0.unlock();
+
+		Assert.assertFalse(l0.isLocked());
+	}
+
+	/**
+	 * <li> Given lock l0 spins up to 10 seconds before parking </li>
+	 * <li> And l0 gets locked </li>
+	 * <li> When thread th0 tries to lock l0 </li>
+	 * <li> Then th0 keeps running instead of parking </li>
+	 * <li> And th0 takes l0 once it's unlocked </li>
+	 */
+	@Test
+	public void testFixedSpinPolicyShouldKeepTheWaitingThreadRunning() throws Exception {
+		PriorityBinaryLock l0 = new PriorityBinaryLock(SpinPolicy.fixed(10, TimeUnit.SECONDS));
+		l0.lock();
+
+		FutureTask<Boolean> task = new FutureTask<>(() -> {
+			l0.lock();
+			return true;
+		});
+		Thread th0 = new Thread(task);
+		th0.start();
+		while(l0.getLowPriorityQueueLength() != 1){
+			Thread.sleep(1);
+		}
+		Thread.sleep(50);
+
+		Assert.assertEquals(Thread.State.RUNNABLE, th0.getState());
+
+		l0.unlock();
+
+		Assert.assertTrue(task.get(1, TimeUnit.SECONDS));
+		Assert.assertTrue(l0.isLocked());
+	}
+
+	/**
+	 * <li> Given lock l0 has an adaptive spin policy of at most 1 microsecond </li>
+	 * <li> And l0 is held 5 ms several times </li>
+	 * <li> When thread th0 tries to lock l0 while taken </li>
+	 * <li> Then l0's average hold time is at least 1 ms </li>
+	 * <li> And th0 parks without spinning </li>
+	 */
+	@Test
+	public void testAdaptiveSpinPolicyShouldNotSpinForLongHeldLocks() throws Exception {
+		PriorityBinaryLock l0 = new PriorityBinaryLock(SpinPolicy.adaptive(1, TimeUnit.MICROSECONDS));
+		for(int i = 0; i < 20; i++){
+			l0.lock();
+			Thread.sleep(5);
+			l0.unlock();
+		}
+
+		Assert.assertTrue(l0.getAverageHoldNanos() >= TimeUnit.MILLISECONDS.toNanos(1));
+
+		l0.lock();
+		Thread th0 = new Thread(() -> l0.lock());
+		th0.start();
+		while(l0.getLowPriorityQueueLength() != 1){
+			Thread.sleep(1);
+		}
+		Thread.sleep(50);
+
+		Assert.assertEquals(Thread.State.WAITING, th0.getState());
+
+		l0.unlock();
+		th0.join(1000);
+		Assert.assertFalse(th0.isAlive());
+	}
+
+	/**
+	 * <li> Given lock l0 has 3 priority levels and gets locked </li>
+	 * <li> And thread th0 tries to lock l0 with level 2 </li>
+	 * <li> And thread th1 tries to lock l0 with level 1 </li>
+	 * <li> When l0 is unlocked by each thread that takes it </li>
+	 * <li> Then th1 takes l0 before th0 </li>
+	 */
+	@Test
+	public void testHigherLevelShouldTakeTheLockFirst() throws Exception {
+		PriorityBinaryLock l0 = new PriorityBinaryLock(3);
+		l0.lock();
+
+		List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+		Thread th0 = startLockingThread(l0, 2, 0, order);
+		Thread th1 = startLockingThread(l0, 1, 1, order);
+
+		Assert.assertEquals(1, l0.getQueueLength(1));
+		Assert.assertEquals(1, l0.getQueueLength(2));
+		Assert.assertEquals(1, l0.getLowPriorityQueueLength());
+
+		l0.unlock();
+		th0.join(1000);
+		th1.join(1000);
+
+		Assert.assertEquals(Arrays.asList(1, 0), order);
+	}
+
+	/**
+	 * <li> Given lock l0 has 3 priority levels and an aging threshold of 2, and gets locked </li>
+	 * <li> And thread th0 tries to lock l0 with level 2 </li>
+	 * <li> And threads th1, th2 and th3 try to lock l0 with level 1 </li>
+	 * <li> And thread th4 tries to lock l0 with level 0 </li>
+	 * <li> When l0 is unlocked by each thread that takes it </li>
+	 * <li> Then th4 takes it first, since level 0 is never passed over </li>
+	 * <li> And th0 takes it after being passed over twice, before th2 and th3 </li>
+	 */
+	@Test
+	public void testPassedOverLevelShouldGoAheadOfHigherLevels() throws Exception {
+		PriorityBinaryLock l0 = new PriorityBinaryLock(3);
+		l0.setAgingThreshold(2);
+		l0.lock();
+
+		List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+		Thread[] threads = new Thread[]{
+				startLockingThread(l0, 2, 0, order),
+				startLockingThread(l0, 1, 1, order),
+				startLockingThread(l0, 1, 2, order),
+				startLockingThread(l0, 1, 3, order),
+				startLockingThread(l0, 0, 4, order)
+		};
+
+		l0.unlock();
+		for(Thread th : threads){
+			th.join(1000);
+		}
+
+		Assert.assertEquals(Arrays.asList(4, 1, 0, 2, 3), order);
+		Assert.assertFalse(l0.hasQueuedThreads());
+	}
+
+	/**
+	 * Starts a thread that locks the given lock with the given level, adds its id to order and unlocks it.
+	 * Returns once the thread is waiting in the lock's queue
+	 */
+	private Thread startLockingThread(PriorityBinaryLock lock, int level, int id, List<Integer> order) throws InterruptedException {
+		final long queued = lock.getQueueLength(level);
+		Thread th = new Thread(() -> {
+			lock.lock(level);
+			order.add(id);
+			lock.unlock();
+		});
+		th.start();
+		while(lock.getQueueLength(level) == queued){
+			Thread.sleep(1);
+		}
+		return th;
+	}
+
+	/**
+	 * <li> Given lock l0 used as a {@link Lock} </li>
+	 * <li> When I try to lock l0 without waiting twice </li>
+	 * <li> Then the first try takes l0 and the second one fails </li>
+	 * <li> And once unlocked, a timed try takes l0 </li>
+	 */
+	@Test
+	public void testTryLockShouldOnlyTakeAFreeLock() throws Exception {
+		Lock l0 = new PriorityBinaryLock();
+
+		Assert.assertTrue(l0.tryLock());
+		Assert.assertFalse(l0.tryLock());
+
+		l0.unlock();
+
+		Assert.assertTrue(l0.tryLock(100, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * <li> Given lock l0 and its condition c0 </li>
+	 * <li> And thread th0 takes l0 and awaits c0 </li>
+	 * <li> When I take l0 and signal c0 </li>
+	 * <li> Then th0 doesn't resume until I unlock l0 </li>
+	 * <li> And th0 resumes holding l0 </li>
+	 */
+	@Test
+	public void testSignalledThreadShouldResumeHoldingTheLock() throws Exception {
+		PriorityBinaryLock l0 = new PriorityBinaryLock();
+		Condition c0 = l0.newCondition();
+
+		CountDownLatch waiting = new CountDownLatch(1);
+		FutureTask<Boolean> task = new FutureTask<>(() -> {
+			l0.lock();
+			waiting.countDown();
+			c0.await();
+			boolean locked = l0.isLocked();
+			l0.unlock();
+			return locked;
+		});
+		new Thread(task).start();
+		Assert.assertTrue(waiting.await(1, TimeUnit.SECONDS));
+
+		l0.lock();
+		c0.signal();
+		Thread.sleep(50);
+
+		Assert.assertFalse(task.isDone());
+
+		l0.unlock();
+
+		Assert.assertTrue(task.get(1, TimeUnit.SECONDS));
+		Assert.assertFalse(l0.isLocked());
+	}
+
+	/**
+	 * <li> Given lock l0 and its condition c0 </li>
+	 * <li> When I take l0 and await c0 for 50 ms </li>
+	 * <li> Then the wait times out holding l0 </li>
+	 * <li> And signalling c0 afterwards has no effect </li>
+	 */
+	@Test
+	public void testTimedAwaitShouldTimeOutHoldingTheLock() throws Exception {
+		PriorityBinaryLock l0 = new PriorityBinaryLock();
+		Condition c0 = l0.newCondition();
+
+		l0.lock();
+
+		Assert.assertFalse(c0.await(50, TimeUnit.MILLISECONDS));
+		Assert.assertTrue(l0.isLocked());
+
+		c0.signalAll();
+		l0.unlock();
+
+		Assert.assertFalse(l0.isLocked());
+	}
+
+	/**
+	 * <li> Given lock l0 is not taken </li>
+	 * <li> When I await one of its conditions </li>
+	 * <li> Then an IllegalMonitorStateException is thrown </li>
+	 */
+	@Test(expected = IllegalMonitorStateException.class)
+	public void testAwaitWithoutTheLockShouldThrowException() throws Exception {
+		new PriorityBinaryLock().newCondition().await();
+	}
+
+	/**
+	 * <li> Given a null spin policy </li>
+	 * <li> When I create a lock with it </li>
+	 * <li> Then an IllegalArgumentException is thrown </li>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullSpinPolicyShouldNotBeAllowedWhenCreatingTheLock() {
+		new PriorityBinaryLock((SpinPolicy) null);
+	}
+
+	/**
+	 * <li> Given lock l0 </li>
+	 * <li> When I set it a null spin policy </li>
+	 * <li> Then an IllegalArgumentException is thrown </li>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullSpinPolicyShouldNotBeAllowedWhenSettingIt() {
+		new PriorityBinaryLock().setSpinPolicy(null);
+	}
 }
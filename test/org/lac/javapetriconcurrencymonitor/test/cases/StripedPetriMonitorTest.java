@@ -0,0 +1,162 @@
+package org.lac.javapetriconcurrencymonitor.test.cases;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.StripedPetriMonitor;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.TransitionFiredEvent;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.FirstInLinePolicy;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.PetriNet;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.components.Transition;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory;
+import org.unc.lac.javapetriconcurrencymonitor.petrinets.factory.PetriNetFactory.petriNetType;
+
+import rx.observers.Observers;
+
+public class StripedPetriMonitorTest {
+
+	StripedPetriMonitor monitor;
+	PetriNet petri;
+
+	private static final String TEST_PETRI_FOLDER = "/org/lac/javapetriconcurrencymonitor/test/resources/";
+	private static final String INDEPENDENT_CYCLES_PETRI = TEST_PETRI_FOLDER + "independentCycles.pnml";
+
+	/**
+	 * Creates petri and monitor from given PNML, and initializes the petri net.
+	 * In independentCycles, p0(1) -> t0 -> p1 -> t1 -> p0 and p2(1) -> t2 -> p3 -> t3 -> p2,
+	 * where t1 is informed and t3 is automatic
+	 * @param PNML path to the PNML file
+	 */
+	private void setUpMonitor(String PNML){
+		petri = new PetriNetFactory(PNML).makePetriNet(petriNetType.PLACE_TRANSITION);
+		monitor = new StripedPetriMonitor(petri, new FirstInLinePolicy(petri));
+		petri.initializePetriNet();
+	}
+
+	/**
+	 * <li> Given a net with 4 places </li>
+	 * <li> When I create a StripedPetriMonitor for it </li>
+	 * <li> Then the net has a lock stripe for each place </li>
+	 */
+	@Test
+	public void testMonitorShouldSplitThePlacesIntoStripes() {
+		setUpMonitor(INDEPENDENT_CYCLES_PETRI);
+
+		Assert.assertEquals(4, petri.getLockStripes());
+	}
+
+	/**
+	 * <li> Given an initialized net </li>
+	 * <li> When I create a StripedPetriMonitor for it </li>
+	 * <li> Then an IllegalStateException is thrown </li>
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testMonitorForInitializedNetShouldThrowException() {
+		petri = new PetriNetFactory(INDEPENDENT_CYCLES_PETRI).makePetriNet(petriNetType.PLACE_TRANSITION);
+		petri.initializePetriNet();
+
+		new StripedPetriMonitor(petri, new FirstInLinePolicy(petri));
+	}
+
+	/**
+	 * <li> Given t3 is automatic and needs a token in p3 </li>
+	 * <li> When I fire t2 </li>
+	 * <li> Then t3 is fired too </li>
+	 * <li> And the final marking is {1, 0, 1, 0} </li>
+	 */
+	@Test
+	public void testFireShouldFireAutomaticTransitionsAfterwards() throws Exception {
+		setUpMonitor(INDEPENDENT_CYCLES_PETRI);
+
+		monitor.fireTransition(petri.getTransitions()[2]);
+
+		Assert.assertArrayEquals(new Integer[]{1, 0, 1, 0}, petri.getCurrentMarking());
+		Assert.assertEquals(2, petri.getFiringSequenceNumber());
+	}
+
+	/**
+	 * <li> Given t1 needs a token in p1 </li>
+	 * <li> And th0 is waiting to fire t1 </li>
+	 * <li> When I fire t0, which is fired outside the monitor </li>
+	 * <li> Then th0 is woken up and fires t1 </li>
+	 * <li> And t1's event has the sequence number of its firing </li>
+	 */
+	@Test
+	public void testBlockedFireShouldBeMadeWhenTheTransitionGetsEnabled() throws Exception {
+		setUpMonitor(INDEPENDENT_CYCLES_PETRI);
+
+		Transition t0 = petri.getTransitions()[0];
+		Transition t1 = petri.getTransitions()[1];
+		List<TransitionFiredEvent> events = new ArrayList<>();
+		monitor.subscribeToTransitionEvents(t1, Observers.create(events::add));
+
+		Thread th0 = new Thread(() -> {
+			try {
+				monitor.fireTransition(t1);
+			} catch (Exception e) {
+				Assert.fail("Exception thrown in test execution");
+			}
+		});
+		th0.start();
+		while(!monitor.getQueuesState()[1]){
+			Thread.sleep(10);
+		}
+
+		monitor.fireTransition(t0);
+		th0.join(1000);
+
+		Assert.assertFalse(th0.isAlive());
+		Assert.assertArrayEquals(new Integer[]{1, 0, 1, 0}, petri.getCurrentMarking());
+		Assert.assertEquals(1, events.size());
+		Assert.assertEquals(2, events.get(0).getSequenceNumber());
+	}
+
+	/**
+	 * <li> Given two independent cycles with a token each </li>
+	 * <li> When 8 threads fire t0 and t1 and other 8 threads fire t2, 200 times each </li>
+	 * <li> Then every fire is made, including the automatic t3 after each t2 </li>
+	 * <li> And every t1 event is sent </li>
+	 * <li> And the final marking is {1, 0, 1, 0} </li>
+	 */
+	@Test
+	public void testConcurrentFiresInIndependentCyclesShouldAllBeMade() throws Exception {
+		setUpMonitor(INDEPENDENT_CYCLES_PETRI);
+
+		Transition[] t = petri.getTransitions();
+		List<TransitionFiredEvent> events = new ArrayList<>();
+		monitor.subscribeToTransitionEvents(t[1], Observers.create(events::add));
+		AtomicInteger failures = new AtomicInteger(0);
+
+		Thread[] threads = new Thread[16];
+		for(int i = 0; i < threads.length; i++){
+			final boolean firstCycle = i % 2 == 0;
+			threads[i] = new Thread(() -> {
+				try {
+					for(int j = 0; j < 200; j++){
+						if(firstCycle){
+							monitor.fireTransition(t[0]);
+							monitor.fireTransition(t[1]);
+						} else {
+							monitor.fireTransition(t[2]);
+						}
+					}
+				} catch (Exception e) {
+					failures.incrementAndGet();
+				}
+			});
+			threads[i].start();
+		}
+		for(Thread th : threads){
+			th.join(10000);
+			Assert.assertFalse(th.isAlive());
+		}
+
+		Assert.assertEquals(0, failures.get());
+		Assert.assertEquals(6400, petri.getFiringSequenceNumber());
+		Assert.assertEquals(1600, events.size());
+		Assert.assertArrayEquals(new Integer[]{1, 0, 1, 0}, petri.getCurrentMarking());
+	}
+}
@@ -0,0 +1,116 @@
+package org.lac.javapetriconcurrencymonitor.test.cases;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.FirstInLinePolicy;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.RandomPolicy;
+import org.unc.lac.javapetriconcurrencymonitor.monitor.policies.TransitionsPolicy;
+
+public class TransitionsPolicyTest {
+
+	/**
+	 * @param bits the indexes of the bits to set
+	 * @return a three words bitset with the given bits set
+	 */
+	private static long[] bitSet(int... bits){
+		long[] words = new long[3];
+		for(int bit : bits){
+			words[bit >>> 6] |= 1L << bit;
+		}
+		return words;
+	}
+
+	/**
+	 * <li> Given an empty bitset and a bitset with no words </li>
+	 * <li> When I ask a FirstInLinePolicy and a RandomPolicy which transition to fire </li>
+	 * <li> Then both answer -1 </li>
+	 */
+	@Test
+	public void testEmptyBitSetShouldGiveNoTransition() {
+		TransitionsPolicy[] policies = {new FirstInLinePolicy(null), new RandomPolicy(null)};
+		for(TransitionsPolicy policy : policies){
+			Assert.assertEquals(-1, policy.which(bitSet()));
+			Assert.assertEquals(-1, policy.which(new long[0]));
+		}
+	}
+
+	/**
+	 * <li> Given bitsets with a single bit set, in the first, second and third words </li>
+	 * <li> When I ask a FirstInLinePolicy and a RandomPolicy which transition to fire </li>
+	 * <li> Then both answer the set bit </li>
+	 */
+	@Test
+	public void testSingleBitShouldBeChosen() {
+		TransitionsPolicy[] policies = {new FirstInLinePolicy(null), new RandomPolicy(null)};
+		for(TransitionsPolicy policy : policies){
+			for(int bit : new int[]{0, 5, 63, 64, 70, 130, 191}){
+				for(int i = 0; i < 20; i++){
+					Assert.assertEquals(bit, policy.which(bitSet(bit)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * <li> Given bits 70 and 130 are set, with the first word empty </li>
+	 * <li> When I ask a FirstInLinePolicy which transition to fire </li>
+	 * <li> Then it answers 70 </li>
+	 * <li> And with bit 3 also set it answers 3 </li>
+	 */
+	@Test
+	public void testFirstInLineShouldChooseTheLowestBitAcrossWords() {
+		FirstInLinePolicy policy = new FirstInLinePolicy(null);
+
+		Assert.assertEquals(70, policy.which(bitSet(70, 130)));
+		Assert.assertEquals(3, policy.which(bitSet(3, 70, 130)));
+	}
+
+	/**
+	 * <li> Given bits 3, 63, 70 and 130 are set, spread over three words </li>
+	 * <li> When I ask a RandomPolicy which transition to fire 4000 times </li>
+	 * <li> Then it only answers set bits </li>
+	 * <li> And each of them is chosen about as often as the others, since words with fewer bits don't weigh more </li>
+	 */
+	@Test
+	public void testRandomShouldOnlyChooseSetBitsUniformly() {
+		RandomPolicy policy = new RandomPolicy(null);
+		int[] bits = {3, 63, 70, 130};
+		long[] enabled = bitSet(bits);
+		int[] chosen = new int[3 * Long.SIZE];
+
+		for(int i = 0; i < 4000; i++){
+			int transition = policy.which(enabled);
+			Assert.assertTrue("Bit " + transition + " is not set", transition >= 0 && (enabled[transition >>> 6] & 1L << transition) != 0);
+			chosen[transition]++;
+		}
+
+		for(int bit : bits){
+			// 1000 times expected, with a standard deviation of about 27
+			Assert.assertTrue("Bit " + bit + " chosen " + chosen[bit] + " times", chosen[bit] > 800 && chosen[bit] < 1200);
+		}
+	}
+
+	/**
+	 * <li> Given a policy that only decides on arrays of booleans </li>
+	 * <li> When I ask it which transition to fire with bit 70 set </li>
+	 * <li> Then the bitset is expanded and it answers 70 </li>
+	 */
+	@Test
+	public void testDefaultBitSetDecisionShouldExpandTheBitSet() {
+		TransitionsPolicy policy = new TransitionsPolicy(null) {
+			@Override
+			public int which(boolean[] enabled) {
+				for(int i = enabled.length - 1; i >= 0; i--){
+					if(enabled[i]){
+						return i;
+					}
+				}
+				return -1;
+			}
+		};
+
+		Assert.assertEquals(70, policy.which(bitSet(70)));
+		Assert.assertEquals(130, policy.which(bitSet(3, 70, 130)));
+		Assert.assertEquals(-1, policy.which(bitSet()));
+	}
+}